@@ -0,0 +1,75 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * 应用设置
+ *
+ * 设置保存在 SharedPreferences 中，首次获取时开始在后台加载。
+ */
+public final class AppSettings {
+
+    private static final String PREFS_SETTINGS = "settings";
+    // 旧版本的布尔设置，只用于读取默认值
+    private static final String PREF_SPEAK_ON_TAP = "speak_on_tap";
+    private static final String PREF_SPEAK_MODE = "speak_mode";
+    static final String PREF_SORT_BY_USAGE = "sort_by_usage";
+
+    // 点击词组时的发音方式：不发音 / 播放该词组 / 边组句边朗读
+    public static final int SPEAK_MODE_OFF = 0;
+    public static final int SPEAK_MODE_TAP = 1;
+    public static final int SPEAK_MODE_STREAMING = 2;
+
+    private static AppSettings instance;
+
+    private final SharedPreferences prefs;
+
+    /**
+     * 获取进程内唯一的设置实例
+     */
+    public static synchronized AppSettings getInstance(Context context) {
+        if (instance == null) {
+            instance = new AppSettings(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private AppSettings(Context context) {
+        this.prefs = context.getSharedPreferences(PREFS_SETTINGS, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * 当前的发音方式
+     */
+    public int getSpeakMode() {
+        int defaultMode = prefs.getBoolean(PREF_SPEAK_ON_TAP, false) ? SPEAK_MODE_TAP : SPEAK_MODE_OFF;
+        return prefs.getInt(PREF_SPEAK_MODE, defaultMode);
+    }
+
+    public void setSpeakMode(int mode) {
+        prefs.edit().putInt(PREF_SPEAK_MODE, mode).apply();
+    }
+
+    /**
+     * 分类页面是否按使用频率排列词组
+     */
+    public boolean isSortByUsage() {
+        return prefs.getBoolean(PREF_SORT_BY_USAGE, false);
+    }
+
+    public void setSortByUsage(boolean sortByUsage) {
+        prefs.edit().putBoolean(PREF_SORT_BY_USAGE, sortByUsage).apply();
+    }
+
+    /**
+     * 监听设置变化；SharedPreferences 只弱引用监听器，调用方需自行持有
+     */
+    public void registerListener(SharedPreferences.OnSharedPreferenceChangeListener listener) {
+        prefs.registerOnSharedPreferenceChangeListener(listener);
+    }
+
+    public void unregisterListener(SharedPreferences.OnSharedPreferenceChangeListener listener) {
+        prefs.unregisterOnSharedPreferenceChangeListener(listener);
+    }
+}
@@ -3,33 +3,249 @@ package com.xtalk.assistant;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.util.Log;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 数据库帮助类，用于管理词组数据的存储和操作
+ *
+ * 进程内只保留一个实例，连接在应用生命周期内保持打开，方法内不再关闭数据库。
  */
 public class DatabaseHelper extends SQLiteOpenHelper {
 
-    // 数据库版本
-    private static final int DATABASE_VERSION = 2;
+    private static final String TAG = "DatabaseHelper";
+
+    // 数据库版本，修改时同步修改 tools/build_default_phrases_db.py
+    static final int DATABASE_VERSION = 9;
+    // 预置词组版本，预置数据库内容变化时递增，已安装用户会合并新增的默认词组
+    static final int DEFAULT_PHRASES_VERSION = 1;
     // 数据库名称
-    private static final String DATABASE_NAME = "PhraseDB";
+    static final String DATABASE_NAME = "PhraseDB";
     // 词组表名
-    private static final String TABLE_PHRASE = "phrase";
+    static final String TABLE_PHRASE = "phrase";
     // 词组表列名
-    private static final String KEY_ID = "id";
-    private static final String KEY_CATEGORY = "category";
-    private static final String KEY_CONTENT = "content";
+    static final String KEY_ID = "id";
+    static final String KEY_CATEGORY = "category";
+    static final String KEY_CONTENT = "content";
+    // 逐字分隔的内容，供全文检索使用，见 PhraseSearchText
+    private static final String KEY_SEARCH_TEXT = "search_text";
+    // 词组全文检索表（FTS4 外部内容表，数据来自词组表，由触发器同步）
+    private static final String TABLE_PHRASE_FTS = "phrase_fts";
+    // 应用元数据表（键值对）
+    private static final String TABLE_META = "app_meta";
+    private static final String KEY_META_KEY = "key";
+    private static final String KEY_META_VALUE = "value";
+    private static final String META_DEFAULT_PHRASES_VERSION = "default_phrases_version";
+    // 词组使用记录表，每个词组一行
+    private static final String TABLE_PHRASE_USAGE = "phrase_usage";
+    private static final String KEY_USAGE_PHRASE_ID = "phrase_id";
+    private static final String KEY_USAGE_TAP_COUNT = "tap_count";
+    private static final String KEY_USAGE_SPOKEN_COUNT = "spoken_count";
+    private static final String KEY_USAGE_SCORE = "score";
+    private static final String KEY_USAGE_LAST_USED = "last_used";
+    // 句子历史表，每个不同的句子一行
+    private static final String TABLE_HISTORY = "sentence_history";
+    private static final String KEY_HISTORY_HASH = "hash";
+    private static final String KEY_HISTORY_TEXT = "text";
+    private static final String KEY_HISTORY_TOKENS = "tokens";
+    private static final String KEY_HISTORY_PHRASE_IDS = "phrase_ids";
+    private static final String KEY_HISTORY_USE_COUNT = "use_count";
+    private static final String KEY_HISTORY_LAST_USED = "last_used";
+    // 读音词典表，同一引擎内文字唯一
+    private static final String TABLE_PRONUNCIATION = "pronunciation";
+    private static final String KEY_PRONUNCIATION_ENGINE = "engine";
+    private static final String KEY_PRONUNCIATION_TEXT = "text";
+    private static final String KEY_PRONUNCIATION_REPLACEMENT = "replacement";
+
+    // 不存在时才写入的词组插入语句（minSdk 的 SQLite 不支持 UPSERT），NOT EXISTS 走分类+内容索引
+    private static final String INSERT_MISSING_PHRASE = "INSERT INTO " + TABLE_PHRASE
+            + "(" + KEY_CATEGORY + ", " + KEY_CONTENT + ", " + KEY_SEARCH_TEXT + ") SELECT ?, ?, ? WHERE NOT EXISTS ("
+            + "SELECT 1 FROM " + TABLE_PHRASE + " WHERE " + KEY_CATEGORY + " = ? AND "
+            + KEY_CONTENT + " = ?)";
+    // 批量导入时每隔多少条检查取消、报告进度
+    private static final int IMPORT_BATCH = 500;
+
+    // 分类+内容的复合索引：按分类查询、DISTINCT 分类、按分类和内容删除都可走索引
+    private static final String INDEX_PHRASE_CATEGORY_CONTENT = "idx_phrase_category_content";
+    // 内容索引：不知道分类时按内容查找词组ID（常用板、词组包中的整句）
+    private static final String INDEX_PHRASE_CONTENT = "idx_phrase_content";
+    private static final String INDEX_HISTORY_HASH = "idx_history_hash";
+    private static final String INDEX_HISTORY_LAST_USED = "idx_history_last_used";
+    private static final String INDEX_PRONUNCIATION_ENGINE_TEXT = "idx_pronunciation_engine_text";
+
+    /**
+     * 逐版本的迁移步骤，新增版本时在末尾追加，不修改已发布的步骤
+     */
+    private static final DatabaseMigration[] MIGRATIONS = {
+            // v1 -> v2：v2 的词组表结构与 v1 相同，仅确保表存在
+            new DatabaseMigration(1, 2) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    createPhraseTable(db, true);
+                }
+            },
+            // v2 -> v3：为词组表添加索引
+            new DatabaseMigration(2, 3) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    createPhraseIndexes(db);
+                }
+            },
+            // v3 -> v4：添加元数据表，用于记录预置词组版本
+            new DatabaseMigration(3, 4) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    createMetaTable(db);
+                    // 旧版本在 onCreate 中写入的默认词组即第 1 版预置词组，避免把用户删掉的词组重新加回来
+                    setMeta(db, META_DEFAULT_PHRASES_VERSION, "1");
+                }
+            },
+            // v4 -> v5：添加词组使用记录表
+            new DatabaseMigration(4, 5) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    createUsageTable(db);
+                }
+            },
+            // v5 -> v6：添加全文检索列、检索表和同步触发器
+            new DatabaseMigration(5, 6) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    addSearchTextColumn(db);
+                    fillSearchText(db);
+                    createSearchIndex(db);
+                }
+            },
+            // v6 -> v7：添加句子历史表
+            new DatabaseMigration(6, 7) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    createHistoryTable(db);
+                }
+            },
+            // v7 -> v8：添加读音词典表
+            new DatabaseMigration(7, 8) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    createPronunciationTable(db);
+                }
+            },
+            // v8 -> v9：为词组表添加内容索引
+            new DatabaseMigration(8, 9) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    createPhraseIndexes(db);
+                }
+            }
+    };
+
+    private static DatabaseHelper instance;
+
+    private final Context context;
+    // 是否已检查过预置数据库的安装
+    private volatile boolean bundledDatabaseChecked = false;
+    private final List<PhraseChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 词组内容变化的监听器，在执行写入的线程回调
+     *
+     * 单条词组的增删改逐条回调，导入词组包只回调一次 {@link #onPhrasesImported()}；
+     * 打开数据库时合并的预置词组不会回调，需要与词组表保持一致的索引在加载时自行对账。
+     */
+    public interface PhraseChangeListener {
+        /**
+         * 词组被添加或修改
+         */
+        void onPhraseSaved(int id, String content);
+
+        /**
+         * 词组被删除
+         */
+        void onPhraseDeleted(int id);
+
+        /**
+         * 批量导入了一批词组（见 {@link #importPhrases}），不再逐条回调，需要时与词组表对账
+         */
+        void onPhrasesImported();
+    }
+
+    /**
+     * 逐个提供待导入的词组，没有更多时返回null
+     */
+    public interface PhraseSource {
+        Phrase next() throws IOException;
+    }
 
     /**
-     * 构造函数
+     * 导入进度，在执行导入的线程回调
      */
-    public DatabaseHelper(Context context) {
+    public interface ImportProgressListener {
+        void onProgress(int processed);
+    }
+
+    /**
+     * 逐个接收导出的词组，按分类聚集、分类内按添加顺序
+     */
+    public interface PhraseSink {
+        void accept(String category, String content) throws IOException;
+    }
+
+    /**
+     * 获取进程内唯一的数据库帮助类实例
+     */
+    public static synchronized DatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new DatabaseHelper(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * 构造函数，外部请使用 {@link #getInstance(Context)}
+     */
+    private DatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.context = context;
+    }
+
+    /**
+     * 首次打开前，如果数据库文件不存在则先复制预置数据库
+     */
+    @Override
+    public SQLiteDatabase getWritableDatabase() {
+        installBundledDatabaseIfNeeded();
+        return super.getWritableDatabase();
+    }
+
+    @Override
+    public SQLiteDatabase getReadableDatabase() {
+        installBundledDatabaseIfNeeded();
+        return super.getReadableDatabase();
+    }
+
+    private void installBundledDatabaseIfNeeded() {
+        if (bundledDatabaseChecked) {
+            return;
+        }
+        synchronized (this) {
+            if (!bundledDatabaseChecked) {
+                DefaultPhraseInstaller.installIfMissing(context, DATABASE_NAME);
+                bundledDatabaseChecked = true;
+            }
+        }
     }
 
     /**
@@ -37,214 +253,373 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      */
     @Override
     public void onCreate(SQLiteDatabase db) {
-        String CREATE_PHRASE_TABLE = "CREATE TABLE " + TABLE_PHRASE + "("
-                + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
-                + KEY_CATEGORY + " TEXT,"
-                + KEY_CONTENT + " TEXT" + ")";
-        db.execSQL(CREATE_PHRASE_TABLE);
+        createPhraseTable(db, false);
+        addSearchTextColumn(db);
+        createPhraseIndexes(db);
+        createSearchIndex(db);
+        createMetaTable(db);
+        createUsageTable(db);
+        createHistoryTable(db);
+        createPronunciationTable(db);
         
         // 初始化默认词组数据
         initializeDefaultPhrases(db);
     }
 
+    /**
+     * 创建词组表
+     */
+    private static void createPhraseTable(SQLiteDatabase db, boolean ifNotExists) {
+        db.execSQL("CREATE TABLE " + (ifNotExists ? "IF NOT EXISTS " : "") + TABLE_PHRASE + "("
+                + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + KEY_CATEGORY + " TEXT,"
+                + KEY_CONTENT + " TEXT" + ")");
+    }
+
+    /**
+     * 创建词组表索引
+     */
+    private static void createPhraseIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_PHRASE_CATEGORY_CONTENT
+                + " ON " + TABLE_PHRASE + "(" + KEY_CATEGORY + ", " + KEY_CONTENT + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_PHRASE_CONTENT
+                + " ON " + TABLE_PHRASE + "(" + KEY_CONTENT + ")");
+    }
+
+    /**
+     * 为词组表添加全文检索列
+     */
+    private static void addSearchTextColumn(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_PHRASE + " ADD COLUMN " + KEY_SEARCH_TEXT + " TEXT");
+    }
+
+    /**
+     * 为已有词组填写全文检索列
+     */
+    private static void fillSearchText(SQLiteDatabase db) {
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_PHRASE + " SET "
+                + KEY_SEARCH_TEXT + " = ? WHERE " + KEY_ID + " = ?");
+        Cursor cursor = db.query(TABLE_PHRASE, new String[]{KEY_ID, KEY_CONTENT}, null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                update.bindString(1, PhraseSearchText.of(cursor.getString(1)));
+                update.bindLong(2, cursor.getLong(0));
+                update.executeUpdateDelete();
+            }
+        } finally {
+            cursor.close();
+            update.close();
+        }
+    }
+
+    /**
+     * 创建全文检索表和同步触发器，并从词组表重建索引
+     *
+     * 外部内容表自身不保存文本，按 FTS4 文档的方式用触发器维护：
+     * 更新和删除前先删除旧的索引，插入和更新后再写入新的索引。
+     * 修改时同步修改 tools/build_default_phrases_db.py 和 benchmark 模块的 PhraseStoreBenchmark。
+     */
+    private static void createSearchIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_PHRASE_FTS + " USING fts4(content=\""
+                + TABLE_PHRASE + "\", " + KEY_SEARCH_TEXT + ")");
+        String deleteOld = " BEGIN DELETE FROM " + TABLE_PHRASE_FTS + " WHERE docid = old." + KEY_ID + "; END";
+        String insertNew = " BEGIN INSERT INTO " + TABLE_PHRASE_FTS + "(docid, " + KEY_SEARCH_TEXT
+                + ") VALUES (new." + KEY_ID + ", new." + KEY_SEARCH_TEXT + "); END";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS phrase_fts_bu BEFORE UPDATE ON " + TABLE_PHRASE + deleteOld);
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS phrase_fts_bd BEFORE DELETE ON " + TABLE_PHRASE + deleteOld);
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS phrase_fts_au AFTER UPDATE ON " + TABLE_PHRASE + insertNew);
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS phrase_fts_ai AFTER INSERT ON " + TABLE_PHRASE + insertNew);
+        db.execSQL("INSERT INTO " + TABLE_PHRASE_FTS + "(" + TABLE_PHRASE_FTS + ") VALUES ('rebuild')");
+    }
+
     /**
      * 初始化默认词组数据
+     *
+     * 正常情况下首次启动直接复制预置数据库，不会走到这里；
+     * 只有复制失败时才从预置数据库读取词组，在建表事务内批量写入。
      */
     private void initializeDefaultPhrases(SQLiteDatabase db) {
-        // 人称分类
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "我"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "你"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "他"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "家"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "爸"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "妈"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "儿子"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "女儿"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "爷爷"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "奶奶"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "姥姥"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "姥爷"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "老婆"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "男"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "女"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "亲戚"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "哥"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "弟"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "姐"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "妹"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "姑"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "姨"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "舅"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "叔"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "表"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "老师"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "医生"));
-        addPhrase(db, new Phrase(0, "clothing_food_housing_transport", "谁"));
-
-        // 判断分类
-        addPhrase(db, new Phrase(0, "relationships", "是"));
-        addPhrase(db, new Phrase(0, "relationships", "不是"));
-        addPhrase(db, new Phrase(0, "relationships", "有"));
-        addPhrase(db, new Phrase(0, "relationships", "没有"));
-        addPhrase(db, new Phrase(0, "relationships", "不"));
-        addPhrase(db, new Phrase(0, "relationships", "别"));
-        addPhrase(db, new Phrase(0, "relationships", "什么"));
-        addPhrase(db, new Phrase(0, "relationships", "吗"));
-        addPhrase(db, new Phrase(0, "relationships", "了"));
-        addPhrase(db, new Phrase(0, "relationships", "和"));
-        addPhrase(db, new Phrase(0, "relationships", "的"));
-        addPhrase(db, new Phrase(0, "relationships", "在"));
-
-        // 方位分类
-        addPhrase(db, new Phrase(0, "actions", "上"));
-        addPhrase(db, new Phrase(0, "actions", "下"));
-        addPhrase(db, new Phrase(0, "actions", "左"));
-        addPhrase(db, new Phrase(0, "actions", "右"));
-        addPhrase(db, new Phrase(0, "actions", "面"));
-        addPhrase(db, new Phrase(0, "actions", "前"));
-        addPhrase(db, new Phrase(0, "actions", "后"));
-        addPhrase(db, new Phrase(0, "actions", "里"));
-        addPhrase(db, new Phrase(0, "actions", "外"));
-        addPhrase(db, new Phrase(0, "actions", "哪"));
-        addPhrase(db, new Phrase(0, "actions", "那"));
-
-        // 动作分类
-        addPhrase(db, new Phrase(0, "emotions", "吃"));
-        addPhrase(db, new Phrase(0, "emotions", "想"));
-        addPhrase(db, new Phrase(0, "emotions", "说"));
-        addPhrase(db, new Phrase(0, "emotions", "去"));
-        addPhrase(db, new Phrase(0, "emotions", "看"));
-        addPhrase(db, new Phrase(0, "emotions", "听"));
-        addPhrase(db, new Phrase(0, "emotions", "喝"));
-        addPhrase(db, new Phrase(0, "emotions", "用"));
-        addPhrase(db, new Phrase(0, "emotions", "睡"));
-        addPhrase(db, new Phrase(0, "emotions", "走"));
-        addPhrase(db, new Phrase(0, "emotions", "穿"));
-        addPhrase(db, new Phrase(0, "emotions", "脱"));
-        addPhrase(db, new Phrase(0, "emotions", "来"));
-        addPhrase(db, new Phrase(0, "emotions", "等"));
-        addPhrase(db, new Phrase(0, "emotions", "坐"));
-        addPhrase(db, new Phrase(0, "emotions", "站"));
-        addPhrase(db, new Phrase(0, "emotions", "买"));
-        addPhrase(db, new Phrase(0, "emotions", "借"));
-        addPhrase(db, new Phrase(0, "emotions", "需要"));
-        addPhrase(db, new Phrase(0, "emotions", "好"));
-        addPhrase(db, new Phrase(0, "emotions", "不好"));
-        addPhrase(db, new Phrase(0, "emotions", "洗澡"));
-        addPhrase(db, new Phrase(0, "emotions", "刷牙"));
-        addPhrase(db, new Phrase(0, "emotions", "剪"));
-
-        // 状态分类
-        addPhrase(db, new Phrase(0, "requests", "饿"));
-        addPhrase(db, new Phrase(0, "requests", "渴"));
-        addPhrase(db, new Phrase(0, "requests", "困"));
-        addPhrase(db, new Phrase(0, "requests", "疼"));
-        addPhrase(db, new Phrase(0, "requests", "痒"));
-        addPhrase(db, new Phrase(0, "requests", "高兴"));
-        addPhrase(db, new Phrase(0, "requests", "难受"));
-        addPhrase(db, new Phrase(0, "requests", "生气"));
-        addPhrase(db, new Phrase(0, "requests", "害怕"));
-        addPhrase(db, new Phrase(0, "requests", "新"));
-        addPhrase(db, new Phrase(0, "requests", "旧"));
-        addPhrase(db, new Phrase(0, "requests", "老"));
-        addPhrase(db, new Phrase(0, "requests", "干净"));
-        addPhrase(db, new Phrase(0, "requests", "脏"));
-        addPhrase(db, new Phrase(0, "requests", "快"));
-        addPhrase(db, new Phrase(0, "requests", "慢"));
-        addPhrase(db, new Phrase(0, "requests", "大"));
-        addPhrase(db, new Phrase(0, "requests", "小"));
-        addPhrase(db, new Phrase(0, "requests", "多"));
-        addPhrase(db, new Phrase(0, "requests", "少"));
-        addPhrase(db, new Phrase(0, "requests", "冷"));
-        addPhrase(db, new Phrase(0, "requests", "热"));
-
-        // 数字分类
-        addPhrase(db, new Phrase(0, "other", "1"));
-        addPhrase(db, new Phrase(0, "other", "2"));
-        addPhrase(db, new Phrase(0, "other", "3"));
-        addPhrase(db, new Phrase(0, "other", "4"));
-        addPhrase(db, new Phrase(0, "other", "5"));
-        addPhrase(db, new Phrase(0, "other", "6"));
-        addPhrase(db, new Phrase(0, "other", "7"));
-        addPhrase(db, new Phrase(0, "other", "8"));
-        addPhrase(db, new Phrase(0, "other", "9"));
-        addPhrase(db, new Phrase(0, "other", "0"));
-        addPhrase(db, new Phrase(0, "other", "个"));
-        addPhrase(db, new Phrase(0, "other", "十"));
-        addPhrase(db, new Phrase(0, "other", "百"));
-        addPhrase(db, new Phrase(0, "other", "千"));
-        addPhrase(db, new Phrase(0, "other", "万"));
-        addPhrase(db, new Phrase(0, "other", "点"));
-        addPhrase(db, new Phrase(0, "other", "块"));
-
-        // 时间分类
-        addPhrase(db, new Phrase(0, "time", "今天"));
-        addPhrase(db, new Phrase(0, "time", "明天"));
-        addPhrase(db, new Phrase(0, "time", "后天"));
-        addPhrase(db, new Phrase(0, "time", "昨天"));
-        addPhrase(db, new Phrase(0, "time", "以前"));
-        addPhrase(db, new Phrase(0, "time", "以后"));
-        addPhrase(db, new Phrase(0, "time", "时候"));
-        addPhrase(db, new Phrase(0, "time", "早上"));
-        addPhrase(db, new Phrase(0, "time", "中午"));
-        addPhrase(db, new Phrase(0, "time", "晚上"));
-        addPhrase(db, new Phrase(0, "time", "刚才"));
-
-        // 名词分类
-        addPhrase(db, new Phrase(0, "noun", "医院"));
-        addPhrase(db, new Phrase(0, "noun", "药"));
-        addPhrase(db, new Phrase(0, "noun", "电话"));
-        addPhrase(db, new Phrase(0, "noun", "车"));
-        addPhrase(db, new Phrase(0, "noun", "房子"));
-        addPhrase(db, new Phrase(0, "noun", "床"));
-        addPhrase(db, new Phrase(0, "noun", "钱"));
-        addPhrase(db, new Phrase(0, "noun", "红包"));
-        addPhrase(db, new Phrase(0, "noun", "电视"));
-        addPhrase(db, new Phrase(0, "noun", "手机"));
-        addPhrase(db, new Phrase(0, "noun", "饮料"));
-        addPhrase(db, new Phrase(0, "noun", "水"));
-        addPhrase(db, new Phrase(0, "noun", "饭"));
-        addPhrase(db, new Phrase(0, "noun", "肉"));
-        addPhrase(db, new Phrase(0, "noun", "东西"));
-        addPhrase(db, new Phrase(0, "noun", "头"));
-        addPhrase(db, new Phrase(0, "noun", "胳膊"));
-        addPhrase(db, new Phrase(0, "noun", "手"));
-        addPhrase(db, new Phrase(0, "noun", "腿"));
-        addPhrase(db, new Phrase(0, "noun", "头发"));
-        addPhrase(db, new Phrase(0, "noun", "脚"));
-        addPhrase(db, new Phrase(0, "noun", "衣服"));
-        addPhrase(db, new Phrase(0, "noun", "鞋"));
-        addPhrase(db, new Phrase(0, "noun", "厕所"));
-    }
-
-    /**
-     * 数据库升级时调用
+        List<Phrase> defaults = DefaultPhraseInstaller.readBundledPhrases(context);
+        insertMissingPhrases(db, defaults);
+        setMeta(db, META_DEFAULT_PHRASES_VERSION, String.valueOf(DEFAULT_PHRASES_VERSION));
+    }
+
+    /**
+     * 创建元数据表
+     */
+    private static void createMetaTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_META + "("
+                + KEY_META_KEY + " TEXT PRIMARY KEY,"
+                + KEY_META_VALUE + " TEXT" + ")");
+    }
+
+    /**
+     * 创建词组使用记录表
+     */
+    private static void createUsageTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_PHRASE_USAGE + "("
+                + KEY_USAGE_PHRASE_ID + " INTEGER PRIMARY KEY,"
+                + KEY_USAGE_TAP_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + KEY_USAGE_SPOKEN_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + KEY_USAGE_SCORE + " REAL NOT NULL DEFAULT 0,"
+                + KEY_USAGE_LAST_USED + " INTEGER NOT NULL DEFAULT 0" + ")");
+    }
+
+    /**
+     * 创建句子历史表：按朗读文本的哈希去重查找，按最后使用时间分页和淘汰
+     */
+    private static void createHistoryTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_HISTORY + "("
+                + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + KEY_HISTORY_HASH + " INTEGER NOT NULL,"
+                + KEY_HISTORY_TEXT + " TEXT NOT NULL,"
+                + KEY_HISTORY_TOKENS + " TEXT NOT NULL,"
+                + KEY_HISTORY_PHRASE_IDS + " TEXT NOT NULL,"
+                + KEY_HISTORY_USE_COUNT + " INTEGER NOT NULL DEFAULT 1,"
+                + KEY_HISTORY_LAST_USED + " INTEGER NOT NULL" + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_HISTORY_HASH
+                + " ON " + TABLE_HISTORY + "(" + KEY_HISTORY_HASH + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_HISTORY_LAST_USED
+                + " ON " + TABLE_HISTORY + "(" + KEY_HISTORY_LAST_USED + ", " + KEY_ID + ")");
+    }
+
+    /**
+     * 创建读音词典表：engine 为空字符串表示用于所有引擎，按 引擎+文字 唯一
+     */
+    private static void createPronunciationTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_PRONUNCIATION + "("
+                + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + KEY_PRONUNCIATION_ENGINE + " TEXT NOT NULL DEFAULT '',"
+                + KEY_PRONUNCIATION_TEXT + " TEXT NOT NULL,"
+                + KEY_PRONUNCIATION_REPLACEMENT + " TEXT NOT NULL" + ")");
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + INDEX_PRONUNCIATION_ENGINE_TEXT
+                + " ON " + TABLE_PRONUNCIATION + "(" + KEY_PRONUNCIATION_ENGINE + ", " + KEY_PRONUNCIATION_TEXT + ")");
+    }
+
+    /**
+     * 数据库打开后，如果预置词组有新版本，则合并新增的默认词组
      */
     @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // 删除旧表
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_PHRASE);
-        // 重新创建表
-        onCreate(db);
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        if (db.isReadOnly()) {
+            return;
+        }
+        int installedVersion = parseInt(getMeta(db, META_DEFAULT_PHRASES_VERSION));
+        if (installedVersion >= DEFAULT_PHRASES_VERSION) {
+            return;
+        }
+        List<Phrase> defaults = DefaultPhraseInstaller.readBundledPhrases(context);
+        if (defaults.isEmpty()) {
+            return;
+        }
+        db.beginTransaction();
+        try {
+            int inserted = insertMissingPhrases(db, defaults);
+            setMeta(db, META_DEFAULT_PHRASES_VERSION, String.valueOf(DEFAULT_PHRASES_VERSION));
+            db.setTransactionSuccessful();
+            Log.i(TAG, "预置词组从版本 " + installedVersion + " 合并到 " + DEFAULT_PHRASES_VERSION
+                    + "，新增 " + inserted + " 条");
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * 批量写入数据库中尚不存在的词组（按分类+内容判断），返回实际写入的条数
+     *
+     * 使用预编译语句逐条绑定参数，调用方负责开启事务。
+     */
+    private static int insertMissingPhrases(SQLiteDatabase db, List<Phrase> phrases) {
+        SQLiteStatement insert = db.compileStatement(INSERT_MISSING_PHRASE);
+        int inserted = 0;
+        try {
+            for (Phrase phrase : phrases) {
+                if (bindAndInsertMissing(insert, phrase.getCategory(), phrase.getContent())) {
+                    inserted++;
+                }
+            }
+        } finally {
+            insert.close();
+        }
+        return inserted;
+    }
+
+    /**
+     * 用 {@link #INSERT_MISSING_PHRASE} 写入一条词组，已存在时返回false
+     */
+    private static boolean bindAndInsertMissing(SQLiteStatement insert, String category, String content) {
+        insert.bindString(1, category);
+        insert.bindString(2, content);
+        insert.bindString(3, PhraseSearchText.of(content));
+        insert.bindString(4, category);
+        insert.bindString(5, content);
+        boolean inserted = insert.executeInsert() != -1;
+        insert.clearBindings();
+        return inserted;
     }
 
     /**
-     * 添加词组到数据库
+     * 在一个事务中批量导入词组，返回实际新增的条数
+     *
+     * 与合并预置词组相同，按 分类+内容 去重，已存在的词组保持原样（包括ID和使用记录）。
+     * 每 {@link #IMPORT_BATCH} 条检查一次取消并报告进度；取消或读取出错时整个事务回滚，
+     * 不留下导入了一半的词组。完成后通知监听器对账。
+     *
+     * @throws OperationCanceledException 导入被取消
      */
-    public void addPhrase(Phrase phrase) {
+    public int importPhrases(PhraseSource source, CancellationSignal cancellationSignal,
+                             ImportProgressListener progressListener) throws IOException {
         SQLiteDatabase db = this.getWritableDatabase();
-        addPhrase(db, phrase);
-        db.close();
+        SQLiteStatement insert = db.compileStatement(INSERT_MISSING_PHRASE);
+        int processed = 0;
+        int inserted = 0;
+        db.beginTransaction();
+        try {
+            Phrase phrase;
+            while ((phrase = source.next()) != null) {
+                if (bindAndInsertMissing(insert, phrase.getCategory(), phrase.getContent())) {
+                    inserted++;
+                }
+                if (++processed % IMPORT_BATCH == 0) {
+                    if (cancellationSignal != null) {
+                        cancellationSignal.throwIfCanceled();
+                    }
+                    if (progressListener != null) {
+                        progressListener.onProgress(processed);
+                    }
+                }
+            }
+            if (cancellationSignal != null) {
+                cancellationSignal.throwIfCanceled();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+        Log.i(TAG, "导入词组 " + processed + " 条，新增 " + inserted + " 条");
+        if (inserted > 0) {
+            for (PhraseChangeListener listener : changeListeners) {
+                listener.onPhrasesImported();
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * 按分类、分类内添加顺序逐条导出全部词组，用游标流式读取，不整体载入内存
+     */
+    public void exportPhrases(PhraseSink sink) throws IOException {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_PHRASE, new String[]{KEY_CATEGORY, KEY_CONTENT},
+                null, null, null, null, KEY_CATEGORY + ", " + KEY_ID);
+        if (cursor == null) {
+            return;
+        }
+        try {
+            while (cursor.moveToNext()) {
+                sink.accept(cursor.getString(0), cursor.getString(1));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * 读取元数据，不存在时返回null
+     */
+    private static String getMeta(SQLiteDatabase db, String key) {
+        Cursor cursor = db.query(TABLE_META, new String[]{KEY_META_VALUE},
+                KEY_META_KEY + "=?", new String[]{key}, null, null, null);
+        String value = null;
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                value = cursor.getString(0);
+            }
+            cursor.close();
+        }
+        return value;
+    }
+
+    /**
+     * 写入元数据
+     */
+    private static void setMeta(SQLiteDatabase db, String key, String value) {
+        ContentValues values = new ContentValues();
+        values.put(KEY_META_KEY, key);
+        values.put(KEY_META_VALUE, value);
+        db.insertWithOnConflict(TABLE_META, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private static int parseInt(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 数据库升级时调用，逐个版本执行迁移，保留用户数据
+     */
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        int version = oldVersion;
+        while (version < newVersion) {
+            DatabaseMigration migration = findMigration(version);
+            if (migration == null) {
+                throw new IllegalStateException("缺少数据库迁移: " + version + " -> " + (version + 1));
+            }
+            migration.migrate(db);
+            version = migration.getEndVersion();
+        }
+    }
+
+    /**
+     * 查找从指定版本开始的迁移步骤
+     */
+    private static DatabaseMigration findMigration(int startVersion) {
+        for (DatabaseMigration migration : MIGRATIONS) {
+            if (migration.getStartVersion() == startVersion) {
+                return migration;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 注册词组变化监听器
+     */
+    public void addPhraseChangeListener(PhraseChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * 添加词组到数据库，返回新行的ID
+     */
+    public long addPhrase(Phrase phrase) {
+        long id = addPhrase(this.getWritableDatabase(), phrase);
+        if (id != -1) {
+            for (PhraseChangeListener listener : changeListeners) {
+                listener.onPhraseSaved((int) id, phrase.getContent());
+            }
+        }
+        return id;
     }
 
     /**
      * 添加词组到数据库（内部方法，使用现有数据库连接）
      */
-    private void addPhrase(SQLiteDatabase db, Phrase phrase) {
+    private long addPhrase(SQLiteDatabase db, Phrase phrase) {
         ContentValues values = new ContentValues();
         values.put(KEY_CATEGORY, phrase.getCategory());
         values.put(KEY_CONTENT, phrase.getContent());
-        db.insert(TABLE_PHRASE, null, values);
+        values.put(KEY_SEARCH_TEXT, PhraseSearchText.of(phrase.getContent()));
+        return db.insert(TABLE_PHRASE, null, values);
     }
 
     /**
@@ -263,10 +638,28 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             );
             cursor.close();
         }
-        db.close();
         return phrase;
     }
 
+    /**
+     * 按内容查找词组ID，有多个时取最早添加的；不存在时返回 {@link SentenceToken#NO_PHRASE}
+     *
+     * 调用方不知道词组的分类，查询走内容索引。
+     */
+    public int findPhraseId(String content) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_PHRASE, new String[]{KEY_ID}, KEY_CONTENT + "=?",
+                new String[]{content}, null, null, KEY_ID, "1");
+        int id = SentenceToken.NO_PHRASE;
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                id = cursor.getInt(0);
+            }
+            cursor.close();
+        }
+        return id;
+    }
+
     /**
      * 获取指定分类的所有词组
      */
@@ -281,17 +674,93 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             }
             cursor.close();
         }
-        db.close();
+        return phrases;
+    }
+
+    /**
+     * 按插入顺序获取全部词组，用于一次性构建内存快照
+     */
+    public List<Phrase> getAllPhrases() {
+        List<Phrase> phrases = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_PHRASE, new String[]{KEY_ID, KEY_CATEGORY, KEY_CONTENT},
+                null, null, null, null, KEY_ID);
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                phrases.add(new Phrase(cursor.getInt(0), cursor.getString(1), cursor.getString(2)));
+            }
+            cursor.close();
+        }
+        return phrases;
+    }
+
+    /**
+     * 获取指定分类的所有词组（包含ID）
+     */
+    public List<Phrase> getPhraseListByCategory(String category) {
+        List<Phrase> phrases = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_PHRASE, new String[]{KEY_ID, KEY_CATEGORY, KEY_CONTENT},
+                KEY_CATEGORY + "=?", new String[]{category}, null, null, KEY_ID);
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                phrases.add(new Phrase(cursor.getInt(0), cursor.getString(1), cursor.getString(2)));
+            }
+            cursor.close();
+        }
+        return phrases;
+    }
+
+    /**
+     * 在全部分类中检索内容包含输入文字的词组
+     *
+     * 完全相同的排在最前，其次是以输入开头的，再按内容长短排列。
+     * 查询被取消时返回null。
+     */
+    public List<Phrase> searchPhrases(String input, int limit, CancellationSignal cancellationSignal) {
+        List<Phrase> phrases = new ArrayList<>();
+        String match = PhraseSearchText.toMatchQuery(input);
+        if (match == null) {
+            return phrases;
+        }
+        String text = input.trim();
+        SQLiteDatabase db = this.getReadableDatabase();
+        String query = "SELECT p." + KEY_ID + ", p." + KEY_CATEGORY + ", p." + KEY_CONTENT
+                + " FROM " + TABLE_PHRASE_FTS + " JOIN " + TABLE_PHRASE + " p ON p." + KEY_ID + " = "
+                + TABLE_PHRASE_FTS + ".docid WHERE " + TABLE_PHRASE_FTS + " MATCH ?"
+                + " ORDER BY CASE WHEN p." + KEY_CONTENT + " = ? THEN 0"
+                + " WHEN substr(p." + KEY_CONTENT + ", 1, ?) = ? THEN 1 ELSE 2 END,"
+                + " length(p." + KEY_CONTENT + "), p." + KEY_ID + " LIMIT ?";
+        String[] args = {match, text, String.valueOf(text.length()), text, String.valueOf(limit)};
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(query, args, cancellationSignal);
+            while (cursor.moveToNext()) {
+                phrases.add(new Phrase(cursor.getInt(0), cursor.getString(1), cursor.getString(2)));
+            }
+        } catch (OperationCanceledException e) {
+            return null;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
         return phrases;
     }
 
     /**
      * 获取所有分类的名称
+     *
+     * 用递归查询在索引上逐个跳到下一个分类，代价与分类数相关，而不是与词组总数相关。
      */
     public List<String> getAllCategories() {
         List<String> categories = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
-        String query = "SELECT DISTINCT " + KEY_CATEGORY + " FROM " + TABLE_PHRASE;
+        String query = "WITH RECURSIVE c(name) AS ("
+                + "SELECT MIN(" + KEY_CATEGORY + ") FROM " + TABLE_PHRASE
+                + " UNION ALL SELECT (SELECT MIN(" + KEY_CATEGORY + ") FROM " + TABLE_PHRASE
+                + " WHERE " + KEY_CATEGORY + " > c.name) FROM c WHERE c.name IS NOT NULL"
+                + ") SELECT name FROM c WHERE name IS NOT NULL";
         Cursor cursor = db.rawQuery(query, null);
         if (cursor != null) {
             while (cursor.moveToNext()) {
@@ -299,7 +768,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             }
             cursor.close();
         }
-        db.close();
         return categories;
     }
 
@@ -311,28 +779,252 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         ContentValues values = new ContentValues();
         values.put(KEY_CATEGORY, phrase.getCategory());
         values.put(KEY_CONTENT, phrase.getContent());
+        values.put(KEY_SEARCH_TEXT, PhraseSearchText.of(phrase.getContent()));
         int rowsAffected = db.update(TABLE_PHRASE, values, KEY_ID + "=?",
                 new String[]{String.valueOf(phrase.getId())});
-        db.close();
+        if (rowsAffected > 0) {
+            for (PhraseChangeListener listener : changeListeners) {
+                listener.onPhraseSaved(phrase.getId(), phrase.getContent());
+            }
+        }
         return rowsAffected;
     }
 
     /**
-     * 删除词组
+     * 删除词组及其使用记录
      */
     public void deletePhrase(int id) {
         SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_PHRASE, KEY_ID + "=?", new String[]{String.valueOf(id)});
-        db.close();
+        String[] args = {String.valueOf(id)};
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_PHRASE, KEY_ID + "=?", args);
+            db.delete(TABLE_PHRASE_USAGE, KEY_USAGE_PHRASE_ID + "=?", args);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        for (PhraseChangeListener listener : changeListeners) {
+            listener.onPhraseDeleted(id);
+        }
     }
 
     /**
      * 根据分类和内容删除词组
      */
     public void deletePhraseByCategoryAndContent(String category, String content) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_PHRASE, new String[]{KEY_ID},
+                KEY_CATEGORY + "=? AND " + KEY_CONTENT + "=?", new String[]{category, content},
+                null, null, null);
+        List<Integer> ids = new ArrayList<>();
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getInt(0));
+            }
+            cursor.close();
+        }
+        for (int id : ids) {
+            deletePhrase(id);
+        }
+    }
+
+    /**
+     * 在一个事务中累加一批使用记录增量
+     *
+     * 先用预编译的 UPDATE 累加，没有对应行时再 INSERT（minSdk 的 SQLite 不支持 UPSERT）。
+     */
+    public void applyUsage(Collection<PhraseUsage> deltas) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_PHRASE_USAGE + " SET "
+                + KEY_USAGE_TAP_COUNT + " = " + KEY_USAGE_TAP_COUNT + " + ?, "
+                + KEY_USAGE_SPOKEN_COUNT + " = " + KEY_USAGE_SPOKEN_COUNT + " + ?, "
+                + KEY_USAGE_SCORE + " = " + KEY_USAGE_SCORE + " + ?, "
+                + KEY_USAGE_LAST_USED + " = MAX(" + KEY_USAGE_LAST_USED + ", ?)"
+                + " WHERE " + KEY_USAGE_PHRASE_ID + " = ?");
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_PHRASE_USAGE + "("
+                + KEY_USAGE_TAP_COUNT + ", " + KEY_USAGE_SPOKEN_COUNT + ", " + KEY_USAGE_SCORE + ", "
+                + KEY_USAGE_LAST_USED + ", " + KEY_USAGE_PHRASE_ID + ") VALUES (?, ?, ?, ?, ?)");
+        try {
+            for (PhraseUsage delta : deltas) {
+                bindUsage(update, delta);
+                if (update.executeUpdateDelete() == 0) {
+                    bindUsage(insert, delta);
+                    insert.executeInsert();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            update.close();
+            insert.close();
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * 记录一次说出的句子，返回是否新增了一行
+     *
+     * 先用预编译的 UPDATE 按哈希和文本找到已有的句子，累加使用次数并换成最新的词语序列；
+     * 没有时再 INSERT。
+     */
+    public boolean recordHistory(String text, String tokens, String phraseIds, long time) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        long hash = HistoryEntry.hashOf(text);
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_HISTORY + " SET "
+                + KEY_HISTORY_USE_COUNT + " = " + KEY_HISTORY_USE_COUNT + " + 1, "
+                + KEY_HISTORY_LAST_USED + " = MAX(" + KEY_HISTORY_LAST_USED + ", ?), "
+                + KEY_HISTORY_TOKENS + " = ?, " + KEY_HISTORY_PHRASE_IDS + " = ?"
+                + " WHERE " + KEY_HISTORY_HASH + " = ? AND " + KEY_HISTORY_TEXT + " = ?");
+        try {
+            update.bindLong(1, time);
+            update.bindString(2, tokens);
+            update.bindString(3, phraseIds);
+            update.bindLong(4, hash);
+            update.bindString(5, text);
+            if (update.executeUpdateDelete() > 0) {
+                return false;
+            }
+        } finally {
+            update.close();
+        }
+        ContentValues values = new ContentValues();
+        values.put(KEY_HISTORY_HASH, hash);
+        values.put(KEY_HISTORY_TEXT, text);
+        values.put(KEY_HISTORY_TOKENS, tokens);
+        values.put(KEY_HISTORY_PHRASE_IDS, phraseIds);
+        values.put(KEY_HISTORY_LAST_USED, time);
+        return db.insert(TABLE_HISTORY, null, values) != -1;
+    }
+
+    /**
+     * 句子历史的条数
+     */
+    public long getHistoryCount() {
+        return DatabaseUtils.queryNumEntries(this.getReadableDatabase(), TABLE_HISTORY);
+    }
+
+    /**
+     * 只保留最近使用的 keep 条句子，返回删除的条数
+     */
+    public int trimHistory(int keep) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        return db.delete(TABLE_HISTORY, KEY_ID + " IN (SELECT " + KEY_ID + " FROM " + TABLE_HISTORY
+                + " ORDER BY " + KEY_HISTORY_LAST_USED + " DESC, " + KEY_ID + " DESC LIMIT -1 OFFSET ?)",
+                new String[]{String.valueOf(keep)});
+    }
+
+    /**
+     * 按最后使用时间从新到旧读取一页句子历史
+     *
+     * 以上一页最后一条的（最后使用时间, ID）为起点在索引上定位，翻到多深的页代价都相同。
+     *
+     * @param after 上一页的最后一条，读取第一页时为null
+     */
+    public List<HistoryEntry> getHistoryPage(HistoryEntry after, int limit) {
+        List<HistoryEntry> entries = new ArrayList<>(limit);
+        SQLiteDatabase db = this.getReadableDatabase();
+        String selection = null;
+        String[] args = null;
+        if (after != null) {
+            // 第一个条件让 SQLite 在索引上做范围查找，而不是从头扫描
+            selection = KEY_HISTORY_LAST_USED + " <= ? AND (" + KEY_HISTORY_LAST_USED + " < ? OR "
+                    + KEY_ID + " < ?)";
+            String lastUsed = String.valueOf(after.getLastUsed());
+            args = new String[]{lastUsed, lastUsed, String.valueOf(after.getId())};
+        }
+        Cursor cursor = db.query(TABLE_HISTORY, new String[]{KEY_ID, KEY_HISTORY_TOKENS,
+                        KEY_HISTORY_PHRASE_IDS, KEY_HISTORY_USE_COUNT, KEY_HISTORY_LAST_USED},
+                selection, args, null, null,
+                KEY_HISTORY_LAST_USED + " DESC, " + KEY_ID + " DESC", String.valueOf(limit));
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                entries.add(HistoryEntry.decode(cursor.getLong(0), cursor.getString(1),
+                        cursor.getString(2), cursor.getInt(3), cursor.getLong(4)));
+            }
+            cursor.close();
+        }
+        return entries;
+    }
+
+    /**
+     * 读取用于指定引擎的读音词条，包括用于所有引擎的词条，按文字排列
+     *
+     * @param engine 引擎包名，为null时只读取用于所有引擎的词条
+     */
+    public List<Pronunciation> getPronunciations(String engine) {
+        List<Pronunciation> entries = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        String selection = KEY_PRONUNCIATION_ENGINE + " = ?";
+        String[] args = {Pronunciation.ALL_ENGINES};
+        if (engine != null && !engine.isEmpty()) {
+            selection = KEY_PRONUNCIATION_ENGINE + " IN (?, ?)";
+            args = new String[]{Pronunciation.ALL_ENGINES, engine};
+        }
+        Cursor cursor = db.query(TABLE_PRONUNCIATION, new String[]{KEY_ID, KEY_PRONUNCIATION_ENGINE,
+                        KEY_PRONUNCIATION_TEXT, KEY_PRONUNCIATION_REPLACEMENT},
+                selection, args, null, null, KEY_PRONUNCIATION_TEXT + ", " + KEY_PRONUNCIATION_ENGINE);
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                entries.add(new Pronunciation(cursor.getLong(0), cursor.getString(1),
+                        cursor.getString(2), cursor.getString(3)));
+            }
+            cursor.close();
+        }
+        return entries;
+    }
+
+    /**
+     * 添加或修改一条读音词条，返回词条ID
+     *
+     * 同一引擎中已有相同文字的其他词条时取代它（minSdk 的 SQLite 不支持 UPSERT，用 REPLACE 冲突处理）。
+     */
+    public long savePronunciation(Pronunciation entry) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        ContentValues values = new ContentValues();
+        values.put(KEY_PRONUNCIATION_ENGINE, entry.getEngine());
+        values.put(KEY_PRONUNCIATION_TEXT, entry.getText());
+        values.put(KEY_PRONUNCIATION_REPLACEMENT, entry.getReplacement());
+        if (entry.getId() != Pronunciation.NO_ID) {
+            int rows = db.updateWithOnConflict(TABLE_PRONUNCIATION, values, KEY_ID + "=?",
+                    new String[]{String.valueOf(entry.getId())}, SQLiteDatabase.CONFLICT_REPLACE);
+            if (rows > 0) {
+                return entry.getId();
+            }
+        }
+        return db.insertWithOnConflict(TABLE_PRONUNCIATION, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * 删除一条读音词条
+     */
+    public void deletePronunciation(long id) {
         SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_PHRASE, KEY_CATEGORY + "=? AND " + KEY_CONTENT + "=?",
-                new String[]{category, content});
-        db.close();
+        db.delete(TABLE_PRONUNCIATION, KEY_ID + "=?", new String[]{String.valueOf(id)});
+    }
+
+    private static void bindUsage(SQLiteStatement statement, PhraseUsage usage) {
+        statement.bindLong(1, usage.getTapCount());
+        statement.bindLong(2, usage.getSpokenCount());
+        statement.bindDouble(3, usage.getScore());
+        statement.bindLong(4, usage.getLastUsed());
+        statement.bindLong(5, usage.getPhraseId());
+    }
+
+    /**
+     * 读取全部词组的使用分数：词组ID → 分数
+     */
+    public Map<Integer, Double> getUsageScores() {
+        Map<Integer, Double> scores = new HashMap<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_PHRASE_USAGE, new String[]{KEY_USAGE_PHRASE_ID, KEY_USAGE_SCORE},
+                null, null, null, null, null);
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                scores.put(cursor.getInt(0), cursor.getDouble(1));
+            }
+            cursor.close();
+        }
+        return scores;
     }
-}
\ No newline at end of file
+}
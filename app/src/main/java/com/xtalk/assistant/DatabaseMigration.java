@@ -0,0 +1,33 @@
+package com.xtalk.assistant;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * 数据库单步迁移，从 startVersion 升级到 endVersion
+ *
+ * 迁移只做增量修改（建表、加列、加索引），不删除用户数据。
+ * 所有步骤都在 SQLiteOpenHelper 的升级事务中执行，任何一步失败都会整体回滚。
+ */
+public abstract class DatabaseMigration {
+
+    private final int startVersion;
+    private final int endVersion;
+
+    public DatabaseMigration(int startVersion, int endVersion) {
+        this.startVersion = startVersion;
+        this.endVersion = endVersion;
+    }
+
+    public int getStartVersion() {
+        return startVersion;
+    }
+
+    public int getEndVersion() {
+        return endVersion;
+    }
+
+    /**
+     * 执行迁移
+     */
+    public abstract void migrate(SQLiteDatabase db);
+}
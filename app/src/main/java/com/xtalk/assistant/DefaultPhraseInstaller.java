@@ -0,0 +1,117 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预置词组数据库的安装与读取
+ *
+ * 默认词组以预先生成的 SQLite 数据库随应用发布（assets/databases/default_phrases.db，
+ * 由 tools/build_default_phrases_db.py 生成）。首次启动时整个文件直接复制为应用数据库，
+ * 不再逐条插入。
+ */
+public final class DefaultPhraseInstaller {
+
+    private static final String TAG = "DefaultPhraseInstaller";
+    // 预置数据库在 assets 中的路径
+    static final String ASSET_PATH = "databases/default_phrases.db";
+
+    private DefaultPhraseInstaller() {
+    }
+
+    /**
+     * 数据库文件不存在时，将预置数据库复制为应用数据库
+     *
+     * 先写入临时文件再重命名，复制中途失败不会留下半个数据库文件；
+     * 失败时由 DatabaseHelper.onCreate 建表并写入默认词组。
+     */
+    static void installIfMissing(Context context, String databaseName) {
+        File target = context.getDatabasePath(databaseName);
+        if (target.exists()) {
+            return;
+        }
+        long start = SystemClock.elapsedRealtime();
+        File parent = target.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            Log.w(TAG, "无法创建数据库目录: " + parent);
+            return;
+        }
+        File temp = new File(target.getPath() + ".tmp");
+        try {
+            copyAsset(context, temp);
+            if (!temp.renameTo(target)) {
+                throw new IOException("重命名失败: " + temp + " -> " + target);
+            }
+            Log.i(TAG, "预置数据库复制完成，耗时 " + (SystemClock.elapsedRealtime() - start) + "ms");
+        } catch (IOException e) {
+            Log.e(TAG, "复制预置数据库失败，将在建表时写入默认词组", e);
+            temp.delete();
+        }
+    }
+
+    /**
+     * 读取预置数据库中的全部默认词组（按原始顺序）
+     *
+     * 预置数据库先复制到缓存目录再以只读方式打开，读取完成后删除。
+     */
+    static List<Phrase> readBundledPhrases(Context context) {
+        List<Phrase> phrases = new ArrayList<>();
+        File copy = new File(context.getCacheDir(), "default_phrases.db");
+        SQLiteDatabase bundled = null;
+        Cursor cursor = null;
+        try {
+            copyAsset(context, copy);
+            bundled = SQLiteDatabase.openDatabase(copy.getPath(), null,
+                    SQLiteDatabase.OPEN_READONLY | SQLiteDatabase.NO_LOCALIZED_COLLATORS);
+            cursor = bundled.query(DatabaseHelper.TABLE_PHRASE,
+                    new String[]{DatabaseHelper.KEY_CATEGORY, DatabaseHelper.KEY_CONTENT},
+                    null, null, null, null, DatabaseHelper.KEY_ID);
+            while (cursor.moveToNext()) {
+                phrases.add(new Phrase(0, cursor.getString(0), cursor.getString(1)));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "读取预置词组失败", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            if (bundled != null) {
+                bundled.close();
+            }
+            copy.delete();
+        }
+        return phrases;
+    }
+
+    /**
+     * 将预置数据库从 assets 复制到指定文件
+     */
+    private static void copyAsset(Context context, File target) throws IOException {
+        InputStream in = context.getAssets().open(ASSET_PATH);
+        try {
+            OutputStream out = new FileOutputStream(target);
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
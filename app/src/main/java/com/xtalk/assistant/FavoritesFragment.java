@@ -0,0 +1,195 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.PopupMenu;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 常用板页面，固定为第一个标签页
+ *
+ * 数据来自常驻内存的 {@link FavoritesStore}，不经过数据库。
+ * 词组与分类页面中的按钮相同，整句占满一行；点击整句立即播放，长按可以移出常用板。
+ */
+public class FavoritesFragment extends Fragment {
+
+    private PhrasePagerAdapter.PhraseClickListener phraseClickListener;
+    private FavoriteSentenceListener sentenceListener;
+    private FavoritesStore store;
+    private FavoriteAdapter adapter;
+    private FavoritesStore.FavoritesObserver favoritesObserver;
+
+    /**
+     * 常用整句的点击监听器，由宿主Activity实现
+     */
+    public interface FavoriteSentenceListener {
+        void onFavoriteSentenceClicked(Favorite favorite);
+    }
+
+    public static FavoritesFragment newInstance() {
+        return new FavoritesFragment();
+    }
+
+    @Override
+    public void onAttach(@NonNull Context context) {
+        super.onAttach(context);
+        if (context instanceof PhrasePagerAdapter.PhraseClickListener) {
+            phraseClickListener = (PhrasePagerAdapter.PhraseClickListener) context;
+        }
+        if (context instanceof FavoriteSentenceListener) {
+            sentenceListener = (FavoriteSentenceListener) context;
+        }
+    }
+
+    @Override
+    public void onDetach() {
+        phraseClickListener = null;
+        sentenceListener = null;
+        super.onDetach();
+    }
+
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_phrase_category, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        RecyclerView recyclerView = view.findViewById(R.id.phrase_recycler_view);
+        adapter = new FavoriteAdapter(this::onFavoriteClicked, this::showFavoriteOptions);
+        recyclerView.setAdapter(adapter);
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (layoutManager instanceof GridLayoutManager) {
+            GridLayoutManager grid = (GridLayoutManager) layoutManager;
+            grid.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
+                @Override
+                public int getSpanSize(int position) {
+                    // 整句占满一行
+                    return adapter.getCurrentList().get(position).isSentence() ? grid.getSpanCount() : 1;
+                }
+            });
+        }
+
+        store = FavoritesStore.getInstance(requireContext());
+        favoritesObserver = favorites -> adapter.submitList(favorites);
+        store.observe(favoritesObserver);
+    }
+
+    @Override
+    public void onDestroyView() {
+        store.removeObserver(favoritesObserver);
+        favoritesObserver = null;
+        adapter = null;
+        super.onDestroyView();
+    }
+
+    private void onFavoriteClicked(Favorite favorite) {
+        if (favorite.isSentence()) {
+            if (sentenceListener != null) {
+                sentenceListener.onFavoriteSentenceClicked(favorite);
+            }
+        } else if (phraseClickListener != null) {
+            phraseClickListener.onPhraseClicked(new Phrase(favorite.getPhraseId(0), null, favorite.getToken(0)));
+        }
+    }
+
+    /**
+     * 长按时在按钮旁弹出菜单
+     */
+    private void showFavoriteOptions(Favorite favorite, View anchorView) {
+        PopupMenu popupMenu = new PopupMenu(requireContext(), anchorView);
+        popupMenu.getMenuInflater().inflate(R.menu.favorite_options, popupMenu.getMenu());
+        popupMenu.setOnMenuItemClickListener(item -> {
+            if (item.getItemId() == R.id.action_unfavorite) {
+                store.remove(favorite);
+                return true;
+            }
+            return false;
+        });
+        popupMenu.show();
+    }
+
+    /**
+     * 常用板适配器，列表很小，每次整体提交，差异在后台计算
+     */
+    private static class FavoriteAdapter extends ListAdapter<Favorite, FavoriteAdapter.FavoriteViewHolder> {
+
+        private static final DiffUtil.ItemCallback<Favorite> DIFF_CALLBACK = new DiffUtil.ItemCallback<Favorite>() {
+            @Override
+            public boolean areItemsTheSame(@NonNull Favorite oldItem, @NonNull Favorite newItem) {
+                return oldItem.sameAs(newItem);
+            }
+
+            @Override
+            public boolean areContentsTheSame(@NonNull Favorite oldItem, @NonNull Favorite newItem) {
+                return oldItem.sameAs(newItem);
+            }
+        };
+
+        interface ClickListener {
+            void onClick(Favorite favorite);
+        }
+
+        interface LongClickListener {
+            void onLongClick(Favorite favorite, View view);
+        }
+
+        private final ClickListener clickListener;
+        private final LongClickListener longClickListener;
+
+        FavoriteAdapter(ClickListener clickListener, LongClickListener longClickListener) {
+            super(DIFF_CALLBACK);
+            this.clickListener = clickListener;
+            this.longClickListener = longClickListener;
+        }
+
+        @NonNull
+        @Override
+        public FavoriteViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.item_phrase_button, parent, false);
+            FavoriteViewHolder holder = new FavoriteViewHolder(view);
+            holder.button.setOnClickListener(v -> {
+                int position = holder.getBindingAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    clickListener.onClick(getItem(position));
+                }
+            });
+            holder.button.setOnLongClickListener(v -> {
+                int position = holder.getBindingAdapterPosition();
+                if (position == RecyclerView.NO_POSITION) {
+                    return false;
+                }
+                longClickListener.onLongClick(getItem(position), v);
+                return true;
+            });
+            return holder;
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull FavoriteViewHolder holder, int position) {
+            holder.button.setText(getItem(position).displayText());
+        }
+
+        static class FavoriteViewHolder extends RecyclerView.ViewHolder {
+            final Button button;
+
+            FavoriteViewHolder(@NonNull View itemView) {
+                super(itemView);
+                button = itemView.findViewById(R.id.phrase_button);
+            }
+        }
+    }
+}
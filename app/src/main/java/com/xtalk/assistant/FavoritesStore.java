@@ -0,0 +1,387 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 常用板，进程内唯一
+ *
+ * 固定的词组和整句常驻内存，以一个很小的文件保存在应用文件目录中。
+ * 启动流程最先在后台读取这个文件，不依赖数据库，冷启动时第一个标签页也能立即显示。
+ * 首次运行没有文件时使用 {@link #DEFAULT_PHRASES}，之后在后台到数据库中补上它们的词组ID。
+ *
+ * 列表只在主线程修改，每次修改后在后台整体写回文件（先写临时文件再重命名）。
+ * 词组被修改或删除时通过 {@link DatabaseHelper.PhraseChangeListener} 同步。
+ * 新固定的整句同时加入 {@link SentenceCompleter}，输入开头几个词语时可以补全。
+ */
+public class FavoritesStore implements DatabaseHelper.PhraseChangeListener {
+
+    private static final String TAG = "FavoritesStore";
+    private static final String FAVORITES_FILE = "favorites.bin";
+    private static final int FILE_VERSION = 1;
+    // 首次运行时的常用词组：最紧急的需求
+    static final String[] DEFAULT_PHRASES = {"疼", "厕所", "医生"};
+    // 常用板最多保存的条数
+    static final int MAX_FAVORITES = 60;
+
+    private static FavoritesStore instance;
+
+    private final File favoritesFile;
+    private final DatabaseHelper dbHelper;
+    private final SentenceCompleter sentenceCompleter;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "favorites-io"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 当前列表（不可修改），加载完成前为null
+    private volatile List<Favorite> favorites;
+    // 观察者，只在主线程访问
+    private final List<FavoritesObserver> observers = new ArrayList<>();
+
+    /**
+     * 常用板观察者，始终在主线程回调
+     */
+    public interface FavoritesObserver {
+        void onFavoritesChanged(List<Favorite> favorites);
+    }
+
+    /**
+     * 获取进程内唯一的常用板
+     */
+    public static synchronized FavoritesStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new FavoritesStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private FavoritesStore(Context context) {
+        this.favoritesFile = new File(context.getFilesDir(), FAVORITES_FILE);
+        this.dbHelper = DatabaseHelper.getInstance(context);
+        this.sentenceCompleter = SentenceCompleter.getInstance(context);
+        dbHelper.addPhraseChangeListener(this);
+    }
+
+    /**
+     * 读取常用板文件，阻塞到完成，供启动流程在后台调用
+     */
+    @WorkerThread
+    public void warmUp() {
+        try {
+            executor.submit(this::ensureLoaded).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("常用板加载失败", e.getCause());
+        }
+    }
+
+    /**
+     * 观察常用板
+     *
+     * 注册后立即收到当前列表（已加载时同步回调，否则在后台读取后回调），之后每次修改都会收到新列表。
+     */
+    @MainThread
+    public void observe(FavoritesObserver observer) {
+        observers.add(observer);
+        List<Favorite> current = favorites;
+        if (current != null) {
+            observer.onFavoritesChanged(current);
+            return;
+        }
+        executor.execute(() -> {
+            List<Favorite> loaded = ensureLoaded();
+            mainHandler.post(() -> {
+                if (observers.contains(observer)) {
+                    observer.onFavoritesChanged(loaded);
+                }
+            });
+        });
+    }
+
+    /**
+     * 移除观察者
+     */
+    @MainThread
+    public void removeObserver(FavoritesObserver observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * 当前列表（不可修改），未加载时返回空列表
+     */
+    @MainThread
+    public List<Favorite> getFavorites() {
+        List<Favorite> current = favorites;
+        return current != null ? current : Collections.<Favorite>emptyList();
+    }
+
+    /**
+     * 词组是否在常用板上；常用板未加载时返回false
+     */
+    @MainThread
+    public boolean containsPhrase(int phraseId) {
+        return indexOfPhrase(favorites, phraseId) != -1;
+    }
+
+    /**
+     * 把一项加到常用板末尾；已经存在或常用板已满时返回false
+     */
+    @MainThread
+    public boolean add(Favorite favorite) {
+        List<Favorite> current = favorites;
+        if (current == null || current.size() >= MAX_FAVORITES || favorite.getTokenCount() > 255) {
+            return false;
+        }
+        for (Favorite existing : current) {
+            if (existing.sameAs(favorite)) {
+                return false;
+            }
+        }
+        List<Favorite> updated = new ArrayList<>(current);
+        updated.add(favorite);
+        publish(updated);
+        sentenceCompleter.recordFavorite(favorite);
+        return true;
+    }
+
+    /**
+     * 从常用板移除一项
+     */
+    @MainThread
+    public void remove(Favorite favorite) {
+        List<Favorite> current = favorites;
+        if (current == null) {
+            return;
+        }
+        List<Favorite> updated = new ArrayList<>(current);
+        for (int i = 0; i < updated.size(); i++) {
+            if (updated.get(i).sameAs(favorite)) {
+                updated.remove(i);
+                publish(updated);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 从常用板移除一个词组
+     */
+    @MainThread
+    public void removePhrase(int phraseId) {
+        List<Favorite> current = favorites;
+        int index = indexOfPhrase(current, phraseId);
+        if (index != -1) {
+            List<Favorite> updated = new ArrayList<>(current);
+            updated.remove(index);
+            publish(updated);
+        }
+    }
+
+    @WorkerThread
+    @Override
+    public void onPhraseSaved(int id, String content) {
+        mainHandler.post(() -> {
+            List<Favorite> current = favorites;
+            if (current == null) {
+                return;
+            }
+            List<Favorite> updated = new ArrayList<>(current.size());
+            boolean changed = false;
+            for (Favorite favorite : current) {
+                Favorite renamed = favorite.withPhraseContent(id, content);
+                changed |= renamed != favorite;
+                updated.add(renamed);
+            }
+            if (changed) {
+                publish(updated);
+            }
+        });
+    }
+
+    @WorkerThread
+    @Override
+    public void onPhraseDeleted(int id) {
+        mainHandler.post(() -> {
+            List<Favorite> current = favorites;
+            if (current == null) {
+                return;
+            }
+            // 单个词组随之移出常用板，整句中的这个词语保留为普通文本
+            List<Favorite> updated = new ArrayList<>(current.size());
+            boolean changed = false;
+            for (Favorite favorite : current) {
+                if (!favorite.isSentence() && favorite.getPhraseId(0) == id) {
+                    changed = true;
+                    continue;
+                }
+                Favorite detached = favorite.withoutPhraseId(id);
+                changed |= detached != favorite;
+                updated.add(detached);
+            }
+            if (changed) {
+                publish(updated);
+            }
+        });
+    }
+
+    @WorkerThread
+    @Override
+    public void onPhrasesImported() {
+        // 导入只新增词组，不影响已有的条目；词组包中的常用条目由导入方调用 add 加入
+    }
+
+    /**
+     * 替换当前列表，通知观察者并在后台写回文件
+     */
+    @MainThread
+    private void publish(List<Favorite> updated) {
+        List<Favorite> snapshot = Collections.unmodifiableList(updated);
+        favorites = snapshot;
+        for (FavoritesObserver observer : new ArrayList<>(observers)) {
+            observer.onFavoritesChanged(snapshot);
+        }
+        executor.execute(() -> write(snapshot));
+    }
+
+    private static int indexOfPhrase(List<Favorite> list, int phraseId) {
+        if (list == null) {
+            return -1;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            Favorite favorite = list.get(i);
+            if (!favorite.isSentence() && favorite.getPhraseId(0) == phraseId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @WorkerThread
+    private List<Favorite> ensureLoaded() {
+        List<Favorite> current = favorites;
+        if (current != null) {
+            return current;
+        }
+        long start = SystemClock.elapsedRealtime();
+        List<Favorite> loaded;
+        boolean defaults = false;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(favoritesFile)))) {
+            loaded = read(in);
+        } catch (FileNotFoundException e) {
+            loaded = defaultFavorites();
+            defaults = true;
+        } catch (IOException e) {
+            Log.e(TAG, "读取常用板失败，恢复默认", e);
+            loaded = defaultFavorites();
+            defaults = true;
+        }
+        current = Collections.unmodifiableList(loaded);
+        favorites = current;
+        Log.d(TAG, "常用板加载完成，" + current.size() + " 项，耗时 "
+                + (SystemClock.elapsedRealtime() - start) + "ms");
+        if (defaults) {
+            // 先显示默认词组，再在后台补上词组ID，使点击后的统计和预测能识别它们
+            executor.execute(this::linkDefaultPhrases);
+        }
+        return current;
+    }
+
+    @WorkerThread
+    private void linkDefaultPhrases() {
+        int[] ids = new int[DEFAULT_PHRASES.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = dbHelper.findPhraseId(DEFAULT_PHRASES[i]);
+        }
+        mainHandler.post(() -> {
+            List<Favorite> updated = new ArrayList<>(favorites);
+            for (int i = 0; i < updated.size(); i++) {
+                Favorite favorite = updated.get(i);
+                for (int d = 0; d < ids.length; d++) {
+                    if (!favorite.isSentence() && favorite.getPhraseId(0) == SentenceToken.NO_PHRASE
+                            && favorite.getToken(0).equals(DEFAULT_PHRASES[d])) {
+                        updated.set(i, Favorite.ofPhrase(ids[d], DEFAULT_PHRASES[d]));
+                    }
+                }
+            }
+            publish(updated);
+        });
+    }
+
+    private static List<Favorite> defaultFavorites() {
+        List<Favorite> defaults = new ArrayList<>(DEFAULT_PHRASES.length);
+        for (String content : DEFAULT_PHRASES) {
+            defaults.add(Favorite.ofPhrase(SentenceToken.NO_PHRASE, content));
+        }
+        return defaults;
+    }
+
+    private static List<Favorite> read(DataInputStream in) throws IOException {
+        if (in.readInt() != FILE_VERSION) {
+            throw new IOException("不支持的常用板版本");
+        }
+        int count = in.readInt();
+        if (count < 0 || count > MAX_FAVORITES) {
+            throw new IOException("常用板文件已损坏");
+        }
+        List<Favorite> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = in.readUnsignedByte();
+            String[] tokens = new String[length];
+            int[] phraseIds = new int[length];
+            for (int t = 0; t < length; t++) {
+                phraseIds[t] = in.readInt();
+                tokens[t] = in.readUTF();
+            }
+            list.add(new Favorite(tokens, phraseIds));
+        }
+        return list;
+    }
+
+    @WorkerThread
+    private void write(List<Favorite> list) {
+        File temp = new File(favoritesFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(FILE_VERSION);
+            out.writeInt(list.size());
+            for (Favorite favorite : list) {
+                out.writeByte(favorite.getTokenCount());
+                for (int t = 0; t < favorite.getTokenCount(); t++) {
+                    out.writeInt(favorite.getPhraseId(t));
+                    out.writeUTF(favorite.getToken(t));
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "保存常用板失败", e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(favoritesFile)) {
+            Log.w(TAG, "重命名常用板文件失败");
+            temp.delete();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.xtalk.assistant;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.List;
+
+/**
+ * 说过的句子，最近使用的在前
+ *
+ * 每次只读取一页，滚动到距末尾 {@link #PREFETCH_DISTANCE} 条以内时读取下一页。
+ * 点击一条句子即返回主界面，把句子放回组句区域并立即播放；长按加入常用板。
+ */
+public class HistoryActivity extends AppCompatActivity {
+
+    public static final String EXTRA_TOKENS = "tokens";
+    public static final String EXTRA_PHRASE_IDS = "phrase_ids";
+
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 15;
+
+    private SentenceHistory history;
+    private HistoryAdapter adapter;
+    private LinearLayoutManager layoutManager;
+    private View emptyView;
+    private boolean loading = false;
+    private boolean reachedEnd = false;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_history);
+        setTitle(R.string.history_title);
+
+        history = SentenceHistory.getInstance(this);
+        emptyView = findViewById(R.id.history_empty);
+        RecyclerView list = findViewById(R.id.history_list);
+        layoutManager = (LinearLayoutManager) list.getLayoutManager();
+        adapter = new HistoryAdapter(this::respeak, this::addToFavorites);
+        list.setAdapter(adapter);
+        list.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if (layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (loading || reachedEnd) {
+            return;
+        }
+        loading = true;
+        history.loadPage(adapter.lastEntry(), PAGE_SIZE, this::onPageLoaded);
+    }
+
+    private void onPageLoaded(List<HistoryEntry> page) {
+        loading = false;
+        if (isDestroyed()) {
+            return;
+        }
+        reachedEnd = page.size() < PAGE_SIZE;
+        adapter.appendPage(page);
+        emptyView.setVisibility(adapter.getItemCount() == 0 ? View.VISIBLE : View.GONE);
+    }
+
+    /**
+     * 把句子加入常用板，只有一个词语时作为词组加入
+     */
+    private void addToFavorites(HistoryEntry entry) {
+        String[] tokens = new String[entry.getTokenCount()];
+        int[] phraseIds = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = entry.getToken(i);
+            phraseIds[i] = entry.getPhraseId(i);
+        }
+        boolean added = FavoritesStore.getInstance(this).add(new Favorite(tokens, phraseIds));
+        Toast.makeText(this, added ? "已加入常用" : "已在常用中或常用已满", Toast.LENGTH_SHORT).show();
+    }
+
+    /**
+     * 把句子交回主界面播放
+     */
+    private void respeak(HistoryEntry entry) {
+        String[] tokens = new String[entry.getTokenCount()];
+        int[] phraseIds = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = entry.getToken(i);
+            phraseIds[i] = entry.getPhraseId(i);
+        }
+        Intent result = new Intent();
+        result.putExtra(EXTRA_TOKENS, tokens);
+        result.putExtra(EXTRA_PHRASE_IDS, phraseIds);
+        setResult(RESULT_OK, result);
+        finish();
+    }
+}
@@ -0,0 +1,104 @@
+package com.xtalk.assistant;
+
+import android.text.format.DateUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 句子历史的适配器，逐页追加，只通知新增的范围
+ */
+public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.HistoryViewHolder> {
+
+    private final List<HistoryEntry> entries = new ArrayList<>();
+    private final EntryClickListener clickListener;
+    private final EntryClickListener longClickListener;
+
+    /**
+     * 历史句子的点击监听器
+     */
+    public interface EntryClickListener {
+        void onEntryClicked(HistoryEntry entry);
+    }
+
+    public HistoryAdapter(EntryClickListener clickListener, EntryClickListener longClickListener) {
+        this.clickListener = clickListener;
+        this.longClickListener = longClickListener;
+        setHasStableIds(true);
+    }
+
+    /**
+     * 在末尾追加一页
+     */
+    public void appendPage(List<HistoryEntry> page) {
+        int start = entries.size();
+        entries.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+    }
+
+    /**
+     * 最后一条，没有时返回null
+     */
+    public HistoryEntry lastEntry() {
+        return entries.isEmpty() ? null : entries.get(entries.size() - 1);
+    }
+
+    @NonNull
+    @Override
+    public HistoryViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_history, parent, false);
+        HistoryViewHolder holder = new HistoryViewHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && clickListener != null) {
+                clickListener.onEntryClicked(entries.get(position));
+            }
+        });
+        view.setOnLongClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION || longClickListener == null) {
+                return false;
+            }
+            longClickListener.onEntryClicked(entries.get(position));
+            return true;
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull HistoryViewHolder holder, int position) {
+        HistoryEntry entry = entries.get(position);
+        holder.text.setText(entry.displayText());
+        CharSequence lastUsed = DateUtils.getRelativeTimeSpanString(entry.getLastUsed());
+        holder.meta.setText(holder.itemView.getContext().getString(R.string.history_meta,
+                entry.getUseCount(), lastUsed));
+    }
+
+    @Override
+    public int getItemCount() {
+        return entries.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return entries.get(position).getId();
+    }
+
+    static class HistoryViewHolder extends RecyclerView.ViewHolder {
+        final TextView text;
+        final TextView meta;
+
+        HistoryViewHolder(@NonNull View itemView) {
+            super(itemView);
+            text = itemView.findViewById(R.id.history_text);
+            meta = itemView.findViewById(R.id.history_meta);
+        }
+    }
+}
@@ -5,47 +5,81 @@ import android.content.ClipboardManager;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
-import android.content.pm.PackageManager;
-import android.content.pm.ResolveInfo;
-import android.os.Build;
+import android.database.Cursor;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.provider.OpenableColumns;
 import android.speech.tts.TextToSpeech;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.View;
+import android.widget.EditText;
+import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 import android.app.AlertDialog;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import androidx.viewpager2.widget.ViewPager2;
 
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.tabs.TabLayoutMediator;
 
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
-public class MainActivity extends AppCompatActivity implements TextToSpeech.OnInitListener, PhraseCategoryFragment.PhraseEditListener {
+public class MainActivity extends AppCompatActivity implements PhrasePagerAdapter.PhraseClickListener,
+        PhraseCategoryFragment.PhraseEditListener, PhraseCategoryFragment.PhraseViewPoolProvider,
+        SuggestionAdapter.SentenceClickListener, FavoritesFragment.FavoriteSentenceListener {
 
     private static final String TAG = "MainActivity_TTS";
-    private TextView sentenceTextView;
+    // 句子区域：每个词语一个标签
+    private RecyclerView sentenceTokenList;
+    private SentenceTokenAdapter sentenceAdapter;
+    // 补全的整句和预测的下一个词组
+    private SuggestionAdapter suggestionAdapter;
+    private PhrasePredictor phrasePredictor;
+    private SentenceCompleter sentenceCompleter;
+    private SentenceHistory sentenceHistory;
+    private final int[] predictedIds = new int[SUGGESTION_COUNT];
+    private final int[][] completions = new int[COMPLETION_COUNT][];
+    // 词组搜索
+    private EditText searchInput;
+    private RecyclerView searchResultList;
+    private SearchResultAdapter searchResultAdapter;
+    private PhraseSearcher phraseSearcher;
     private TabLayout categoryTabLayout;
     private ViewPager2 phraseViewPager;
-    private TextToSpeech textToSpeech;
-    private StringBuilder currentSentence;
-    private DatabaseHelper dbHelper;
+    private SpeechEngine speechEngine;
+    // 正在组成的句子
+    private Sentence currentSentence;
+    private PhraseRepository phraseRepository;
     private PhrasePagerAdapter phrasePagerAdapter;
-   // 添加标志，防止无限循环初始化
-    private boolean isInitializing = false;
-    private boolean isLanguageSettingFailed = false;
-    private boolean hasTriedOtherEngines = false;
-    private int initializationAttempts = 0;
-    private static final int MAX_INITIALIZATION_ATTEMPTS = 3;
+    // 所有分类页面共享的按钮缓存池
+    private final PhraseViewPool phraseViewPool = new PhraseViewPool();
+    // 调试浮层：每次滑动新建的按钮数
+    private TextView inflationOverlay;
+    private int inflatedAtLastPage = 0;
+    private AppSettings settings;
+    private UsageTracker usageTracker;
     
     // 请求代码
     private static final int REQUEST_ADD_PHRASE = 1;
     private static final int REQUEST_EDIT_PHRASE = 2;
+    private static final int REQUEST_HISTORY = 3;
+    private static final int REQUEST_IMPORT_PACK = 4;
+    private static final int REQUEST_EXPORT_PACK = 5;
+    // 预测行显示的词组数量
+    private static final int SUGGESTION_COUNT = 6;
+    // 预测行最前面显示的整句数量
+    private static final int COMPLETION_COUNT = 3;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -57,477 +91,514 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
         setContentView(R.layout.activity_main);
 
         // 初始化UI组件
-        sentenceTextView = findViewById(R.id.sentence_text_view);
+        sentenceTokenList = findViewById(R.id.sentence_token_list);
         categoryTabLayout = findViewById(R.id.category_tab_layout);
         phraseViewPager = findViewById(R.id.phrase_view_pager);
 
-        // 初始化句子构建器
-        currentSentence = new StringBuilder();
+        // 初始化句子，标签点击删除、长按拖动排序，排序后刷新预测
+        currentSentence = new Sentence();
+        sentenceAdapter = new SentenceTokenAdapter(currentSentence, this::removeToken, this::updateSuggestions);
+        sentenceTokenList.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
+        // 句子区域大小固定，增删标签不需要重新布局整个界面
+        sentenceTokenList.setHasFixedSize(true);
+        sentenceTokenList.setAdapter(sentenceAdapter);
+        sentenceAdapter.createDragHelper().attachToRecyclerView(sentenceTokenList);
 
-        // 初始化数据库帮助类
-        dbHelper = new DatabaseHelper(this);
+        // 预测行：点击词组与点击分类页面中的词组相同，点击整句则补全并播放
+        RecyclerView suggestionList = findViewById(R.id.suggestion_list);
+        suggestionAdapter = new SuggestionAdapter(this, this);
+        suggestionList.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
+        suggestionList.setHasFixedSize(true);
+        suggestionList.setAdapter(suggestionAdapter);
+        phrasePredictor = PhrasePredictor.getInstance(this);
+        sentenceCompleter = SentenceCompleter.getInstance(this);
+        sentenceHistory = SentenceHistory.getInstance(this);
 
-        // 设置ViewPager适配器
-        phrasePagerAdapter = new PhrasePagerAdapter(this, this::addPhraseToSentence);
+        // 获取进程内共享的词组仓库
+        phraseRepository = PhraseRepository.getInstance(this);
+
+        // 设置项在后台加载，首次点击词组时已可读取
+        settings = AppSettings.getInstance(this);
+        // 点击和播放只记入内存，由使用统计在后台批量写入
+        usageTracker = UsageTracker.getInstance(this);
+
+        // 语音引擎由启动流程在应用启动时开始绑定，这里只接收需要用户处理的问题
+        speechEngine = SpeechEngine.getInstance(this);
+        speechEngine.setProblemListener(speechProblemListener);
+
+        // 搜索框：输入时在后台检索全部分类，清空后回到分类页面
+        setupSearch();
+
+        // 设置ViewPager适配器，页面以分类ID为键，数据变化时只更新对应页面
+        phrasePagerAdapter = new PhrasePagerAdapter(this);
         phraseViewPager.setAdapter(phrasePagerAdapter);
+        // 预先创建左右相邻的页面，滑动时页面已就绪
+        phraseViewPager.setOffscreenPageLimit(1);
+        // 首帧之后在空闲时预创建词组按钮
+        phraseViewPager.post(() -> phraseViewPool.prewarmWhenIdle(this));
+        if (BuildConfig.DEBUG) {
+            setupInflationOverlay();
+        }
 
-        // 关联TabLayout和ViewPager
-        new TabLayoutMediator(categoryTabLayout, phraseViewPager, (tab, position) -> {
-            // 设置每个tab的文本
-            switch (position) {
-                case 0:
-                    tab.setText(R.string.category_clothing_food_housing_transport);
-                    break;
-                case 1:
-                    tab.setText(R.string.category_relationships);
-                    break;
-                case 2:
-                    tab.setText(R.string.category_actions);
-                    break;
-                case 3:
-                    tab.setText(R.string.category_emotions);
-                    break;
-                case 4:
-                    tab.setText(R.string.category_requests);
-                    break;
-                case 5:
-                    tab.setText(R.string.category_other);
-                    break;
-                case 6:
-                    tab.setText(R.string.category_time);
-                    break;
-                case 7:
-                    tab.setText(R.string.category_noun);
-                    break;
-            }
-        }).attach();
+        // 关联TabLayout和ViewPager，标签标题来自分类
+        new TabLayoutMediator(categoryTabLayout, phraseViewPager,
+                (tab, position) -> tab.setText(phrasePagerAdapter.getTitle(position))).attach();
+
+        // 分类列表变化（如出现新的分类）时更新分页，并保持当前选中的分类
+        phraseRepository.observeCategories(categoriesObserver);
 
         // 设置播放按钮点击事件
         findViewById(R.id.play_button).setOnClickListener(v -> speakSentence());
+        // 长按播放按钮打开设置
+        findViewById(R.id.play_button).setOnLongClickListener(v -> {
+            showSettingsDialog();
+            return true;
+        });
 
         // 设置清空按钮点击事件
         findViewById(R.id.clear_button).setOnClickListener(v -> clearSentence());
 
         // 设置复制按钮点击事件
         findViewById(R.id.copy_button).setOnClickListener(v -> copySentence());
-        
-        // 延迟初始化 TTS
-        findViewById(R.id.play_button).postDelayed(() -> {
-            Log.d(TAG, "开始初始化 TTS，Android 版本: " + Build.VERSION.SDK_INT);
-            initializeTTS();
-        }, 500);
+
+        // 打开说过的句子
+        findViewById(R.id.history_button).setOnClickListener(v ->
+                startActivityForResult(new Intent(this, HistoryActivity.class), REQUEST_HISTORY));
+
+        // 引擎就绪且词组已加载时，第一句话即可播放
+        // 词组和模型都加载后显示句首的预测
+        XTalkApplication.getStartupPipeline(this).whenDone(XTalkApplication.STEP_PREDICTION, () -> {
+            if (!isDestroyed()) {
+                updateSuggestions();
+            }
+        });
+        XTalkApplication.getStartupPipeline(this).whenDone(XTalkApplication.STEP_SPEAKABLE, () -> {
+            if (!isDestroyed()) {
+                reportFullyDrawn();
+            }
+        });
     }
-    
+
     /**
-     * 将词组添加到当前句子中
+     * 语音引擎初始化问题，弹出对应的对话框
      */
-    public void addPhraseToSentence(String phrase) {
-        if (currentSentence.length() > 0) {
-            currentSentence.append(" ");
+    private final SpeechEngine.ProblemListener speechProblemListener = new SpeechEngine.ProblemListener() {
+        @Override
+        public void onLanguageDataMissing() {
+            showDownloadLanguageDataDialog();
         }
-        currentSentence.append(phrase);
-        sentenceTextView.setText(currentSentence.toString());
-    }
+
+        @Override
+        public void onChineseNotSupported() {
+            showTTSNotSupportedDialog();
+        }
+
+        @Override
+        public void onInitFailed(String message) {
+            showTTSInitErrorDialog(message);
+        }
+    };
     
     /**
-     * 初始化 TTS 引擎 - Android 16 兼容版本
+     * 分类列表观察者，更新后保持当前选中的分类不变
      */
-    private void initializeTTS() {
-        if (isInitializing) {
-            Log.w(TAG, "TTS 正在初始化中，跳过重复请求");
-            return;
+    private final PhraseRepository.CategoriesObserver categoriesObserver = categories -> {
+        int current = phraseViewPager.getCurrentItem();
+        long selectedId = current < phrasePagerAdapter.getItemCount()
+                ? phrasePagerAdapter.getItemId(current) : RecyclerView.NO_ID;
+        phrasePagerAdapter.setCategories(categories);
+        int position = phrasePagerAdapter.getPosition(selectedId);
+        if (position != -1 && position != phraseViewPager.getCurrentItem()) {
+            phraseViewPager.setCurrentItem(position, false);
         }
-        
-        isInitializing = true;
-        Log.d(TAG, "开始 TTS 初始化，尝试次数: " + initializationAttempts);
-        
-        try {
-            // 关键修复：使用 Activity Context 而不是 ApplicationContext
-            textToSpeech = new TextToSpeech(this, this);
-            Log.d(TAG, "TTS 构造函数调用成功");
-        } catch (Exception e) {
-            Log.e(TAG, "TTS 初始化异常", e);
-            isInitializing = false;
-            Toast.makeText(this, "TTS 初始化失败: " + e.getMessage(), Toast.LENGTH_LONG).show();
-        }
-    }
+    };
 
-    @Override
-    public void onInit(int status) {
-        isInitializing = false;
-        Log.d(TAG, "TTS onInit 回调，状态码: " + status + ", 当前尝试次数: " + initializationAttempts + ", hasTriedOtherEngines: " + hasTriedOtherEngines);
-        
-        if (status == TextToSpeech.SUCCESS) {
-            // 只有在首次尝试或成功时才重置尝试次数和失败标志
-            if (!hasTriedOtherEngines) {
-                initializationAttempts = 0;
-                isLanguageSettingFailed = false;
+    /**
+     * 初始化词组搜索
+     */
+    private void setupSearch() {
+        searchInput = findViewById(R.id.phrase_search_input);
+        searchResultList = findViewById(R.id.search_result_list);
+        searchResultAdapter = new SearchResultAdapter(phrase -> {
+            // 选中结果后清空搜索框，回到分类页面继续组句
+            onPhraseClicked(phrase);
+            searchInput.setText("");
+        });
+        searchResultList.setAdapter(searchResultAdapter);
+        phraseSearcher = new PhraseSearcher(DatabaseHelper.getInstance(this),
+                PhraseRepository.getInstance(this), PinyinIndex.getInstance(this));
+        searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
             }
-            
-            // 尝试设置中文语言，优化isLanguageAvailable()的使用
-            boolean isChineseAvailable = false;
-            int langResult = TextToSpeech.LANG_MISSING_DATA;
-            
-            try {
-                // 1. 优化isLanguageAvailable()检查，使用更多中文Locale，并记录详细结果
-                Log.d(TAG, "开始检测中文支持状态...");
-                
-                // 检查多种中文Locale
-                Locale[] chineseLocales = {
-                    Locale.CHINESE,           // 中文（通用）
-                    Locale.SIMPLIFIED_CHINESE, // 简体中文
-                    Locale.CHINA,             // 中文（中国）
-                    new Locale("zh"),           // zh语言代码
-                    new Locale("zh", "CN"),       // zh-CN语言代码
-                    new Locale("zh", "CHS")       // zh-CHS语言代码
-                };
-                
-                for (Locale locale : chineseLocales) {
-                    int availableResult = textToSpeech.isLanguageAvailable(locale);
-                    Log.d(TAG, "isLanguageAvailable(" + locale + ") 返回: " + langResultToString(availableResult));
-                    
-                    // 只要返回值不是LANG_NOT_SUPPORTED或LANG_MISSING_DATA，就认为支持
-                    if (availableResult != TextToSpeech.LANG_NOT_SUPPORTED && availableResult != TextToSpeech.LANG_MISSING_DATA) {
-                        isChineseAvailable = true;
-                        break;
-                    }
-                }
-                
-                Log.d(TAG, "中文支持状态检测结果: " + (isChineseAvailable ? "支持" : "不支持"));
-                
-                // 2. 无论isLanguageAvailable()结果如何，都尝试设置中文，因为某些TTS引擎的isLanguageAvailable()返回值不准确
-                // 先尝试设置语言
-                langResult = textToSpeech.setLanguage(Locale.CHINESE);
-                Log.d(TAG, "设置 Locale.CHINESE 结果: " + langResultToString(langResult));
-                
-                if (langResult == TextToSpeech.LANG_MISSING_DATA || 
-                    langResult == TextToSpeech.LANG_NOT_SUPPORTED) {
-                    // 尝试简体中文
-                    langResult = textToSpeech.setLanguage(Locale.SIMPLIFIED_CHINESE);
-                    Log.d(TAG, "设置 Locale.SIMPLIFIED_CHINESE 结果: " + langResultToString(langResult));
-                }
-                
-                if (langResult == TextToSpeech.LANG_MISSING_DATA || 
-                    langResult == TextToSpeech.LANG_NOT_SUPPORTED) {
-                    // 尝试 Locale.CHINA
-                    langResult = textToSpeech.setLanguage(Locale.CHINA);
-                    Log.d(TAG, "设置 Locale.CHINA 结果: " + langResultToString(langResult));
-                }
-                
-                if (langResult == TextToSpeech.LANG_MISSING_DATA || 
-                    langResult == TextToSpeech.LANG_NOT_SUPPORTED) {
-                    // 尝试zh语言代码
-                    langResult = textToSpeech.setLanguage(new Locale("zh"));
-                    Log.d(TAG, "设置 zh 语言代码结果: " + langResultToString(langResult));
-                }
-                
-                // 3. 无论setLanguage()结果如何，都尝试直接播放语音，因为某些TTS引擎的setLanguage()返回值不准确
-                // 但仅在首次尝试时执行
-                if (langResult == TextToSpeech.LANG_NOT_SUPPORTED && !isLanguageSettingFailed) {
-                    Log.d(TAG, "setLanguage() 返回不支持，但尝试直接播放测试语音...");
-                    String testText = "测试语音播放";
-                    int speakResult = textToSpeech.speak(testText, TextToSpeech.QUEUE_FLUSH, null);
-                    Log.d(TAG, "直接播放测试语音结果: " + (speakResult == TextToSpeech.SUCCESS ? "成功" : "失败"));
-                    
-                    if (speakResult == TextToSpeech.SUCCESS) {
-                        // 播放成功，认为TTS引擎支持中文，忽略setLanguage()的返回值
-                        langResult = TextToSpeech.LANG_AVAILABLE;
-                        Log.d(TAG, "直接播放成功，覆盖setLanguage()结果为LANG_AVAILABLE");
-                    }
-                }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "检测或设置语言时发生异常", e);
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
             }
-            
-            // 检查最终结果
-            if (langResult == TextToSpeech.LANG_MISSING_DATA) {
-                Log.e(TAG, "TTS 语言数据缺失");
-                // 重置标志，因为这是一个不同的问题（数据缺失而非引擎不支持）
-                hasTriedOtherEngines = false;
-                showDownloadLanguageDataDialog();
-            } else if (langResult == TextToSpeech.LANG_NOT_SUPPORTED) {
-                Log.e(TAG, "TTS 引擎不支持中文");
-                
-                // 检查是否已经尝试过语言设置失败，防止无限循环
-                if (isLanguageSettingFailed) {
-                    Log.e(TAG, "语言设置已失败过，终止尝试");
-                    // 重置标志
-                    hasTriedOtherEngines = false;
-                    showTTSNotSupportedDialog();
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                String query = s.toString();
+                if (query.trim().isEmpty()) {
+                    phraseSearcher.cancel();
+                    searchResultAdapter.submitList(null);
+                    searchResultList.setVisibility(View.GONE);
                     return;
                 }
-                
-                // 设置语言设置失败标志
-                isLanguageSettingFailed = true;
-                
-                // 列出可用引擎
-                List<String> engines = getAvailableTtsEngines();
-                Log.d(TAG, "可用 TTS 引擎: " + engines);
-                
-                // 只有当引擎数量大于1时才尝试其他引擎，并且确保不会无限循环
-                if (engines != null && engines.size() > 1 && initializationAttempts < MAX_INITIALIZATION_ATTEMPTS) {
-                    // 设置标志，表明我们正在尝试其他引擎
-                    hasTriedOtherEngines = true;
-                    // 尝试其他引擎
-                    tryNextEngine(engines);
-                } else {
-                    // 没有更多引擎可以尝试，显示错误对话框
-                    // 重置标志
-                    hasTriedOtherEngines = false;
-                    showTTSNotSupportedDialog();
-                }
-            } else {
-                // 成功
-                try {
-                    textToSpeech.setSpeechRate(1.0f);
-                    textToSpeech.setPitch(1.0f);
-                } catch (Exception e) {
-                    Log.e(TAG, "设置语速和音调时发生异常", e);
-                }
-                
-                // 重置所有标志，因为初始化成功
-                initializationAttempts = 0;
-                isLanguageSettingFailed = false;
-                hasTriedOtherEngines = false;
-                
-                Log.i(TAG, "TTS 初始化成功，语言设置完成");
-                Toast.makeText(this, "语音功能已就绪", Toast.LENGTH_SHORT).show();
-                
-                // 可选：播放测试语音
-                // testTTS();
+                phraseSearcher.search(query, (searched, results) -> {
+                    searchResultAdapter.submitList(results);
+                    searchResultList.setVisibility(View.VISIBLE);
+                });
             }
-        } else {
-            Log.e(TAG, "TTS 初始化失败，状态码: " + status);
-            
-            if (initializationAttempts < MAX_INITIALIZATION_ATTEMPTS) {
-                // 增加尝试次数
-                initializationAttempts++;
-                
-                Log.d(TAG, "准备重试 TTS 初始化 (第" + initializationAttempts + "/" + MAX_INITIALIZATION_ATTEMPTS + "次)");
-                
-                // 延迟重试，增加延迟时间，减少toast频率
-                new android.os.Handler().postDelayed(() -> {
-                    if (!isInitializing) {
-                        Log.d(TAG, "重试 TTS 初始化");
-                        initializeTTS();
-                    } else {
-                        Log.d(TAG, "TTS 正在初始化中，跳过此次重试");
-                    }
-                }, 2000); // 增加延迟到2秒，减少toast频率
-            } else {
-                // 已达到最大尝试次数，显示错误对话框
-                Log.e(TAG, "已达到最大尝试次数（" + MAX_INITIALIZATION_ATTEMPTS + "次），终止重试");
-                // 重置标志
-                hasTriedOtherEngines = false;
-                showTTSInitErrorDialog("TTS 初始化失败，错误码: " + status);
+        });
+    }
+
+    @Override
+    public PhraseViewPool getPhraseViewPool() {
+        return phraseViewPool;
+    }
+
+    /**
+     * 调试版本显示每次滑动新建的按钮数，理想情况下切换分类时为0
+     */
+    private void setupInflationOverlay() {
+        inflationOverlay = findViewById(R.id.debug_inflation_overlay);
+        inflationOverlay.setVisibility(View.VISIBLE);
+        phraseViewPager.registerOnPageChangeCallback(new ViewPager2.OnPageChangeCallback() {
+            @Override
+            public void onPageScrollStateChanged(int state) {
+                if (state != ViewPager2.SCROLL_STATE_IDLE) {
+                    return;
+                }
+                int inflated = phraseViewPool.getInflatedCount();
+                inflationOverlay.setText(getString(R.string.debug_inflation_overlay,
+                        inflated - inflatedAtLastPage, inflated, phraseViewPool.getPrewarmedCount()));
+                inflatedAtLastPage = inflated;
             }
+        });
+    }
+
+    @Override
+    public void onPhraseClicked(Phrase phrase) {
+        SentenceToken token = addPhraseToSentence(phrase);
+        // 还没有关联到词组的常用词（首次运行的默认常用词）不计入统计
+        if (phrase.getId() != SentenceToken.NO_PHRASE) {
+            usageTracker.recordTap(phrase.getId());
+        }
+        int speakMode = settings.getSpeakMode();
+        if (speakMode == AppSettings.SPEAK_MODE_TAP) {
+            speechEngine.speakPhrase(phrase.getContent());
+        } else if (speakMode == AppSettings.SPEAK_MODE_STREAMING) {
+            speechEngine.streamToken(token.getId(), phrase.getContent());
         }
     }
-    
+
     /**
-     * 尝试使用下一个可用引擎
+     * 设置对话框：发音方式、词组排列方式、词组包导入导出、读音词典
      */
-    private void tryNextEngine(List<String> engines) {
-        // 添加防护机制，防止无限循环
-        if (engines == null || engines.isEmpty()) {
-            Log.e(TAG, "引擎列表为空，终止尝试");
-            showTTSNotSupportedDialog();
-            return;
-        }
-        
-        // 检查是否已达到最大尝试次数
-        if (initializationAttempts >= MAX_INITIALIZATION_ATTEMPTS) {
-            Log.e(TAG, "已达到最大尝试次数（" + MAX_INITIALIZATION_ATTEMPTS + "次），终止尝试");
-            showTTSInitErrorDialog("TTS 初始化失败，已尝试 " + MAX_INITIALIZATION_ATTEMPTS + " 次");
-            return;
+    private void showSettingsDialog() {
+        String[] items = { "发音方式", settings.isSortByUsage() ? "词组排列：常用的在前" : "词组排列：按添加顺序",
+                "导入词组包", "导出词组包", "读音词典" };
+        new AlertDialog.Builder(this)
+            .setTitle("设置")
+            .setItems(items, (dialog, which) -> {
+                if (which == 0) {
+                    showSpeechSettingsDialog();
+                } else if (which == 2) {
+                    Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+                    intent.addCategory(Intent.CATEGORY_OPENABLE);
+                    // 文件管理器给 .json 文件的类型并不统一，不按类型过滤
+                    intent.setType("*/*");
+                    startActivityForResult(intent, REQUEST_IMPORT_PACK);
+                } else if (which == 3) {
+                    Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+                    intent.addCategory(Intent.CATEGORY_OPENABLE);
+                    intent.setType("application/json");
+                    intent.putExtra(Intent.EXTRA_TITLE, "词组包.json");
+                    startActivityForResult(intent, REQUEST_EXPORT_PACK);
+                } else if (which == 4) {
+                    startActivity(new Intent(this, PronunciationActivity.class));
+                } else {
+                    boolean sortByUsage = !settings.isSortByUsage();
+                    settings.setSortByUsage(sortByUsage);
+                    Toast.makeText(this, sortByUsage ? "常用的词组将排在前面" : "词组将按添加顺序排列",
+                            Toast.LENGTH_SHORT).show();
+                }
+            })
+            .setNegativeButton("取消", null)
+            .show();
+    }
+
+    /**
+     * 导入词组包，显示进度，可以中途取消（取消后词组没有任何变化）
+     */
+    private void importPhrasePack(Uri uri) {
+        InputStream in;
+        try {
+            in = getContentResolver().openInputStream(uri);
+        } catch (FileNotFoundException | SecurityException e) {
+            Log.e(TAG, "打开词组包失败", e);
+            in = null;
         }
-        
-        // 检查是否已超过引擎列表大小
-        if (initializationAttempts >= engines.size()) {
-            Log.e(TAG, "已尝试所有可用引擎（" + engines.size() + "个），终止尝试");
-            showTTSNotSupportedDialog();
+        if (in == null) {
+            Toast.makeText(this, "无法打开文件", Toast.LENGTH_SHORT).show();
             return;
         }
-        
-        String nextEngine = engines.get(initializationAttempts);
-        int currentAttempt = initializationAttempts + 1;
-        
-        Log.d(TAG, "尝试使用引擎 (第" + currentAttempt + "/" + MAX_INITIALIZATION_ATTEMPTS + "次): " + nextEngine);
-        Toast.makeText(this, "尝试使用引擎 (" + currentAttempt + "/" + MAX_INITIALIZATION_ATTEMPTS + "): " + nextEngine, Toast.LENGTH_SHORT).show();
-        
-        try {
-            // 释放旧实例
-            if (textToSpeech != null) {
-                textToSpeech.shutdown();
-                textToSpeech = null;
+        long size = queryDocumentSize(uri);
+        CancellationSignal cancellationSignal = new CancellationSignal();
+        ProgressBar progressBar = createPackProgressBar(size > 0);
+        AlertDialog progressDialog = new AlertDialog.Builder(this)
+            .setTitle("正在导入词组包")
+            .setMessage("已读取 0 条")
+            .setView(progressBar)
+            .setCancelable(false)
+            .setNegativeButton("取消", (dialog, which) -> cancellationSignal.cancel())
+            .show();
+        phraseRepository.importPack(in, cancellationSignal, new PhraseRepository.PackListener() {
+            @Override
+            public void onProgress(int processed, long bytes) {
+                if (!isDestroyed() && progressDialog.isShowing()) {
+                    progressDialog.setMessage("已读取 " + processed + " 条");
+                    if (size > 0) {
+                        progressBar.setProgress((int) (bytes * 100 / size));
+                    }
+                }
             }
-            
-            // 增加尝试次数，防止无限循环
-            initializationAttempts++;
-            
-            // 使用指定引擎初始化，兼容 Android 16
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                // API 21+ 支持指定引擎
-                textToSpeech = new TextToSpeech(this, this, nextEngine);
-            } else {
-                // API 21- 不支持指定引擎，使用默认方式
-                textToSpeech = new TextToSpeech(this, this);
+
+            @Override
+            public void onFinished(int count, List<Favorite> favorites) {
+                FavoritesStore favoritesStore = FavoritesStore.getInstance(MainActivity.this);
+                for (Favorite favorite : favorites) {
+                    favoritesStore.add(favorite);
+                }
+                if (!isDestroyed()) {
+                    progressDialog.dismiss();
+                    Toast.makeText(MainActivity.this, "导入完成，新增 " + count + " 条词组",
+                            Toast.LENGTH_SHORT).show();
+                }
             }
-        } catch (Exception e) {
-            Log.e(TAG, "使用引擎 " + nextEngine + " 初始化失败", e);
-            // 继续尝试下一个，但添加延迟和防护
-            new android.os.Handler().postDelayed(() -> {
-                // 再次检查最大尝试次数
-                if (initializationAttempts < MAX_INITIALIZATION_ATTEMPTS) {
-                    tryNextEngine(engines);
-                } else {
-                    Log.e(TAG, "已达到最大尝试次数，终止尝试");
-                    showTTSInitErrorDialog("TTS 初始化失败，已尝试 " + MAX_INITIALIZATION_ATTEMPTS + " 次");
+
+            @Override
+            public void onCancelled() {
+                if (!isDestroyed()) {
+                    Toast.makeText(MainActivity.this, "已取消导入，词组没有变化", Toast.LENGTH_SHORT).show();
                 }
-            }, 1000); // 增加延迟时间，减少toast频率
-        }
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                if (!isDestroyed()) {
+                    progressDialog.dismiss();
+                    Toast.makeText(MainActivity.this, "导入失败：" + e.getMessage(), Toast.LENGTH_LONG).show();
+                }
+            }
+        });
     }
-    
+
     /**
-     * 获取可用的 TTS 引擎 - Android 16 兼容版本
+     * 把全部词组和常用板导出为词组包
      */
-    private List<String> getAvailableTtsEngines() {
-        List<String> engines = new ArrayList<>();
-        PackageManager pm = getPackageManager();
-        
+    private void exportPhrasePack(Uri uri) {
+        OutputStream out;
         try {
-            // 方法 1：查询 TTS_SERVICE Intent（获取 TTS 服务）
-            // 使用 PackageManager.MATCH_ALL 标志，兼容 Android 16
-            Intent ttsServiceIntent = new Intent();
-            // ACTION_TTS_SERVICE 在 API 21+ 可用，但我们使用字符串常量兼容旧版
-            ttsServiceIntent.setAction("android.speech.tts.engine.TTS_SERVICE");
-            
-            // 使用兼容旧版 Android 的标志
-            int flags = PackageManager.MATCH_DEFAULT_ONLY;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                flags = PackageManager.MATCH_ALL;
+            out = getContentResolver().openOutputStream(uri);
+        } catch (FileNotFoundException | SecurityException e) {
+            Log.e(TAG, "创建词组包失败", e);
+            out = null;
+        }
+        if (out == null) {
+            Toast.makeText(this, "无法写入文件", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        // 常用板已加载时同步回调，否则读取后回调；只取一次当前列表
+        FavoritesStore favoritesStore = FavoritesStore.getInstance(this);
+        OutputStream target = out;
+        favoritesStore.observe(new FavoritesStore.FavoritesObserver() {
+            @Override
+            public void onFavoritesChanged(List<Favorite> favorites) {
+                favoritesStore.removeObserver(this);
+                writePhrasePack(target, favorites);
             }
-            
-            List<ResolveInfo> services = pm.queryIntentServices(ttsServiceIntent, flags);
-            
-            Log.d(TAG, "查询到 " + services.size() + " 个 TTS 服务");
-            
-            for (ResolveInfo info : services) {
-                if (info.serviceInfo != null) {
-                    String pkg = info.serviceInfo.packageName;
-                    if (pkg != null && !engines.contains(pkg)) {
-                        engines.add(pkg);
-                        Log.d(TAG, "找到 TTS 引擎（服务）: " + pkg);
-                    }
+        });
+    }
+
+    private void writePhrasePack(OutputStream out, List<Favorite> favorites) {
+        AlertDialog progressDialog = new AlertDialog.Builder(this)
+            .setTitle("正在导出词组包")
+            .setMessage("已写出 0 条")
+            .setView(createPackProgressBar(false))
+            .setCancelable(false)
+            .show();
+        phraseRepository.exportPack(out, favorites, new PhraseRepository.PackListener() {
+            @Override
+            public void onProgress(int processed, long bytes) {
+                if (!isDestroyed() && progressDialog.isShowing()) {
+                    progressDialog.setMessage("已写出 " + processed + " 条");
                 }
             }
-            
-            // 方法 2：查询 CHECK_TTS_DATA Intent（获取 TTS 活动）
-            Intent checkIntent = new Intent(TextToSpeech.Engine.ACTION_CHECK_TTS_DATA);
-            List<ResolveInfo> activities = pm.queryIntentActivities(checkIntent, flags);
-            
-            Log.d(TAG, "查询到 " + activities.size() + " 个 TTS 配置活动");
-            
-            for (ResolveInfo info : activities) {
-                if (info.activityInfo != null) {
-                    String pkg = info.activityInfo.packageName;
-                    if (pkg != null && !engines.contains(pkg)) {
-                        engines.add(pkg);
-                        Log.d(TAG, "找到 TTS 引擎（活动）: " + pkg);
-                    }
+
+            @Override
+            public void onFinished(int count, List<Favorite> unused) {
+                if (!isDestroyed()) {
+                    progressDialog.dismiss();
+                    Toast.makeText(MainActivity.this, "已导出 " + count + " 条词组", Toast.LENGTH_SHORT).show();
                 }
             }
-            
-            // 方法 3：使用 TextToSpeech.getEngines()
-            // getEngines() 方法在 API 11 中添加，需要一个 TTS 实例来调用
-            try {
-                if (textToSpeech != null) {
-                    List<TextToSpeech.EngineInfo> engineInfos = textToSpeech.getEngines();
-                    Log.d(TAG, "getEngines() 返回 " + engineInfos.size() + " 个引擎");
-                    
-                    for (TextToSpeech.EngineInfo info : engineInfos) {
-                        if (info.name != null && !engines.contains(info.name)) {
-                            engines.add(info.name);
-                            Log.d(TAG, "找到 TTS 引擎（getEngines）: " + info.name);
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "getEngines() 调用失败", e);
+
+            @Override
+            public void onCancelled() {
             }
-            
-            // 方法 4：添加常见的 TTS 引擎包名作为备选（兼容 Android 16）
-            List<String> commonEngines = new ArrayList<>();
-            commonEngines.add("com.google.android.tts"); // Google TTS
-            commonEngines.add("com.svox.pico"); // Pico TTS（Android 内置）
-            commonEngines.add("com.iflytek.speechcloud"); // 讯飞 TTS
-            commonEngines.add("com.baidu.duersdk.opensdk"); // 百度 TTS
-            commonEngines.add("com.oppo.tts"); // OPPO TTS（一加手机使用）
-            commonEngines.add("com.coloros.speech"); // ColorOS TTS（一加手机使用）
-            
-            for (String engine : commonEngines) {
-                if (!engines.contains(engine)) {
-                    // 检查引擎是否真的安装在设备上
-                    Intent engineCheckIntent = new Intent();
-                    engineCheckIntent.setPackage(engine);
-                    engineCheckIntent.setAction(TextToSpeech.Engine.ACTION_CHECK_TTS_DATA);
-                    List<ResolveInfo> resolveInfos = pm.queryIntentActivities(engineCheckIntent, flags);
-                    if (!resolveInfos.isEmpty()) {
-                        engines.add(engine);
-                        Log.d(TAG, "找到 TTS 引擎（常见引擎）: " + engine);
-                    }
+
+            @Override
+            public void onFailed(Exception e) {
+                if (!isDestroyed()) {
+                    progressDialog.dismiss();
+                    Toast.makeText(MainActivity.this, "导出失败：" + e.getMessage(), Toast.LENGTH_LONG).show();
                 }
             }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "查询 TTS 引擎时发生异常", e);
+        });
+    }
+
+    /**
+     * 词组包进度条；知道文件大小时按已读取的字节显示百分比
+     */
+    private ProgressBar createPackProgressBar(boolean determinate) {
+        ProgressBar progressBar = new ProgressBar(this, null, android.R.attr.progressBarStyleHorizontal);
+        progressBar.setIndeterminate(!determinate);
+        progressBar.setMax(100);
+        int padding = (int) (24 * getResources().getDisplayMetrics().density);
+        progressBar.setPadding(padding, 0, padding, 0);
+        return progressBar;
+    }
+
+    /**
+     * 查询文档大小，未知时返回-1
+     */
+    private long queryDocumentSize(Uri uri) {
+        try (Cursor cursor = getContentResolver().query(uri, new String[]{OpenableColumns.SIZE},
+                null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "查询词组包大小失败", e);
         }
-        
-        return engines;
+        return -1;
+    }
+
+    /**
+     * 发音设置对话框
+     */
+    private void showSpeechSettingsDialog() {
+        String[] modes = { "点击词组时不发音", "点击词组时立即发音", "边组句边朗读" };
+        new AlertDialog.Builder(this)
+            .setTitle("发音设置")
+            .setSingleChoiceItems(modes, settings.getSpeakMode(), (dialog, which) -> {
+                settings.setSpeakMode(which);
+                dialog.dismiss();
+            })
+            .setNegativeButton("取消", null)
+            .show();
+    }
+
+    /**
+     * 将词组添加到当前句子中
+     */
+    public SentenceToken addPhraseToSentence(Phrase phrase) {
+        SentenceToken token = currentSentence.append(phrase.getId(), phrase.getContent());
+        // 只添加并布局新的标签
+        int position = currentSentence.size() - 1;
+        sentenceAdapter.notifyItemInserted(position);
+        sentenceTokenList.scrollToPosition(position);
+        updateSuggestions();
+        return token;
+    }
+
+    /**
+     * 按当前句子刷新预测行，只查询内存中的模型、前缀树和词组快照
+     */
+    private void updateSuggestions() {
+        List<List<Phrase>> sentences = new ArrayList<>();
+        int completed = sentenceCompleter.complete(currentSentence, completions);
+        for (int i = 0; i < completed; i++) {
+            List<Phrase> sentence = resolvePhrases(completions[i], completions[i].length);
+            if (sentence != null) {
+                sentences.add(sentence);
+            }
+        }
+        int count = phrasePredictor.predict(currentSentence, predictedIds);
+        List<Phrase> phrases = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // 模型中可能有已删除的词组
+            Phrase phrase = phraseRepository.findPhrase(predictedIds[i]);
+            if (phrase != null) {
+                phrases.add(phrase);
+            }
+        }
+        suggestionAdapter.setSuggestions(sentences, phrases);
+    }
+
+    /**
+     * 把词组ID序列转换为词组，其中有已删除的词组时返回null
+     */
+    private List<Phrase> resolvePhrases(int[] ids, int length) {
+        List<Phrase> phrases = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            Phrase phrase = phraseRepository.findPhrase(ids[i]);
+            if (phrase == null) {
+                return null;
+            }
+            phrases.add(phrase);
+        }
+        return phrases;
+    }
+
+    /**
+     * 点击补全的整句：补上剩余的词组并立即播放
+     */
+    @Override
+    public void onSentenceClicked(List<Phrase> sentence) {
+        for (int i = currentSentence.size(); i < sentence.size(); i++) {
+            addPhraseToSentence(sentence.get(i));
+        }
+        speakSentence();
+    }
+
+    /**
+     * 删除句子中指定位置的词语
+     */
+    private void removeToken(int position) {
+        SentenceToken removed = currentSentence.remove(position);
+        sentenceAdapter.notifyItemRemoved(position);
+        speechEngine.cancelStreamToken(removed.getId());
+        updateSuggestions();
     }
     
     /**
      * 播放当前句子，优化朗读效果
      */
     private void speakSentence() {
-        String sentence = currentSentence.toString().trim();
+        String sentence = currentSentence.speechText().trim();
         if (sentence.isEmpty()) {
             Toast.makeText(this, "请先组成句子", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        if (textToSpeech == null) {
-            Toast.makeText(this, "语音功能未就绪，正在初始化...", Toast.LENGTH_SHORT).show();
-            initializeTTS();
-            return;
-        }
-
         try {
-            if (textToSpeech.isSpeaking()) {
-                textToSpeech.stop();
+            // 按当前语音整理朗读文本：连接词语、规范标点
+            String optimizedSentence = speechEngine.getSpeechPipeline().normalize(currentSentence);
+            if (BuildConfig.DEBUG) {
+                Log.d(TAG, "开始播放: " + optimizedSentence);
             }
-            
-            // 优化1：调整TTS引擎参数，减少词组间停顿
-            // 略微加快语速，减少停顿感（1.1f为略微加快）
-            textToSpeech.setSpeechRate(1.1f);
-            // 设置音调为正常水平
-            textToSpeech.setPitch(1.0f);
-            
-            // 优化2：优化句子格式
-            String optimizedSentence = optimizeSentenceForSpeech(sentence);
-            
-            Log.d(TAG, "开始播放: " + optimizedSentence);
-            
-            // 优化3：直接使用普通speak方法，不使用SSML，避免参数被读出来
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                // 使用现代API，但不使用SSML
-                int result = textToSpeech.speak(optimizedSentence, TextToSpeech.QUEUE_FLUSH, null, "utteranceId");
-                Log.d(TAG, "speak() 返回结果: " + result);
+
+            // 直接使用普通speak方法，不使用SSML，避免参数被读出来
+            if (speechEngine.speak(optimizedSentence)) {
+                usageTracker.recordSentence(currentSentence.tokens());
+                phrasePredictor.train(currentSentence.tokens());
+                sentenceCompleter.record(currentSentence.tokens());
+                sentenceHistory.record(currentSentence.tokens(), sentence);
             } else {
-                // 旧版 API
-                int result = textToSpeech.speak(optimizedSentence, TextToSpeech.QUEUE_FLUSH, null);
-                Log.d(TAG, "旧版speak() 返回结果: " + result);
+                Toast.makeText(this, "语音功能未就绪，正在初始化...", Toast.LENGTH_SHORT).show();
             }
             
         } catch (Exception e) {
@@ -536,82 +607,26 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
         }
     }
     
-    /**
-     * 优化句子格式，减少词组间的停顿
-     */
-    private String optimizeSentenceForSpeech(String sentence) {
-        if (sentence == null || sentence.isEmpty()) {
-            return sentence;
-        }
-        
-        // 优化1：移除所有空格，包括词组间的空格
-        String optimized = sentence.replaceAll("\\s+", "");
-        
-        // 优化2：根据中文习惯，确保标点使用正确
-        // 这里不再需要处理标点后的空格，因为已经移除了所有空格
-        
-        // 优化3：移除句子开头和结尾的空格（可选，因为已经移除了所有空格）
-        optimized = optimized.trim();
-        
-        // 优化4：确保句子以中文标点结尾
-        if (!optimized.isEmpty()) {
-            char lastChar = optimized.charAt(optimized.length() - 1);
-            if (lastChar != '。' && lastChar != '！' && lastChar != '？') {
-                optimized += "。";
-            }
-        }
-        
-        Log.d(TAG, "优化前句子: " + sentence);
-        Log.d(TAG, "优化后句子: " + optimized);
-        
-        return optimized;
-    }
-    
-    /**
-     * 测试 TTS（可选）
-     */
-    private void testTTS() {
-        if (textToSpeech != null) {
-            Log.d(TAG, "测试 TTS 播放");
-            try {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                    textToSpeech.speak("语音测试成功", TextToSpeech.QUEUE_FLUSH, null, null);
-                } else {
-                    textToSpeech.speak("语音测试成功", TextToSpeech.QUEUE_FLUSH, null);
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "测试 TTS 失败", e);
-            }
-        }
-    }
-    
     /**
      * 删除最后一个已输入的词语
      */
     private void clearSentence() {
-        if (currentSentence.length() == 0) {
+        // 按词语撤销，词组中含有空格也不受影响
+        SentenceToken removed = currentSentence.removeLast();
+        if (removed == null) {
             return;
         }
-        
-        // 找到最后一个空格的位置
-        int lastSpaceIndex = currentSentence.lastIndexOf(" ");
-        
-        if (lastSpaceIndex != -1) {
-            // 如果有空格，删除从最后一个空格开始到末尾的所有字符
-            currentSentence.delete(lastSpaceIndex, currentSentence.length());
-        } else {
-            // 如果没有空格（只有一个词语），清空整个句子
-            currentSentence.setLength(0);
-        }
-        
-        sentenceTextView.setText(currentSentence.toString());
+        sentenceAdapter.notifyItemRemoved(currentSentence.size());
+        // 边组句边朗读时，撤销的词语不再读出
+        speechEngine.cancelStreamToken(removed.getId());
+        updateSuggestions();
     }
     
     /**
      * 复制当前句子到剪贴板
      */
     private void copySentence() {
-        String sentence = currentSentence.toString().trim();
+        String sentence = currentSentence.displayText().trim();
         if (sentence.isEmpty()) {
             Toast.makeText(this, "当前没有可复制的内容", Toast.LENGTH_SHORT).show();
             return;
@@ -627,20 +642,6 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
         Toast.makeText(this, "内容已复制到剪贴板", Toast.LENGTH_SHORT).show();
     }
     
-    /**
-     * 语言设置结果转字符串
-     */
-    private String langResultToString(int result) {
-        switch (result) {
-            case TextToSpeech.LANG_AVAILABLE: return "LANG_AVAILABLE";
-            case TextToSpeech.LANG_COUNTRY_AVAILABLE: return "LANG_COUNTRY_AVAILABLE";
-            case TextToSpeech.LANG_COUNTRY_VAR_AVAILABLE: return "LANG_COUNTRY_VAR_AVAILABLE";
-            case TextToSpeech.LANG_MISSING_DATA: return "LANG_MISSING_DATA";
-            case TextToSpeech.LANG_NOT_SUPPORTED: return "LANG_NOT_SUPPORTED";
-            default: return "UNKNOWN(" + result + ")";
-        }
-    }
-    
     /**
      * 显示下载语言数据对话框
      */
@@ -701,10 +702,7 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
                     Log.e(TAG, "无法打开 TTS 设置", e);
                 }
             })
-            .setNegativeButton("重试", (dialog, which) -> {
-                initializationAttempts = 0;
-                initializeTTS();
-            })
+            .setNegativeButton("重试", (dialog, which) -> speechEngine.retry())
             .setNeutralButton("取消", null)
             .show();
     }
@@ -718,77 +716,113 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
     }
 
     @Override
-    public void onEditPhrase(String category, String phrase) {
-        // 启动编辑词组活动
+    public void onEditPhrase(Phrase phrase) {
+        // 启动编辑词组活动，传入ID以便原地更新
         Intent intent = new Intent(this, PhraseEditActivity.class);
-        intent.putExtra(PhraseEditActivity.EXTRA_CATEGORY, category);
-        intent.putExtra(PhraseEditActivity.EXTRA_PHRASE_CONTENT, phrase);
+        intent.putExtra(PhraseEditActivity.EXTRA_CATEGORY, phrase.getCategory());
+        intent.putExtra(PhraseEditActivity.EXTRA_PHRASE_CONTENT, phrase.getContent());
+        intent.putExtra(PhraseEditActivity.EXTRA_PHRASE_ID, phrase.getId());
         startActivityForResult(intent, REQUEST_EDIT_PHRASE);
     }
 
     @Override
-    public void onDeletePhrase(String category, String phrase) {
-        // 从数据库中删除词组
-        if (dbHelper != null) {
-            dbHelper.deletePhraseByCategoryAndContent(category, phrase);
-            // 刷新ViewPager
-            refreshPhraseViewPager();
+    public void onDeletePhrase(Phrase phrase) {
+        // 在后台从数据库中删除词组，对应分类页面会收到差量更新
+        if (phraseRepository != null) {
+            phraseRepository.deletePhrase(phrase, null);
         }
     }
 
     /**
-     * 刷新ViewPager，更新词组列表
+     * 点击常用整句：替换当前句子并立即播放
      */
-    private void refreshPhraseViewPager() {
-        // 确保dbHelper不为null
-        if (dbHelper != null) {
-            phrasePagerAdapter = new PhrasePagerAdapter(this, this::addPhraseToSentence);
-            phraseViewPager.setAdapter(phrasePagerAdapter);
+    @Override
+    public void onFavoriteSentenceClicked(Favorite favorite) {
+        replaceSentenceAndSpeak(favorite.tokens(), favorite.phraseIds());
+    }
+
+    /**
+     * 用历史或常用板中的句子替换当前句子并播放
+     */
+    private void replaceSentenceAndSpeak(String[] tokens, int[] phraseIds) {
+        for (int i = currentSentence.size() - 1; i >= 0; i--) {
+            speechEngine.cancelStreamToken(currentSentence.get(i).getId());
+        }
+        currentSentence.clear();
+        for (int i = 0; i < tokens.length; i++) {
+            currentSentence.append(phraseIds[i], tokens[i]);
         }
+        sentenceAdapter.notifyDataSetChanged();
+        updateSuggestions();
+        speakSentence();
     }
 
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
+
+        if (requestCode == REQUEST_IMPORT_PACK || requestCode == REQUEST_EXPORT_PACK) {
+            if (resultCode == RESULT_OK && data != null && data.getData() != null) {
+                if (requestCode == REQUEST_IMPORT_PACK) {
+                    importPhrasePack(data.getData());
+                } else {
+                    exportPhrasePack(data.getData());
+                }
+            }
+            return;
+        }
+
+        if (requestCode == REQUEST_HISTORY) {
+            if (resultCode == RESULT_OK && data != null) {
+                String[] tokens = data.getStringArrayExtra(HistoryActivity.EXTRA_TOKENS);
+                int[] phraseIds = data.getIntArrayExtra(HistoryActivity.EXTRA_PHRASE_IDS);
+                if (tokens != null && phraseIds != null && tokens.length == phraseIds.length) {
+                    replaceSentenceAndSpeak(tokens, phraseIds);
+                }
+            }
+            return;
+        }
         
         if (resultCode == RESULT_OK && data != null) {
             String category = data.getStringExtra(PhraseEditActivity.EXTRA_CATEGORY);
             String content = data.getStringExtra(PhraseEditActivity.EXTRA_PHRASE_CONTENT);
             
-            if (category != null && content != null && dbHelper != null) {
+            if (category != null && content != null && phraseRepository != null) {
                 if (requestCode == REQUEST_ADD_PHRASE) {
                     // 添加新词组到数据库
                     Phrase phrase = new Phrase();
                     phrase.setCategory(category);
                     phrase.setContent(content);
-                    dbHelper.addPhrase(phrase);
-                    // 刷新ViewPager
-                    refreshPhraseViewPager();
+                    // 在后台写入，对应分类页面会收到差量更新；随后预合成新词组的语音
+                    phraseRepository.addPhrase(phrase, () -> speechEngine.prepareClip(content));
                 } else if (requestCode == REQUEST_EDIT_PHRASE) {
-                    // 更新数据库中的词组
-                    String oldContent = data.getStringExtra(PhraseEditActivity.EXTRA_PHRASE_CONTENT);
-                    if (oldContent != null) {
-                        dbHelper.deletePhraseByCategoryAndContent(category, oldContent);
-                        Phrase phrase = new Phrase();
-                        phrase.setCategory(category);
-                        phrase.setContent(content);
-                        dbHelper.addPhrase(phrase);
-                        // 刷新ViewPager
-                        refreshPhraseViewPager();
+                    // 按ID原地更新数据库中的词组
+                    int phraseId = data.getIntExtra(PhraseEditActivity.EXTRA_PHRASE_ID, -1);
+                    if (phraseId != -1) {
+                        phraseRepository.updatePhrase(new Phrase(phraseId, category, content),
+                                () -> speechEngine.prepareClip(content));
                     }
                 }
             }
         }
     }
 
+    @Override
+    protected void onStop() {
+        // 退到后台时写入缓冲中的使用记录，进程随后可能被回收
+        usageTracker.flush();
+        phrasePredictor.save();
+        sentenceCompleter.save();
+        PinyinIndex.getInstance(this).save();
+        super.onStop();
+    }
+
     @Override
     protected void onDestroy() {
-        if (textToSpeech != null) {
-            Log.d(TAG, "释放 TTS 资源");
-            textToSpeech.stop();
-            textToSpeech.shutdown();
-            textToSpeech = null;
-        }
+        phraseRepository.removeCategoriesObserver(categoriesObserver);
+        phraseSearcher.release();
+        // 语音引擎属于整个进程，这里只取消问题通知
+        speechEngine.setProblemListener(null);
         super.onDestroy();
     }
 }
\ No newline at end of file
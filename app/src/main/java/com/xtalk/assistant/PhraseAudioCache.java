@@ -0,0 +1,391 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.SoundPool;
+import android.os.Bundle;
+import android.speech.tts.TextToSpeech;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 单个词组的预合成语音缓存
+ *
+ * 后台用 TextToSpeech.synthesizeToFile 为每个词组合成一次音频，按 引擎/语音/语速/音调
+ * 分目录存放在应用缓存目录中；点词发音时用 SoundPool 直接播放已加载的片段，
+ * 不再等待引擎的合成延迟。
+ *
+ * SoundPool 中解码后的片段占用原生内存，导入大词组包后不能全部加载。只按优先顺序
+ * （常用板、使用分数高的词组）预先加载前 {@link #MAX_LOADED_CLIPS} 个，其余片段在
+ * 点击时加载，超出数量时卸载最久未播放的片段。
+ *
+ * 合成请求一次只提交一个：引擎队列与 speak 共用，播放整句时的 QUEUE_FLUSH
+ * 会中断正在合成的片段，被中断的片段会重新排队。
+ *
+ * 由 {@link SpeechEngine} 持有，与进程同生命周期：更换引擎时通过 {@link #start} 切换语音目录，
+ * SoundPool 和后台线程不释放，随进程结束回收。
+ */
+public class PhraseAudioCache {
+
+    private static final String TAG = "PhraseAudioCache";
+    // 合成任务的 utteranceId 前缀，用于在进度回调中区分
+    static final String UTTERANCE_PREFIX = "clip:";
+    private static final String CACHE_DIR = "phrase_audio";
+    // 同时加载到 SoundPool 的流数量
+    private static final int MAX_STREAMS = 2;
+    // 同时加载在 SoundPool 中的片段数，一个词组的片段解码后约几十 KB
+    static final int MAX_LOADED_CLIPS = 96;
+
+    private final File rootDir;
+    private final SoundPool soundPool;
+    // 所有文件操作和队列状态都在这个线程上处理
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "phrase-audio"));
+    // 词组内容 → 已加载完成的 SoundPool 声音ID
+    private final Map<String, Integer> loadedSounds = new ConcurrentHashMap<>();
+    // 词组内容 → 加载中或已加载的声音ID，按最近播放排列；只在 executor 线程放入和移除，
+    // 主线程播放时读取一次以刷新顺序
+    private final LruCache<String, Integer> residentSounds = new LruCache<String, Integer>(MAX_LOADED_CLIPS) {
+        @Override
+        protected void entryRemoved(boolean evicted, String content, Integer soundId, Integer newSoundId) {
+            loadedSounds.remove(content);
+            loadingSounds.remove(soundId);
+            soundPool.unload(soundId);
+        }
+    };
+
+    // 以下字段只在 executor 线程访问
+    // SoundPool 声音ID → 词组内容，加载中的片段
+    private final Map<Integer, String> loadingSounds = new HashMap<>();
+    private final ArrayDeque<String> renderQueue = new ArrayDeque<>();
+    private final Set<String> queued = new HashSet<>();
+    // 合成完成后需要加载的片段：预加载范围内的和点击时尚未合成的
+    private final Set<String> loadAfterRender = new HashSet<>();
+    private TextToSpeech textToSpeech;
+    private File voiceDir;
+    // 正在合成的词组内容，null 表示空闲
+    private String rendering;
+    // 暂停提交新的合成任务，例如边组句边朗读时让出引擎队列
+    private boolean paused = false;
+
+    public PhraseAudioCache(Context context) {
+        this.rootDir = new File(context.getCacheDir(), CACHE_DIR);
+        AudioAttributes attributes = new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_ASSISTANCE_ACCESSIBILITY)
+                .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+                .build();
+        this.soundPool = new SoundPool.Builder()
+                .setMaxStreams(MAX_STREAMS)
+                .setAudioAttributes(attributes)
+                .build();
+        // 加载完成的回调在主线程，转到 executor 线程处理：发起加载的任务此时一定已经记录了声音ID
+        soundPool.setOnLoadCompleteListener((pool, soundId, status) ->
+                post(() -> onLoadComplete(soundId, status)));
+    }
+
+    /**
+     * 绑定到一个已初始化的引擎和语音，在后台合成缺失的片段，并加载优先的片段
+     *
+     * @param voiceKey 引擎包名、语音、语速、音调组成的标识，任一项变化都会使用新的缓存目录
+     * @param contents 全部词组内容，按优先顺序排列，前 {@link #MAX_LOADED_CLIPS} 个预先加载
+     */
+    public void start(TextToSpeech tts, String voiceKey, List<String> contents) {
+        post(() -> {
+            File dir = new File(rootDir, sha1(voiceKey).substring(0, 16));
+            if (!dir.equals(voiceDir)) {
+                switchVoice(dir);
+            } else if (tts != textToSpeech && rendering != null) {
+                // 旧引擎上提交的合成任务不会再有回调
+                tempFile(rendering).delete();
+                rendering = null;
+            }
+            textToSpeech = tts;
+            for (String content : contents) {
+                enqueueIfMissing(content);
+            }
+            // 倒序加载，优先级最高的片段最后放入，最晚被卸载
+            for (int i = Math.min(contents.size(), MAX_LOADED_CLIPS) - 1; i >= 0; i--) {
+                loadOrRender(contents.get(i));
+            }
+            renderNext();
+        });
+    }
+
+    /**
+     * 立即播放词组的预合成片段
+     *
+     * @return 片段已就绪并开始播放时返回true；否则返回false，并在后台加载或补合成该片段
+     */
+    public boolean play(String content) {
+        Integer soundId = loadedSounds.get(content);
+        if (soundId != null && soundPool.play(soundId, 1f, 1f, 1, 0, 1f) != 0) {
+            // 刷新最近播放的顺序
+            residentSounds.get(content);
+            return true;
+        }
+        prepare(content);
+        return false;
+    }
+
+    /**
+     * 在后台加载片段，尚未合成时优先合成，例如新添加或修改的词组、刚点击的词组
+     */
+    public void prepare(String content) {
+        post(() -> {
+            loadOrRender(content);
+            renderNext();
+        });
+    }
+
+    /**
+     * 暂停或恢复后台合成；暂停时正在合成的片段会继续完成
+     */
+    public void setPaused(boolean paused) {
+        post(() -> {
+            this.paused = paused;
+            renderNext();
+        });
+    }
+
+    /**
+     * 是否为本缓存提交的合成任务
+     */
+    public static boolean isCacheUtterance(String utteranceId) {
+        return utteranceId != null && utteranceId.startsWith(UTTERANCE_PREFIX);
+    }
+
+    /**
+     * 合成完成：临时文件改名为正式片段，需要时加载到 SoundPool
+     */
+    public void onUtteranceDone(String utteranceId) {
+        post(() -> {
+            String content = contentOf(utteranceId);
+            if (content == null || !content.equals(rendering)) {
+                return;
+            }
+            rendering = null;
+            File clip = clipFile(content);
+            File temp = tempFile(content);
+            boolean wanted = loadAfterRender.remove(content);
+            if (temp.renameTo(clip)) {
+                if (wanted) {
+                    load(content, clip);
+                }
+            } else {
+                temp.delete();
+            }
+            renderNext();
+        });
+    }
+
+    /**
+     * 合成失败：放弃该片段，继续下一个
+     */
+    public void onUtteranceError(String utteranceId) {
+        post(() -> {
+            String content = contentOf(utteranceId);
+            if (content == null || !content.equals(rendering)) {
+                return;
+            }
+            Log.w(TAG, "片段合成失败: " + content);
+            rendering = null;
+            loadAfterRender.remove(content);
+            tempFile(content).delete();
+            renderNext();
+        });
+    }
+
+    /**
+     * 合成被打断（例如播放整句时清空了引擎队列）：重新排到队尾，等待加载的片段排到最前面
+     */
+    public void onUtteranceStopped(String utteranceId) {
+        post(() -> {
+            String content = contentOf(utteranceId);
+            if (content == null || !content.equals(rendering)) {
+                return;
+            }
+            rendering = null;
+            tempFile(content).delete();
+            queued.remove(content);
+            if (loadAfterRender.contains(content)) {
+                loadOrRender(content);
+            } else {
+                enqueueIfMissing(content);
+            }
+            renderNext();
+        });
+    }
+
+    /**
+     * 切换到新的语音目录：清空已加载的片段，删除其他语音的旧缓存，加载本目录已有片段
+     */
+    private void switchVoice(File dir) {
+        residentSounds.evictAll();
+        renderQueue.clear();
+        queued.clear();
+        loadAfterRender.clear();
+        rendering = null;
+        voiceDir = dir;
+
+        File[] voices = rootDir.listFiles();
+        if (voices != null) {
+            for (File other : voices) {
+                if (!other.equals(dir)) {
+                    deleteRecursively(other);
+                }
+            }
+        }
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.w(TAG, "无法创建缓存目录: " + dir);
+        }
+    }
+
+    /**
+     * 片段不存在且未排队时加入合成队列末尾
+     */
+    private void enqueueIfMissing(String content) {
+        if (voiceDir == null || content == null || content.isEmpty() || queued.contains(content)
+                || clipFile(content).exists()) {
+            return;
+        }
+        queued.add(content);
+        renderQueue.add(content);
+    }
+
+    /**
+     * 片段已合成时加载；尚未合成时排到合成队列最前面，合成完成后加载
+     */
+    private void loadOrRender(String content) {
+        if (voiceDir == null || content == null || content.isEmpty()) {
+            return;
+        }
+        File clip = clipFile(content);
+        if (clip.exists()) {
+            load(content, clip);
+            return;
+        }
+        loadAfterRender.add(content);
+        if (!content.equals(rendering)) {
+            if (queued.add(content)) {
+                renderQueue.addFirst(content);
+            } else if (renderQueue.remove(content)) {
+                renderQueue.addFirst(content);
+            }
+        }
+    }
+
+    /**
+     * 引擎空闲时提交下一个合成任务
+     */
+    private void renderNext() {
+        if (rendering != null || textToSpeech == null || paused) {
+            return;
+        }
+        String content;
+        while ((content = renderQueue.poll()) != null) {
+            queued.remove(content);
+            if (!clipFile(content).exists()) {
+                break;
+            }
+        }
+        if (content == null) {
+            return;
+        }
+        int result = textToSpeech.synthesizeToFile(content, new Bundle(), tempFile(content),
+                UTTERANCE_PREFIX + content);
+        if (result == TextToSpeech.SUCCESS) {
+            rendering = content;
+        } else {
+            Log.w(TAG, "提交合成任务失败: " + content);
+        }
+    }
+
+    /**
+     * 提交到后台线程
+     */
+    private void post(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * 加载到 SoundPool，超出 {@link #MAX_LOADED_CLIPS} 时卸载最久未播放的片段；已加载或加载中时只刷新顺序
+     */
+    private void load(String content, File clip) {
+        if (residentSounds.get(content) != null) {
+            return;
+        }
+        int soundId = soundPool.load(clip.getPath(), 1);
+        if (soundId == 0) {
+            Log.w(TAG, "片段加载失败: " + content);
+            return;
+        }
+        loadingSounds.put(soundId, content);
+        residentSounds.put(content, soundId);
+    }
+
+    /**
+     * 加载完成；加载期间已被卸载的片段直接忽略
+     */
+    private void onLoadComplete(int soundId, int status) {
+        String content = loadingSounds.remove(soundId);
+        if (content == null) {
+            return;
+        }
+        if (status == 0) {
+            loadedSounds.put(content, soundId);
+        } else {
+            Log.w(TAG, "片段解码失败: " + content);
+            residentSounds.remove(content);
+        }
+    }
+
+    private File clipFile(String content) {
+        return new File(voiceDir, sha1(content) + ".wav");
+    }
+
+    private File tempFile(String content) {
+        return new File(voiceDir, sha1(content) + ".tmp");
+    }
+
+    private static String contentOf(String utteranceId) {
+        return isCacheUtterance(utteranceId) ? utteranceId.substring(UTTERANCE_PREFIX.length()) : null;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static String sha1(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(text.getBytes(Charset.forName("UTF-8")));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
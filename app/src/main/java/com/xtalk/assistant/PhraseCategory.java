@@ -0,0 +1,143 @@
+package com.xtalk.assistant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 词组分类
+ *
+ * 每个分类有一个稳定的ID，用作分页适配器的条目ID：内置分类使用固定的序号，
+ * 其他分类（导入或自定义）由名称计算得到，与所在位置无关。
+ * 常用板（{@link #FAVORITES}）固定在最前面，它的内容不在词组表中。
+ */
+public final class PhraseCategory {
+
+    // 内置分类名称，顺序即标签页顺序
+    private static final String[] BUILT_IN_NAMES = {
+            "clothing_food_housing_transport",
+            "relationships",
+            "actions",
+            "emotions",
+            "requests",
+            "other",
+            "time",
+            "noun"
+    };
+
+    // 内置分类的标题资源，与 BUILT_IN_NAMES 一一对应
+    private static final int[] BUILT_IN_TITLES = {
+            R.string.category_clothing_food_housing_transport,
+            R.string.category_relationships,
+            R.string.category_actions,
+            R.string.category_emotions,
+            R.string.category_requests,
+            R.string.category_other,
+            R.string.category_time,
+            R.string.category_noun
+    };
+
+    // 常用板，ID为0，排在所有分类之前
+    public static final PhraseCategory FAVORITES = new PhraseCategory(0, "favorites", R.string.category_favorites);
+
+    private static final List<PhraseCategory> BUILT_IN;
+
+    static {
+        List<PhraseCategory> builtIn = new ArrayList<>(BUILT_IN_NAMES.length + 1);
+        builtIn.add(FAVORITES);
+        for (int i = 0; i < BUILT_IN_NAMES.length; i++) {
+            builtIn.add(new PhraseCategory(i + 1, BUILT_IN_NAMES[i], BUILT_IN_TITLES[i]));
+        }
+        BUILT_IN = Collections.unmodifiableList(builtIn);
+    }
+
+    private final long id;
+    private final String name;
+    // 标题资源ID，非内置分类为0，直接显示名称
+    private final int titleRes;
+
+    private PhraseCategory(long id, String name, int titleRes) {
+        this.id = id;
+        this.name = name;
+        this.titleRes = titleRes;
+    }
+
+    /**
+     * 内置分类列表，第一个是常用板
+     */
+    public static List<PhraseCategory> builtIn() {
+        return BUILT_IN;
+    }
+
+    /**
+     * 内置分类在前，其余分类按名称排序追加在后
+     */
+    public static List<PhraseCategory> withExtras(Collection<String> names) {
+        List<String> extras = new ArrayList<>();
+        for (String name : names) {
+            if (name != null && !Arrays.asList(BUILT_IN_NAMES).contains(name)
+                    && !FAVORITES.name.equals(name)) {
+                extras.add(name);
+            }
+        }
+        if (extras.isEmpty()) {
+            return BUILT_IN;
+        }
+        Collections.sort(extras);
+        List<PhraseCategory> categories = new ArrayList<>(BUILT_IN);
+        for (String name : extras) {
+            categories.add(new PhraseCategory(idForName(name), name, 0));
+        }
+        return Collections.unmodifiableList(categories);
+    }
+
+    /**
+     * 由分类名称计算稳定ID（64位 FNV-1a），最高位置1以避开内置分类的序号
+     */
+    private static long idForName(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash | Long.MIN_VALUE;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getTitleRes() {
+        return titleRes;
+    }
+
+    /**
+     * 是否为常用板
+     */
+    public boolean isFavorites() {
+        return id == FAVORITES.id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PhraseCategory)) {
+            return false;
+        }
+        PhraseCategory other = (PhraseCategory) o;
+        return id == other.id && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (id ^ (id >>> 32));
+    }
+}
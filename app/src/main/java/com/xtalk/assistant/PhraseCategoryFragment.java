@@ -1,6 +1,9 @@
 package com.xtalk.assistant;
 
+import android.content.Context;
+import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.text.TextUtils;
 import android.view.ContextMenu;
 import android.view.LayoutInflater;
 import android.view.Menu;
@@ -9,10 +12,14 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.PopupMenu;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
@@ -21,11 +28,20 @@ import java.util.List;
 public class PhraseCategoryFragment extends Fragment {
 
     private static final String ARG_CATEGORY = "category";
-    private static final String ARG_PHRASES = "phrases";
+    // 词组按钮与添加按钮共用同一种视图类型，可在所有页面间复用
+    static final int VIEW_TYPE_PHRASE = 0;
     private String category;
-    private List<String> phrases;
     private PhrasePagerAdapter.PhraseClickListener phraseClickListener;
     private PhraseEditListener phraseEditListener;
+    private PhraseViewPool phraseViewPool;
+    private PhraseAdapter adapter;
+    private View loadingView;
+    private PhraseRepository.PhrasesObserver phrasesObserver;
+    // 最近一次收到的词组列表（按添加顺序）
+    private List<Phrase> phrases;
+    private AppSettings settings;
+    private UsageTracker usageTracker;
+    private SharedPreferences.OnSharedPreferenceChangeListener settingsListener;
 
     public PhraseCategoryFragment() {
         // Required empty public constructor
@@ -36,39 +52,58 @@ public class PhraseCategoryFragment extends Fragment {
      */
     public interface PhraseEditListener {
         void onAddPhrase(String category);
-        void onEditPhrase(String category, String phrase);
-        void onDeletePhrase(String category, String phrase);
+        void onEditPhrase(Phrase phrase);
+        void onDeletePhrase(Phrase phrase);
     }
 
     /**
-     * 创建新的Fragment实例
+     * 提供所有页面共享的按钮缓存池，由宿主Activity实现
      */
-    public static PhraseCategoryFragment newInstance(
-            String category,
-            List<String> phrases,
-            PhrasePagerAdapter.PhraseClickListener phraseClickListener,
-            PhraseEditListener phraseEditListener) {
+    public interface PhraseViewPoolProvider {
+        PhraseViewPool getPhraseViewPool();
+    }
+
+    /**
+     * 创建新的Fragment实例，只传入分类名称，词组数据在视图创建后异步加载
+     */
+    public static PhraseCategoryFragment newInstance(String category) {
         PhraseCategoryFragment fragment = new PhraseCategoryFragment();
         Bundle args = new Bundle();
         args.putString(ARG_CATEGORY, category);
-        // 确保转换为ArrayList
-        args.putStringArrayList(ARG_PHRASES, new java.util.ArrayList<>(phrases));
         fragment.setArguments(args);
-        fragment.phraseClickListener = phraseClickListener;
-        fragment.phraseEditListener = phraseEditListener;
         return fragment;
     }
 
+    /**
+     * 监听器从宿主Activity获取，Fragment被系统重建后依然有效
+     */
+    @Override
+    public void onAttach(@NonNull Context context) {
+        super.onAttach(context);
+        if (context instanceof PhrasePagerAdapter.PhraseClickListener) {
+            phraseClickListener = (PhrasePagerAdapter.PhraseClickListener) context;
+        }
+        if (context instanceof PhraseEditListener) {
+            phraseEditListener = (PhraseEditListener) context;
+        }
+        if (context instanceof PhraseViewPoolProvider) {
+            phraseViewPool = ((PhraseViewPoolProvider) context).getPhraseViewPool();
+        }
+    }
+
+    @Override
+    public void onDetach() {
+        phraseClickListener = null;
+        phraseEditListener = null;
+        phraseViewPool = null;
+        super.onDetach();
+    }
+
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         if (getArguments() != null) {
             category = getArguments().getString(ARG_CATEGORY);
-            phrases = getArguments().getStringArrayList(ARG_PHRASES);
-        }
-        // 确保phrases列表永远不会为null
-        if (phrases == null) {
-            phrases = new java.util.ArrayList<>();
         }
     }
 
@@ -83,35 +118,114 @@ public class PhraseCategoryFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        // 设置RecyclerView适配器
         RecyclerView phraseRecyclerView = view.findViewById(R.id.phrase_recycler_view);
-        PhraseAdapter adapter = new PhraseAdapter(phrases, phraseClickListener, (position, phrase, anchorView) -> {
+        loadingView = view.findViewById(R.id.phrase_loading_view);
+
+        // 所有页面共用一个缓存池；页面销毁时把按钮归还缓存池，供其他页面复用
+        if (phraseViewPool != null) {
+            phraseRecyclerView.setRecycledViewPool(phraseViewPool.getPool());
+        }
+        RecyclerView.LayoutManager layoutManager = phraseRecyclerView.getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            ((LinearLayoutManager) layoutManager).setRecycleChildrenOnDetach(true);
+        }
+
+        // 设置RecyclerView适配器，数据变化时只做差量更新
+        adapter = new PhraseAdapter(phraseClickListener, (phrase, anchorView) -> {
             // 长按词组时显示操作菜单，在长按的view旁边弹出
-            showPhraseOptions(position, phrase, anchorView);
-        }, phraseEditListener, category);
+            showPhraseOptions(phrase, anchorView);
+        }, phraseEditListener, category, phraseViewPool);
         phraseRecyclerView.setAdapter(adapter);
 
+        // 数据到达前显示占位，词组在后台线程加载，之后的增删改也通过观察者推送
+        loadingView.setVisibility(View.VISIBLE);
+        settings = AppSettings.getInstance(requireContext());
+        usageTracker = UsageTracker.getInstance(requireContext());
+        phrasesObserver = phrases -> {
+            this.phrases = phrases;
+            submitPhrases();
+            loadingView.setVisibility(View.GONE);
+        };
+        PhraseRepository.getInstance(requireContext()).observePhrases(category, phrasesObserver);
+
+        // 切换排列方式后立即重新排列
+        settingsListener = (prefs, key) -> {
+            if (AppSettings.PREF_SORT_BY_USAGE.equals(key)) {
+                submitPhrases();
+            }
+        };
+        settings.registerListener(settingsListener);
+    }
+
+    /**
+     * 页面切换回来时按最新的使用分数重新排列；停留在页面上点击时不改变顺序，避免按钮在手指下移动
+     */
+    @Override
+    public void onResume() {
+        super.onResume();
+        submitPhrases();
+    }
+
+    /**
+     * 按当前设置的排列方式提交词组列表，排序只读取内存中的使用分数
+     */
+    private void submitPhrases() {
+        if (adapter == null || phrases == null) {
+            return;
+        }
+        adapter.submitList(settings.isSortByUsage() ? usageTracker.rank(phrases) : phrases);
+    }
+
+    @Override
+    public void onDestroyView() {
+        PhraseRepository.getInstance(requireContext()).removePhrasesObserver(category, phrasesObserver);
+        settings.unregisterListener(settingsListener);
+        settingsListener = null;
+        phrasesObserver = null;
+        phrases = null;
+        adapter = null;
+        loadingView = null;
+        super.onDestroyView();
+    }
 
+    /**
+     * 创建一个未绑定数据的词组按钮ViewHolder，用于预先放入共享缓存池
+     *
+     * 点击事件在绑定时才关联到具体页面的适配器，因此可以被任意页面复用。
+     */
+    static RecyclerView.ViewHolder createPooledViewHolder(RecyclerView parent, PhraseViewPool viewPool) {
+        PhraseAdapter adapter = new PhraseAdapter(null, null, null, null, viewPool);
+        return adapter.createViewHolder(parent, VIEW_TYPE_PHRASE);
     }
 
     /**
      * 显示词组操作选项，在长按的view旁边弹出
      */
-    private void showPhraseOptions(int position, String phrase, View anchorView) {
+    private void showPhraseOptions(Phrase phrase, View anchorView) {
         // 使用长按的view作为锚点，在其旁边显示弹出菜单
         PopupMenu popupMenu = new PopupMenu(requireContext(), anchorView);
         popupMenu.getMenuInflater().inflate(R.menu.phrase_options, popupMenu.getMenu());
+        FavoritesStore favorites = FavoritesStore.getInstance(requireContext());
+        boolean favorited = favorites.containsPhrase(phrase.getId());
+        popupMenu.getMenu().findItem(R.id.action_favorite).setTitle(favorited ? "移出常用" : "加入常用");
         popupMenu.setOnMenuItemClickListener(item -> {
-            if (item.getItemId() == R.id.action_edit) {
+            if (item.getItemId() == R.id.action_favorite) {
+                if (favorited) {
+                    favorites.removePhrase(phrase.getId());
+                } else if (!favorites.add(Favorite.ofPhrase(phrase.getId(), phrase.getContent()))) {
+                    Toast.makeText(requireContext(), "常用已满，请先移出一些", Toast.LENGTH_SHORT).show();
+                }
+                return true;
+            } else if (item.getItemId() == R.id.action_edit) {
                 // 编辑词组
                 if (phraseEditListener != null) {
-                    phraseEditListener.onEditPhrase(category, phrase);
+                    phraseEditListener.onEditPhrase(phrase);
                 }
                 return true;
             } else if (item.getItemId() == R.id.action_delete) {
                 // 删除词组
                 if (phraseEditListener != null) {
-                    phraseEditListener.onDeletePhrase(category, phrase);
+                    phraseEditListener.onDeletePhrase(phrase);
                 }
                 return true;
             }
@@ -122,29 +236,61 @@ public class PhraseCategoryFragment extends Fragment {
 
     /**
      * 词组适配器
+     *
+     * 以词组行ID作为稳定ID，列表更新时在后台计算差异，只刷新变化的条目。
+     * 最后一项固定为添加按钮。
      */
-    private static class PhraseAdapter extends RecyclerView.Adapter<PhraseAdapter.PhraseViewHolder> {
+    private static class PhraseAdapter extends ListAdapter<Phrase, PhraseAdapter.PhraseViewHolder> {
+
+        // 添加按钮的稳定ID：数据库行ID从1开始，也不能与 RecyclerView.NO_ID（-1）相同
+        private static final long ADD_BUTTON_ID = Long.MIN_VALUE;
+        // 内容变化时的局部刷新标记，只更新按钮文本
+        private static final Object PAYLOAD_CONTENT = new Object();
+
+        private static final DiffUtil.ItemCallback<Phrase> DIFF_CALLBACK = new DiffUtil.ItemCallback<Phrase>() {
+            @Override
+            public boolean areItemsTheSame(@NonNull Phrase oldItem, @NonNull Phrase newItem) {
+                return oldItem.getId() == newItem.getId();
+            }
+
+            @Override
+            public boolean areContentsTheSame(@NonNull Phrase oldItem, @NonNull Phrase newItem) {
+                return TextUtils.equals(oldItem.getContent(), newItem.getContent());
+            }
+
+            @Override
+            public Object getChangePayload(@NonNull Phrase oldItem, @NonNull Phrase newItem) {
+                return PAYLOAD_CONTENT;
+            }
+        };
 
-        private final List<String> phrases;
         private final PhrasePagerAdapter.PhraseClickListener phraseClickListener;
         private final OnPhraseLongClickListener longClickListener;
         private final PhraseEditListener phraseEditListener;
         private final String category;
+        private final PhraseViewPool viewPool;
 
         public interface OnPhraseLongClickListener {
-            void onPhraseLongClick(int position, String phrase, View view);
+            void onPhraseLongClick(Phrase phrase, View view);
         }
 
-        public PhraseAdapter(List<String> phrases, 
-                            PhrasePagerAdapter.PhraseClickListener phraseClickListener,
+        public PhraseAdapter(PhrasePagerAdapter.PhraseClickListener phraseClickListener,
                             OnPhraseLongClickListener longClickListener,
                             PhraseEditListener phraseEditListener,
-                            String category) {
-            this.phrases = phrases;
+                            String category,
+                            PhraseViewPool viewPool) {
+            super(DIFF_CALLBACK);
             this.phraseClickListener = phraseClickListener;
             this.longClickListener = longClickListener;
             this.phraseEditListener = phraseEditListener;
             this.category = category;
+            this.viewPool = viewPool;
+            setHasStableIds(true);
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return VIEW_TYPE_PHRASE;
         }
 
         @NonNull
@@ -152,53 +298,83 @@ public class PhraseCategoryFragment extends Fragment {
         public PhraseViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
             View view = LayoutInflater.from(parent.getContext())
                     .inflate(R.layout.item_phrase_button, parent, false);
-            return new PhraseViewHolder(view);
+            PhraseViewHolder holder = new PhraseViewHolder(view);
+            if (viewPool != null) {
+                viewPool.onViewInflated();
+            }
+            // 监听器只在创建时设置一次，点击时读取当前绑定的适配器和词组；
+            // ViewHolder 通过共享缓存池在页面间复用，不能捕获创建它的适配器
+            holder.phraseButton.setOnClickListener(v -> {
+                PhraseAdapter bound = holder.adapter;
+                if (bound == null) {
+                    return;
+                }
+                if (holder.phrase == null) {
+                    // 添加按钮，调用外部监听器的添加词组方法
+                    if (bound.phraseEditListener != null) {
+                        bound.phraseEditListener.onAddPhrase(bound.category);
+                    }
+                } else if (bound.phraseClickListener != null) {
+                    bound.phraseClickListener.onPhraseClicked(holder.phrase);
+                }
+            });
+            // 添加按钮不需要长按事件
+            holder.phraseButton.setOnLongClickListener(v -> {
+                PhraseAdapter bound = holder.adapter;
+                if (bound != null && holder.phrase != null && bound.longClickListener != null) {
+                    bound.longClickListener.onPhraseLongClick(holder.phrase, v);
+                    return true;
+                }
+                return false;
+            });
+            return holder;
         }
 
         @Override
         public void onBindViewHolder(@NonNull PhraseViewHolder holder, int position) {
+            holder.adapter = this;
             // 检查是否是最后一个位置（添加按钮）
-            if (position == phrases.size()) {
-                // 设置添加按钮文本
+            if (isAddButton(position)) {
+                holder.phrase = null;
                 holder.phraseButton.setText("+");
-                // 设置添加按钮点击事件
-                holder.phraseButton.setOnClickListener(v -> {
-                    // 调用外部监听器的添加词组方法
-                    if (phraseEditListener != null) {
-                        phraseEditListener.onAddPhrase(category);
-                    }
-                });
-                // 添加按钮不需要长按事件
-                holder.phraseButton.setOnLongClickListener(null);
             } else {
                 // 普通词组按钮
-                String phrase = phrases.get(position);
-                // 确保phrase不为null
-                if (phrase != null) {
-                    holder.phraseButton.setText(phrase);
-                    // 确保phraseClickListener不为null
-                    if (phraseClickListener != null) {
-                        holder.phraseButton.setOnClickListener(v -> phraseClickListener.onPhraseClicked(phrase));
-                    }
-                    // 设置长按监听器
-                    holder.phraseButton.setOnLongClickListener(v -> {
-                        if (longClickListener != null) {
-                            longClickListener.onPhraseLongClick(position, phrase, v);
-                            return true;
-                        }
-                        return false;
-                    });
-                } else {
-                    holder.phraseButton.setText("");
-                    holder.phraseButton.setOnClickListener(null);
-                    holder.phraseButton.setOnLongClickListener(null);
-                }
+                holder.phrase = getItem(position);
+                holder.phraseButton.setText(holder.phrase.getContent());
+            }
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull PhraseViewHolder holder, int position, @NonNull List<Object> payloads) {
+            if (payloads.contains(PAYLOAD_CONTENT) && !isAddButton(position)) {
+                // 只有内容变化，更新文本即可
+                holder.adapter = this;
+                holder.phrase = getItem(position);
+                holder.phraseButton.setText(holder.phrase.getContent());
+                return;
             }
+            onBindViewHolder(holder, position);
+        }
+
+        @Override
+        public void onViewRecycled(@NonNull PhraseViewHolder holder) {
+            // 放回共享缓存池前解除与本页面的关联
+            holder.adapter = null;
+            holder.phrase = null;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return isAddButton(position) ? ADD_BUTTON_ID : getItem(position).getId();
         }
 
         @Override
         public int getItemCount() {
-            return phrases != null ? phrases.size() + 1 : 1; // +1 用于添加按钮
+            return super.getItemCount() + 1; // +1 用于添加按钮
+        }
+
+        private boolean isAddButton(int position) {
+            return position == super.getItemCount();
         }
 
         /**
@@ -206,6 +382,10 @@ public class PhraseCategoryFragment extends Fragment {
          */
         static class PhraseViewHolder extends RecyclerView.ViewHolder {
             Button phraseButton;
+            // 当前绑定的适配器（所在页面）
+            PhraseAdapter adapter;
+            // 当前绑定的词组，添加按钮为null
+            Phrase phrase;
 
             public PhraseViewHolder(@NonNull View itemView) {
                 super(itemView);
@@ -213,4 +393,4 @@ public class PhraseCategoryFragment extends Fragment {
             }
         }
     }
-}
\ No newline at end of file
+}
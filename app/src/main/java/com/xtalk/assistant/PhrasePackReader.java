@@ -0,0 +1,232 @@
+package com.xtalk.assistant;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 词组包的流式读取
+ *
+ * 词组包是一个 JSON 对象（格式见 {@link PhrasePackWriter}）。读取时逐个返回词组，
+ * 任何时候只持有当前的一个词组，几万条的词组包也不会整体读入内存。
+ * 常用板条目很少（见 {@link FavoritesStore#MAX_FAVORITES}），读到时收集起来，词组读完后可以取得。
+ */
+public final class PhrasePackReader implements Closeable, DatabaseHelper.PhraseSource {
+
+    private final CountingInputStream input;
+    private final JsonReader reader;
+    private final List<String[]> favorites = new ArrayList<>();
+    // 当前所在的分类；在某个分类的 phrases 数组中时不为null
+    private String category;
+    private boolean inCategories = false;
+    private boolean finished = false;
+    private int phraseCount = 0;
+
+    public PhrasePackReader(InputStream in) {
+        this.input = new CountingInputStream(in);
+        this.reader = new JsonReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 读取并检查文件头，之后才能读取词组
+     */
+    public void readHeader() throws IOException {
+        reader.beginObject();
+        String format = null;
+        int version = -1;
+        while (format == null || version < 0) {
+            if (!reader.hasNext()) {
+                throw new IOException("不是词组包文件");
+            }
+            String name = reader.nextName();
+            if (PhrasePackWriter.KEY_FORMAT.equals(name)) {
+                format = reader.nextString();
+            } else if (PhrasePackWriter.KEY_VERSION.equals(name)) {
+                version = reader.nextInt();
+            } else {
+                throw new IOException("不是词组包文件");
+            }
+        }
+        if (!PhrasePackWriter.FORMAT.equals(format)) {
+            throw new IOException("不是词组包文件");
+        }
+        if (version > PhrasePackWriter.VERSION) {
+            throw new IOException("词组包版本 " + version + " 过新，请先升级应用");
+        }
+    }
+
+    /**
+     * 下一个词组，按文件中的顺序；没有更多词组时返回null
+     */
+    @Override
+    public Phrase next() throws IOException {
+        while (!finished) {
+            if (category != null) {
+                if (reader.hasNext()) {
+                    String content = reader.nextString().trim();
+                    if (!content.isEmpty()) {
+                        phraseCount++;
+                        Phrase phrase = new Phrase();
+                        phrase.setCategory(category);
+                        phrase.setContent(content);
+                        return phrase;
+                    }
+                    continue;
+                }
+                reader.endArray();
+                category = null;
+                finishCategory();
+            } else if (inCategories) {
+                if (reader.hasNext()) {
+                    beginCategory();
+                } else {
+                    reader.endArray();
+                    inCategories = false;
+                }
+            } else if (reader.hasNext()) {
+                readTopLevelField();
+            } else {
+                reader.endObject();
+                finished = true;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 已读取的词组数
+     */
+    public int getPhraseCount() {
+        return phraseCount;
+    }
+
+    /**
+     * 已读取的字节数，用于计算进度
+     */
+    public long getBytesRead() {
+        return input.count;
+    }
+
+    /**
+     * 词组包中的常用板条目，每项为词语序列；在 {@link #next()} 返回null之后调用
+     */
+    public List<String[]> getFavorites() {
+        return Collections.unmodifiableList(favorites);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readTopLevelField() throws IOException {
+        String name = reader.nextName();
+        if (PhrasePackWriter.KEY_CATEGORIES.equals(name)) {
+            reader.beginArray();
+            inCategories = true;
+        } else if (PhrasePackWriter.KEY_FAVORITES.equals(name)) {
+            readFavorites();
+        } else {
+            // 新版本增加的字段，忽略
+            reader.skipValue();
+        }
+    }
+
+    /**
+     * 进入一个分类对象，读到 phrases 数组开头为止；分类名称必须在词组之前
+     */
+    private void beginCategory() throws IOException {
+        reader.beginObject();
+        String name = null;
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (PhrasePackWriter.KEY_NAME.equals(field)) {
+                name = reader.nextString().trim();
+            } else if (PhrasePackWriter.KEY_PHRASES.equals(field)) {
+                if (name == null || name.isEmpty()) {
+                    throw new IOException("词组包格式不正确：分类缺少名称");
+                }
+                reader.beginArray();
+                category = name;
+                return;
+            } else {
+                reader.skipValue();
+            }
+        }
+        // 没有词组的分类
+        reader.endObject();
+    }
+
+    private void finishCategory() throws IOException {
+        while (reader.hasNext()) {
+            reader.nextName();
+            reader.skipValue();
+        }
+        reader.endObject();
+    }
+
+    private void readFavorites() throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            List<String> tokens = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() == JsonToken.STRING) {
+                    tokens.add(reader.nextString());
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endArray();
+            if (!tokens.isEmpty() && favorites.size() < FavoritesStore.MAX_FAVORITES) {
+                favorites.add(tokens.toArray(new String[0]));
+            }
+        }
+        reader.endArray();
+    }
+
+    /**
+     * 统计已读取字节数的输入流
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.xtalk.assistant;
+
+import android.util.JsonWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 词组包的流式写出
+ *
+ * 词组包是一个 UTF-8 编码的 JSON 对象：
+ * <pre>
+ * {"format": "xtalk-phrase-pack", "version": 1,
+ *  "categories": [{"name": "饮食", "phrases": ["吃饭", "喝水", ...]}, ...],
+ *  "favorites": [["喝水"], ["我", "想", "喝水"], ...]}
+ * </pre>
+ * 分类内词组的先后即排列顺序；分类的 name 必须写在 phrases 之前，读取时才能逐条处理。
+ * 同名分类可以出现多次。favorites 每项是常用板上一个词组或整句的词语序列。
+ *
+ * 通过 {@link DatabaseHelper.PhraseSink} 逐条接收词组，按分类聚集的输入依次写出，不缓存词组。
+ */
+public final class PhrasePackWriter implements Closeable, DatabaseHelper.PhraseSink {
+
+    static final String FORMAT = "xtalk-phrase-pack";
+    static final int VERSION = 1;
+    static final String KEY_FORMAT = "format";
+    static final String KEY_VERSION = "version";
+    static final String KEY_CATEGORIES = "categories";
+    static final String KEY_NAME = "name";
+    static final String KEY_PHRASES = "phrases";
+    static final String KEY_FAVORITES = "favorites";
+
+    private final JsonWriter writer;
+    // 正在写的分类，尚未开始时为null
+    private String category;
+    private int phraseCount = 0;
+
+    public PhrasePackWriter(OutputStream out) throws IOException {
+        writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.beginObject();
+        writer.name(KEY_FORMAT).value(FORMAT);
+        writer.name(KEY_VERSION).value(VERSION);
+        writer.name(KEY_CATEGORIES).beginArray();
+    }
+
+    /**
+     * 写出一个词组；分类与上一个不同时开始新的分类
+     */
+    @Override
+    public void accept(String category, String content) throws IOException {
+        if (!category.equals(this.category)) {
+            if (this.category != null) {
+                writer.endArray();
+                writer.endObject();
+            }
+            writer.beginObject();
+            writer.name(KEY_NAME).value(category);
+            writer.name(KEY_PHRASES).beginArray();
+            this.category = category;
+        }
+        writer.value(content);
+        phraseCount++;
+    }
+
+    /**
+     * 结束词组部分并写出常用板，之后只能 {@link #close()}
+     */
+    public void finish(List<Favorite> favorites) throws IOException {
+        if (category != null) {
+            writer.endArray();
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.name(KEY_FAVORITES).beginArray();
+        for (Favorite favorite : favorites) {
+            writer.beginArray();
+            for (int i = 0; i < favorite.getTokenCount(); i++) {
+                writer.value(favorite.getToken(i));
+            }
+            writer.endArray();
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.flush();
+    }
+
+    /**
+     * 已写出的词组数
+     */
+    public int getPhraseCount() {
+        return phraseCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -1,67 +1,109 @@
 package com.xtalk.assistant;
 
 import android.content.Context;
-import android.view.LayoutInflater;
-import android.view.View;
-import android.view.ViewGroup;
-import android.widget.TextView;
+import android.os.SystemClock;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.RecyclerView;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentActivity;
 import androidx.viewpager2.adapter.FragmentStateAdapter;
 
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * 分类分页适配器
+ *
+ * 以分类ID作为条目ID，分类列表变化时已有分类的Fragment会被保留，
+ * 各页面自己观察所属分类的数据，不在创建时传入词组。
+ */
 public class PhrasePagerAdapter extends FragmentStateAdapter {
 
+    private static final String TAG = "PhrasePagerAdapter";
+
     private final Context context;
-    private final PhraseClickListener phraseClickListener;
-    private final DatabaseHelper dbHelper;
-    private final List<String> categoryNames;
-
-    // 分类名称映射
-    private static final String[] CATEGORY_NAMES = {
-            "clothing_food_housing_transport",
-            "relationships",
-            "actions",
-            "emotions",
-            "requests",
-            "other",
-            "time",
-            "noun"
-    };
-
-    public PhrasePagerAdapter(@NonNull Context context, PhraseClickListener phraseClickListener) {
-        super((MainActivity) context);
-        this.context = context;
-        this.phraseClickListener = phraseClickListener;
-        this.dbHelper = new DatabaseHelper(context);
-        this.categoryNames = List.of(CATEGORY_NAMES);
+    private List<PhraseCategory> categories;
+
+    public PhrasePagerAdapter(@NonNull FragmentActivity activity) {
+        super(activity);
+        this.context = activity;
+        this.categories = new ArrayList<>(PhraseCategory.builtIn());
+    }
+
+    /**
+     * 更新分类列表，只有列表确实变化时才通知刷新
+     */
+    public void setCategories(List<PhraseCategory> newCategories) {
+        if (categories.equals(newCategories)) {
+            return;
+        }
+        categories = new ArrayList<>(newCategories);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * 获取指定位置的分类
+     */
+    public PhraseCategory getCategory(int position) {
+        return categories.get(position);
+    }
+
+    /**
+     * 获取分类ID所在的位置，不存在时返回-1
+     */
+    public int getPosition(long categoryId) {
+        for (int i = 0; i < categories.size(); i++) {
+            if (categories.get(i).getId() == categoryId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 获取指定位置的标签标题
+     */
+    public CharSequence getTitle(int position) {
+        PhraseCategory category = categories.get(position);
+        return category.getTitleRes() != 0 ? context.getString(category.getTitleRes()) : category.getName();
     }
 
     @NonNull
     @Override
-    public PhraseCategoryFragment createFragment(int position) {
-        String category = categoryNames.get(position);
-        List<String> phrases = dbHelper.getPhrasesByCategory(category);
-        return PhraseCategoryFragment.newInstance(
-                category,
-                phrases,
-                phraseClickListener,
-                (PhraseCategoryFragment.PhraseEditListener) context
-        );
+    public Fragment createFragment(int position) {
+        if (categories.get(position).isFavorites()) {
+            // 常用板的数据常驻内存，直接创建
+            return FavoritesFragment.newInstance();
+        }
+        long start = SystemClock.elapsedRealtimeNanos();
+        String category = categories.get(position).getName();
+        // 词组数据由Fragment在后台异步加载，这里不再访问数据库
+        PhraseCategoryFragment fragment = PhraseCategoryFragment.newInstance(category);
+        Log.d(TAG, "createFragment(" + category + ") 耗时 "
+                + (SystemClock.elapsedRealtimeNanos() - start) / 1000 + "us");
+        return fragment;
     }
 
     @Override
     public int getItemCount() {
-        return categoryNames.size();
+        return categories.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return categories.get(position).getId();
+    }
+
+    @Override
+    public boolean containsItem(long itemId) {
+        return getPosition(itemId) != -1;
     }
 
     /**
      * 词组点击监听器接口
      */
     public interface PhraseClickListener {
-        void onPhraseClicked(String phrase);
+        void onPhraseClicked(Phrase phrase);
     }
-}
\ No newline at end of file
+}
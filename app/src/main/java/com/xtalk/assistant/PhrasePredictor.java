@@ -0,0 +1,166 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 下一个词组的预测，进程内唯一
+ *
+ * 每次播放整句后在后台用句子的词组序列训练 {@link NGramModel}，
+ * 模型保存在应用文件目录中，启动时在后台加载。
+ * 预测在主线程直接查询内存中的模型。
+ */
+public class PhrasePredictor {
+
+    private static final String TAG = "PhrasePredictor";
+    private static final String MODEL_FILE = "ngram_model.bin";
+    // 训练后延迟保存，连续播放多句时只写一次文件
+    private static final long SAVE_DELAY_MS = 30000;
+
+    private static PhrasePredictor instance;
+
+    private final File modelFile;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "prediction");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable saveRunnable = this::save;
+    // 加载完成前是一个空模型
+    private volatile NGramModel model = new NGramModel();
+    // 有未保存的训练结果，只在 executor 线程访问
+    private boolean dirty = false;
+
+    /**
+     * 获取进程内唯一的预测器
+     */
+    public static synchronized PhrasePredictor getInstance(Context context) {
+        if (instance == null) {
+            instance = new PhrasePredictor(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private PhrasePredictor(Context context) {
+        this.modelFile = new File(context.getFilesDir(), MODEL_FILE);
+    }
+
+    /**
+     * 加载保存的模型，阻塞到加载完成，供启动流程在后台调用
+     */
+    @WorkerThread
+    public void warmUp() {
+        try {
+            executor.submit(this::load).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("预测模型加载失败", e.getCause());
+        }
+    }
+
+    /**
+     * 用播放的句子训练模型
+     */
+    @MainThread
+    public void train(List<SentenceToken> tokens) {
+        int[] ids = new int[tokens.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tokens.get(i).getPhraseId();
+        }
+        executor.execute(() -> {
+            model.train(ids, ids.length);
+            dirty = true;
+        });
+        mainHandler.removeCallbacks(saveRunnable);
+        mainHandler.postDelayed(saveRunnable, SAVE_DELAY_MS);
+    }
+
+    /**
+     * 根据句子最后两个词语预测下一个词组
+     *
+     * @param out 写入预测的词组ID，长度即最多返回的数量
+     * @return 写入的数量
+     */
+    @MainThread
+    public int predict(Sentence sentence, int[] out) {
+        int size = sentence.size();
+        int previous1 = size >= 1 ? contextId(sentence.get(size - 1)) : NGramModel.START;
+        int previous2 = size >= 2 ? contextId(sentence.get(size - 2)) : NGramModel.START;
+        return model.predict(previous2, previous1, out);
+    }
+
+    /**
+     * 立即在后台保存未保存的训练结果，例如界面退到后台时
+     */
+    @MainThread
+    public void save() {
+        mainHandler.removeCallbacks(saveRunnable);
+        executor.execute(() -> {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            File temp = new File(modelFile.getPath() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)))) {
+                model.writeTo(out);
+            } catch (IOException e) {
+                Log.e(TAG, "保存预测模型失败", e);
+                temp.delete();
+                return;
+            }
+            if (!temp.renameTo(modelFile)) {
+                Log.w(TAG, "重命名模型文件失败");
+                temp.delete();
+            }
+        });
+    }
+
+    @WorkerThread
+    private void load() {
+        long start = SystemClock.elapsedRealtime();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(modelFile)))) {
+            NGramModel loaded = NGramModel.readFrom(in);
+            model = loaded;
+            Log.d(TAG, "预测模型加载完成，" + loaded.size() + " 个 n 元组，耗时 "
+                    + (SystemClock.elapsedRealtime() - start) + "ms");
+        } catch (FileNotFoundException e) {
+            // 还没有播放过句子
+        } catch (IOException e) {
+            // 文件损坏时从空模型重新开始
+            Log.e(TAG, "读取预测模型失败", e);
+            modelFile.delete();
+        }
+    }
+
+    /**
+     * 不是来自词组的词语不参与预测，作为句首处理
+     */
+    private static int contextId(SentenceToken token) {
+        int id = token.getPhraseId();
+        return id > 0 ? id : NGramModel.START;
+    }
+}
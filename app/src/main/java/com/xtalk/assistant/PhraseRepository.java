@@ -0,0 +1,403 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.OperationCanceledException;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 词组仓库，进程内唯一
+ *
+ * 持有常驻的数据库连接，并以内存快照的形式提供 分类 → 词组列表 的读取。
+ * 写操作先写数据库，再从数据库重新加载受影响的分类替换快照（写穿透）。
+ * 所有数据库读写都在后台单线程执行，结果通过观察者投递回主线程。
+ */
+public class PhraseRepository {
+
+    private static final String TAG = "PhraseRepository";
+
+    // 导入导出时每隔多少条报告一次进度
+    private static final int PACK_PROGRESS_INTERVAL = 500;
+
+    private static PhraseRepository instance;
+
+    private final DatabaseHelper dbHelper;
+    // 单线程执行器，保证写入按提交顺序执行
+    private final ExecutorService ioExecutor;
+    private final Handler mainHandler;
+    // 分类 → 观察者列表，只在主线程访问
+    private final Map<String, List<PhrasesObserver>> observers = new HashMap<>();
+    // 分类列表观察者，只在主线程访问
+    private final List<CategoriesObserver> categoriesObservers = new ArrayList<>();
+    // 最近一次分发的分类列表，只在主线程访问
+    private List<PhraseCategory> categories = PhraseCategory.builtIn();
+    // 内存快照，首次读取时在后台加载
+    private volatile PhraseSnapshot snapshot;
+
+    /**
+     * 分类词组观察者，始终在主线程回调
+     */
+    public interface PhrasesObserver {
+        void onPhrasesChanged(List<Phrase> phrases);
+    }
+
+    /**
+     * 分类列表观察者，始终在主线程回调
+     */
+    public interface CategoriesObserver {
+        void onCategoriesChanged(List<PhraseCategory> categories);
+    }
+
+    /**
+     * 词组包导入导出的回调，始终在主线程回调
+     */
+    public interface PackListener {
+        /**
+         * 已处理的词组数和已读取的字节数（导出时为0）
+         */
+        void onProgress(int processed, long bytes);
+
+        /**
+         * 完成；导入时 count 为新增的词组数，favorites 为词组包中的常用条目（已关联到词组ID），
+         * 导出时 count 为写出的词组数，favorites 为空
+         */
+        void onFinished(int count, List<Favorite> favorites);
+
+        /**
+         * 导入被取消，数据库没有任何变化
+         */
+        void onCancelled();
+
+        void onFailed(Exception e);
+    }
+
+    /**
+     * 获取进程内唯一的词组仓库
+     */
+    public static synchronized PhraseRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new PhraseRepository(DatabaseHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    private PhraseRepository(DatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
+        this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "phrase-io");
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+        this.mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * 预热内存快照，阻塞到加载完成，供启动流程在后台调用
+     */
+    @WorkerThread
+    public void warmUp() {
+        try {
+            ioExecutor.submit(this::snapshot).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("词组快照加载失败", e.getCause());
+        }
+    }
+
+    /**
+     * 观察指定分类的词组
+     *
+     * 注册后立即收到当前数据（快照已加载时同步回调，否则在后台加载后回调），
+     * 之后该分类每次写入完成都会收到新的列表。
+     */
+    @MainThread
+    public void observePhrases(String category, PhrasesObserver observer) {
+        List<PhrasesObserver> list = observers.get(category);
+        if (list == null) {
+            list = new ArrayList<>();
+            observers.put(category, list);
+        }
+        list.add(observer);
+
+        PhraseSnapshot current = snapshot;
+        if (current != null) {
+            observer.onPhrasesChanged(current.get(category));
+            return;
+        }
+        ioExecutor.execute(() -> {
+            List<Phrase> phrases = snapshot().get(category);
+            mainHandler.post(() -> {
+                // 回调前观察者可能已被移除
+                List<PhrasesObserver> registered = observers.get(category);
+                if (registered != null && registered.contains(observer)) {
+                    observer.onPhrasesChanged(phrases);
+                }
+            });
+        });
+    }
+
+    /**
+     * 观察分类列表（内置分类 + 数据库中出现的其他分类）
+     *
+     * 注册后立即收到当前列表，快照加载完成或出现新分类时再次回调。
+     */
+    @MainThread
+    public void observeCategories(CategoriesObserver observer) {
+        PhraseSnapshot current = snapshot;
+        if (current != null) {
+            // 先让已有观察者同步到最新的分类列表
+            dispatchCategoriesChanged(current);
+        }
+        categoriesObservers.add(observer);
+        observer.onCategoriesChanged(categories);
+        if (current == null) {
+            ioExecutor.execute(() -> {
+                PhraseSnapshot loaded = snapshot();
+                mainHandler.post(() -> dispatchCategoriesChanged(loaded));
+            });
+        }
+    }
+
+    /**
+     * 读取全部词组，在主线程回调一次，不注册为观察者
+     */
+    public void loadAllPhrases(PhrasesObserver callback) {
+        ioExecutor.execute(() -> {
+            List<Phrase> phrases = snapshot().all();
+            mainHandler.post(() -> callback.onPhrasesChanged(phrases));
+        });
+    }
+
+    /**
+     * 按ID查找词组，只读取内存快照；快照未加载或词组已删除时返回null
+     */
+    @MainThread
+    public Phrase findPhrase(int id) {
+        PhraseSnapshot current = snapshot;
+        return current != null ? current.find(id) : null;
+    }
+
+    /**
+     * 移除分类列表观察者
+     */
+    @MainThread
+    public void removeCategoriesObserver(CategoriesObserver observer) {
+        categoriesObservers.remove(observer);
+    }
+
+    /**
+     * 移除词组观察者
+     */
+    @MainThread
+    public void removePhrasesObserver(String category, PhrasesObserver observer) {
+        List<PhrasesObserver> list = observers.get(category);
+        if (list != null) {
+            list.remove(observer);
+            if (list.isEmpty()) {
+                observers.remove(category);
+            }
+        }
+    }
+
+    /**
+     * 添加词组
+     */
+    public void addPhrase(Phrase phrase, Runnable onComplete) {
+        runWrite(phrase.getCategory(), () -> dbHelper.addPhrase(phrase), onComplete);
+    }
+
+    /**
+     * 按ID更新词组内容
+     */
+    public void updatePhrase(Phrase phrase, Runnable onComplete) {
+        runWrite(phrase.getCategory(), () -> dbHelper.updatePhrase(phrase), onComplete);
+    }
+
+    /**
+     * 按ID删除词组
+     */
+    public void deletePhrase(Phrase phrase, Runnable onComplete) {
+        runWrite(phrase.getCategory(), () -> dbHelper.deletePhrase(phrase.getId()), onComplete);
+    }
+
+    /**
+     * 在后台导入词组包
+     *
+     * 词组包边读边在一个事务中写入，取消或出错时整体回滚。完成后重新加载整个快照，
+     * 通知分类列表和所有已注册的分类。进度按 {@link #PACK_PROGRESS_INTERVAL} 条节流。
+     * 输入流由本方法关闭。
+     */
+    public void importPack(InputStream in, CancellationSignal cancellationSignal, PackListener listener) {
+        ioExecutor.execute(() -> {
+            long start = SystemClock.elapsedRealtime();
+            try (PhrasePackReader reader = new PhrasePackReader(new BufferedInputStream(in))) {
+                reader.readHeader();
+                int inserted = dbHelper.importPhrases(reader, cancellationSignal, processed -> {
+                    if (processed % PACK_PROGRESS_INTERVAL == 0) {
+                        long bytes = reader.getBytesRead();
+                        mainHandler.post(() -> listener.onProgress(processed, bytes));
+                    }
+                });
+                List<Favorite> favorites = linkFavorites(reader.getFavorites());
+                PhraseSnapshot reloaded = PhraseSnapshot.of(dbHelper.getAllPhrases());
+                snapshot = reloaded;
+                Log.d(TAG, "导入词组包完成，读取 " + reader.getPhraseCount() + " 条，新增 " + inserted
+                        + " 条，耗时 " + (SystemClock.elapsedRealtime() - start) + "ms");
+                mainHandler.post(() -> {
+                    dispatchCategoriesChanged(reloaded);
+                    for (String category : new ArrayList<>(observers.keySet())) {
+                        dispatchPhrasesChanged(category, reloaded.get(category));
+                    }
+                    listener.onFinished(inserted, favorites);
+                });
+            } catch (OperationCanceledException e) {
+                Log.i(TAG, "导入词组包已取消");
+                mainHandler.post(listener::onCancelled);
+            } catch (Exception e) {
+                Log.e(TAG, "导入词组包失败", e);
+                mainHandler.post(() -> listener.onFailed(e));
+            }
+        });
+    }
+
+    /**
+     * 在后台把全部词组和常用板导出为词组包，输出流由本方法关闭
+     */
+    public void exportPack(OutputStream out, List<Favorite> favorites, PackListener listener) {
+        ioExecutor.execute(() -> {
+            try (PhrasePackWriter writer = new PhrasePackWriter(new BufferedOutputStream(out))) {
+                dbHelper.exportPhrases((category, content) -> {
+                    writer.accept(category, content);
+                    int written = writer.getPhraseCount();
+                    if (written % PACK_PROGRESS_INTERVAL == 0) {
+                        mainHandler.post(() -> listener.onProgress(written, 0));
+                    }
+                });
+                writer.finish(favorites);
+                int count = writer.getPhraseCount();
+                mainHandler.post(() -> listener.onFinished(count, Collections.emptyList()));
+            } catch (Exception e) {
+                Log.e(TAG, "导出词组包失败", e);
+                mainHandler.post(() -> listener.onFailed(e));
+            }
+        });
+    }
+
+    /**
+     * 为词组包中的常用条目补上词组ID，找不到的词语作为普通文本
+     */
+    @WorkerThread
+    private List<Favorite> linkFavorites(List<String[]> entries) {
+        List<Favorite> favorites = new ArrayList<>(entries.size());
+        for (String[] tokens : entries) {
+            int[] phraseIds = new int[tokens.length];
+            for (int i = 0; i < tokens.length; i++) {
+                phraseIds[i] = dbHelper.findPhraseId(tokens[i]);
+            }
+            favorites.add(new Favorite(tokens, phraseIds));
+        }
+        return favorites;
+    }
+
+    /**
+     * 在后台执行写操作，重新加载受影响的分类，然后在主线程通知观察者并回调
+     */
+    private void runWrite(String category, Runnable write, Runnable onComplete) {
+        ioExecutor.execute(() -> {
+            List<Phrase> phrases = null;
+            try {
+                write.run();
+                phrases = reloadCategory(category);
+            } catch (Exception e) {
+                Log.e(TAG, "写入词组失败", e);
+            }
+            List<Phrase> changed = phrases;
+            PhraseSnapshot current = snapshot;
+            mainHandler.post(() -> {
+                if (changed != null) {
+                    dispatchCategoriesChanged(current);
+                    dispatchPhrasesChanged(category, changed);
+                }
+                if (onComplete != null) {
+                    onComplete.run();
+                }
+            });
+        });
+    }
+
+    /**
+     * 分类集合有变化时通知分类列表观察者
+     */
+    @MainThread
+    private void dispatchCategoriesChanged(PhraseSnapshot current) {
+        List<PhraseCategory> updated = PhraseCategory.withExtras(current.categoryNames());
+        if (updated.equals(categories)) {
+            return;
+        }
+        categories = updated;
+        for (CategoriesObserver observer : new ArrayList<>(categoriesObservers)) {
+            observer.onCategoriesChanged(updated);
+        }
+    }
+
+    /**
+     * 通知某个分类的观察者
+     */
+    @MainThread
+    private void dispatchPhrasesChanged(String category, List<Phrase> phrases) {
+        List<PhrasesObserver> list = observers.get(category);
+        if (list == null) {
+            return;
+        }
+        // 回调中可能移除观察者，先复制一份
+        for (PhrasesObserver observer : new ArrayList<>(list)) {
+            observer.onPhrasesChanged(phrases);
+        }
+    }
+
+    /**
+     * 获取当前快照，未加载时从数据库一次性加载全部词组
+     */
+    @WorkerThread
+    private PhraseSnapshot snapshot() {
+        PhraseSnapshot current = snapshot;
+        if (current == null) {
+            long start = SystemClock.elapsedRealtime();
+            current = PhraseSnapshot.of(dbHelper.getAllPhrases());
+            snapshot = current;
+            Log.d(TAG, "词组快照加载完成，耗时 " + (SystemClock.elapsedRealtime() - start) + "ms");
+        }
+        return current;
+    }
+
+    /**
+     * 写入后从数据库重新加载单个分类，替换快照中的对应条目
+     */
+    @WorkerThread
+    private List<Phrase> reloadCategory(String category) {
+        PhraseSnapshot current = snapshot();
+        PhraseSnapshot updated = current.with(category, dbHelper.getPhraseListByCategory(category));
+        snapshot = updated;
+        return updated.get(category);
+    }
+}
@@ -0,0 +1,176 @@
+package com.xtalk.assistant;
+
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 词组搜索
+ *
+ * 输入停顿 {@link #DEBOUNCE_MS} 后才在后台查询全文检索表；新的输入会取消尚未开始的查询，
+ * 并通过 CancellationSignal 中断正在执行的查询。每次输入递增一个代数，
+ * 旧代数的结果即使已经查出也直接丢弃，界面只会显示最后一次输入的结果。
+ *
+ * 输入只有字母时同时按拼音查询：内存中的 {@link PinyinIndex} 查询不到一毫秒，
+ * 在主线程立即回调，防抖后再把全文检索的结果合并在后面。
+ */
+public class PhraseSearcher {
+
+    private static final String TAG = "PhraseSearcher";
+    // 输入防抖时间
+    static final long DEBOUNCE_MS = 150;
+    // 最多返回的结果数
+    static final int RESULT_LIMIT = 60;
+
+    private final DatabaseHelper dbHelper;
+    private final PhraseRepository repository;
+    private final PinyinIndex pinyinIndex;
+    private final int[] pinyinIds = new int[RESULT_LIMIT];
+    // 查询与词组写入使用不同的线程，不会排在写操作之后
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "phrase-search"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 以下字段只在主线程访问
+    private int generation = 0;
+    private Runnable pendingSearch;
+    private CancellationSignal runningSearch;
+
+    /**
+     * 搜索结果回调，始终在主线程回调
+     */
+    public interface ResultCallback {
+        void onSearchResults(String query, List<Phrase> results);
+    }
+
+    public PhraseSearcher(DatabaseHelper dbHelper, PhraseRepository repository, PinyinIndex pinyinIndex) {
+        this.dbHelper = dbHelper;
+        this.repository = repository;
+        this.pinyinIndex = pinyinIndex;
+    }
+
+    /**
+     * 输入变化时调用；输入为空时立即回调空结果
+     */
+    @MainThread
+    public void search(String query, ResultCallback callback) {
+        cancel();
+        int current = ++generation;
+        if (query.trim().isEmpty()) {
+            callback.onSearchResults(query, Collections.<Phrase>emptyList());
+            return;
+        }
+        List<Phrase> pinyinResults = searchPinyin(query);
+        if (!pinyinResults.isEmpty()) {
+            callback.onSearchResults(query, pinyinResults);
+        }
+        pendingSearch = () -> {
+            pendingSearch = null;
+            run(current, query, pinyinResults, callback);
+        };
+        mainHandler.postDelayed(pendingSearch, DEBOUNCE_MS);
+    }
+
+    /**
+     * 取消等待中和执行中的查询
+     */
+    @MainThread
+    public void cancel() {
+        generation++;
+        if (pendingSearch != null) {
+            mainHandler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+        if (runningSearch != null) {
+            runningSearch.cancel();
+            runningSearch = null;
+        }
+    }
+
+    /**
+     * 停止后台线程，之后不能再搜索
+     */
+    @MainThread
+    public void release() {
+        cancel();
+        executor.shutdown();
+    }
+
+    /**
+     * 按拼音查询，输入不是拼音时返回空列表
+     */
+    @MainThread
+    private List<Phrase> searchPinyin(String query) {
+        String pinyin = PinyinIndex.toPinyinQuery(query);
+        if (pinyin == null) {
+            return Collections.emptyList();
+        }
+        int count = pinyinIndex.search(pinyin, pinyinIds);
+        List<Phrase> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Phrase phrase = repository.findPhrase(pinyinIds[i]);
+            if (phrase != null) {
+                results.add(phrase);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 拼音结果在前，去掉全文检索中重复的词组
+     */
+    private static List<Phrase> merge(List<Phrase> pinyinResults, List<Phrase> textResults) {
+        if (pinyinResults.isEmpty()) {
+            return textResults;
+        }
+        Map<Integer, Phrase> merged = new LinkedHashMap<>();
+        for (Phrase phrase : pinyinResults) {
+            merged.put(phrase.getId(), phrase);
+        }
+        for (Phrase phrase : textResults) {
+            if (merged.size() == RESULT_LIMIT) {
+                break;
+            }
+            if (!merged.containsKey(phrase.getId())) {
+                merged.put(phrase.getId(), phrase);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    @MainThread
+    private void run(int current, String query, List<Phrase> pinyinResults, ResultCallback callback) {
+        CancellationSignal signal = new CancellationSignal();
+        runningSearch = signal;
+        executor.execute(() -> {
+            if (signal.isCanceled()) {
+                return;
+            }
+            long start = SystemClock.elapsedRealtime();
+            List<Phrase> results = dbHelper.searchPhrases(query, RESULT_LIMIT, signal);
+            if (results == null) {
+                return;
+            }
+            Log.d(TAG, "搜索 \"" + query + "\" 得到 " + results.size() + " 条，耗时 "
+                    + (SystemClock.elapsedRealtime() - start) + "ms");
+            mainHandler.post(() -> {
+                if (current != generation) {
+                    return;
+                }
+                runningSearch = null;
+                callback.onSearchResults(query, merge(pinyinResults, results));
+            });
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.Log;
+
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 所有分类页面共享的词组按钮缓存池
+ *
+ * 各页面的 RecyclerView 共用同一个 RecycledViewPool，切换页面时直接复用已有的按钮；
+ * 启动后在主线程空闲时分批预创建按钮放入缓存池，滑动时尽量不再 inflate。
+ * 同时统计按钮的创建次数，供调试浮层显示。
+ */
+public final class PhraseViewPool {
+
+    private static final String TAG = "PhraseViewPool";
+    // 缓存池容量：一屏约 3 列 x 8 行，加上左右相邻的页面
+    static final int MAX_RECYCLED_VIEWS = 72;
+    // 空闲时预创建的按钮数量
+    private static final int PREWARM_TARGET = 48;
+    // 每次空闲回调创建的数量，避免单次占用主线程过久
+    private static final int PREWARM_BATCH = 4;
+
+    private final RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+    // 页面滑动等正常流程中 inflate 的按钮数
+    private int inflatedCount = 0;
+    // 空闲预创建的按钮数
+    private int prewarmedCount = 0;
+    private boolean prewarming = false;
+
+    public PhraseViewPool() {
+        pool.setMaxRecycledViews(PhraseCategoryFragment.VIEW_TYPE_PHRASE, MAX_RECYCLED_VIEWS);
+    }
+
+    public RecyclerView.RecycledViewPool getPool() {
+        return pool;
+    }
+
+    /**
+     * 由适配器在 inflate 按钮时调用
+     */
+    void onViewInflated() {
+        if (prewarming) {
+            prewarmedCount++;
+        } else {
+            inflatedCount++;
+        }
+    }
+
+    public int getInflatedCount() {
+        return inflatedCount;
+    }
+
+    public int getPrewarmedCount() {
+        return prewarmedCount;
+    }
+
+    /**
+     * 在主线程空闲时分批预创建按钮，直到达到预创建数量或缓存池已满
+     */
+    public void prewarmWhenIdle(Context context) {
+        // 预创建的按钮需要 RecyclerView 作为父布局来生成布局参数
+        RecyclerView parent = new RecyclerView(context);
+        parent.setLayoutManager(new GridLayoutManager(context, 3));
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                // 预创建总数有上限；缓存池已满时也停止
+                int available = pool.getRecycledViewCount(PhraseCategoryFragment.VIEW_TYPE_PHRASE);
+                int missing = Math.min(Math.min(PREWARM_TARGET - prewarmedCount,
+                        MAX_RECYCLED_VIEWS - available), PREWARM_BATCH);
+                if (missing <= 0) {
+                    Log.d(TAG, "预创建完成，共 " + prewarmedCount + " 个按钮");
+                    return false;
+                }
+                prewarming = true;
+                try {
+                    for (int i = 0; i < missing; i++) {
+                        pool.putRecycledView(PhraseCategoryFragment.createPooledViewHolder(parent, PhraseViewPool.this));
+                    }
+                } finally {
+                    prewarming = false;
+                }
+                // 返回true保留回调，下次空闲时继续
+                return true;
+            }
+        });
+    }
+}
@@ -0,0 +1,287 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 拼音搜索索引，进程内唯一
+ *
+ * 在内存中维护全部词组的 {@link PinyinTrie}，输入拼音或首字母时在主线程直接前缀查询。
+ * 前缀树连同每个词组内容的哈希保存在应用文件目录中；加载时与词组表逐条对账，
+ * 只为新增、修改过的词组重新生成键（首次运行即全部生成），删除已不存在的词组。
+ * 之后通过 {@link DatabaseHelper.PhraseChangeListener} 随词组的增删改增量更新。
+ */
+public class PinyinIndex implements DatabaseHelper.PhraseChangeListener {
+
+    private static final String TAG = "PinyinIndex";
+    private static final String INDEX_FILE = "pinyin_index.bin";
+    private static final int FILE_VERSION = 1;
+    // 修改后延迟保存，连续编辑多个词组时只写一次文件
+    private static final long SAVE_DELAY_MS = 30000;
+
+    private static PinyinIndex instance;
+
+    private final Context context;
+    private final DatabaseHelper dbHelper;
+    private final File indexFile;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pinyin-index");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable saveRunnable = this::save;
+    // 加载完成前是一棵空树
+    private volatile PinyinTrie trie = new PinyinTrie();
+    // 以下字段只在 executor 线程访问
+    private boolean loaded = false;
+    private boolean dirty = false;
+    // 词组ID → 建索引时内容的哈希，用于启动时对账
+    private Map<Integer, Integer> contentHashes = new HashMap<>();
+    // 拼音表只在需要生成键时加载
+    private PinyinTable table;
+
+    /**
+     * 获取进程内唯一的拼音索引
+     */
+    public static synchronized PinyinIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new PinyinIndex(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private PinyinIndex(Context context) {
+        this.context = context;
+        this.dbHelper = DatabaseHelper.getInstance(context);
+        this.indexFile = new File(context.getFilesDir(), INDEX_FILE);
+        dbHelper.addPhraseChangeListener(this);
+    }
+
+    /**
+     * 加载索引并与词组表对账，阻塞到完成，供启动流程在后台调用
+     */
+    @WorkerThread
+    public void warmUp() {
+        try {
+            executor.submit(this::ensureLoaded).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("拼音索引加载失败", e.getCause());
+        }
+    }
+
+    /**
+     * 输入对应的拼音查询：去掉空格和隔音符号后转为小写；含有字母以外的字符时返回null
+     */
+    public static String toPinyinQuery(String input) {
+        StringBuilder query = new StringBuilder(input.length());
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == ' ' || c == '\'') {
+                continue;
+            }
+            if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z')) {
+                return null;
+            }
+            query.append(Character.toLowerCase(c));
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+
+    /**
+     * 查找全拼或首字母以输入开头的词组
+     *
+     * @param query {@link #toPinyinQuery(String)} 的结果
+     * @param out   写入词组ID，长度即最多返回的数量
+     * @return 写入的数量
+     */
+    @MainThread
+    public int search(String query, int[] out) {
+        return trie.search(query, out);
+    }
+
+    /**
+     * 立即在后台保存未保存的修改，例如界面退到后台时
+     */
+    @MainThread
+    public void save() {
+        mainHandler.removeCallbacks(saveRunnable);
+        executor.execute(() -> {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            File temp = new File(indexFile.getPath() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(FILE_VERSION);
+                out.writeInt(contentHashes.size());
+                for (Map.Entry<Integer, Integer> entry : contentHashes.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    out.writeInt(entry.getValue());
+                }
+                trie.writeTo(out);
+            } catch (IOException e) {
+                Log.e(TAG, "保存拼音索引失败", e);
+                temp.delete();
+                return;
+            }
+            if (!temp.renameTo(indexFile)) {
+                Log.w(TAG, "重命名索引文件失败");
+                temp.delete();
+            }
+        });
+    }
+
+    @WorkerThread
+    @Override
+    public void onPhraseSaved(int id, String content) {
+        executor.execute(() -> {
+            // 加载时已从词组表读到这次修改的话，这里重复写入同样的键，结果不变
+            ensureLoaded();
+            index(id, content);
+            scheduleSave();
+        });
+    }
+
+    @WorkerThread
+    @Override
+    public void onPhraseDeleted(int id) {
+        executor.execute(() -> {
+            ensureLoaded();
+            if (contentHashes.remove(id) != null) {
+                trie.remove(id);
+                dirty = true;
+                scheduleSave();
+            }
+        });
+    }
+
+    @WorkerThread
+    @Override
+    public void onPhrasesImported() {
+        executor.execute(() -> {
+            if (!loaded) {
+                // 加载时会对账
+                ensureLoaded();
+                return;
+            }
+            reconcile();
+            if (dirty) {
+                scheduleSave();
+            }
+        });
+    }
+
+    private void scheduleSave() {
+        mainHandler.removeCallbacks(saveRunnable);
+        mainHandler.postDelayed(saveRunnable, SAVE_DELAY_MS);
+    }
+
+    /**
+     * 为一个词组生成键并写入前缀树，内容没有变化时跳过
+     */
+    @WorkerThread
+    private void index(int id, String content) {
+        Integer hash = contentHashes.get(id);
+        if (hash != null && hash == content.hashCode()) {
+            return;
+        }
+        trie.put(id, PinyinTrie.keysOf(content, table()));
+        contentHashes.put(id, content.hashCode());
+        dirty = true;
+    }
+
+    @WorkerThread
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        long start = SystemClock.elapsedRealtime();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != FILE_VERSION) {
+                throw new IOException("不支持的拼音索引版本");
+            }
+            int count = in.readInt();
+            Map<Integer, Integer> hashes = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                hashes.put(in.readInt(), in.readInt());
+            }
+            PinyinTrie saved = PinyinTrie.readFrom(in);
+            contentHashes = hashes;
+            trie = saved;
+        } catch (FileNotFoundException e) {
+            // 首次运行，下面为全部词组建索引
+        } catch (IOException e) {
+            Log.e(TAG, "读取拼音索引失败，重新建立", e);
+            indexFile.delete();
+        }
+
+        reconcile();
+        Log.d(TAG, "拼音索引加载完成，" + trie.size() + " 个词组，耗时 "
+                + (SystemClock.elapsedRealtime() - start) + "ms");
+        if (dirty) {
+            mainHandler.post(this::save);
+        }
+    }
+
+    /**
+     * 与词组表对账：新增和修改过的词组重新生成键，已删除的移出前缀树
+     */
+    @WorkerThread
+    private void reconcile() {
+        List<Phrase> phrases = dbHelper.getAllPhrases();
+        Set<Integer> stale = new HashSet<>(contentHashes.keySet());
+        PinyinTrie current = trie;
+        for (Phrase phrase : phrases) {
+            stale.remove(phrase.getId());
+            index(phrase.getId(), phrase.getContent());
+        }
+        for (int id : stale) {
+            contentHashes.remove(id);
+            current.remove(id);
+            dirty = true;
+        }
+    }
+
+    @WorkerThread
+    private PinyinTable table() {
+        if (table == null) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(context.getAssets().open(PinyinTable.ASSET_PATH)))) {
+                table = PinyinTable.readFrom(in);
+            } catch (IOException e) {
+                throw new IllegalStateException("读取拼音表失败", e);
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,113 @@
+package com.xtalk.assistant;
+
+import android.app.AlertDialog;
+import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.View;
+import android.widget.CheckBox;
+import android.widget.EditText;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.List;
+
+/**
+ * 读音词典的编辑界面
+ *
+ * 列出当前语音引擎适用的词条（用于所有引擎的和当前引擎专用的），点击一条修改或删除。
+ * 保存后词典在后台重新构建，下一次朗读即使用新的读音。
+ */
+public class PronunciationActivity extends AppCompatActivity {
+
+    private PronunciationStore store;
+    private PronunciationAdapter adapter;
+    private View emptyView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_pronunciation);
+        setTitle(R.string.pronunciation_title);
+
+        store = PronunciationStore.getInstance(this);
+        emptyView = findViewById(R.id.pronunciation_empty);
+        RecyclerView list = findViewById(R.id.pronunciation_list);
+        adapter = new PronunciationAdapter(this::showEditDialog);
+        list.setAdapter(adapter);
+        EditText filter = findViewById(R.id.pronunciation_filter);
+        filter.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                adapter.setFilter(s.toString());
+            }
+        });
+        findViewById(R.id.pronunciation_add).setOnClickListener(v -> showEditDialog(null));
+        store.loadEntries(this::onEntriesLoaded);
+    }
+
+    private void onEntriesLoaded(List<Pronunciation> entries) {
+        if (isDestroyed()) {
+            return;
+        }
+        adapter.setEntries(entries);
+        emptyView.setVisibility(entries.isEmpty() ? View.VISIBLE : View.GONE);
+    }
+
+    /**
+     * 添加或修改词条的对话框
+     *
+     * @param entry 要修改的词条，添加时为null
+     */
+    private void showEditDialog(Pronunciation entry) {
+        View view = getLayoutInflater().inflate(R.layout.dialog_pronunciation, null);
+        EditText textInput = view.findViewById(R.id.pronunciation_text_input);
+        EditText replacementInput = view.findViewById(R.id.pronunciation_replacement_input);
+        CheckBox engineOnly = view.findViewById(R.id.pronunciation_engine_only);
+        String engine = store.getEngine();
+        if (engine == null) {
+            // 引擎尚未就绪，只能添加用于所有引擎的词条
+            engineOnly.setVisibility(View.GONE);
+        } else {
+            engineOnly.setText(getString(R.string.pronunciation_engine_only) + "（" + engine + "）");
+        }
+        if (entry != null) {
+            textInput.setText(entry.getText());
+            replacementInput.setText(entry.getReplacement());
+            engineOnly.setChecked(!entry.isForAllEngines());
+        }
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this)
+            .setTitle(entry == null ? "添加读音词条" : "修改读音词条")
+            .setView(view)
+            .setPositiveButton("保存", null)
+            .setNegativeButton("取消", null);
+        if (entry != null) {
+            builder.setNeutralButton("删除", (dialog, which) -> store.delete(entry, this::onEntriesLoaded));
+        }
+        AlertDialog dialog = builder.show();
+        // 内容不完整时不关闭对话框
+        dialog.getButton(AlertDialog.BUTTON_POSITIVE).setOnClickListener(v -> {
+            String text = textInput.getText().toString().trim();
+            String replacement = replacementInput.getText().toString().trim();
+            if (text.isEmpty() || replacement.isEmpty()) {
+                Toast.makeText(this, "文字和替换内容都不能为空", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            String entryEngine = engine != null && engineOnly.isChecked() ? engine : Pronunciation.ALL_ENGINES;
+            long id = entry != null ? entry.getId() : Pronunciation.NO_ID;
+            store.save(entry, new Pronunciation(id, entryEngine, text, replacement), this::onEntriesLoaded);
+            dialog.dismiss();
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package com.xtalk.assistant;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读音词条的适配器，按筛选文字显示全部词条中的一部分
+ */
+public class PronunciationAdapter extends RecyclerView.Adapter<PronunciationAdapter.PronunciationViewHolder> {
+
+    private List<Pronunciation> entries = new ArrayList<>();
+    private final List<Pronunciation> visible = new ArrayList<>();
+    private String filter = "";
+    private final EntryClickListener clickListener;
+
+    /**
+     * 读音词条的点击监听器
+     */
+    public interface EntryClickListener {
+        void onEntryClicked(Pronunciation entry);
+    }
+
+    public PronunciationAdapter(EntryClickListener clickListener) {
+        this.clickListener = clickListener;
+        setHasStableIds(true);
+    }
+
+    /**
+     * 替换全部词条，保留当前的筛选
+     */
+    public void setEntries(List<Pronunciation> newEntries) {
+        entries = newEntries;
+        applyFilter();
+    }
+
+    /**
+     * 只显示文字或替换文字包含 text 的词条
+     */
+    public void setFilter(String text) {
+        filter = text.trim();
+        applyFilter();
+    }
+
+    private void applyFilter() {
+        visible.clear();
+        for (Pronunciation entry : entries) {
+            if (filter.isEmpty() || entry.getText().contains(filter) || entry.getReplacement().contains(filter)) {
+                visible.add(entry);
+            }
+        }
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    @Override
+    public PronunciationViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_pronunciation, parent, false);
+        PronunciationViewHolder holder = new PronunciationViewHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && clickListener != null) {
+                clickListener.onEntryClicked(visible.get(position));
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull PronunciationViewHolder holder, int position) {
+        Pronunciation entry = visible.get(position);
+        holder.text.setText(entry.getText() + " → " + entry.getReplacement());
+        if (entry.isForAllEngines()) {
+            holder.meta.setText(R.string.pronunciation_all_engines);
+        } else {
+            holder.meta.setText(entry.getEngine());
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return visible.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return visible.get(position).getId();
+    }
+
+    static class PronunciationViewHolder extends RecyclerView.ViewHolder {
+        final TextView text;
+        final TextView meta;
+
+        PronunciationViewHolder(@NonNull View itemView) {
+            super(itemView);
+            text = itemView.findViewById(R.id.pronunciation_text);
+            meta = itemView.findViewById(R.id.pronunciation_meta);
+        }
+    }
+}
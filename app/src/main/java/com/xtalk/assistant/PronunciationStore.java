@@ -0,0 +1,202 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 读音词典，进程内唯一
+ *
+ * 词条保存在数据库的读音词典表中，每条用于一个语音引擎或所有引擎。
+ * 语音引擎就绪后由 {@link SpeechEngine} 设置当前引擎，在后台读取适用的词条并构建
+ * {@link PronunciationDictionary}；之后每次编辑只写入一行，在内存中改动一条，
+ * 再在后台重新构建自动机，构建完成后在主线程整体替换，朗读时不会等待构建。
+ */
+public class PronunciationStore {
+
+    private static final String TAG = "PronunciationStore";
+
+    private static PronunciationStore instance;
+
+    private final DatabaseHelper dbHelper;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "pronunciation-io"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 当前引擎，只在 executor 线程访问；null 表示引擎尚未就绪
+    private String engine;
+    // 文字 → 用于所有引擎的词条、当前引擎专用的词条，只在 executor 线程访问
+    private final Map<String, Pronunciation> sharedEntries = new HashMap<>();
+    private final Map<String, Pronunciation> engineEntries = new HashMap<>();
+    // 最近一次构建词典所用的引擎，只在主线程访问
+    private String mainEngine;
+    private DictionaryListener listener;
+
+    /**
+     * 词典重新构建后在主线程回调
+     */
+    public interface DictionaryListener {
+        void onDictionaryChanged(PronunciationDictionary dictionary);
+    }
+
+    /**
+     * 编辑界面读取词条的回调，始终在主线程回调
+     */
+    public interface EntriesCallback {
+        void onEntriesLoaded(List<Pronunciation> entries);
+    }
+
+    /**
+     * 获取进程内唯一的读音词典
+     */
+    public static synchronized PronunciationStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new PronunciationStore(DatabaseHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    private PronunciationStore(DatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    @MainThread
+    public void setListener(DictionaryListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 切换到指定引擎，在后台读取适用的词条并构建词典
+     *
+     * @param enginePackage 引擎包名，未知时为null，只使用用于所有引擎的词条
+     */
+    @MainThread
+    public void setEngine(String enginePackage) {
+        executor.execute(() -> {
+            try {
+                engine = enginePackage;
+                sharedEntries.clear();
+                engineEntries.clear();
+                for (Pronunciation entry : dbHelper.getPronunciations(enginePackage)) {
+                    entriesFor(entry).put(entry.getText(), entry);
+                }
+                rebuild();
+            } catch (Exception e) {
+                Log.e(TAG, "读取读音词典失败", e);
+            }
+        });
+    }
+
+    /**
+     * 读取当前引擎适用的全部词条（包括被引擎专用词条取代的），按文字排列
+     */
+    @MainThread
+    public void loadEntries(EntriesCallback callback) {
+        executor.execute(() -> {
+            List<Pronunciation> entries = dbHelper.getPronunciations(engine);
+            mainHandler.post(() -> callback.onEntriesLoaded(entries));
+        });
+    }
+
+    /**
+     * 添加或修改一条词条，完成后回调保存后的全部词条
+     *
+     * @param previous 修改前的词条，新增时为null
+     */
+    @MainThread
+    public void save(Pronunciation previous, Pronunciation entry, EntriesCallback callback) {
+        executor.execute(() -> {
+            try {
+                long id = dbHelper.savePronunciation(entry);
+                if (previous != null) {
+                    remove(previous);
+                }
+                if (applies(entry)) {
+                    entriesFor(entry).put(entry.getText(), entry.withId(id));
+                }
+                rebuild();
+            } catch (Exception e) {
+                Log.e(TAG, "保存读音词条失败", e);
+            }
+            List<Pronunciation> entries = dbHelper.getPronunciations(engine);
+            mainHandler.post(() -> callback.onEntriesLoaded(entries));
+        });
+    }
+
+    /**
+     * 删除一条词条，完成后回调剩余的全部词条
+     */
+    @MainThread
+    public void delete(Pronunciation entry, EntriesCallback callback) {
+        executor.execute(() -> {
+            try {
+                dbHelper.deletePronunciation(entry.getId());
+                remove(entry);
+                rebuild();
+            } catch (Exception e) {
+                Log.e(TAG, "删除读音词条失败", e);
+            }
+            List<Pronunciation> entries = dbHelper.getPronunciations(engine);
+            mainHandler.post(() -> callback.onEntriesLoaded(entries));
+        });
+    }
+
+    /**
+     * 当前引擎的包名，引擎尚未就绪时为null，供编辑界面判断能否添加引擎专用的词条
+     */
+    @MainThread
+    public String getEngine() {
+        return mainEngine;
+    }
+
+    @WorkerThread
+    private void remove(Pronunciation entry) {
+        Map<String, Pronunciation> entries = entriesFor(entry);
+        Pronunciation current = entries.get(entry.getText());
+        if (current != null && current.getId() == entry.getId()) {
+            entries.remove(entry.getText());
+        }
+    }
+
+    @WorkerThread
+    private boolean applies(Pronunciation entry) {
+        return entry.isForAllEngines() || entry.getEngine().equals(engine);
+    }
+
+    @WorkerThread
+    private Map<String, Pronunciation> entriesFor(Pronunciation entry) {
+        return entry.isForAllEngines() ? sharedEntries : engineEntries;
+    }
+
+    /**
+     * 合并两组词条（引擎专用的优先）并重新构建自动机，在主线程替换
+     */
+    @WorkerThread
+    private void rebuild() {
+        long start = SystemClock.elapsedRealtime();
+        List<Pronunciation> entries = new ArrayList<>(sharedEntries.size() + engineEntries.size());
+        entries.addAll(sharedEntries.values());
+        entries.addAll(engineEntries.values());
+        PronunciationDictionary dictionary = PronunciationDictionary.forEntries(entries);
+        String builtFor = engine;
+        Log.d(TAG, "读音词典构建完成，" + dictionary.size() + " 条，耗时 "
+                + (SystemClock.elapsedRealtime() - start) + "ms");
+        mainHandler.post(() -> {
+            mainEngine = builtFor;
+            if (listener != null) {
+                listener.onDictionaryChanged(dictionary);
+            }
+        });
+    }
+}
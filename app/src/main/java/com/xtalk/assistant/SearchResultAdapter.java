@@ -0,0 +1,74 @@
+package com.xtalk.assistant;
+
+import android.text.TextUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.material.button.MaterialButton;
+
+/**
+ * 搜索结果适配器，按钮样式与分类页面中的词组相同
+ *
+ * 每次输入都会得到新的结果列表，差异在后台计算，只刷新变化的按钮。
+ */
+public class SearchResultAdapter extends ListAdapter<Phrase, SearchResultAdapter.ResultViewHolder> {
+
+    private static final DiffUtil.ItemCallback<Phrase> DIFF_CALLBACK = new DiffUtil.ItemCallback<Phrase>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Phrase oldItem, @NonNull Phrase newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Phrase oldItem, @NonNull Phrase newItem) {
+            return TextUtils.equals(oldItem.getContent(), newItem.getContent());
+        }
+    };
+
+    private final PhrasePagerAdapter.PhraseClickListener phraseClickListener;
+
+    public SearchResultAdapter(PhrasePagerAdapter.PhraseClickListener phraseClickListener) {
+        super(DIFF_CALLBACK);
+        this.phraseClickListener = phraseClickListener;
+        setHasStableIds(true);
+    }
+
+    @NonNull
+    @Override
+    public ResultViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_phrase_button, parent, false);
+        ResultViewHolder holder = new ResultViewHolder(view);
+        holder.phraseButton.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && phraseClickListener != null) {
+                phraseClickListener.onPhraseClicked(getItem(position));
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ResultViewHolder holder, int position) {
+        holder.phraseButton.setText(getItem(position).getContent());
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
+    }
+
+    static class ResultViewHolder extends RecyclerView.ViewHolder {
+        final MaterialButton phraseButton;
+
+        ResultViewHolder(@NonNull View itemView) {
+            super(itemView);
+            phraseButton = itemView.findViewById(R.id.phrase_button);
+        }
+    }
+}
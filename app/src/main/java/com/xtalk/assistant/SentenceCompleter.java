@@ -0,0 +1,230 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 整句补全，进程内唯一
+ *
+ * 每次播放整句或把整句固定到常用板后，在后台把句子的词组序列插入 {@link SentenceTrie}，
+ * 分数按使用时间折算（与词组使用统计相同的半衰期），常说的和最近说过的句子排在前面。
+ * 前缀树以序列化的数组保存在应用文件目录中，启动流程在第一句话可以播放之后才在后台加载。
+ * 索引文件不存在或损坏时，从 {@link SentenceHistory} 最近使用的句子重新建立。
+ */
+public class SentenceCompleter {
+
+    private static final String TAG = "SentenceCompleter";
+    private static final String INDEX_FILE = "sentence_trie.bin";
+    // 插入后延迟保存，连续播放多句时只写一次文件
+    private static final long SAVE_DELAY_MS = 30000;
+    // 至少输入这么多个词语后才补全整句
+    static final int MIN_PREFIX = 1;
+
+    private static SentenceCompleter instance;
+
+    private final File indexFile;
+    private final DatabaseHelper dbHelper;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sentence-index");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable saveRunnable = this::save;
+    // 加载完成前是一棵空树
+    private volatile SentenceTrie trie = new SentenceTrie();
+    // 以下字段只在 executor 线程访问
+    private boolean loaded = false;
+    // 有未保存的句子
+    private boolean dirty = false;
+
+    /**
+     * 获取进程内唯一的整句补全
+     */
+    public static synchronized SentenceCompleter getInstance(Context context) {
+        if (instance == null) {
+            instance = new SentenceCompleter(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private SentenceCompleter(Context context) {
+        this.indexFile = new File(context.getFilesDir(), INDEX_FILE);
+        this.dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * 加载保存的前缀树，阻塞到加载完成，供启动流程在后台调用
+     */
+    @WorkerThread
+    public void warmUp() {
+        try {
+            executor.submit(this::ensureLoaded).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("整句索引加载失败", e.getCause());
+        }
+    }
+
+    /**
+     * 记录播放的句子；含有不是来自词组的词语时不记录
+     */
+    @MainThread
+    public void record(List<SentenceToken> tokens) {
+        insert(phraseIds(tokens, tokens.size()));
+    }
+
+    /**
+     * 记录固定到常用板的整句，与说过一次相同；单个词组或含有不是来自词组的词语时不记录
+     */
+    @MainThread
+    public void recordFavorite(Favorite favorite) {
+        if (!favorite.isSentence()) {
+            return;
+        }
+        int[] ids = favorite.phraseIds();
+        for (int id : ids) {
+            if (id == SentenceToken.NO_PHRASE) {
+                return;
+            }
+        }
+        insert(ids);
+    }
+
+    @MainThread
+    private void insert(int[] ids) {
+        if (ids == null || ids.length > SentenceTrie.MAX_LENGTH) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        double weight = UsageTracker.decayedWeight(1.0, now);
+        executor.execute(() -> {
+            // 加载完成之前说过的句子插入到加载后的树中，不会被文件内容覆盖
+            ensureLoaded();
+            trie.insert(ids, ids.length, weight, now);
+            dirty = true;
+        });
+        mainHandler.removeCallbacks(saveRunnable);
+        mainHandler.postDelayed(saveRunnable, SAVE_DELAY_MS);
+    }
+
+    /**
+     * 以当前句子为前缀补全整句
+     *
+     * @param out 写入补全的句子（完整的词组ID序列），长度即最多返回的数量
+     * @return 写入的数量
+     */
+    @MainThread
+    public int complete(Sentence sentence, int[][] out) {
+        if (sentence.size() < MIN_PREFIX) {
+            return 0;
+        }
+        int[] prefix = phraseIds(sentence.tokens(), sentence.size());
+        if (prefix == null) {
+            return 0;
+        }
+        return trie.complete(prefix, prefix.length, out);
+    }
+
+    /**
+     * 立即在后台保存未保存的句子，例如界面退到后台时
+     */
+    @MainThread
+    public void save() {
+        mainHandler.removeCallbacks(saveRunnable);
+        executor.execute(() -> {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            File temp = new File(indexFile.getPath() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)))) {
+                trie.writeTo(out);
+            } catch (IOException e) {
+                Log.e(TAG, "保存整句索引失败", e);
+                temp.delete();
+                return;
+            }
+            if (!temp.renameTo(indexFile)) {
+                Log.w(TAG, "重命名索引文件失败");
+                temp.delete();
+            }
+        });
+    }
+
+    @WorkerThread
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        long start = SystemClock.elapsedRealtime();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile)))) {
+            SentenceTrie saved = SentenceTrie.readFrom(in);
+            trie = saved;
+            Log.d(TAG, "整句索引加载完成，" + saved.size() + " 个句子，耗时 "
+                    + (SystemClock.elapsedRealtime() - start) + "ms");
+        } catch (FileNotFoundException e) {
+            rebuildFromHistory();
+        } catch (IOException e) {
+            Log.e(TAG, "读取整句索引失败，从句子历史重建", e);
+            indexFile.delete();
+            rebuildFromHistory();
+        }
+    }
+
+    /**
+     * 用最近使用的历史句子建立前缀树，分数按各自的使用次数和最后使用时间折算
+     */
+    @WorkerThread
+    private void rebuildFromHistory() {
+        List<HistoryEntry> entries = dbHelper.getHistoryPage(null, SentenceTrie.MAX_SENTENCES);
+        SentenceTrie rebuilt = new SentenceTrie();
+        for (HistoryEntry entry : entries) {
+            int[] ids = entry.phraseSequence();
+            if (ids != null) {
+                rebuilt.insert(ids, ids.length,
+                        UsageTracker.decayedWeight(entry.getUseCount(), entry.getLastUsed()), entry.getLastUsed());
+            }
+        }
+        trie = rebuilt;
+        dirty = rebuilt.size() > 0;
+    }
+
+    /**
+     * 词语对应的词组ID序列，有不是来自词组的词语时返回null
+     */
+    private static int[] phraseIds(List<SentenceToken> tokens, int length) {
+        int[] ids = new int[length];
+        for (int i = 0; i < length; i++) {
+            ids[i] = tokens.get(i).getPhraseId();
+            if (ids[i] == SentenceToken.NO_PHRASE) {
+                return null;
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,101 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 句子历史，进程内唯一
+ *
+ * 每次播放整句后在后台写入历史表：朗读文本相同的句子合并为一条，累加使用次数。
+ * 条数超过 {@link #MAX_ENTRIES} 与 {@link #TRIM_SLACK} 之和时，删除最久没有使用的句子，
+ * 回到 {@link #MAX_ENTRIES} 条。读取只按页进行，任何时候都不会把整个历史读入内存。
+ */
+public class SentenceHistory {
+
+    private static final String TAG = "SentenceHistory";
+    // 保留的句子上限
+    static final int MAX_ENTRIES = 20000;
+    // 超出上限这么多条后才淘汰，避免每句都执行删除
+    private static final int TRIM_SLACK = 500;
+
+    private static SentenceHistory instance;
+
+    private final DatabaseHelper dbHelper;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "history-io"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 历史条数，首次写入时从数据库读取，只在 executor 线程访问
+    private long count = -1;
+
+    /**
+     * 一页历史的回调，始终在主线程回调
+     */
+    public interface PageCallback {
+        void onPageLoaded(List<HistoryEntry> entries);
+    }
+
+    /**
+     * 获取进程内唯一的句子历史
+     */
+    public static synchronized SentenceHistory getInstance(Context context) {
+        if (instance == null) {
+            instance = new SentenceHistory(DatabaseHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    private SentenceHistory(DatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    /**
+     * 记录播放的句子
+     *
+     * @param text 朗读文本，用于去重
+     */
+    @MainThread
+    public void record(List<SentenceToken> tokens, String text) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        String encodedTokens = HistoryEntry.encodeTokens(tokens);
+        String phraseIds = HistoryEntry.encodePhraseIds(tokens);
+        long now = System.currentTimeMillis();
+        executor.execute(() -> {
+            try {
+                if (count < 0) {
+                    count = dbHelper.getHistoryCount();
+                }
+                if (dbHelper.recordHistory(text, encodedTokens, phraseIds, now)) {
+                    count++;
+                }
+                if (count > MAX_ENTRIES + TRIM_SLACK) {
+                    count -= dbHelper.trimHistory(MAX_ENTRIES);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "写入句子历史失败", e);
+            }
+        });
+    }
+
+    /**
+     * 读取一页历史，按最后使用时间从新到旧
+     *
+     * @param after 上一页的最后一条，读取第一页时为null
+     */
+    @MainThread
+    public void loadPage(HistoryEntry after, int limit, PageCallback callback) {
+        executor.execute(() -> {
+            List<HistoryEntry> entries = dbHelper.getHistoryPage(after, limit);
+            mainHandler.post(() -> callback.onPageLoaded(entries));
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package com.xtalk.assistant;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ItemTouchHelper;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.material.chip.Chip;
+
+/**
+ * 句子区域的词语标签适配器
+ *
+ * 直接以 {@link Sentence} 为数据源，由调用方在修改句子后发出对应的条目通知，
+ * 追加一个词语只会创建和布局一个新标签，与句子长度无关。
+ */
+public class SentenceTokenAdapter extends RecyclerView.Adapter<SentenceTokenAdapter.TokenViewHolder> {
+
+    private final Sentence sentence;
+    private final TokenClickListener tokenClickListener;
+    private final TokenMoveListener tokenMoveListener;
+
+    /**
+     * 词语标签点击监听器
+     */
+    public interface TokenClickListener {
+        void onTokenClicked(int position);
+    }
+
+    /**
+     * 拖动排序结束的监听器，词语顺序有变化时在松手后回调一次
+     */
+    public interface TokenMoveListener {
+        void onTokensMoved();
+    }
+
+    public SentenceTokenAdapter(Sentence sentence, TokenClickListener tokenClickListener,
+                                TokenMoveListener tokenMoveListener) {
+        this.sentence = sentence;
+        this.tokenClickListener = tokenClickListener;
+        this.tokenMoveListener = tokenMoveListener;
+        // 词语ID在句内唯一，移动和删除时标签不会重新绑定
+        setHasStableIds(true);
+    }
+
+    /**
+     * 创建拖动排序辅助类：长按标签后左右拖动，松手前每跨过一个位置就同步移动句子中的词语，
+     * 松手后通知 {@link TokenMoveListener}
+     */
+    public ItemTouchHelper createDragHelper() {
+        return new ItemTouchHelper(new ItemTouchHelper.SimpleCallback(
+                ItemTouchHelper.LEFT | ItemTouchHelper.RIGHT, 0) {
+            // 本次拖动是否移动过词语
+            private boolean moved = false;
+
+            @Override
+            public boolean onMove(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder from,
+                                  @NonNull RecyclerView.ViewHolder to) {
+                int fromPosition = from.getBindingAdapterPosition();
+                int toPosition = to.getBindingAdapterPosition();
+                if (fromPosition == RecyclerView.NO_POSITION || toPosition == RecyclerView.NO_POSITION) {
+                    return false;
+                }
+                sentence.move(fromPosition, toPosition);
+                notifyItemMoved(fromPosition, toPosition);
+                moved = true;
+                return true;
+            }
+
+            @Override
+            public void clearView(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder viewHolder) {
+                super.clearView(recyclerView, viewHolder);
+                if (moved) {
+                    moved = false;
+                    if (tokenMoveListener != null) {
+                        tokenMoveListener.onTokensMoved();
+                    }
+                }
+            }
+
+            @Override
+            public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
+                // 不支持滑动删除
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public TokenViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_sentence_token, parent, false);
+        TokenViewHolder holder = new TokenViewHolder(view);
+        holder.chip.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && tokenClickListener != null) {
+                tokenClickListener.onTokenClicked(position);
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TokenViewHolder holder, int position) {
+        holder.chip.setText(sentence.get(position).getText());
+    }
+
+    @Override
+    public int getItemCount() {
+        return sentence.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return sentence.get(position).getId();
+    }
+
+    static class TokenViewHolder extends RecyclerView.ViewHolder {
+        final Chip chip;
+
+        TokenViewHolder(@NonNull View itemView) {
+            super(itemView);
+            chip = itemView.findViewById(R.id.sentence_token_chip);
+        }
+    }
+}
@@ -0,0 +1,667 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import android.speech.tts.Voice;
+import android.util.Log;
+import android.widget.Toast;
+
+import androidx.annotation.MainThread;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 进程内唯一的语音引擎
+ *
+ * 负责绑定 TTS 引擎、设置中文语言、在引擎之间回退，以及词组语音片段的预合成。
+ * 所有朗读都先经过当前引擎的读音词典（见 {@link PronunciationStore}）。
+ * 由启动流程在应用启动时开始初始化，不依赖任何 Activity；
+ * 初始化中遇到需要用户处理的问题时通过 {@link ProblemListener} 通知界面，
+ * 没有界面时暂存，界面注册监听后再通知。
+ */
+public class SpeechEngine implements TextToSpeech.OnInitListener {
+
+    private static final String TAG = "SpeechEngine";
+
+    // 语速和音调，整句播放与预合成片段使用同一组参数
+    static final float SPEECH_RATE = 1.1f;
+    static final float SPEECH_PITCH = 1.0f;
+    private static final int MAX_INITIALIZATION_ATTEMPTS = 3;
+
+    // 需要界面处理的问题
+    private static final int PROBLEM_MISSING_DATA = 1;
+    private static final int PROBLEM_NOT_SUPPORTED = 2;
+    private static final int PROBLEM_INIT_FAILED = 3;
+
+    private static SpeechEngine instance;
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 引擎探测结果缓存，应用安装、卸载或更新时失效
+    private final TtsEngineCache ttsEngineCache;
+    // 词组预合成语音缓存，点词发音时直接播放
+    private final PhraseAudioCache phraseAudioCache;
+    // 边组句边朗读的队列
+    private final StreamingSpeaker streamingSpeaker = new StreamingSpeaker();
+    private TextToSpeech textToSpeech;
+    // 当前使用的引擎包名，null 表示系统默认引擎
+    private String enginePackage;
+    // 当前引擎上次可用的 Locale（没有记录时为 null）
+    private Locale knownLocale;
+    // 当前语音的朗读文本整理流程，引擎就绪前按中文处理
+    private SpeechPipeline speechPipeline = SpeechPipeline.forLanguage(null);
+    // 当前引擎的读音词典，引擎就绪后在后台加载
+    private PronunciationDictionary pronunciations = PronunciationDictionary.EMPTY;
+    private final PronunciationStore pronunciationStore;
+    // 引擎已可朗读
+    private boolean ready = false;
+    private Runnable readyCallback;
+    private ProblemListener problemListener;
+    // 没有监听者时暂存的问题
+    private int pendingProblem = 0;
+    private String pendingMessage;
+
+    // 添加标志，防止无限循环初始化
+    private boolean isInitializing = false;
+    private boolean isLanguageSettingFailed = false;
+    private boolean hasTriedOtherEngines = false;
+    private int initializationAttempts = 0;
+
+    /**
+     * 需要用户处理的初始化问题，始终在主线程回调
+     */
+    public interface ProblemListener {
+        void onLanguageDataMissing();
+        void onChineseNotSupported();
+        void onInitFailed(String message);
+    }
+
+    /**
+     * 获取进程内唯一的语音引擎
+     */
+    public static synchronized SpeechEngine getInstance(Context context) {
+        if (instance == null) {
+            instance = new SpeechEngine(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private SpeechEngine(Context context) {
+        this.context = context;
+        this.ttsEngineCache = new TtsEngineCache(context);
+        this.ttsEngineCache.registerPackageReceiver();
+        this.phraseAudioCache = new PhraseAudioCache(context);
+        // 朗读队列忙碌时暂停预合成，避免合成任务排在词语前面
+        this.streamingSpeaker.setStateListener(phraseAudioCache::setPaused);
+        this.pronunciationStore = PronunciationStore.getInstance(context);
+        this.pronunciationStore.setListener(dictionary -> {
+            pronunciations = dictionary;
+            speechPipeline = speechPipeline.withDictionary(dictionary);
+            streamingSpeaker.setDictionary(dictionary);
+        });
+    }
+
+    /**
+     * 引擎就绪后在主线程回调，用于启动流程计时
+     */
+    @MainThread
+    public void setReadyCallback(Runnable callback) {
+        this.readyCallback = callback;
+    }
+
+    /**
+     * 设置问题监听者，传入 null 取消；有暂存的问题时立即通知
+     */
+    @MainThread
+    public void setProblemListener(ProblemListener listener) {
+        this.problemListener = listener;
+        if (listener != null && pendingProblem != 0) {
+            int problem = pendingProblem;
+            pendingProblem = 0;
+            notifyProblem(problem, pendingMessage);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 用户要求重试：重置尝试次数后重新初始化
+     */
+    public void retry() {
+        initializationAttempts = 0;
+        initialize();
+    }
+
+    /**
+     * 当前语音的朗读文本整理流程
+     */
+    @MainThread
+    public SpeechPipeline getSpeechPipeline() {
+        return speechPipeline;
+    }
+
+    /**
+     * 朗读一段文本，打断正在播放的内容
+     *
+     * @return 引擎未就绪时返回false，并在需要时开始初始化
+     */
+    public boolean speak(String text) {
+        if (textToSpeech == null) {
+            initialize();
+            return false;
+        }
+        if (textToSpeech.isSpeaking()) {
+            textToSpeech.stop();
+        }
+        // 整句播放取代尚未读完的词语
+        streamingSpeaker.reset();
+        // 略微加快语速，减少停顿感
+        textToSpeech.setSpeechRate(SPEECH_RATE);
+        textToSpeech.setPitch(SPEECH_PITCH);
+        int result = textToSpeech.speak(text, TextToSpeech.QUEUE_FLUSH, null, "utteranceId");
+        Log.d(TAG, "speak() 返回结果: " + result);
+        return true;
+    }
+
+    /**
+     * 点词即发音：优先播放预合成片段，片段未就绪时由引擎实时朗读
+     *
+     * 预合成片段按原文合成，词组命中读音词典时改为实时朗读替换后的文本。
+     */
+    @MainThread
+    public void speakPhrase(String phrase) {
+        String spoken = pronunciations.apply(phrase);
+        if (spoken.equals(phrase) && phraseAudioCache.play(phrase)) {
+            return;
+        }
+        if (textToSpeech != null) {
+            textToSpeech.speak(spoken, TextToSpeech.QUEUE_FLUSH, null, "phrase");
+        }
+    }
+
+    /**
+     * 边组句边朗读：新添加的词语立即进入朗读队列
+     */
+    @MainThread
+    public void streamToken(long tokenId, String text) {
+        streamingSpeaker.enqueue(tokenId, text);
+    }
+
+    /**
+     * 撤销词语时取消其朗读
+     */
+    @MainThread
+    public void cancelStreamToken(long tokenId) {
+        streamingSpeaker.cancel(tokenId);
+    }
+
+    /**
+     * 新添加或修改的词组在后台预合成
+     */
+    public void prepareClip(String phrase) {
+        phraseAudioCache.prepare(phrase);
+    }
+
+    /**
+     * 初始化 TTS 引擎 - Android 16 兼容版本
+     */
+    public void initialize() {
+        if (isInitializing) {
+            Log.w(TAG, "TTS 正在初始化中，跳过重复请求");
+            return;
+        }
+        
+        isInitializing = true;
+        ready = false;
+        Log.d(TAG, "开始 TTS 初始化，尝试次数: " + initializationAttempts);
+
+        // 先在后台查询上次可用的引擎，有记录时直接绑定该引擎
+        ttsEngineCache.loadKnownEngine(known -> {
+            try {
+                // 重试时释放旧实例
+                if (textToSpeech != null) {
+                    textToSpeech.shutdown();
+                    textToSpeech = null;
+                }
+                streamingSpeaker.setTextToSpeech(null);
+                // 使用 ApplicationContext 绑定引擎，不随 Activity 重建而重新初始化
+                if (known != null) {
+                    Log.d(TAG, "使用已知可用引擎: " + known.packageName + " " + known.locale);
+                    enginePackage = known.packageName;
+                    knownLocale = known.locale;
+                    textToSpeech = new TextToSpeech(context, this, known.packageName);
+                } else {
+                    enginePackage = null;
+                    knownLocale = null;
+                    textToSpeech = new TextToSpeech(context, this);
+                }
+                Log.d(TAG, "TTS 构造函数调用成功");
+            } catch (Exception e) {
+                Log.e(TAG, "TTS 初始化异常", e);
+                isInitializing = false;
+                Toast.makeText(context, "TTS 初始化失败: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    /**
+     * 当前引擎的包名
+     */
+    private String currentEngine() {
+        return enginePackage != null ? enginePackage : textToSpeech.getDefaultEngine();
+    }
+
+    @Override
+    public void onInit(int status) {
+        isInitializing = false;
+        Log.d(TAG, "TTS onInit 回调，状态码: " + status + ", 当前尝试次数: " + initializationAttempts + ", hasTriedOtherEngines: " + hasTriedOtherEngines);
+        
+        if (status == TextToSpeech.SUCCESS) {
+            // 只有在首次尝试或成功时才重置尝试次数和失败标志
+            if (!hasTriedOtherEngines) {
+                initializationAttempts = 0;
+                isLanguageSettingFailed = false;
+            }
+            
+            // 已记录该引擎版本可用的 Locale 时直接设置，跳过逐个探测
+            if (knownLocale != null) {
+                int knownResult = textToSpeech.setLanguage(knownLocale);
+                Log.d(TAG, "设置已知 Locale " + knownLocale + " 结果: " + langResultToString(knownResult));
+                // 部分引擎的 setLanguage() 返回值不准确，但该引擎此前已确认可以朗读，仅在数据缺失时重新探测
+                if (knownResult != TextToSpeech.LANG_MISSING_DATA) {
+                    onTtsReady();
+                    return;
+                }
+                knownLocale = null;
+            }
+
+            // 尝试设置中文语言，优化isLanguageAvailable()的使用
+            boolean isChineseAvailable = false;
+            int langResult = TextToSpeech.LANG_MISSING_DATA;
+            // 最后一次设置的 Locale，成功时记录到缓存
+            Locale appliedLocale = Locale.CHINESE;
+            
+            try {
+                // 1. 优化isLanguageAvailable()检查，使用更多中文Locale，并记录详细结果
+                Log.d(TAG, "开始检测中文支持状态...");
+                
+                // 检查多种中文Locale
+                Locale[] chineseLocales = {
+                    Locale.CHINESE,           // 中文（通用）
+                    Locale.SIMPLIFIED_CHINESE, // 简体中文
+                    Locale.CHINA,             // 中文（中国）
+                    new Locale("zh"),           // zh语言代码
+                    new Locale("zh", "CN"),       // zh-CN语言代码
+                    new Locale("zh", "CHS")       // zh-CHS语言代码
+                };
+                
+                for (Locale locale : chineseLocales) {
+                    int availableResult = textToSpeech.isLanguageAvailable(locale);
+                    Log.d(TAG, "isLanguageAvailable(" + locale + ") 返回: " + langResultToString(availableResult));
+                    
+                    // 只要返回值不是LANG_NOT_SUPPORTED或LANG_MISSING_DATA，就认为支持
+                    if (availableResult != TextToSpeech.LANG_NOT_SUPPORTED && availableResult != TextToSpeech.LANG_MISSING_DATA) {
+                        isChineseAvailable = true;
+                        break;
+                    }
+                }
+                
+                Log.d(TAG, "中文支持状态检测结果: " + (isChineseAvailable ? "支持" : "不支持"));
+                
+                // 2. 无论isLanguageAvailable()结果如何，都尝试设置中文，因为某些TTS引擎的isLanguageAvailable()返回值不准确
+                // 先尝试设置语言
+                langResult = textToSpeech.setLanguage(Locale.CHINESE);
+                Log.d(TAG, "设置 Locale.CHINESE 结果: " + langResultToString(langResult));
+                
+                if (langResult == TextToSpeech.LANG_MISSING_DATA || 
+                    langResult == TextToSpeech.LANG_NOT_SUPPORTED) {
+                    // 尝试简体中文
+                    appliedLocale = Locale.SIMPLIFIED_CHINESE;
+                    langResult = textToSpeech.setLanguage(appliedLocale);
+                    Log.d(TAG, "设置 Locale.SIMPLIFIED_CHINESE 结果: " + langResultToString(langResult));
+                }
+                
+                if (langResult == TextToSpeech.LANG_MISSING_DATA || 
+                    langResult == TextToSpeech.LANG_NOT_SUPPORTED) {
+                    // 尝试 Locale.CHINA
+                    appliedLocale = Locale.CHINA;
+                    langResult = textToSpeech.setLanguage(appliedLocale);
+                    Log.d(TAG, "设置 Locale.CHINA 结果: " + langResultToString(langResult));
+                }
+                
+                if (langResult == TextToSpeech.LANG_MISSING_DATA || 
+                    langResult == TextToSpeech.LANG_NOT_SUPPORTED) {
+                    // 尝试zh语言代码
+                    appliedLocale = new Locale("zh");
+                    langResult = textToSpeech.setLanguage(appliedLocale);
+                    Log.d(TAG, "设置 zh 语言代码结果: " + langResultToString(langResult));
+                }
+                
+                // 3. 无论setLanguage()结果如何，都尝试直接播放语音，因为某些TTS引擎的setLanguage()返回值不准确
+                // 但仅在首次尝试时执行
+                if (langResult == TextToSpeech.LANG_NOT_SUPPORTED && !isLanguageSettingFailed) {
+                    Log.d(TAG, "setLanguage() 返回不支持，但尝试直接播放测试语音...");
+                    String testText = "测试语音播放";
+                    int speakResult = textToSpeech.speak(testText, TextToSpeech.QUEUE_FLUSH, null);
+                    Log.d(TAG, "直接播放测试语音结果: " + (speakResult == TextToSpeech.SUCCESS ? "成功" : "失败"));
+                    
+                    if (speakResult == TextToSpeech.SUCCESS) {
+                        // 播放成功，认为TTS引擎支持中文，忽略setLanguage()的返回值
+                        langResult = TextToSpeech.LANG_AVAILABLE;
+                        Log.d(TAG, "直接播放成功，覆盖setLanguage()结果为LANG_AVAILABLE");
+                    }
+                }
+                
+            } catch (Exception e) {
+                Log.e(TAG, "检测或设置语言时发生异常", e);
+            }
+            
+            // 检查最终结果
+            if (langResult == TextToSpeech.LANG_MISSING_DATA) {
+                Log.e(TAG, "TTS 语言数据缺失");
+                // 重置标志，因为这是一个不同的问题（数据缺失而非引擎不支持）
+                hasTriedOtherEngines = false;
+                notifyProblem(PROBLEM_MISSING_DATA, null);
+            } else if (langResult == TextToSpeech.LANG_NOT_SUPPORTED) {
+                Log.e(TAG, "TTS 引擎不支持中文");
+                ttsEngineCache.recordUnsupported(currentEngine());
+                
+                // 检查是否已经尝试过语言设置失败，防止无限循环
+                if (isLanguageSettingFailed) {
+                    Log.e(TAG, "语言设置已失败过，终止尝试");
+                    // 重置标志
+                    hasTriedOtherEngines = false;
+                    notifyProblem(PROBLEM_NOT_SUPPORTED, null);
+                    return;
+                }
+                
+                // 设置语言设置失败标志
+                isLanguageSettingFailed = true;
+                
+                // 在后台获取可用引擎（已排除确认不支持中文的引擎，包括当前引擎）
+                ttsEngineCache.loadEngines(textToSpeech, engines -> {
+                    // 还有其他引擎时才尝试，并且确保不会无限循环
+                    if (!engines.isEmpty() && initializationAttempts < MAX_INITIALIZATION_ATTEMPTS) {
+                        // 设置标志，表明我们正在尝试其他引擎
+                        hasTriedOtherEngines = true;
+                        // 尝试其他引擎
+                        tryNextEngine(engines);
+                    } else {
+                        // 没有更多引擎可以尝试，显示错误对话框
+                        // 重置标志
+                        hasTriedOtherEngines = false;
+                        notifyProblem(PROBLEM_NOT_SUPPORTED, null);
+                    }
+                });
+            } else {
+                // 成功，记录可用的引擎和 Locale，下次启动直接使用
+                ttsEngineCache.recordWorking(currentEngine(), appliedLocale);
+                onTtsReady();
+            }
+        } else {
+            Log.e(TAG, "TTS 初始化失败，状态码: " + status);
+            
+            if (initializationAttempts < MAX_INITIALIZATION_ATTEMPTS) {
+                // 增加尝试次数
+                initializationAttempts++;
+                
+                Log.d(TAG, "准备重试 TTS 初始化 (第" + initializationAttempts + "/" + MAX_INITIALIZATION_ATTEMPTS + "次)");
+                
+                // 延迟重试，增加延迟时间，减少toast频率
+                mainHandler.postDelayed(() -> {
+                    if (!isInitializing) {
+                        Log.d(TAG, "重试 TTS 初始化");
+                        initialize();
+                    } else {
+                        Log.d(TAG, "TTS 正在初始化中，跳过此次重试");
+                    }
+                }, 2000); // 增加延迟到2秒，减少toast频率
+            } else {
+                // 已达到最大尝试次数，显示错误对话框
+                Log.e(TAG, "已达到最大尝试次数（" + MAX_INITIALIZATION_ATTEMPTS + "次），终止重试");
+                // 重置标志
+                hasTriedOtherEngines = false;
+                notifyProblem(PROBLEM_INIT_FAILED, "TTS 初始化失败，错误码: " + status);
+            }
+        }
+    }
+    
+    /**
+     * 语言设置完成，引擎可以朗读
+     */
+    private void onTtsReady() {
+        try {
+            textToSpeech.setSpeechRate(SPEECH_RATE);
+            textToSpeech.setPitch(SPEECH_PITCH);
+        } catch (Exception e) {
+            Log.e(TAG, "设置语速和音调时发生异常", e);
+        }
+
+        // 重置所有标志，因为初始化成功
+        initializationAttempts = 0;
+        isLanguageSettingFailed = false;
+        hasTriedOtherEngines = false;
+
+        Log.i(TAG, "TTS 初始化成功，语言设置完成");
+        Toast.makeText(context, "语音功能已就绪", Toast.LENGTH_SHORT).show();
+
+        String language = currentLanguage(textToSpeech);
+        speechPipeline = SpeechPipeline.forLanguage(language).withDictionary(pronunciations);
+        streamingSpeaker.setPipeline(SpeechPipeline.forStreaming(language).withDictionary(pronunciations));
+        // 按引擎加载读音词典，完成后替换整理流程中的词典
+        pronunciationStore.setEngine(currentEngine());
+
+        // 后台预合成词组语音片段
+        textToSpeech.setOnUtteranceProgressListener(utteranceListener);
+        streamingSpeaker.setTextToSpeech(textToSpeech);
+        startPhraseAudioCache();
+
+        ready = true;
+        if (readyCallback != null) {
+            readyCallback.run();
+        }
+    }
+    
+    /**
+     * 尝试使用下一个可用引擎
+     */
+    private void tryNextEngine(List<String> engines) {
+        // 添加防护机制，防止无限循环
+        if (engines == null || engines.isEmpty()) {
+            Log.e(TAG, "引擎列表为空，终止尝试");
+            notifyProblem(PROBLEM_NOT_SUPPORTED, null);
+            return;
+        }
+        
+        // 检查是否已达到最大尝试次数
+        if (initializationAttempts >= MAX_INITIALIZATION_ATTEMPTS) {
+            Log.e(TAG, "已达到最大尝试次数（" + MAX_INITIALIZATION_ATTEMPTS + "次），终止尝试");
+            notifyProblem(PROBLEM_INIT_FAILED, "TTS 初始化失败，已尝试 " + MAX_INITIALIZATION_ATTEMPTS + " 次");
+            return;
+        }
+        
+        // 检查是否已超过引擎列表大小
+        if (initializationAttempts >= engines.size()) {
+            Log.e(TAG, "已尝试所有可用引擎（" + engines.size() + "个），终止尝试");
+            notifyProblem(PROBLEM_NOT_SUPPORTED, null);
+            return;
+        }
+        
+        String nextEngine = engines.get(initializationAttempts);
+        int currentAttempt = initializationAttempts + 1;
+        
+        Log.d(TAG, "尝试使用引擎 (第" + currentAttempt + "/" + MAX_INITIALIZATION_ATTEMPTS + "次): " + nextEngine);
+        Toast.makeText(context, "尝试使用引擎 (" + currentAttempt + "/" + MAX_INITIALIZATION_ATTEMPTS + "): " + nextEngine, Toast.LENGTH_SHORT).show();
+        
+        try {
+            // 释放旧实例
+            if (textToSpeech != null) {
+                textToSpeech.shutdown();
+                textToSpeech = null;
+            }
+            streamingSpeaker.setTextToSpeech(null);
+            
+            // 增加尝试次数，防止无限循环
+            initializationAttempts++;
+            
+            // 使用指定引擎初始化，兼容 Android 16
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                // API 21+ 支持指定引擎
+                enginePackage = nextEngine;
+                knownLocale = null;
+                textToSpeech = new TextToSpeech(context, this, nextEngine);
+            } else {
+                // API 21- 不支持指定引擎，使用默认方式
+                textToSpeech = new TextToSpeech(context, this);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "使用引擎 " + nextEngine + " 初始化失败", e);
+            // 继续尝试下一个，但添加延迟和防护
+            mainHandler.postDelayed(() -> {
+                // 再次检查最大尝试次数
+                if (initializationAttempts < MAX_INITIALIZATION_ATTEMPTS) {
+                    tryNextEngine(engines);
+                } else {
+                    Log.e(TAG, "已达到最大尝试次数，终止尝试");
+                    notifyProblem(PROBLEM_INIT_FAILED, "TTS 初始化失败，已尝试 " + MAX_INITIALIZATION_ATTEMPTS + " 次");
+                }
+            }, 1000); // 增加延迟时间，减少toast频率
+        }
+    }
+    
+    /**
+     * 当前语音的语言代码，引擎不支持查询时返回null
+     */
+    private static String currentLanguage(TextToSpeech tts) {
+        try {
+            Voice voice = tts.getVoice();
+            Locale locale = voice != null ? voice.getLocale() : tts.getLanguage();
+            return locale != null ? locale.getLanguage() : null;
+        } catch (Exception e) {
+            // 部分引擎未实现语音查询
+            return null;
+        }
+    }
+
+    /**
+     * 引擎就绪后为全部词组预合成语音片段
+     *
+     * 片段按 引擎/语音/语速/音调 分开缓存，更换任一项都会重新合成。
+     * 词组按常用板、使用分数排列，排在前面的先合成并预先加载。
+     */
+    private void startPhraseAudioCache() {
+        TextToSpeech tts = textToSpeech;
+        String engine = enginePackage != null ? enginePackage : tts.getDefaultEngine();
+        String voiceName;
+        try {
+            Voice voice = tts.getVoice();
+            voiceName = voice != null ? voice.getName() : String.valueOf(tts.getLanguage());
+        } catch (Exception e) {
+            // 部分引擎未实现语音查询
+            voiceName = "default";
+        }
+        String voiceKey = engine + "|" + voiceName + "|" + SPEECH_RATE + "|" + SPEECH_PITCH;
+        PhraseRepository.getInstance(context).loadAllPhrases(phrases -> {
+            Set<String> contents = new LinkedHashSet<>(phrases.size());
+            for (Favorite favorite : FavoritesStore.getInstance(context).getFavorites()) {
+                if (!favorite.isSentence()) {
+                    contents.add(favorite.getToken(0));
+                }
+            }
+            for (Phrase phrase : UsageTracker.getInstance(context).rank(phrases)) {
+                contents.add(phrase.getContent());
+            }
+            phraseAudioCache.start(tts, voiceKey, new ArrayList<>(contents));
+        });
+    }
+
+    /**
+     * 引擎进度回调（在引擎的绑定线程上），预合成任务转交给语音缓存，
+     * 朗读队列的语句转到主线程处理
+     */
+    private final UtteranceProgressListener utteranceListener = new UtteranceProgressListener() {
+        @Override
+        public void onStart(String utteranceId) {
+        }
+
+        @Override
+        public void onDone(String utteranceId) {
+            if (PhraseAudioCache.isCacheUtterance(utteranceId)) {
+                phraseAudioCache.onUtteranceDone(utteranceId);
+            } else {
+                finishStreamUtterance(utteranceId);
+            }
+        }
+
+        @Override
+        public void onError(String utteranceId) {
+            if (PhraseAudioCache.isCacheUtterance(utteranceId)) {
+                phraseAudioCache.onUtteranceError(utteranceId);
+            } else {
+                finishStreamUtterance(utteranceId);
+            }
+        }
+
+        @Override
+        public void onStop(String utteranceId, boolean interrupted) {
+            if (PhraseAudioCache.isCacheUtterance(utteranceId)) {
+                phraseAudioCache.onUtteranceStopped(utteranceId);
+            } else {
+                finishStreamUtterance(utteranceId);
+            }
+        }
+
+        private void finishStreamUtterance(String utteranceId) {
+            if (StreamingSpeaker.isStreamUtterance(utteranceId)) {
+                mainHandler.post(() -> streamingSpeaker.onUtteranceFinished(utteranceId));
+            }
+        }
+    };
+
+    /**
+     * 语言设置结果转字符串
+     */
+    private String langResultToString(int result) {
+        switch (result) {
+            case TextToSpeech.LANG_AVAILABLE: return "LANG_AVAILABLE";
+            case TextToSpeech.LANG_COUNTRY_AVAILABLE: return "LANG_COUNTRY_AVAILABLE";
+            case TextToSpeech.LANG_COUNTRY_VAR_AVAILABLE: return "LANG_COUNTRY_VAR_AVAILABLE";
+            case TextToSpeech.LANG_MISSING_DATA: return "LANG_MISSING_DATA";
+            case TextToSpeech.LANG_NOT_SUPPORTED: return "LANG_NOT_SUPPORTED";
+            default: return "UNKNOWN(" + result + ")";
+        }
+    }
+
+    /**
+     * 通知界面处理问题，没有监听者时暂存
+     */
+    private void notifyProblem(int problem, String message) {
+        ProblemListener listener = problemListener;
+        if (listener == null) {
+            pendingProblem = problem;
+            pendingMessage = message;
+            return;
+        }
+        switch (problem) {
+            case PROBLEM_MISSING_DATA:
+                listener.onLanguageDataMissing();
+                break;
+            case PROBLEM_NOT_SUPPORTED:
+                listener.onChineseNotSupported();
+                break;
+            default:
+                listener.onInitFailed(message);
+                break;
+        }
+    }
+}
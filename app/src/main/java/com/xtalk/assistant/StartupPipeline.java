@@ -0,0 +1,235 @@
+package com.xtalk.assistant;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 启动流程编排
+ *
+ * 每个步骤声明所依赖的步骤，依赖全部完成后立即在主线程或后台线程执行，
+ * 互不依赖的步骤并行进行。步骤分三种：
+ * 普通步骤执行完即完成；信号步骤在依赖完成且外部调用 {@link #signal} 后完成，
+ * 用于引擎绑定等异步结果；里程碑没有工作内容，仅标记一组步骤都已完成。
+ *
+ * 每个步骤都有对应的 Trace 区段（startup:名称），并记录距流程开始的耗时。
+ */
+public final class StartupPipeline {
+
+    private static final String TAG = "StartupPipeline";
+    // 后台步骤的并发数
+    private static final int BACKGROUND_THREADS = 2;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService background = Executors.newFixedThreadPool(BACKGROUND_THREADS,
+            runnable -> new Thread(runnable, "startup"));
+    // 以下状态只在主线程访问
+    private final Map<String, Step> steps = new HashMap<>();
+    private final long startTime;
+    private boolean started = false;
+
+    private static final int KIND_MAIN = 0;
+    private static final int KIND_BACKGROUND = 1;
+    private static final int KIND_SIGNAL = 2;
+    private static final int KIND_MILESTONE = 3;
+
+    private static final class Step {
+        final String name;
+        final int kind;
+        final Runnable work;
+        final String[] dependencies;
+        final List<Step> dependents = new ArrayList<>();
+        final List<Runnable> callbacks = new ArrayList<>();
+        int remaining;
+        boolean signaled = false;
+        boolean done = false;
+        long doneAt;
+
+        Step(String name, int kind, Runnable work, String[] dependencies) {
+            this.name = name;
+            this.kind = kind;
+            this.work = work;
+            this.dependencies = dependencies;
+        }
+    }
+
+    /**
+     * @param startTime 计时起点（elapsedRealtime），通常是进程启动时间
+     */
+    public StartupPipeline(long startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * 添加在主线程执行的步骤
+     */
+    public StartupPipeline onMainThread(String name, Runnable work, String... dependencies) {
+        return add(new Step(name, KIND_MAIN, work, dependencies));
+    }
+
+    /**
+     * 添加在后台线程执行的步骤
+     */
+    public StartupPipeline inBackground(String name, Runnable work, String... dependencies) {
+        return add(new Step(name, KIND_BACKGROUND, work, dependencies));
+    }
+
+    /**
+     * 添加由外部调用 {@link #signal} 完成的步骤
+     */
+    public StartupPipeline onSignal(String name, String... dependencies) {
+        return add(new Step(name, KIND_SIGNAL, null, dependencies));
+    }
+
+    /**
+     * 添加里程碑：所有依赖完成即完成
+     */
+    public StartupPipeline milestone(String name, String... dependencies) {
+        return add(new Step(name, KIND_MILESTONE, null, dependencies));
+    }
+
+    private StartupPipeline add(Step step) {
+        if (started) {
+            throw new IllegalStateException("启动流程已开始，不能再添加步骤: " + step.name);
+        }
+        if (steps.put(step.name, step) != null) {
+            throw new IllegalArgumentException("重复的步骤: " + step.name);
+        }
+        return this;
+    }
+
+    /**
+     * 解析依赖并开始执行没有依赖的步骤
+     */
+    @MainThread
+    public void start() {
+        started = true;
+        for (Step step : steps.values()) {
+            step.remaining = step.dependencies.length;
+            for (String dependency : step.dependencies) {
+                Step parent = steps.get(dependency);
+                if (parent == null) {
+                    throw new IllegalArgumentException(step.name + " 依赖的步骤不存在: " + dependency);
+                }
+                parent.dependents.add(step);
+            }
+        }
+        for (Step step : new ArrayList<>(steps.values())) {
+            if (step.remaining == 0) {
+                launch(step);
+            }
+        }
+    }
+
+    /**
+     * 外部通知信号步骤已就绪，可在任意线程调用
+     */
+    public void signal(String name) {
+        mainHandler.post(() -> {
+            Step step = steps.get(name);
+            if (step == null || step.kind != KIND_SIGNAL || step.signaled) {
+                return;
+            }
+            step.signaled = true;
+            if (step.remaining == 0) {
+                complete(step);
+            }
+        });
+    }
+
+    /**
+     * 步骤完成后在主线程回调；已完成时立即回调
+     */
+    @MainThread
+    public void whenDone(String name, Runnable callback) {
+        Step step = steps.get(name);
+        if (step == null) {
+            throw new IllegalArgumentException("步骤不存在: " + name);
+        }
+        if (step.done) {
+            callback.run();
+        } else {
+            step.callbacks.add(callback);
+        }
+    }
+
+    /**
+     * 步骤完成时距计时起点的毫秒数，未完成时返回-1
+     */
+    @MainThread
+    public long elapsedAt(String name) {
+        Step step = steps.get(name);
+        return step != null && step.done ? step.doneAt - startTime : -1;
+    }
+
+    @MainThread
+    private void launch(Step step) {
+        switch (step.kind) {
+            case KIND_MAIN:
+                // 让出当前消息，避免在 Application.onCreate 中串行执行全部主线程步骤
+                mainHandler.post(() -> {
+                    runTraced(step);
+                    complete(step);
+                });
+                break;
+            case KIND_BACKGROUND:
+                background.execute(() -> {
+                    runTraced(step);
+                    mainHandler.post(() -> complete(step));
+                });
+                break;
+            case KIND_SIGNAL:
+                if (step.signaled) {
+                    complete(step);
+                }
+                break;
+            default:
+                complete(step);
+                break;
+        }
+    }
+
+    private void runTraced(Step step) {
+        long begin = SystemClock.elapsedRealtime();
+        Trace.beginSection("startup:" + step.name);
+        try {
+            step.work.run();
+        } catch (RuntimeException e) {
+            // 单个步骤失败不阻塞后续步骤，相关功能在首次使用时会再次尝试
+            Log.e(TAG, "启动步骤失败: " + step.name, e);
+        } finally {
+            Trace.endSection();
+        }
+        Log.d(TAG, step.name + " 执行耗时 " + (SystemClock.elapsedRealtime() - begin) + "ms");
+    }
+
+    @MainThread
+    private void complete(Step step) {
+        if (step.done) {
+            return;
+        }
+        step.done = true;
+        step.doneAt = SystemClock.elapsedRealtime();
+        Log.d(TAG, step.name + " 完成，距启动 " + (step.doneAt - startTime) + "ms");
+        for (Runnable callback : step.callbacks) {
+            callback.run();
+        }
+        step.callbacks.clear();
+        for (Step dependent : step.dependents) {
+            if (--dependent.remaining == 0) {
+                launch(dependent);
+            }
+        }
+    }
+}
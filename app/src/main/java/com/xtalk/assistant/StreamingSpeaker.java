@@ -0,0 +1,198 @@
+package com.xtalk.assistant;
+
+import android.speech.tts.TextToSpeech;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 边组句边朗读
+ *
+ * 每个新添加的词语立即进入朗读队列。引擎中最多只有一条正在朗读的语句，
+ * 朗读期间新添加的词语在本地排队；当前语句结束后，排队的词语合并成一条语句
+ * 以 QUEUE_ADD 提交，因此无论点得多快，朗读最多落后一条语句。
+ * 撤销的词语如果还在排队就直接丢弃，如果正在朗读则停止后继续下一条。
+ *
+ * 合并后的语句经过当前语音的 {@link SpeechPipeline#forStreaming 边读流程}整理（读音词典、数字、
+ * 空白、标点），但不补句末标点。跨越两个词语的词条（“重”+“新”）或数字在同一条语句中也能整理；
+ * 已经提交朗读的词语不会再与之后的词语一起整理。
+ *
+ * 所有状态只在主线程访问，引擎回调由 {@link SpeechEngine} 转到主线程后调用。
+ */
+public class StreamingSpeaker {
+
+    private static final String TAG = "StreamingSpeaker";
+    // 语句的 utteranceId 前缀，用于在进度回调中区分
+    static final String UTTERANCE_PREFIX = "stream:";
+
+    private static final class Item {
+        final long tokenId;
+        final String text;
+
+        Item(long tokenId, String text) {
+            this.tokenId = tokenId;
+            this.text = text;
+        }
+    }
+
+    // 等待朗读的词语
+    private final ArrayDeque<Item> pending = new ArrayDeque<>();
+    // 正在朗读的语句包含的词语
+    private final List<Long> speakingTokens = new ArrayList<>();
+    private String speakingId;
+    private long nextUtterance = 1;
+    private TextToSpeech textToSpeech;
+    private SpeechPipeline pipeline = SpeechPipeline.forStreaming(null);
+    private StateListener stateListener;
+
+    /**
+     * 队列在空闲和忙碌之间切换时回调
+     */
+    public interface StateListener {
+        void onStreamingStateChanged(boolean busy);
+    }
+
+    @MainThread
+    public void setStateListener(StateListener listener) {
+        this.stateListener = listener;
+    }
+
+    /**
+     * 设置整理流程（应为 {@link SpeechPipeline#forStreaming}），从下一条提交的语句开始使用
+     */
+    @MainThread
+    public void setPipeline(SpeechPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * 更换读音词典，规则不变，从下一条提交的语句开始使用
+     */
+    @MainThread
+    public void setDictionary(PronunciationDictionary dictionary) {
+        this.pipeline = pipeline.withDictionary(dictionary);
+    }
+
+    /**
+     * 设置使用的引擎，引擎更换或未就绪（null）时清空队列
+     */
+    @MainThread
+    public void setTextToSpeech(TextToSpeech tts) {
+        if (tts != textToSpeech) {
+            textToSpeech = tts;
+            reset();
+        }
+    }
+
+    /**
+     * 添加一个词语
+     */
+    @MainThread
+    public void enqueue(long tokenId, String text) {
+        if (textToSpeech == null || text == null || text.isEmpty()) {
+            return;
+        }
+        pending.add(new Item(tokenId, text));
+        pump();
+    }
+
+    /**
+     * 撤销一个词语：还在排队则丢弃，正在朗读则停止当前语句
+     */
+    @MainThread
+    public void cancel(long tokenId) {
+        for (Iterator<Item> it = pending.iterator(); it.hasNext(); ) {
+            if (it.next().tokenId == tokenId) {
+                it.remove();
+                return;
+            }
+        }
+        if (speakingTokens.contains(tokenId) && textToSpeech != null) {
+            // 本队列在引擎中只有这一条语句，但 stop() 也会打断同一引擎上正在后台合成的词组片段，
+            // 该片段由 PhraseAudioCache.onUtteranceStopped 重新排队
+            textToSpeech.stop();
+            finishSpeaking();
+            pump();
+        }
+    }
+
+    /**
+     * 丢弃全部待读内容，例如整句播放开始时
+     */
+    @MainThread
+    public void reset() {
+        pending.clear();
+        finishSpeaking();
+    }
+
+    /**
+     * 是否为本队列提交的语句
+     */
+    public static boolean isStreamUtterance(String utteranceId) {
+        return utteranceId != null && utteranceId.startsWith(UTTERANCE_PREFIX);
+    }
+
+    /**
+     * 语句结束（完成、出错或被打断）
+     */
+    @MainThread
+    public void onUtteranceFinished(String utteranceId) {
+        if (utteranceId.equals(speakingId)) {
+            finishSpeaking();
+            pump();
+        }
+    }
+
+    /**
+     * 引擎空闲时把排队的词语合并成一条语句提交
+     */
+    private void pump() {
+        if (speakingId != null || pending.isEmpty() || textToSpeech == null) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        Item item;
+        while ((item = pending.poll()) != null) {
+            text.append(item.text);
+            speakingTokens.add(item.tokenId);
+        }
+        String spoken = pipeline.normalize(text);
+        if (spoken.trim().isEmpty()) {
+            // 全部被读音词典略去或只有空白，没有要读的内容
+            speakingTokens.clear();
+            return;
+        }
+        String utteranceId = UTTERANCE_PREFIX + nextUtterance++;
+        if (BuildConfig.DEBUG && speakingTokens.size() > 1) {
+            Log.d(TAG, "合并 " + speakingTokens.size() + " 个词语: " + spoken);
+        }
+        int result = textToSpeech.speak(spoken, TextToSpeech.QUEUE_ADD, null, utteranceId);
+        if (result == TextToSpeech.SUCCESS) {
+            speakingId = utteranceId;
+            notifyState(true);
+        } else {
+            Log.w(TAG, "提交朗读失败: " + spoken);
+            speakingTokens.clear();
+        }
+    }
+
+    private void finishSpeaking() {
+        boolean wasBusy = speakingId != null;
+        speakingId = null;
+        speakingTokens.clear();
+        if (wasBusy && pending.isEmpty()) {
+            notifyState(false);
+        }
+    }
+
+    private void notifyState(boolean busy) {
+        if (stateListener != null) {
+            stateListener.onStreamingStateChanged(busy);
+        }
+    }
+}
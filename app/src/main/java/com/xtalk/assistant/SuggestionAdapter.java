@@ -0,0 +1,136 @@
+package com.xtalk.assistant;
+
+import android.text.TextUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.material.chip.Chip;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预测行的适配器：先是补全的整句，然后是预测的下一个词组
+ *
+ * 条目很少（不超过十几个），每次整体替换；词组以词组ID为稳定ID，位置变化时复用原有标签。
+ */
+public class SuggestionAdapter extends RecyclerView.Adapter<SuggestionAdapter.SuggestionViewHolder> {
+
+    private static final int VIEW_TYPE_SENTENCE = 0;
+    private static final int VIEW_TYPE_PHRASE = 1;
+
+    private final List<List<Phrase>> sentences = new ArrayList<>();
+    private final List<Phrase> phrases = new ArrayList<>();
+    private final PhrasePagerAdapter.PhraseClickListener phraseClickListener;
+    private final SentenceClickListener sentenceClickListener;
+
+    /**
+     * 补全整句的点击监听器
+     */
+    public interface SentenceClickListener {
+        void onSentenceClicked(List<Phrase> sentence);
+    }
+
+    public SuggestionAdapter(PhrasePagerAdapter.PhraseClickListener phraseClickListener,
+                             SentenceClickListener sentenceClickListener) {
+        this.phraseClickListener = phraseClickListener;
+        this.sentenceClickListener = sentenceClickListener;
+        setHasStableIds(true);
+    }
+
+    /**
+     * 替换补全的整句和预测的词组，内容相同时不刷新
+     */
+    public void setSuggestions(List<List<Phrase>> updatedSentences, List<Phrase> updatedPhrases) {
+        if (sameIds(updatedSentences, sentences) && sameIds(updatedPhrases, phrases)) {
+            return;
+        }
+        sentences.clear();
+        sentences.addAll(updatedSentences);
+        phrases.clear();
+        phrases.addAll(updatedPhrases);
+        notifyDataSetChanged();
+    }
+
+    private static boolean sameIds(List<?> updated, List<?> current) {
+        if (updated.size() != current.size()) {
+            return false;
+        }
+        for (int i = 0; i < updated.size(); i++) {
+            Object a = updated.get(i);
+            Object b = current.get(i);
+            if (a instanceof Phrase ? ((Phrase) a).getId() != ((Phrase) b).getId()
+                    : !sameIds((List<?>) a, (List<?>) b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return position < sentences.size() ? VIEW_TYPE_SENTENCE : VIEW_TYPE_PHRASE;
+    }
+
+    @NonNull
+    @Override
+    public SuggestionViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        int layout = viewType == VIEW_TYPE_SENTENCE ? R.layout.item_sentence_suggestion : R.layout.item_suggestion;
+        View view = LayoutInflater.from(parent.getContext()).inflate(layout, parent, false);
+        SuggestionViewHolder holder = new SuggestionViewHolder(view);
+        holder.chip.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) {
+                return;
+            }
+            if (position < sentences.size()) {
+                if (sentenceClickListener != null) {
+                    sentenceClickListener.onSentenceClicked(sentences.get(position));
+                }
+            } else if (phraseClickListener != null) {
+                phraseClickListener.onPhraseClicked(phrases.get(position - sentences.size()));
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull SuggestionViewHolder holder, int position) {
+        if (position < sentences.size()) {
+            List<String> contents = new ArrayList<>();
+            for (Phrase phrase : sentences.get(position)) {
+                contents.add(phrase.getContent());
+            }
+            holder.chip.setText(TextUtils.join(" ", contents));
+        } else {
+            holder.chip.setText(phrases.get(position - sentences.size()).getContent());
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return sentences.size() + phrases.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        // 词组ID为正数，整句使用负数，两者不会冲突
+        if (position < sentences.size()) {
+            return -1 - position;
+        }
+        return phrases.get(position - sentences.size()).getId();
+    }
+
+    static class SuggestionViewHolder extends RecyclerView.ViewHolder {
+        final Chip chip;
+
+        SuggestionViewHolder(@NonNull View itemView) {
+            super(itemView);
+            chip = itemView.findViewById(R.id.suggestion_chip);
+        }
+    }
+}
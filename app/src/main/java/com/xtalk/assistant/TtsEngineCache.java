@@ -0,0 +1,345 @@
+package com.xtalk.assistant;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.speech.tts.TextToSpeech;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TTS 引擎探测结果缓存
+ *
+ * 记录哪个引擎、哪种中文 Locale 可用，按 引擎包名 + 版本号 保存在 SharedPreferences 中；
+ * 再次启动时直接使用已知可用的引擎和 Locale，不再逐个探测。
+ * 引擎列表的查询在后台线程执行，只有在应用安装、卸载或更新时才重新查询。
+ */
+public class TtsEngineCache {
+
+    private static final String TAG = "TtsEngineCache";
+    private static final String PREFS_NAME = "tts_engine_cache";
+    // 上次可用的引擎包名
+    private static final String KEY_PREFERRED_ENGINE = "preferred_engine";
+    // 已探测到的引擎列表，逗号分隔
+    private static final String KEY_ENGINES = "engines";
+    // locale:<包名>:<版本号> → 可用的 Locale 标签，或 UNSUPPORTED
+    private static final String PREFIX_LOCALE = "locale:";
+    private static final String UNSUPPORTED = "unsupported";
+    // TTS 服务的 Intent Action
+    private static final String ACTION_TTS_SERVICE = "android.speech.tts.engine.TTS_SERVICE";
+
+    // 常见的 TTS 引擎包名，作为备选
+    private static final List<String> COMMON_ENGINES = Arrays.asList(
+            "com.google.android.tts", // Google TTS
+            "com.svox.pico", // Pico TTS（Android 内置）
+            "com.iflytek.speechcloud", // 讯飞 TTS
+            "com.baidu.duersdk.opensdk", // 百度 TTS
+            "com.oppo.tts", // OPPO TTS（一加手机使用）
+            "com.coloros.speech" // ColorOS TTS（一加手机使用）
+    );
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "tts-discovery"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private BroadcastReceiver packageReceiver;
+
+    /**
+     * 已知可用的引擎和 Locale
+     */
+    public static final class KnownEngine {
+        public final String packageName;
+        public final Locale locale;
+
+        KnownEngine(String packageName, Locale locale) {
+            this.packageName = packageName;
+            this.locale = locale;
+        }
+    }
+
+    /**
+     * 已知可用引擎的查询结果，在主线程回调，没有记录时为 null
+     */
+    public interface KnownEngineCallback {
+        void onKnownEngine(@Nullable KnownEngine engine);
+    }
+
+    /**
+     * 引擎列表查询结果，在主线程回调
+     */
+    public interface EnginesCallback {
+        void onEnginesAvailable(List<String> engines);
+    }
+
+    public TtsEngineCache(Context context) {
+        this.context = context.getApplicationContext();
+        // SharedPreferences 在后台加载，首次读取发生在 executor 线程
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * 查询上次可用的引擎；引擎已卸载、版本变化或未记录 Locale 时返回 null
+     */
+    public void loadKnownEngine(KnownEngineCallback callback) {
+        executor.execute(() -> {
+            KnownEngine known = null;
+            String engine = prefs.getString(KEY_PREFERRED_ENGINE, null);
+            if (engine != null) {
+                Locale locale = getKnownLocale(engine);
+                if (locale != null) {
+                    known = new KnownEngine(engine, locale);
+                }
+            }
+            KnownEngine result = known;
+            mainHandler.post(() -> callback.onKnownEngine(result));
+        });
+    }
+
+    /**
+     * 获取引擎当前版本已知可用的 Locale，未记录或已记录为不支持时返回 null
+     */
+    @WorkerThread
+    @Nullable
+    public Locale getKnownLocale(String engine) {
+        long version = getVersion(engine);
+        if (version < 0) {
+            return null;
+        }
+        String tag = prefs.getString(localeKey(engine, version), null);
+        if (tag == null || UNSUPPORTED.equals(tag)) {
+            return null;
+        }
+        return Locale.forLanguageTag(tag);
+    }
+
+    /**
+     * 记录引擎可用的 Locale，并作为下次启动的首选引擎
+     */
+    public void recordWorking(String engine, Locale locale) {
+        executor.execute(() -> {
+            long version = getVersion(engine);
+            if (version < 0) {
+                return;
+            }
+            prefs.edit()
+                    .putString(localeKey(engine, version), locale.toLanguageTag())
+                    .putString(KEY_PREFERRED_ENGINE, engine)
+                    .apply();
+            Log.d(TAG, "记录可用引擎: " + engine + " v" + version + " " + locale);
+        });
+    }
+
+    /**
+     * 记录引擎当前版本不支持中文，之后的引擎列表中不再包含它
+     */
+    public void recordUnsupported(String engine) {
+        executor.execute(() -> {
+            long version = getVersion(engine);
+            if (version < 0) {
+                return;
+            }
+            SharedPreferences.Editor editor = prefs.edit().putString(localeKey(engine, version), UNSUPPORTED);
+            if (engine.equals(prefs.getString(KEY_PREFERRED_ENGINE, null))) {
+                editor.remove(KEY_PREFERRED_ENGINE);
+            }
+            editor.apply();
+        });
+    }
+
+    /**
+     * 获取可尝试的引擎列表（排除已知不支持中文的引擎）
+     *
+     * 优先使用缓存的列表，没有缓存时在后台查询 PackageManager。
+     */
+    public void loadEngines(@Nullable TextToSpeech tts, EnginesCallback callback) {
+        executor.execute(() -> {
+            List<String> engines = cachedEngines();
+            if (engines == null) {
+                engines = discoverEngines(tts);
+                prefs.edit().putString(KEY_ENGINES, TextUtils.join(",", engines)).apply();
+            }
+            List<String> candidates = new ArrayList<>();
+            for (String engine : engines) {
+                long version = getVersion(engine);
+                if (version >= 0 && !UNSUPPORTED.equals(prefs.getString(localeKey(engine, version), null))) {
+                    candidates.add(engine);
+                }
+            }
+            Log.d(TAG, "可用 TTS 引擎: " + candidates);
+            mainHandler.post(() -> callback.onEnginesAvailable(candidates));
+        });
+    }
+
+    /**
+     * 监听应用安装、卸载和更新，相关记录失效后在后台重新查询引擎列表
+     */
+    public void registerPackageReceiver() {
+        if (packageReceiver != null) {
+            return;
+        }
+        packageReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                Uri data = intent.getData();
+                String packageName = data != null ? data.getSchemeSpecificPart() : null;
+                if (packageName != null) {
+                    executor.execute(() -> invalidate(packageName, intent.getAction()));
+                }
+            }
+        };
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+        context.registerReceiver(packageReceiver, filter);
+    }
+
+    public void unregisterPackageReceiver() {
+        if (packageReceiver != null) {
+            context.unregisterReceiver(packageReceiver);
+            packageReceiver = null;
+        }
+    }
+
+    /**
+     * 清除与变化的包相关的记录；新安装的包可能是引擎，因此引擎列表总是重新查询
+     */
+    @WorkerThread
+    private void invalidate(String packageName, String action) {
+        SharedPreferences.Editor editor = prefs.edit();
+        String prefix = PREFIX_LOCALE + packageName + ":";
+        for (String key : prefs.getAll().keySet()) {
+            if (key.startsWith(prefix)) {
+                editor.remove(key);
+            }
+        }
+        if (Intent.ACTION_PACKAGE_REMOVED.equals(action)
+                && packageName.equals(prefs.getString(KEY_PREFERRED_ENGINE, null))) {
+            editor.remove(KEY_PREFERRED_ENGINE);
+        }
+        List<String> engines = discoverEngines(null);
+        editor.putString(KEY_ENGINES, TextUtils.join(",", engines)).apply();
+        Log.d(TAG, "包变化 " + action + " " + packageName + "，重新查询引擎: " + engines);
+    }
+
+    @WorkerThread
+    @Nullable
+    private List<String> cachedEngines() {
+        String joined = prefs.getString(KEY_ENGINES, null);
+        if (joined == null) {
+            return null;
+        }
+        List<String> engines = new ArrayList<>();
+        for (String engine : TextUtils.split(joined, ",")) {
+            if (!engine.isEmpty()) {
+                engines.add(engine);
+            }
+        }
+        return engines;
+    }
+
+    /**
+     * 查询设备上的 TTS 引擎
+     */
+    @WorkerThread
+    private List<String> discoverEngines(@Nullable TextToSpeech tts) {
+        List<String> engines = new ArrayList<>();
+        PackageManager pm = context.getPackageManager();
+
+        try {
+            // 使用兼容旧版 Android 的标志
+            int flags = PackageManager.MATCH_DEFAULT_ONLY;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                flags = PackageManager.MATCH_ALL;
+            }
+
+            // 方法 1：查询 TTS_SERVICE Intent（获取 TTS 服务）
+            List<ResolveInfo> services = pm.queryIntentServices(new Intent(ACTION_TTS_SERVICE), flags);
+            for (ResolveInfo info : services) {
+                if (info.serviceInfo != null) {
+                    addEngine(engines, info.serviceInfo.packageName);
+                }
+            }
+
+            // 方法 2：查询 CHECK_TTS_DATA Intent（获取 TTS 活动）
+            Intent checkIntent = new Intent(TextToSpeech.Engine.ACTION_CHECK_TTS_DATA);
+            for (ResolveInfo info : pm.queryIntentActivities(checkIntent, flags)) {
+                if (info.activityInfo != null) {
+                    addEngine(engines, info.activityInfo.packageName);
+                }
+            }
+
+            // 方法 3：使用 TextToSpeech.getEngines()，需要一个 TTS 实例
+            if (tts != null) {
+                try {
+                    for (TextToSpeech.EngineInfo info : tts.getEngines()) {
+                        addEngine(engines, info.name);
+                    }
+                } catch (Exception e) {
+                    Log.e(TAG, "getEngines() 调用失败", e);
+                }
+            }
+
+            // 方法 4：常见的 TTS 引擎包名，确认已安装后加入
+            for (String engine : COMMON_ENGINES) {
+                if (!engines.contains(engine)) {
+                    Intent engineCheckIntent = new Intent(TextToSpeech.Engine.ACTION_CHECK_TTS_DATA);
+                    engineCheckIntent.setPackage(engine);
+                    if (!pm.queryIntentActivities(engineCheckIntent, flags).isEmpty()) {
+                        engines.add(engine);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "查询 TTS 引擎时发生异常", e);
+        }
+        return engines;
+    }
+
+    private static void addEngine(List<String> engines, String packageName) {
+        if (packageName != null && !engines.contains(packageName)) {
+            engines.add(packageName);
+        }
+    }
+
+    /**
+     * 获取已安装包的版本号，未安装时返回-1
+     */
+    @WorkerThread
+    private long getVersion(String packageName) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(packageName, 0);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                return info.getLongVersionCode();
+            }
+            return info.versionCode;
+        } catch (PackageManager.NameNotFoundException e) {
+            return -1;
+        }
+    }
+
+    private static String localeKey(String engine, long version) {
+        return PREFIX_LOCALE + engine + ":" + version;
+    }
+}
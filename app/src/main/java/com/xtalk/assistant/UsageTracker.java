@@ -0,0 +1,198 @@
+package com.xtalk.assistant;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 词组使用统计，进程内唯一
+ *
+ * 点击词组和播放整句时只在主线程的内存缓冲中累加，缓冲达到一定数量、
+ * 停顿几秒或界面退到后台时，在后台线程用一个事务批量写入数据库。
+ *
+ * 使用分数随时间衰减（半衰期 {@link #HALF_LIFE_MS}）。为了能直接累加，
+ * 数据库中保存的是折算到固定时间点 {@link #SCORE_EPOCH_MS} 的分数：
+ * 一次权重为 w 的使用记为 w·2^((t−EPOCH)/半衰期)。任意时刻各词组衰减后分数的大小关系
+ * 与保存的分数相同，因此排序不需要按当前时间重新计算。
+ * 折算后的分数随时间指数增长，double 足以覆盖起点之后约 39 年。
+ * 分数表在后台加载并随每批写入更新，排序时只读内存。
+ */
+public class UsageTracker {
+
+    private static final String TAG = "UsageTracker";
+    // 分数折算的时间起点：2024-01-01 00:00 UTC
+    static final long SCORE_EPOCH_MS = 1704067200000L;
+    // 使用分数的半衰期：14 天
+    static final long HALF_LIFE_MS = 14L * 24 * 60 * 60 * 1000;
+    // 点击一次的权重
+    static final double TAP_WEIGHT = 1.0;
+    // 词组随整句播放的权重，真正说出的词组比只点过的更重要
+    static final double SPOKEN_WEIGHT = 2.0;
+    // 缓冲中累计这么多次使用后立即写入
+    private static final int FLUSH_THRESHOLD = 32;
+    // 最后一次使用后延迟写入的时间
+    private static final long FLUSH_DELAY_MS = 5000;
+
+    private static UsageTracker instance;
+
+    private final DatabaseHelper dbHelper;
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "usage-io");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    // 待写入的增量：词组ID → 累计使用，只在主线程访问
+    private Map<Integer, PhraseUsage> pending = new HashMap<>();
+    private int pendingEvents = 0;
+    // 词组ID → 使用分数，整体替换，排序时在主线程读取
+    private volatile Map<Integer, Double> scores = Collections.emptyMap();
+
+    /**
+     * 获取进程内唯一的使用统计
+     */
+    public static synchronized UsageTracker getInstance(Context context) {
+        if (instance == null) {
+            instance = new UsageTracker(DatabaseHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    private UsageTracker(DatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    /**
+     * 加载分数表，阻塞到加载完成，供启动流程在后台调用
+     */
+    @WorkerThread
+    public void warmUp() {
+        try {
+            ioExecutor.submit(() -> {
+                long start = SystemClock.elapsedRealtime();
+                scores = dbHelper.getUsageScores();
+                Log.d(TAG, "使用分数加载完成，" + scores.size() + " 条，耗时 "
+                        + (SystemClock.elapsedRealtime() - start) + "ms");
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("使用分数加载失败", e.getCause());
+        }
+    }
+
+    /**
+     * 记录一次词组点击
+     */
+    @MainThread
+    public void recordTap(int phraseId) {
+        record(phraseId, false, TAP_WEIGHT);
+        scheduleFlush();
+    }
+
+    /**
+     * 记录一次整句播放，句中来自词组的每个词语都计一次
+     */
+    @MainThread
+    public void recordSentence(List<SentenceToken> tokens) {
+        for (SentenceToken token : tokens) {
+            if (token.getPhraseId() != SentenceToken.NO_PHRASE) {
+                record(token.getPhraseId(), true, SPOKEN_WEIGHT);
+            }
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * 立即在后台写入缓冲中的全部使用记录，例如界面退到后台时
+     */
+    @MainThread
+    public void flush() {
+        mainHandler.removeCallbacks(flushRunnable);
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Integer, PhraseUsage> batch = pending;
+        pending = new HashMap<>();
+        pendingEvents = 0;
+        ioExecutor.execute(() -> {
+            try {
+                dbHelper.applyUsage(batch.values());
+            } catch (Exception e) {
+                Log.e(TAG, "写入使用记录失败", e);
+                return;
+            }
+            // 复制后整体替换，读取方不需要加锁
+            Map<Integer, Double> updated = new HashMap<>(scores);
+            for (PhraseUsage delta : batch.values()) {
+                Double current = updated.get(delta.getPhraseId());
+                updated.put(delta.getPhraseId(), (current != null ? current : 0) + delta.getScore());
+            }
+            scores = updated;
+        });
+    }
+
+    /**
+     * 按使用分数从高到低排列词组，分数相同（包括从未使用）时保持原有顺序
+     */
+    public List<Phrase> rank(List<Phrase> phrases) {
+        Map<Integer, Double> current = scores;
+        List<Phrase> ranked = new ArrayList<>(phrases);
+        if (current.isEmpty()) {
+            return ranked;
+        }
+        // Collections.sort 是稳定排序
+        Collections.sort(ranked, (a, b) -> Double.compare(scoreOf(current, b), scoreOf(current, a)));
+        return ranked;
+    }
+
+    private static double scoreOf(Map<Integer, Double> scores, Phrase phrase) {
+        Double score = scores.get(phrase.getId());
+        return score != null ? score : 0;
+    }
+
+    /**
+     * 把一次权重为 weight 的使用折算到分数起点，结果可以直接累加
+     */
+    static double decayedWeight(double weight, long time) {
+        return weight * Math.pow(2, (double) (time - SCORE_EPOCH_MS) / HALF_LIFE_MS);
+    }
+
+    /**
+     * 把一次使用折算到分数起点后累加到缓冲
+     */
+    private void record(int phraseId, boolean spoken, double weight) {
+        long now = System.currentTimeMillis();
+        PhraseUsage usage = pending.get(phraseId);
+        if (usage == null) {
+            usage = new PhraseUsage(phraseId);
+            pending.put(phraseId, usage);
+        }
+        usage.add(spoken, decayedWeight(weight, now), now);
+        pendingEvents++;
+    }
+
+    private void scheduleFlush() {
+        if (pendingEvents >= FLUSH_THRESHOLD) {
+            flush();
+        } else if (pendingEvents > 0) {
+            mainHandler.removeCallbacks(flushRunnable);
+            mainHandler.postDelayed(flushRunnable, FLUSH_DELAY_MS);
+        }
+    }
+}
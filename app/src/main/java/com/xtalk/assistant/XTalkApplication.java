@@ -0,0 +1,83 @@
+package com.xtalk.assistant;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Build;
+import android.os.Process;
+import android.os.StrictMode;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * 应用入口，启动时并行初始化数据库、词组缓存和语音引擎
+ *
+ * 启动步骤及依赖：
+ * favorites（后台）：读取常用板文件，不依赖数据库，最先完成
+ * database（后台）→ phrases（后台）
+ * tts-bind（主线程）→ tts-ready（引擎回调）
+ * database（后台）→ usage（后台）：加载词组使用分数
+ * prediction-model（后台）+ phrases → prediction：可以显示预测的词组
+ * phrases + tts-ready → speakable：第一句话可以播放，记录距进程启动的耗时
+ * speakable → sentences（后台）：加载整句补全的前缀树，不占用启动的关键路径
+ * speakable → pinyin（后台）：加载拼音搜索索引并与词组表对账，首次运行时建立索引
+ */
+public class XTalkApplication extends Application {
+
+    private static final String TAG = "XTalkApplication";
+
+    // 启动步骤名称
+    static final String STEP_FAVORITES = "favorites";
+    static final String STEP_DATABASE = "database";
+    static final String STEP_PHRASES = "phrases";
+    static final String STEP_USAGE = "usage";
+    static final String STEP_PREDICTION_MODEL = "prediction-model";
+    static final String STEP_PREDICTION = "prediction";
+    static final String STEP_TTS_BIND = "tts-bind";
+    static final String STEP_TTS_READY = "tts-ready";
+    static final String STEP_SPEAKABLE = "speakable";
+    static final String STEP_SENTENCES = "sentences";
+    static final String STEP_PINYIN = "pinyin";
+
+    private StartupPipeline startupPipeline;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // 调试版本检测主线程磁盘读写，启动和词组相关流程应当没有违规日志
+        if (BuildConfig.DEBUG) {
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyLog()
+                    .build());
+        }
+
+        // 从进程启动开始计时，API 24 以下从这里开始
+        long startTime = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                ? Process.getStartElapsedRealtime() : SystemClock.elapsedRealtime();
+        SpeechEngine speechEngine = SpeechEngine.getInstance(this);
+        startupPipeline = new StartupPipeline(startTime)
+                .inBackground(STEP_FAVORITES, () -> FavoritesStore.getInstance(this).warmUp())
+                .inBackground(STEP_DATABASE, () -> DatabaseHelper.getInstance(this).getWritableDatabase())
+                .inBackground(STEP_PHRASES, () -> PhraseRepository.getInstance(this).warmUp(), STEP_DATABASE)
+                .inBackground(STEP_USAGE, () -> UsageTracker.getInstance(this).warmUp(), STEP_DATABASE)
+                .inBackground(STEP_PREDICTION_MODEL, () -> PhrasePredictor.getInstance(this).warmUp())
+                .milestone(STEP_PREDICTION, STEP_PREDICTION_MODEL, STEP_PHRASES)
+                .onMainThread(STEP_TTS_BIND, speechEngine::initialize)
+                .onSignal(STEP_TTS_READY, STEP_TTS_BIND)
+                .milestone(STEP_SPEAKABLE, STEP_PHRASES, STEP_TTS_READY)
+                .inBackground(STEP_SENTENCES, () -> SentenceCompleter.getInstance(this).warmUp(), STEP_SPEAKABLE)
+                .inBackground(STEP_PINYIN, () -> PinyinIndex.getInstance(this).warmUp(), STEP_SPEAKABLE);
+        speechEngine.setReadyCallback(() -> startupPipeline.signal(STEP_TTS_READY));
+        startupPipeline.whenDone(STEP_SPEAKABLE, () -> Log.i(TAG, "启动到可播放第一句话耗时 "
+                + startupPipeline.elapsedAt(STEP_SPEAKABLE) + "ms"));
+        startupPipeline.start();
+    }
+
+    /**
+     * 获取应用的启动流程
+     */
+    public static StartupPipeline getStartupPipeline(Context context) {
+        return ((XTalkApplication) context.getApplicationContext()).startupPipeline;
+    }
+}
@@ -0,0 +1,124 @@
+package com.xtalk.assistant.benchmark;
+
+import com.xtalk.assistant.NGramModel;
+import com.xtalk.assistant.Phrase;
+import com.xtalk.assistant.PinyinTable;
+import com.xtalk.assistant.SentenceTrie;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试用的合成数据，固定随机种子，每次运行相同
+ *
+ * 规模分两档：接近真实使用的 {@link #REALISTIC_PHRASES} 个词组、{@link #REALISTIC_SENTENCES} 个说过的句子，
+ * 以及 100 倍的规模。词组长度和分类数参照预置词组（tools/default_phrases.tsv），
+ * 词组在句子中的出现频率按齐普夫分布，少数常用词组占大多数。
+ */
+final class BenchmarkData {
+
+    // 预置词组约 150 个，使用一段时间后约 500 个
+    static final int REALISTIC_PHRASES = 500;
+    static final int REALISTIC_SENTENCES = 1000;
+    static final int CATEGORY_COUNT = 8;
+
+    // 常用汉字，生成的词组都能在拼音表中找到读音
+    private static final String CHARACTERS =
+            "我你他她们的是不了在有人这中大为上个国和地到以说时要就出会可也子对生能而那得于着下自之年过发后"
+            + "作里用道行所然家种事成方多经么去法学如都同现当没动面起看定天分还进好小部其些主样理心本前开但因只"
+            + "从想实日军者意无力它与长把机十民第公此已工使情明性知全三又关点正业外将两高间由问很最重并物手应战向"
+            + "头文体政美相见被利什二等产或新己制身果加西斯月话合回特代内信表化老给世位次度门任常先海通教儿原东声"
+            + "提立及比员解水名真论处走义各入几口认条平系气题活尔更别打女变四神总何电数安少报才结反受目太量再感建"
+            + "吃饭喝茶药疼痛冷热饿渴累困睡觉厕所医生护士帮助谢谢请妈爸哥姐弟妹朋友早晚今明昨穿衣服鞋袜洗澡刷牙";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 生成词组，ID从1开始，按分类轮流分配
+     */
+    static List<Phrase> phrases(int count) {
+        Random random = new Random(42);
+        List<Phrase> phrases = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            phrases.add(new Phrase(i + 1, "category" + (i % CATEGORY_COUNT), randomText(random)));
+        }
+        return phrases;
+    }
+
+    /**
+     * 生成说过的句子（词组ID序列），每句 2～8 个词组
+     */
+    static int[][] sentences(int count, int phraseCount) {
+        Random random = new Random(7);
+        int[][] sentences = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int[] ids = new int[2 + random.nextInt(7)];
+            for (int t = 0; t < ids.length; t++) {
+                ids[t] = zipf(random, phraseCount);
+            }
+            sentences[i] = ids;
+        }
+        return sentences;
+    }
+
+    /**
+     * 用说过的句子训练的预测模型
+     */
+    static NGramModel model(int[][] sentences) {
+        NGramModel model = new NGramModel();
+        for (int[] sentence : sentences) {
+            model.train(sentence, sentence.length);
+        }
+        return model;
+    }
+
+    /**
+     * 用说过的句子建立的整句补全树，越靠后的句子越新
+     */
+    static SentenceTrie trie(int[][] sentences) {
+        SentenceTrie trie = new SentenceTrie();
+        for (int i = 0; i < sentences.length; i++) {
+            trie.insert(sentences[i], sentences[i].length, 1.0, i);
+        }
+        return trie;
+    }
+
+    /**
+     * 读取应用中的拼音表，路径由 build.gradle 以系统属性 xtalk.pinyinTable 传入
+     */
+    static PinyinTable pinyinTable() throws IOException {
+        String path = System.getProperty("xtalk.pinyinTable");
+        if (path == null) {
+            throw new IOException("缺少系统属性 xtalk.pinyinTable");
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            return PinyinTable.readFrom(in);
+        }
+    }
+
+    /**
+     * 1～4 个字的词组内容
+     */
+    static String randomText(Random random) {
+        int length = 1 + random.nextInt(4);
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+        }
+        return text.toString();
+    }
+
+    /**
+     * 近似齐普夫分布的词组ID（1..n），小ID出现得多
+     */
+    static int zipf(Random random, int n) {
+        double u = random.nextDouble();
+        return 1 + (int) Math.min(n - 1, Math.floor(Math.pow(n + 1, u) - 1));
+    }
+}
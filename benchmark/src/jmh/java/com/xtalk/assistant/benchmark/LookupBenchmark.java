@@ -0,0 +1,112 @@
+package com.xtalk.assistant.benchmark;
+
+import com.xtalk.assistant.NGramModel;
+import com.xtalk.assistant.Phrase;
+import com.xtalk.assistant.PhraseSnapshot;
+import com.xtalk.assistant.PinyinTable;
+import com.xtalk.assistant.PinyinTrie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 主线程上的查找延迟：分类词组列表、按ID查找词组、拼音搜索、下一个词组预测
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LookupBenchmark {
+
+    private static final int QUERY_COUNT = 256;
+    // 与 PhraseSearcher.RESULT_LIMIT 相同
+    private static final int RESULT_LIMIT = 60;
+
+    // 1：接近真实使用；100：100 倍的词组和说过的句子
+    @Param({"1", "100"})
+    public int scale;
+
+    private PhraseSnapshot snapshot;
+    private PinyinTrie pinyinTrie;
+    private NGramModel model;
+    private int phraseCount;
+    private String[] categories;
+    private String[] pinyinQueries;
+    private int[] ids;
+    // 预测的上下文取自说过的句子中相邻的两个词组
+    private int[][] contexts;
+    private final int[] out = new int[RESULT_LIMIT];
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        phraseCount = BenchmarkData.REALISTIC_PHRASES * scale;
+        List<Phrase> phrases = BenchmarkData.phrases(phraseCount);
+        snapshot = PhraseSnapshot.of(phrases);
+        int[][] sentences = BenchmarkData.sentences(BenchmarkData.REALISTIC_SENTENCES * scale, phraseCount);
+        model = BenchmarkData.model(sentences);
+
+        PinyinTable table = BenchmarkData.pinyinTable();
+        pinyinTrie = new PinyinTrie();
+        List<String> keys = new ArrayList<>();
+        for (Phrase phrase : phrases) {
+            Set<String> phraseKeys = PinyinTrie.keysOf(phrase.getContent(), table);
+            pinyinTrie.put(phrase.getId(), phraseKeys);
+            if (keys.size() < QUERY_COUNT * 4) {
+                keys.addAll(phraseKeys);
+            }
+        }
+
+        // 查询取自真实的键的前缀：1～4 个字母，模拟边输入边搜索
+        Random random = new Random(11);
+        pinyinQueries = new String[QUERY_COUNT];
+        ids = new int[QUERY_COUNT];
+        categories = new String[QUERY_COUNT];
+        contexts = new int[QUERY_COUNT][];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            String key = keys.get(random.nextInt(keys.size()));
+            pinyinQueries[i] = key.substring(0, Math.min(key.length(), 1 + random.nextInt(4)));
+            ids[i] = 1 + random.nextInt(phraseCount);
+            categories[i] = "category" + random.nextInt(BenchmarkData.CATEGORY_COUNT);
+            int[] sentence = sentences[random.nextInt(sentences.length)];
+            int position = random.nextInt(sentence.length - 1);
+            contexts[i] = new int[]{sentence[position], sentence[position + 1]};
+        }
+    }
+
+    @Benchmark
+    public List<Phrase> categoryPhrases() {
+        next = (next + 1) % QUERY_COUNT;
+        return snapshot.get(categories[next]);
+    }
+
+    @Benchmark
+    public Phrase findPhrase() {
+        next = (next + 1) % QUERY_COUNT;
+        return snapshot.find(ids[next]);
+    }
+
+    @Benchmark
+    public int pinyinSearch() {
+        next = (next + 1) % QUERY_COUNT;
+        return pinyinTrie.search(pinyinQueries[next], out);
+    }
+
+    @Benchmark
+    public int predictNext() {
+        next = (next + 1) % QUERY_COUNT;
+        return model.predict(contexts[next][0], contexts[next][1], out);
+    }
+}
@@ -0,0 +1,124 @@
+package com.xtalk.assistant.benchmark;
+
+import com.xtalk.assistant.Sentence;
+import com.xtalk.assistant.SpeechPipeline;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 播放前整理句子文本的吞吐量
+ *
+ * 输入与 MainActivity.speakSentence 相同：句子中的词组内容可能带有空格、数字和标点。
+ * 开始测量前先核对 speech_golden.tsv（与 :core 的 SpeechPipelineGoldenTest 共用）中的期望输出，
+ * 整理结果不对时测量没有意义。
+ * {@link #legacyRegex()} 是改为规则流程之前的做法（每次播放编译一次正则），留作对照。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NormalizationBenchmark {
+
+    private static final int SENTENCE_COUNT = 256;
+
+    // 每句的词语数
+    @Param({"4", "16"})
+    public int words;
+
+    private Sentence[] sentences;
+    private String[] texts;
+    private SpeechPipeline pipeline;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        checkGolden();
+        pipeline = SpeechPipeline.forLanguage("zh");
+        Random random = new Random(3);
+        sentences = new Sentence[SENTENCE_COUNT];
+        texts = new String[SENTENCE_COUNT];
+        for (int i = 0; i < SENTENCE_COUNT; i++) {
+            Sentence sentence = new Sentence();
+            for (int w = 0; w < words; w++) {
+                String text = BenchmarkData.randomText(random);
+                // 部分手动输入的词语带空格、数字或标点
+                switch (random.nextInt(8)) {
+                    case 0:
+                        text = text + " " + BenchmarkData.randomText(random);
+                        break;
+                    case 1:
+                        text = text + random.nextInt(100);
+                        break;
+                    case 2:
+                        text = text + "，";
+                        break;
+                    default:
+                        break;
+                }
+                sentence.append(w + 1, text);
+            }
+            sentences[i] = sentence;
+            texts[i] = sentence.speechText().trim();
+        }
+    }
+
+    @Benchmark
+    public String normalize() {
+        Sentence sentence = sentences[next];
+        next = (next + 1) % SENTENCE_COUNT;
+        return pipeline.normalize(sentence);
+    }
+
+    @Benchmark
+    public String legacyRegex() {
+        String text = texts[next];
+        next = (next + 1) % SENTENCE_COUNT;
+        String optimized = text.replaceAll("\\s+", "");
+        if (!optimized.isEmpty()) {
+            char lastChar = optimized.charAt(optimized.length() - 1);
+            if (lastChar != '。' && lastChar != '！' && lastChar != '？') {
+                optimized += "。";
+            }
+        }
+        return optimized;
+    }
+
+    /**
+     * 逐条核对期望输出：语言、输入、期望输出，以 Tab 分隔
+     */
+    private static void checkGolden() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                NormalizationBenchmark.class.getResourceAsStream("/speech_golden.tsv"), StandardCharsets.UTF_8))) {
+            String line;
+            int count = 0;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                String actual = SpeechPipeline.forLanguage(fields[0]).normalize(fields[1]);
+                if (!actual.equals(fields[2])) {
+                    throw new IllegalStateException("整理结果不符：[" + fields[1] + "] 得到 [" + actual
+                            + "]，期望 [" + fields[2] + "]");
+                }
+                count++;
+            }
+            if (count == 0) {
+                throw new IllegalStateException("没有读到 speech_golden.tsv");
+            }
+        }
+    }
+}
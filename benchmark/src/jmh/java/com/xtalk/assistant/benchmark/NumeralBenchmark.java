@@ -0,0 +1,54 @@
+package com.xtalk.assistant.benchmark;
+
+import com.xtalk.assistant.SpeechPipeline;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数字较多的句子的整理吞吐量
+ *
+ * 读法的正确性由 :core 的 ChineseNumeralsTest（往返核对）和 speech_golden.tsv 保证。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NumeralBenchmark {
+
+    private static final int SENTENCE_COUNT = 256;
+    // 与其他分类中的数字词语拼成的常见句子
+    private static final String[] TEMPLATES = {
+            "%d块%d", "%d点%d分吃药", "给我%d个", "体温%d.%d度", "第%d天", "电话13%d", "%d年%d月%d日",
+            "打%d", "还剩%d%%", "%d万%d千",
+    };
+
+    private SpeechPipeline pipeline;
+    private String[] texts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        pipeline = SpeechPipeline.forLanguage("zh");
+        Random random = new Random(7);
+        texts = new String[SENTENCE_COUNT];
+        for (int i = 0; i < SENTENCE_COUNT; i++) {
+            String template = TEMPLATES[random.nextInt(TEMPLATES.length)];
+            texts[i] = String.format(template, random.nextInt(2030), random.nextInt(60), random.nextInt(31));
+        }
+    }
+
+    @Benchmark
+    public String normalize() {
+        String text = texts[next];
+        next = (next + 1) % SENTENCE_COUNT;
+        return pipeline.normalize(text);
+    }
+}
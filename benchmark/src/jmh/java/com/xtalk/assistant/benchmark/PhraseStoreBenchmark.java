@@ -0,0 +1,193 @@
+package com.xtalk.assistant.benchmark;
+
+import com.xtalk.assistant.Phrase;
+import com.xtalk.assistant.PhraseSearchText;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 词组表的全文检索和词组包导入，用 sqlite-jdbc 在 JVM 上测量
+ *
+ * 表结构、触发器和语句与 DatabaseHelper 相同，修改那边时同步修改这里。
+ * JVM 上的 SQLite 与设备上的版本和存储不同，绝对数值只能作参考，主要用于比较版本之间的变化。
+ */
+public class PhraseStoreBenchmark {
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE phrase(id INTEGER PRIMARY KEY AUTOINCREMENT, category TEXT, content TEXT, search_text TEXT)",
+            "CREATE INDEX idx_phrase_category_content ON phrase(category, content)",
+            "CREATE INDEX idx_phrase_content ON phrase(content)",
+            "CREATE VIRTUAL TABLE phrase_fts USING fts4(content=\"phrase\", search_text)",
+            "CREATE TRIGGER phrase_fts_bu BEFORE UPDATE ON phrase BEGIN DELETE FROM phrase_fts WHERE docid = old.id; END",
+            "CREATE TRIGGER phrase_fts_bd BEFORE DELETE ON phrase BEGIN DELETE FROM phrase_fts WHERE docid = old.id; END",
+            "CREATE TRIGGER phrase_fts_au AFTER UPDATE ON phrase BEGIN INSERT INTO phrase_fts(docid, search_text)"
+                    + " VALUES (new.id, new.search_text); END",
+            "CREATE TRIGGER phrase_fts_ai AFTER INSERT ON phrase BEGIN INSERT INTO phrase_fts(docid, search_text)"
+                    + " VALUES (new.id, new.search_text); END",
+    };
+    // DatabaseHelper.INSERT_MISSING_PHRASE
+    private static final String INSERT_MISSING_PHRASE = "INSERT INTO phrase(category, content, search_text)"
+            + " SELECT ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM phrase WHERE category = ? AND content = ?)";
+    // DatabaseHelper.searchPhrases
+    private static final String SEARCH = "SELECT p.id, p.category, p.content FROM phrase_fts"
+            + " JOIN phrase p ON p.id = phrase_fts.docid WHERE phrase_fts MATCH ?"
+            + " ORDER BY CASE WHEN p.content = ? THEN 0 WHEN substr(p.content, 1, ?) = ? THEN 1 ELSE 2 END,"
+            + " length(p.content), p.id LIMIT ?";
+    // 与 PhraseSearcher.RESULT_LIMIT 相同
+    private static final int RESULT_LIMIT = 60;
+    private static final int QUERY_COUNT = 256;
+
+    /**
+     * 已有词组的数据库，供检索使用
+     */
+    @State(Scope.Thread)
+    public static class SearchState {
+        // 接近真实使用、100 倍
+        @Param({"500", "50000"})
+        public int phrases;
+
+        Connection connection;
+        PreparedStatement search;
+        String[] queries;
+        int next;
+        File file;
+
+        @Setup
+        public void setUp() throws IOException, SQLException {
+            file = File.createTempFile("phrase-search", ".db");
+            connection = open(file);
+            load(connection, BenchmarkData.phrases(phrases));
+            search = connection.prepareStatement(SEARCH);
+            // 查询取自词组内容的前 1～2 个字
+            List<Phrase> source = BenchmarkData.phrases(Math.min(phrases, 1000));
+            Random random = new Random(5);
+            queries = new String[QUERY_COUNT];
+            for (int i = 0; i < QUERY_COUNT; i++) {
+                String content = source.get(random.nextInt(source.size())).getContent();
+                queries[i] = content.substring(0, Math.min(content.length(), 1 + random.nextInt(2)));
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws SQLException {
+            search.close();
+            connection.close();
+            file.delete();
+        }
+    }
+
+    /**
+     * 每次导入前重建的空数据库
+     */
+    @State(Scope.Thread)
+    public static class ImportState {
+        @Param({"20000"})
+        public int phrases;
+
+        List<Phrase> pack;
+        Connection connection;
+        File file;
+
+        @Setup(Level.Trial)
+        public void createPack() {
+            pack = BenchmarkData.phrases(phrases);
+        }
+
+        @Setup(Level.Invocation)
+        public void setUp() throws IOException, SQLException {
+            file = File.createTempFile("phrase-import", ".db");
+            connection = open(file);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws SQLException {
+            connection.close();
+            file.delete();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int search(SearchState state) throws SQLException {
+        String text = state.queries[state.next];
+        state.next = (state.next + 1) % QUERY_COUNT;
+        PreparedStatement search = state.search;
+        search.setString(1, PhraseSearchText.toMatchQuery(text));
+        search.setString(2, text);
+        search.setInt(3, text.length());
+        search.setString(4, text);
+        search.setInt(5, RESULT_LIMIT);
+        int count = 0;
+        try (ResultSet rows = search.executeQuery()) {
+            while (rows.next()) {
+                count += rows.getInt(1);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 与 DatabaseHelper.importPhrases 相同：一个事务、预编译的 INSERT ... WHERE NOT EXISTS
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int importPack(ImportState state) throws SQLException {
+        return load(state.connection, state.pack);
+    }
+
+    private static Connection open(File file) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+        }
+        return connection;
+    }
+
+    private static int load(Connection connection, List<Phrase> phrases) throws SQLException {
+        connection.setAutoCommit(false);
+        int inserted = 0;
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_MISSING_PHRASE)) {
+            for (Phrase phrase : phrases) {
+                insert.setString(1, phrase.getCategory());
+                insert.setString(2, phrase.getContent());
+                insert.setString(3, PhraseSearchText.of(phrase.getContent()));
+                insert.setString(4, phrase.getCategory());
+                insert.setString(5, phrase.getContent());
+                inserted += insert.executeUpdate();
+            }
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        return inserted;
+    }
+}
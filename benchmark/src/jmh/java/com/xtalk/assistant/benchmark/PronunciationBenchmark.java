@@ -0,0 +1,94 @@
+package com.xtalk.assistant.benchmark;
+
+import com.xtalk.assistant.PronunciationDictionary;
+import com.xtalk.assistant.SpeechPipeline;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读音词典：带词典整理句子的耗时、编辑词条后重新构建自动机的耗时
+ *
+ * 每个字的查找次数与词条数无关，但词条越多，随机句子里命中越多，转移表也越大，耗时会随之略有增加。
+ * 替换结果的正确性由 :core 的 PronunciationDictionaryTest 保证。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+public class PronunciationBenchmark {
+
+    private static final int SENTENCE_COUNT = 256;
+    private static final int WORDS = 16;
+    private static final int MAX_KEY_LENGTH = 4;
+
+    // 无词典、常见规模、很大的词典
+    @Param({"0", "1000", "10000"})
+    public int entries;
+
+    private Map<String, String> map;
+    private SpeechPipeline pipeline;
+    private String[] texts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(17);
+        map = new HashMap<>();
+        while (map.size() < entries) {
+            String key = randomKey(random);
+            map.put(key, "<" + key.length() + map.size() + ">");
+        }
+        PronunciationDictionary dictionary = PronunciationDictionary.of(map);
+        pipeline = SpeechPipeline.forLanguage("zh").withDictionary(dictionary);
+        texts = new String[SENTENCE_COUNT];
+        for (int i = 0; i < SENTENCE_COUNT; i++) {
+            texts[i] = randomSentence(random);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String normalize() {
+        String text = texts[next];
+        next = (next + 1) % SENTENCE_COUNT;
+        return pipeline.normalize(text);
+    }
+
+    /**
+     * 编辑一条词条后在后台重新构建的代价
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public PronunciationDictionary rebuild() {
+        return PronunciationDictionary.of(map);
+    }
+
+    /**
+     * 2～4 个字的词条，与多音字词语的长度相当
+     */
+    private static String randomKey(Random random) {
+        String key;
+        do {
+            key = BenchmarkData.randomText(random);
+        } while (key.length() < 2);
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    private static String randomSentence(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < WORDS; w++) {
+            text.append(BenchmarkData.randomText(random));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package com.xtalk.assistant.benchmark;
+
+import com.xtalk.assistant.NGramModel;
+import com.xtalk.assistant.Phrase;
+import com.xtalk.assistant.PhraseSnapshot;
+import com.xtalk.assistant.Sentence;
+import com.xtalk.assistant.SentenceToken;
+import com.xtalk.assistant.SentenceTrie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 点击一个词组后主线程上的全部工作
+ *
+ * 与 MainActivity 的 addPhraseToSentence + updateSuggestions 相同：追加词语、刷新显示文本、
+ * 以整句为前缀补全、按最后两个词语预测下一个词组，再把结果ID解析为词组。
+ * 每次操作后移除追加的词语，句子长度保持为 {@link #length}。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SentenceBenchmark {
+
+    private static final int SUGGESTION_COUNT = 6;
+    private static final int COMPLETION_COUNT = 3;
+
+    // 1：接近真实使用；100：100 倍的词组和说过的句子
+    @Param({"1", "100"})
+    public int scale;
+
+    // 点击前句子中已有的词语数
+    @Param({"0", "3", "8"})
+    public int length;
+
+    private PhraseSnapshot snapshot;
+    private NGramModel model;
+    private SentenceTrie trie;
+    private Sentence sentence;
+    private List<Phrase> phrases;
+    private final int[] predicted = new int[SUGGESTION_COUNT];
+    private final int[][] completions = new int[COMPLETION_COUNT][];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        int phraseCount = BenchmarkData.REALISTIC_PHRASES * scale;
+        phrases = BenchmarkData.phrases(phraseCount);
+        snapshot = PhraseSnapshot.of(phrases);
+        int[][] sentences = BenchmarkData.sentences(BenchmarkData.REALISTIC_SENTENCES * scale, phraseCount);
+        model = BenchmarkData.model(sentences);
+        trie = BenchmarkData.trie(sentences);
+        // 以一个说过的句子开头，补全能命中
+        sentence = new Sentence();
+        int[] spoken = sentences[sentences.length - 1];
+        for (int i = 0; i < length; i++) {
+            Phrase phrase = snapshot.find(spoken[i % spoken.length]);
+            sentence.append(phrase.getId(), phrase.getContent());
+        }
+    }
+
+    @Benchmark
+    public void tap(Blackhole blackhole) {
+        Phrase phrase = phrases.get(next);
+        next = (next + 1) % 64;
+        sentence.append(phrase.getId(), phrase.getContent());
+        blackhole.consume(sentence.displayText());
+
+        int size = sentence.size();
+        int[] prefix = new int[size];
+        for (int i = 0; i < size; i++) {
+            prefix[i] = sentence.get(i).getPhraseId();
+        }
+        int completed = trie.complete(prefix, size, completions);
+        for (int i = 0; i < completed; i++) {
+            for (int id : completions[i]) {
+                blackhole.consume(snapshot.find(id));
+            }
+        }
+        int previous1 = contextId(sentence.get(size - 1));
+        int previous2 = size >= 2 ? contextId(sentence.get(size - 2)) : NGramModel.START;
+        int count = model.predict(previous2, previous1, predicted);
+        for (int i = 0; i < count; i++) {
+            blackhole.consume(snapshot.find(predicted[i]));
+        }
+
+        sentence.removeLast();
+    }
+
+    private static int contextId(SentenceToken token) {
+        int id = token.getPhraseId();
+        return id > 0 ? id : NGramModel.START;
+    }
+}
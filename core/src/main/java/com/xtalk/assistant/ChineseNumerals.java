@@ -0,0 +1,416 @@
+package com.xtalk.assistant;
+
+/**
+ * 阿拉伯数字的中文读法，作为朗读文本整理流程中的一条规则（见 {@link SpeechRules#chineseNumerals()}）
+ *
+ * 句子中的数字多由“其他”分类里的 1～0、十、百、千、万、点、块 等词语拼成，如“3块5”“3点20”“1万2千”。
+ * 规则从一个数字开始向后扫描，把相邻的数字串和其间的连接字（点、块、小数点、冒号、十百千万亿等）
+ * 作为一个整体，按上下文决定每个数字串的读法：
+ * <ul>
+ *   <li>数值：38 → 三十八，205 → 两百零五，10万 → 十万，2个 → 两个，第2 → 第二，2,000 → 两千</li>
+ *   <li>小数点之后逐位读：3.05 → 三点零五；整数部分不读“两”：2.5元 → 二点五元</li>
+ *   <li>“点”和冒号之后按钟点读：3点20 → 三点二十，10:05 → 十点零五；冒号只在一个数字串之后、
+ *       时不超过 24、分为两位且不超过 59 时算作钟点，否则原样保留（1:05:30、25:99）</li>
+ *   <li>亿、万之后空位读“零”：1亿2万 → 一亿零二万</li>
+ *   <li>电话号码逐位读，1 读作“幺”：7 位以上、以 0 开头、急救电话 110/119/120 等</li>
+ *   <li>年份逐位读：2024年 → 二零二四年；百分数：50% → 百分之五十，3.14% → 百分之三点一四</li>
+ * </ul>
+ * 分开输入的数字（“1 0 0”）合为一个数字串，数字串之间的空白一并消耗。
+ * 只用查表和逐字符比较，不使用正则表达式，不回溯。
+ */
+final class ChineseNumerals implements SpeechRule {
+
+    static final String DIGITS = "零一二三四五六七八九";
+    // 按数值读的最多位数（千亿）
+    static final int MAX_CARDINAL_DIGITS = 12;
+    private static final char[] DIGIT_CHARS = DIGITS.toCharArray();
+    // appendPlace 的状态位
+    private static final int PLACE_STARTED = 1;
+    private static final int PLACE_ZERO = 2;
+    // 数字串的性质（位）：前两位之后全是 0；带千位分隔符；后面接小数点；后面接钟点的冒号
+    private static final int RUN_ROUND = 1;
+    private static final int RUN_GROUPED = 2;
+    private static final int RUN_DECIMAL = 4;
+    private static final int RUN_CLOCK = 8;
+    // 节：个、万、亿
+    private static final char[] SECTION_UNITS = {0, '万', '亿'};
+    private static final long[] POW10000 = {1L, 10000L, 100000000L};
+    // 字符类别（位）：两个数字串之间的连接字；数字之后表示数量的字（倍数字、量词）
+    private static final byte CONNECTOR = 1;
+    private static final byte QUANTITY = 2;
+    // 倍数字既连接数字串，也表示数量
+    private static final String MULTIPLIERS = "十百千万亿";
+    private static final long[] MULTIPLIER_VALUES = {10L, 100L, 1000L, 10000L, 100000000L};
+    private static final String CONNECTORS = "点块元毛角.:：";
+    // 量词：数字 2 在量词前读作“两”，数字后面是量词时不按电话号码读
+    private static final String MEASURES = "个块元毛角次天岁位口件只本张台辆杯碗瓶片粒颗点分秒周号层楼斤米";
+    // 字符 → 类别，扫描时查表，不逐个比较字符串
+    private static final byte[] KINDS = new byte[Character.MAX_VALUE + 1];
+    // 常用的紧急和服务电话，单独出现时逐位读
+    private static final int[] SERVICE_NUMBERS = {110, 112, 114, 119, 120, 122};
+
+    static {
+        mark(MULTIPLIERS, CONNECTOR | QUANTITY);
+        mark(CONNECTORS, CONNECTOR);
+        mark(MEASURES, QUANTITY);
+    }
+
+    static final ChineseNumerals INSTANCE = new ChineseNumerals();
+
+    private ChineseNumerals() {
+    }
+
+    @Override
+    public boolean triggeredBy(char c) {
+        return digitAt(c) >= 0;
+    }
+
+    @Override
+    public int rewrite(CharSequence text, int start, StringBuilder out) {
+        int length = text.length();
+        int i = start;
+        // 当前数字串前面的连接字，0 表示整体的第一个数字串
+        char connector = 0;
+        // 整体是带小数的百分数（3.14%），“百分之”已经读出
+        boolean percent = false;
+        while (true) {
+            // 数字串，其中的空白（分开输入的数字）和千位分隔符一并计入；扫描时同时求出位数和数值
+            int runStart = i;
+            int runEnd = i;
+            int count = 0;
+            long value = 0;
+            int flags = RUN_ROUND;
+            while (i < length) {
+                char c = text.charAt(i);
+                int digit = digitAt(c);
+                if (digit >= 0) {
+                    if (count < MAX_CARDINAL_DIGITS) {
+                        value = value * 10 + digit;
+                    }
+                    if (count >= 2 && digit != 0) {
+                        flags &= ~RUN_ROUND;
+                    }
+                    count++;
+                    runEnd = ++i;
+                } else if (c == ',' && (count <= 3 || (flags & RUN_GROUPED) != 0) && isDigitGroup(text, i + 1)) {
+                    flags |= RUN_GROUPED;
+                    i++;
+                } else if (Character.isWhitespace(c)) {
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            int lookahead = skipWhitespace(text, runEnd);
+            char next = lookahead < length ? text.charAt(lookahead) : 0;
+
+            // 与下一个数字串相连的连接字，0 表示整体到此结束
+            char joinedBy = 0;
+            int following = lookahead;
+            if ((KINDS[next] & CONNECTOR) != 0) {
+                following = skipWhitespace(text, lookahead + 1);
+                if (following < length && digitAt(text.charAt(following)) >= 0
+                        && (!isColon(next) || (connector == 0 && isClockTime(text, runStart, count, value, following)))) {
+                    joinedBy = next;
+                }
+            }
+
+            if (connector == 0) {
+                if (isPercent(next) && count <= MAX_CARDINAL_DIGITS) {
+                    out.append("百分之");
+                    appendCardinal(value, value >= 100, false, out);
+                    return lookahead + 1 - start;
+                }
+                if (joinedBy == '.' && isPercent(charAt(text, skipWhitespace(text, skipDigits(text, following))))) {
+                    out.append("百分之");
+                    percent = true;
+                }
+            }
+            if (joinedBy == '.') {
+                flags |= RUN_DECIMAL;
+            } else if (isColon(joinedBy)) {
+                flags |= RUN_CLOCK;
+            }
+            appendRun(text, runStart, runEnd, count, value, flags, connector, next, out);
+
+            if (joinedBy != 0) {
+                out.append(joinedBy == '.' || isColon(joinedBy) ? '点' : joinedBy);
+                connector = joinedBy;
+                i = following;
+                continue;
+            }
+            if (percent && isPercent(next)) {
+                return lookahead + 1 - start;
+            }
+            // 末尾的空白和倍数字、量词、不算钟点的冒号等由后续规则或原样输出
+            return runEnd - start;
+        }
+    }
+
+    /**
+     * 按上下文读一个数字串
+     *
+     * @param count 位数
+     * @param value 数值，只在 count 不超过 {@link #MAX_CARDINAL_DIGITS} 时有效
+     * @param flags RUN_ROUND（10000000、25000000）等数字串的性质
+     */
+    private static void appendRun(CharSequence text, int start, int end, int count, long value, int flags,
+                                  char connector, char next, StringBuilder out) {
+        if (connector == '.') {
+            appendDigits(text, start, end, false, out);
+            return;
+        }
+        if (isColon(connector) || connector == '点') {
+            // 钟点的分钟：05 读作 零五
+            if (count == 2 && value < 10) {
+                out.append('零').append(DIGIT_CHARS[(int) value]);
+            } else if (count <= MAX_CARDINAL_DIGITS) {
+                appendCardinal(value, false, false, out);
+            } else {
+                appendDigits(text, start, end, false, out);
+            }
+            return;
+        }
+        if (count > MAX_CARDINAL_DIGITS) {
+            appendDigits(text, start, end, true, out);
+            return;
+        }
+        if (connector != 0) {
+            // 块、毛或倍数字之后：3块5、1万2千、3百5
+            if (hasSectionGap(text, end, value, connector)) {
+                out.append(DIGIT_CHARS[0]);
+            }
+            appendCardinal(value, false, false, out);
+            return;
+        }
+
+        char previous = out.length() > 0 ? out.charAt(out.length() - 1) : 0;
+        // 字母之后的编号（WiFi6、A12、abc 123）逐位读
+        if (isLatinLetter(previous) || (previous == ' ' && out.length() >= 2
+                && isLatinLetter(out.charAt(out.length() - 2)))) {
+            appendDigits(text, start, end, false, out);
+            return;
+        }
+        if (count == 4 && next == '年') {
+            appendDigits(text, start, end, false, out);
+            return;
+        }
+        boolean quantity = (KINDS[next] & QUANTITY) != 0;
+        boolean clock = (flags & RUN_CLOCK) != 0;
+        // 电话号码：7 位以上（整数除外）、以 0 开头、常用服务电话；带分隔符、小数和钟点都不是
+        if (!quantity && (flags & (RUN_GROUPED | RUN_DECIMAL | RUN_CLOCK)) == 0
+                && ((count >= 7 && (flags & RUN_ROUND) == 0)
+                || (count >= 2 && digitAt(text.charAt(start)) == 0)
+                || (count == 3 && isServiceNumber(value)))) {
+            appendDigits(text, start, end, true, out);
+            return;
+        }
+        // 序数（第2）不读“两”；2 本身只在量词、倍数字前和钟点（2:30）读“两”，两百以上的首位 2 都读“两”；
+        // 小数点不是量词，2.5 读作二点五
+        boolean liang = previous != '第' && (value >= 100 || quantity || clock);
+        appendCardinal(value, liang, true, out);
+    }
+
+    /**
+     * 数值读法
+     *
+     * @param liang       首位的 2 读作“两”
+     * @param leadingTen  10～19 开头省略“一”（十二、十万），只用于一个数的开头
+     */
+    static void appendCardinal(long value, boolean liang, boolean leadingTen, StringBuilder out) {
+        int start = out.length();
+        if (value < 10000) {
+            // 常见的小数值只有一节
+            if (value == 0) {
+                out.append(DIGIT_CHARS[0]);
+            } else {
+                appendSection((int) value, leadingTen, out);
+            }
+        } else {
+            boolean started = false;
+            boolean pendingZero = false;
+            for (int section = SECTION_UNITS.length - 1; section >= 0; section--) {
+                int part = (int) (value / POW10000[section] % 10000);
+                if (part == 0) {
+                    pendingZero |= started;
+                    continue;
+                }
+                if (started && part < 1000) {
+                    pendingZero = true;
+                }
+                if (pendingZero) {
+                    out.append(DIGIT_CHARS[0]);
+                    pendingZero = false;
+                }
+                appendSection(part, leadingTen && !started, out);
+                if (SECTION_UNITS[section] != 0) {
+                    out.append(SECTION_UNITS[section]);
+                }
+                started = true;
+            }
+        }
+        if (liang && out.charAt(start) == '二'
+                && (out.length() - start == 1 || "百千万亿".indexOf(out.charAt(start + 1)) >= 0)) {
+            out.setCharAt(start, '两');
+        }
+    }
+
+    /**
+     * 一节（1～9999）的读法，节内的连续零读一个“零”，末尾的零不读
+     *
+     * @param leadingTen 10～19 省略“一”
+     */
+    private static void appendSection(int part, boolean leadingTen, StringBuilder out) {
+        // 四个数位展开，除数都是常量
+        int state = appendPlace(part / 1000, '千', 0, out);
+        state = appendPlace(part / 100 % 10, '百', state, out);
+        int tens = part / 10 % 10;
+        if (leadingTen && state == 0 && tens == 1) {
+            out.append('十');
+            state = PLACE_STARTED;
+        } else {
+            state = appendPlace(tens, '十', state, out);
+        }
+        appendPlace(part % 10, (char) 0, state, out);
+    }
+
+    /**
+     * 一个数位，state 记录已经读过非零数位、之后有待读的零
+     */
+    private static int appendPlace(int digit, char unit, int state, StringBuilder out) {
+        if (digit == 0) {
+            return state == 0 ? 0 : PLACE_STARTED | PLACE_ZERO;
+        }
+        if ((state & PLACE_ZERO) != 0) {
+            out.append(DIGIT_CHARS[0]);
+        }
+        out.append(DIGIT_CHARS[digit]);
+        if (unit != 0) {
+            out.append(unit);
+        }
+        return PLACE_STARTED;
+    }
+
+    /**
+     * 逐位读
+     *
+     * @param yao 1 读作“幺”（电话号码）
+     */
+    static void appendDigits(CharSequence text, int start, int end, boolean yao, StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            int digit = digitAt(text.charAt(i));
+            if (digit >= 0) {
+                out.append(yao && digit == 1 ? '幺' : DIGIT_CHARS[digit]);
+            }
+        }
+    }
+
+    /**
+     * 半角或全角数字的值，不是数字时返回-1
+     */
+    static int digitAt(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= '０' && c <= '９') {
+            return c - '０';
+        }
+        return -1;
+    }
+
+    /**
+     * 冒号之后是否为钟点：前面的数字串是时（不超过 24），冒号之后是两位的分（不超过 59），
+     * 且前后都没有更多的冒号和数字（1:05:30 不算）
+     *
+     * @param following 冒号之后第一个数字的位置
+     */
+    private static boolean isClockTime(CharSequence text, int runStart, int count, long value, int following) {
+        if (count > 2 || value > 24) {
+            return false;
+        }
+        if (runStart >= 2 && isColon(text.charAt(runStart - 1)) && digitAt(text.charAt(runStart - 2)) >= 0) {
+            return false;
+        }
+        int end = skipDigits(text, following);
+        if (end - following != 2 || (digitAt(text.charAt(following)) * 10 + digitAt(text.charAt(following + 1))) > 59) {
+            return false;
+        }
+        int after = skipWhitespace(text, end);
+        return !(isColon(charAt(text, after)) && digitAt(charAt(text, skipWhitespace(text, after + 1))) >= 0);
+    }
+
+    /**
+     * 亿、万之后的数字串与前一节之间是否空了数位：1亿2万（空了千万、百万、十万）、1万2百（空了千）
+     *
+     * 数字串后面没有倍数字时（1万2）是“一万二”的省略说法，不算空位。
+     *
+     * @param end 数字串的结束位置
+     */
+    private static boolean hasSectionGap(CharSequence text, int end, long value, char connector) {
+        if (connector != '亿' && connector != '万') {
+            return false;
+        }
+        long place = 1;
+        for (int i = skipWhitespace(text, end); i < text.length() && place < POW10000[2]; i++) {
+            int unit = MULTIPLIERS.indexOf(text.charAt(i));
+            if (unit < 0) {
+                break;
+            }
+            place *= MULTIPLIER_VALUES[unit];
+        }
+        // 亿之后满一节是千万，万之后满一节是千
+        return place > 1 && value * place < (connector == '亿' ? 10000000L : 1000L);
+    }
+
+    /**
+     * index 开始是否为千位分隔符之后的三位数字（2,000）
+     */
+    private static boolean isDigitGroup(CharSequence text, int index) {
+        return index + 3 <= text.length() && skipDigits(text, index) == index + 3;
+    }
+
+    private static boolean isColon(char c) {
+        return c == ':' || c == '：';
+    }
+
+    private static boolean isPercent(char c) {
+        return c == '%' || c == '％';
+    }
+
+    private static boolean isLatinLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isServiceNumber(long value) {
+        for (int number : SERVICE_NUMBERS) {
+            if (number == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void mark(String chars, int kind) {
+        for (int i = 0; i < chars.length(); i++) {
+            KINDS[chars.charAt(i)] |= kind;
+        }
+    }
+
+    private static char charAt(CharSequence text, int index) {
+        return index < text.length() ? text.charAt(index) : 0;
+    }
+
+    private static int skipDigits(CharSequence text, int index) {
+        while (index < text.length() && digitAt(text.charAt(index)) >= 0) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int skipWhitespace(CharSequence text, int index) {
+        while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+}
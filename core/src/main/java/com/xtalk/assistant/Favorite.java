@@ -0,0 +1,114 @@
+package com.xtalk.assistant;
+
+import java.util.Arrays;
+
+/**
+ * 常用板上的一项：一个词组或一整句话
+ *
+ * 两者都以词语序列保存，词组是只有一个词语的序列。
+ * 每个词语同时保存文本和词组ID（不是来自词组的为 {@link SentenceToken#NO_PHRASE}），
+ * 显示时只用文本，不需要查询数据库。对象不可变，修改时生成新对象。
+ */
+public final class Favorite {
+
+    private final String[] tokens;
+    private final int[] phraseIds;
+
+    public Favorite(String[] tokens, int[] phraseIds) {
+        this.tokens = tokens;
+        this.phraseIds = phraseIds;
+    }
+
+    /**
+     * 单个词组
+     */
+    public static Favorite ofPhrase(int phraseId, String content) {
+        return new Favorite(new String[]{content}, new int[]{phraseId});
+    }
+
+    /**
+     * 是否为整句
+     */
+    public boolean isSentence() {
+        return tokens.length > 1;
+    }
+
+    public int getTokenCount() {
+        return tokens.length;
+    }
+
+    public String getToken(int index) {
+        return tokens[index];
+    }
+
+    public int getPhraseId(int index) {
+        return phraseIds[index];
+    }
+
+    /**
+     * 词组ID序列的副本
+     */
+    public int[] phraseIds() {
+        return Arrays.copyOf(phraseIds, phraseIds.length);
+    }
+
+    /**
+     * 词语序列的副本
+     */
+    public String[] tokens() {
+        return Arrays.copyOf(tokens, tokens.length);
+    }
+
+    /**
+     * 显示文本，词语间以空格分隔
+     */
+    public String displayText() {
+        StringBuilder text = new StringBuilder();
+        for (String token : tokens) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(token);
+        }
+        return text.toString();
+    }
+
+    /**
+     * 词组被修改后的新对象；不含该词组时返回自身
+     */
+    Favorite withPhraseContent(int phraseId, String content) {
+        String[] updated = null;
+        for (int i = 0; i < tokens.length; i++) {
+            if (phraseIds[i] == phraseId && !tokens[i].equals(content)) {
+                if (updated == null) {
+                    updated = tokens();
+                }
+                updated[i] = content;
+            }
+        }
+        return updated == null ? this : new Favorite(updated, phraseIds);
+    }
+
+    /**
+     * 词组被删除后的新对象：词语保留为普通文本；不含该词组时返回自身
+     */
+    Favorite withoutPhraseId(int phraseId) {
+        int[] updated = null;
+        for (int i = 0; i < phraseIds.length; i++) {
+            if (phraseIds[i] == phraseId) {
+                if (updated == null) {
+                    updated = phraseIds();
+                }
+                updated[i] = SentenceToken.NO_PHRASE;
+            }
+        }
+        return updated == null ? this : new Favorite(tokens, updated);
+    }
+
+    /**
+     * 词语序列和词组ID都相同
+     */
+    public boolean sameAs(Favorite other) {
+        return Arrays.equals(tokens, other.tokens) && Arrays.equals(phraseIds, other.phraseIds);
+    }
+}
@@ -0,0 +1,163 @@
+package com.xtalk.assistant;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一条说过的句子
+ *
+ * 保存组成句子的各个词语及其词组ID（不是来自词组的为 {@link SentenceToken#NO_PHRASE}），
+ * 可以原样恢复到组句区域。相同朗读文本的句子只保存一条，记录使用次数和最后使用时间。
+ */
+public final class HistoryEntry {
+
+    // 词语之间的分隔符，词组内容中不会出现
+    static final char TOKEN_SEPARATOR = '\u001F';
+
+    private final long id;
+    private final String[] tokens;
+    private final int[] phraseIds;
+    private final int useCount;
+    private final long lastUsed;
+
+    public HistoryEntry(long id, String[] tokens, int[] phraseIds, int useCount, long lastUsed) {
+        this.id = id;
+        this.tokens = tokens;
+        this.phraseIds = phraseIds;
+        this.useCount = useCount;
+        this.lastUsed = lastUsed;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getTokenCount() {
+        return tokens.length;
+    }
+
+    public String getToken(int index) {
+        return tokens[index];
+    }
+
+    public int getPhraseId(int index) {
+        return phraseIds[index];
+    }
+
+    public int getUseCount() {
+        return useCount;
+    }
+
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * 显示文本，词语间以空格分隔
+     */
+    public String displayText() {
+        StringBuilder text = new StringBuilder();
+        for (String token : tokens) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(token);
+        }
+        return text.toString();
+    }
+
+    /**
+     * 全部词语都来自词组时返回词组ID序列，否则返回null
+     */
+    public int[] phraseSequence() {
+        for (int id : phraseIds) {
+            if (id == SentenceToken.NO_PHRASE) {
+                return null;
+            }
+        }
+        return Arrays.copyOf(phraseIds, phraseIds.length);
+    }
+
+    /**
+     * 朗读文本的 64 位哈希（FNV-1a），用于去重查找；哈希相同时再比较文本
+     */
+    public static long hashOf(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 词语序列编码为数据库中保存的形式
+     */
+    static String encodeTokens(List<SentenceToken> tokens) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) {
+                text.append(TOKEN_SEPARATOR);
+            }
+            text.append(tokens.get(i).getText());
+        }
+        return text.toString();
+    }
+
+    /**
+     * 词组ID序列编码为以逗号分隔的文本
+     */
+    static String encodePhraseIds(List<SentenceToken> tokens) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(tokens.get(i).getPhraseId());
+        }
+        return text.toString();
+    }
+
+    /**
+     * 从数据库中保存的形式恢复；词组ID个数与词语个数不一致时按不是来自词组处理
+     */
+    static HistoryEntry decode(long id, String tokens, String phraseIds, int useCount, long lastUsed) {
+        String[] texts = split(tokens, TOKEN_SEPARATOR);
+        int[] ids = new int[texts.length];
+        String[] parts = split(phraseIds, ',');
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = SentenceToken.NO_PHRASE;
+            if (parts.length == ids.length) {
+                try {
+                    ids[i] = Integer.parseInt(parts[i]);
+                } catch (NumberFormatException e) {
+                    // 保持为不是来自词组
+                }
+            }
+        }
+        return new HistoryEntry(id, texts, ids, useCount, lastUsed);
+    }
+
+    private static String[] split(String text, char separator) {
+        if (text.isEmpty()) {
+            return new String[0];
+        }
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == separator) {
+                count++;
+            }
+        }
+        String[] parts = new String[count];
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int end = text.indexOf(separator, start);
+            if (end < 0) {
+                end = text.length();
+            }
+            parts[i] = text.substring(start, end);
+            start = end + 1;
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,99 @@
+package com.xtalk.assistant;
+
+import java.util.Arrays;
+
+/**
+ * long → int 的开放寻址哈希表
+ *
+ * 键和值分别存放在基本类型数组中，没有装箱和条目对象；线性探测，不支持删除。
+ * 键不能为 {@link #EMPTY_KEY}。非线程安全，由调用方加锁。
+ */
+public final class LongIntHashMap {
+
+    // 空槽位标记，调用方的键均为非负数
+    public static final long EMPTY_KEY = -1L;
+    // 键不存在时 get 的返回值
+    public static final int NO_VALUE = -1;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    private int threshold;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取键对应的值，不存在时返回 {@link #NO_VALUE}
+     */
+    public int get(long key) {
+        int slot = mix(key) & mask;
+        long current;
+        while ((current = keys[slot]) != EMPTY_KEY) {
+            if (current == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * 写入键值对
+     */
+    public void put(long key, int value) {
+        if (key == EMPTY_KEY) {
+            throw new IllegalArgumentException("不支持的键: " + key);
+        }
+        int slot = mix(key) & mask;
+        long current;
+        while ((current = keys[slot]) != EMPTY_KEY) {
+            if (current == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * 打散相邻的键，避免线性探测时聚集
+     */
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
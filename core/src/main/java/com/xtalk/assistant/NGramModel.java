@@ -0,0 +1,307 @@
+package com.xtalk.assistant;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 基于词组ID序列的 n 元语法预测模型（一元 / 二元 / 三元，Stupid Backoff 回退）
+ *
+ * 每个上下文（空、前一个词、前两个词）编码为一个 long 键，映射到一个槽位；
+ * 槽位保存后继词组ID与出现次数，按次数从高到低排列，长度上限为 {@link #MAX_SUCCESSORS}。
+ * 查询只需三次哈希查找和对已排好序的短数组的扫描，不分配条目对象。
+ *
+ * 句首用 {@link #START} 作为前一个词，因此空句子也能给出常用的开头词组。
+ * 读写由读写锁保护：查询在主线程持读锁，训练在后台线程持写锁，每句话的训练只需几微秒。
+ */
+public final class NGramModel {
+
+    // 句首标记，数据库行ID从1开始，不会冲突
+    public static final int START = 0;
+    // 每个上下文保留的后继数量，超过时替换次数最少的一个
+    static final int MAX_SUCCESSORS = 64;
+    // 回退到更短上下文时的分数折扣
+    private static final float BACKOFF = 0.4f;
+    // 每个词组ID占用的位数，上下文键 = 阶数 << 42 | 前两个词 << 21 | 前一个词
+    private static final int ID_BITS = 21;
+    private static final int MAX_ID = (1 << ID_BITS) - 1;
+    private static final int FILE_VERSION = 1;
+    private static final int INITIAL_SUCCESSORS = 4;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // 以下字段由 lock 保护
+    private LongIntHashMap slotsByContext;
+    private long[] contextKeys;
+    private int[][] successorIds;
+    private int[][] successorCounts;
+    private int[] successorSizes;
+    private int[] contextTotals;
+    private int slotCount;
+    private int ngramCount;
+
+    public NGramModel() {
+        this(256);
+    }
+
+    private NGramModel(int expectedContexts) {
+        int capacity = Math.max(16, expectedContexts);
+        slotsByContext = new LongIntHashMap(capacity);
+        contextKeys = new long[capacity];
+        successorIds = new int[capacity][];
+        successorCounts = new int[capacity][];
+        successorSizes = new int[capacity];
+        contextTotals = new int[capacity];
+    }
+
+    /**
+     * 用一句话的词组ID序列训练模型，句首自动补 {@link #START}
+     */
+    public void train(int[] phraseIds, int length) {
+        lock.writeLock().lock();
+        try {
+            int previous2 = START;
+            int previous1 = START;
+            boolean hasPrevious2 = false;
+            for (int i = 0; i < length; i++) {
+                int id = phraseIds[i];
+                if (id <= START || id > MAX_ID) {
+                    // 无法编码的词语打断上下文，之后重新从句首开始
+                    previous1 = START;
+                    hasPrevious2 = false;
+                    continue;
+                }
+                increment(contextKey(0, 0, 0), id);
+                increment(contextKey(1, 0, previous1), id);
+                if (hasPrevious2) {
+                    increment(contextKey(2, previous2, previous1), id);
+                }
+                previous2 = previous1;
+                previous1 = id;
+                hasPrevious2 = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 预测下一个词组
+     *
+     * @param previous2 倒数第二个词组ID，没有时为 {@link #START}
+     * @param previous1 最后一个词组ID，空句子时为 {@link #START}
+     * @param out       按分数从高到低写入预测的词组ID，长度即最多返回的数量
+     * @return 写入的数量
+     */
+    public int predict(int previous2, int previous1, int[] out) {
+        int limit = out.length;
+        float[] scores = new float[limit];
+        int found = 0;
+        lock.readLock().lock();
+        try {
+            // 空句子只有句首这一个上下文，没有三元组
+            int trigram = previous1 != START ? slotOf(2, previous2, previous1) : LongIntHashMap.NO_VALUE;
+            int bigram = slotOf(1, 0, previous1);
+            int unigram = slotOf(0, 0, 0);
+            int[] levels = {trigram, bigram, unigram};
+            float weight = 1f;
+            for (int level = 0; level < levels.length; level++, weight *= BACKOFF) {
+                int slot = levels[level];
+                if (slot == LongIntHashMap.NO_VALUE) {
+                    continue;
+                }
+                int[] ids = successorIds[slot];
+                int[] counts = successorCounts[slot];
+                int size = successorSizes[slot];
+                float total = contextTotals[slot];
+                for (int i = 0; i < size; i++) {
+                    float score = weight * counts[i] / total;
+                    if (found == limit && score <= scores[limit - 1]) {
+                        // 后继按次数降序排列，之后的分数只会更低
+                        break;
+                    }
+                    // 已在更长的上下文中出现的词组使用那里的分数
+                    if (contains(out, found, ids[i]) || appearsIn(levels, level, ids[i])) {
+                        continue;
+                    }
+                    found = insert(out, scores, found, ids[i], score);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     * 模型中 n 元组的总数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ngramCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写入紧凑的二进制格式
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(FILE_VERSION);
+            out.writeInt(slotCount);
+            for (int slot = 0; slot < slotCount; slot++) {
+                int size = successorSizes[slot];
+                out.writeLong(contextKeys[slot]);
+                out.writeInt(contextTotals[slot]);
+                out.writeShort(size);
+                for (int i = 0; i < size; i++) {
+                    out.writeInt(successorIds[slot][i]);
+                    out.writeInt(successorCounts[slot][i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 读取 {@link #writeTo} 写入的模型
+     */
+    public static NGramModel readFrom(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FILE_VERSION) {
+            throw new IOException("不支持的模型版本: " + version);
+        }
+        int slots = in.readInt();
+        NGramModel model = new NGramModel(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            long key = in.readLong();
+            int total = in.readInt();
+            int size = in.readShort();
+            if (size < 0 || size > MAX_SUCCESSORS) {
+                throw new IOException("模型文件已损坏");
+            }
+            int created = model.createSlot(key, Math.max(size, 1));
+            int[] ids = model.successorIds[created];
+            int[] counts = model.successorCounts[created];
+            for (int i = 0; i < size; i++) {
+                ids[i] = in.readInt();
+                counts[i] = in.readInt();
+            }
+            model.successorSizes[created] = size;
+            model.contextTotals[created] = total;
+            model.ngramCount += size;
+        }
+        return model;
+    }
+
+    private int slotOf(int order, int previous2, int previous1) {
+        return slotsByContext.get(contextKey(order, previous2, previous1));
+    }
+
+    private boolean appearsIn(int[] levels, int level, int id) {
+        for (int i = 0; i < level; i++) {
+            int slot = levels[i];
+            if (slot != LongIntHashMap.NO_VALUE && contains(successorIds[slot], successorSizes[slot], id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 后继出现次数加一，并把它向前移动以保持降序；已满时替换次数最少的后继
+     */
+    private void increment(long key, int id) {
+        int slot = slotsByContext.get(key);
+        if (slot == LongIntHashMap.NO_VALUE) {
+            slot = createSlot(key, INITIAL_SUCCESSORS);
+        }
+        int[] ids = successorIds[slot];
+        int[] counts = successorCounts[slot];
+        int size = successorSizes[slot];
+        int index = indexOf(ids, size, id);
+        if (index < 0) {
+            if (size == MAX_SUCCESSORS) {
+                index = size - 1;
+                contextTotals[slot] -= counts[index];
+                counts[index] = 0;
+            } else {
+                if (size == ids.length) {
+                    int capacity = Math.min(MAX_SUCCESSORS, size * 2);
+                    ids = successorIds[slot] = Arrays.copyOf(ids, capacity);
+                    counts = successorCounts[slot] = Arrays.copyOf(counts, capacity);
+                }
+                index = size;
+                counts[index] = 0;
+                successorSizes[slot] = size + 1;
+                ngramCount++;
+            }
+            ids[index] = id;
+        }
+        int count = ++counts[index];
+        contextTotals[slot]++;
+        while (index > 0 && counts[index - 1] < count) {
+            counts[index] = counts[index - 1];
+            ids[index] = ids[index - 1];
+            index--;
+        }
+        counts[index] = count;
+        ids[index] = id;
+    }
+
+    private int createSlot(long key, int successorCapacity) {
+        if (slotCount == contextKeys.length) {
+            int capacity = slotCount * 2;
+            contextKeys = Arrays.copyOf(contextKeys, capacity);
+            successorIds = Arrays.copyOf(successorIds, capacity);
+            successorCounts = Arrays.copyOf(successorCounts, capacity);
+            successorSizes = Arrays.copyOf(successorSizes, capacity);
+            contextTotals = Arrays.copyOf(contextTotals, capacity);
+        }
+        int slot = slotCount++;
+        contextKeys[slot] = key;
+        successorIds[slot] = new int[successorCapacity];
+        successorCounts[slot] = new int[successorCapacity];
+        slotsByContext.put(key, slot);
+        return slot;
+    }
+
+    /**
+     * 按分数插入到已排序的结果中，返回新的结果数量
+     */
+    private static int insert(int[] ids, float[] scores, int size, int id, float score) {
+        int index = size < ids.length ? size : ids.length - 1;
+        while (index > 0 && scores[index - 1] < score) {
+            ids[index] = ids[index - 1];
+            scores[index] = scores[index - 1];
+            index--;
+        }
+        ids[index] = id;
+        scores[index] = score;
+        return Math.min(size + 1, ids.length);
+    }
+
+    private static boolean contains(int[] ids, int size, int id) {
+        return indexOf(ids, size, id) >= 0;
+    }
+
+    private static int indexOf(int[] ids, int size, int id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long contextKey(int order, int previous2, int previous1) {
+        return ((long) order << (ID_BITS * 2)) | ((long) previous2 << ID_BITS) | previous1;
+    }
+}
@@ -0,0 +1,47 @@
+package com.xtalk.assistant;
+
+/**
+ * 全文检索用的文本转换
+ *
+ * FTS 的 simple 分词器不会切分中文，连续的汉字被当作一个词。
+ * 因此索引列保存逐字用空格分开的内容（"喝水" → "喝 水"），
+ * 查询时也逐字切开作为短语查询（"\"喝 水\""），即可匹配内容中任意位置的连续字符。
+ */
+public final class PhraseSearchText {
+
+    private PhraseSearchText() {
+    }
+
+    /**
+     * 词组内容对应的索引文本：去掉空白，每个字符之间用一个空格分隔
+     *
+     * 修改时同步修改 tools/build_default_phrases_db.py 中的 search_text()。
+     */
+    public static String of(String content) {
+        if (content == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder(content.length() * 2);
+        int i = 0;
+        while (i < content.length()) {
+            int codePoint = content.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isWhitespace(codePoint)) {
+                continue;
+            }
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.appendCodePoint(codePoint);
+        }
+        return text.toString();
+    }
+
+    /**
+     * 用户输入对应的 MATCH 表达式，去掉引号后作为一个短语查询；没有可查询的字符时返回null
+     */
+    public static String toMatchQuery(String input) {
+        String text = of(input.replace("\"", ""));
+        return text.isEmpty() ? null : "\"" + text + "\"";
+    }
+}
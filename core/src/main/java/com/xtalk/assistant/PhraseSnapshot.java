@@ -0,0 +1,101 @@
+package com.xtalk.assistant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 词组的只读内存快照：分类 → 词组列表，以及 词组ID → 词组 的索引
+ *
+ * 快照本身不可变，更新时生成新的快照替换旧的，读取方无需加锁。
+ */
+public final class PhraseSnapshot {
+
+    private static final PhraseSnapshot EMPTY = new PhraseSnapshot(Collections.<String, List<Phrase>>emptyMap());
+
+    private final Map<String, List<Phrase>> phrasesByCategory;
+    private final Map<Integer, Phrase> phrasesById;
+
+    private PhraseSnapshot(Map<String, List<Phrase>> phrasesByCategory) {
+        this.phrasesByCategory = phrasesByCategory;
+        Map<Integer, Phrase> byId = new HashMap<>();
+        for (List<Phrase> phrases : phrasesByCategory.values()) {
+            for (Phrase phrase : phrases) {
+                byId.put(phrase.getId(), phrase);
+            }
+        }
+        this.phrasesById = byId;
+    }
+
+    /**
+     * 空快照
+     */
+    public static PhraseSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 根据按插入顺序排列的全部词组构建快照
+     */
+    public static PhraseSnapshot of(List<Phrase> allPhrases) {
+        Map<String, List<Phrase>> grouped = new HashMap<>();
+        for (Phrase phrase : allPhrases) {
+            List<Phrase> list = grouped.get(phrase.getCategory());
+            if (list == null) {
+                list = new ArrayList<>();
+                grouped.put(phrase.getCategory(), list);
+            }
+            list.add(phrase);
+        }
+        Map<String, List<Phrase>> frozen = new HashMap<>(grouped.size() * 2);
+        for (Map.Entry<String, List<Phrase>> entry : grouped.entrySet()) {
+            frozen.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+        return new PhraseSnapshot(frozen);
+    }
+
+    /**
+     * 获取分类下的词组，分类不存在时返回空列表
+     */
+    public List<Phrase> get(String category) {
+        List<Phrase> phrases = phrasesByCategory.get(category);
+        return phrases != null ? phrases : Collections.<Phrase>emptyList();
+    }
+
+    /**
+     * 按ID查找词组，不存在（如已删除）时返回null
+     */
+    public Phrase find(int id) {
+        return phrasesById.get(id);
+    }
+
+    /**
+     * 快照中的全部词组
+     */
+    public List<Phrase> all() {
+        List<Phrase> all = new ArrayList<>();
+        for (List<Phrase> phrases : phrasesByCategory.values()) {
+            all.addAll(phrases);
+        }
+        return all;
+    }
+
+    /**
+     * 快照中出现过的全部分类名称
+     */
+    public Set<String> categoryNames() {
+        return Collections.unmodifiableSet(phrasesByCategory.keySet());
+    }
+
+    /**
+     * 返回替换了某个分类词组列表的新快照
+     */
+    public PhraseSnapshot with(String category, List<Phrase> phrases) {
+        Map<String, List<Phrase>> copy = new HashMap<>(phrasesByCategory);
+        copy.put(category, Collections.unmodifiableList(new ArrayList<>(phrases)));
+        return new PhraseSnapshot(copy);
+    }
+}
@@ -0,0 +1,60 @@
+package com.xtalk.assistant;
+
+/**
+ * 一个词组的使用记录，也用作一批待写入的增量
+ *
+ * score 为按时间折算的使用分数，见 {@link UsageTracker}。
+ */
+public final class PhraseUsage {
+
+    private final int phraseId;
+    private int tapCount;
+    private int spokenCount;
+    private double score;
+    private long lastUsed;
+
+    public PhraseUsage(int phraseId) {
+        this.phraseId = phraseId;
+    }
+
+    public PhraseUsage(int phraseId, int tapCount, int spokenCount, double score, long lastUsed) {
+        this.phraseId = phraseId;
+        this.tapCount = tapCount;
+        this.spokenCount = spokenCount;
+        this.score = score;
+        this.lastUsed = lastUsed;
+    }
+
+    /**
+     * 累加一次使用
+     */
+    void add(boolean spoken, double weight, long time) {
+        if (spoken) {
+            spokenCount++;
+        } else {
+            tapCount++;
+        }
+        score += weight;
+        lastUsed = Math.max(lastUsed, time);
+    }
+
+    public int getPhraseId() {
+        return phraseId;
+    }
+
+    public int getTapCount() {
+        return tapCount;
+    }
+
+    public int getSpokenCount() {
+        return spokenCount;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public long getLastUsed() {
+        return lastUsed;
+    }
+}
@@ -0,0 +1,75 @@
+package com.xtalk.assistant;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * 汉字 → 拼音读音表
+ *
+ * 由 tools/build_pinyin_table.py 从 pinyin4j 的数据生成，随应用打包在 assets/pinyin 中。
+ * 读音不带声调，ü 写作 v；多音字有多个读音，常用读音在前。
+ * 整张表是三个数组：音节表、每个码点的读音起始位置、读音的音节序号，查询只做数组下标运算。
+ */
+public final class PinyinTable {
+
+    static final String ASSET_PATH = "pinyin/pinyin_table.bin";
+    private static final int MAGIC = 0x50594E31;
+    private static final int FORMAT_VERSION = 1;
+
+    private final String[] syllables;
+    private final int firstCodePoint;
+    // 码点 i 的读音为 readings[offsets[i - first] .. offsets[i - first + 1])
+    private final char[] offsets;
+    private final short[] readings;
+
+    private PinyinTable(String[] syllables, int firstCodePoint, char[] offsets, short[] readings) {
+        this.syllables = syllables;
+        this.firstCodePoint = firstCodePoint;
+        this.offsets = offsets;
+        this.readings = readings;
+    }
+
+    /**
+     * 读取拼音表文件
+     */
+    public static PinyinTable readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("拼音表格式不正确");
+        }
+        String[] syllables = new String[in.readShort()];
+        for (int i = 0; i < syllables.length; i++) {
+            syllables[i] = in.readUTF();
+        }
+        int first = in.readInt();
+        char[] offsets = new char[in.readInt() + 1];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = in.readChar();
+        }
+        short[] readings = new short[offsets[offsets.length - 1]];
+        for (int i = 0; i < readings.length; i++) {
+            readings[i] = in.readShort();
+            if (readings[i] < 0 || readings[i] >= syllables.length) {
+                throw new IOException("拼音表音节序号越界");
+            }
+        }
+        return new PinyinTable(syllables, first, offsets, readings);
+    }
+
+    /**
+     * 字符的读音个数，不是汉字或没有读音时为0
+     */
+    public int readingCount(int codePoint) {
+        int index = codePoint - firstCodePoint;
+        if (index < 0 || index >= offsets.length - 1) {
+            return 0;
+        }
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * 字符的第 n 个读音，n 小于 {@link #readingCount(int)}
+     */
+    public String reading(int codePoint, int n) {
+        return syllables[readings[offsets[codePoint - firstCodePoint] + n]];
+    }
+}
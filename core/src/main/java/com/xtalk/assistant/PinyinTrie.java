@@ -0,0 +1,395 @@
+package com.xtalk.assistant;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 拼音搜索的前缀树，边为小写字母
+ *
+ * 每个词组以全拼（"heshui"）和首字母（"hs"）两种键插入，多音字的每种读法组合各是一个键
+ * （最多 {@link #MAX_VARIANTS} 种），键的结束节点上挂着词组ID。
+ * 查询时沿输入走到前缀节点，再按层遍历子树收集词组：完全匹配和较短的键排在前面。
+ *
+ * 节点和挂载的词组都保存在基本类型数组中，词组挂载用单链表，删除的位置进入空闲链表复用；
+ * 序列化时直接写出这些数组。读写由读写锁保护：查询在主线程持读锁，增删在后台线程持写锁。
+ */
+public final class PinyinTrie {
+
+    // 每个词组最多生成的读法组合数，多音字很多的长词组只取常用读音开头的组合
+    static final int MAX_VARIANTS = 16;
+    // 每个字最多参与组合的读音数
+    private static final int MAX_READINGS = 3;
+    // 全拼键的最大长度，更长的部分不参与匹配
+    static final int MAX_KEY_LENGTH = 48;
+    private static final int FILE_VERSION = 1;
+    private static final int NONE = -1;
+    private static final int ROOT = 0;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // 以下字段由 lock 保护
+    // 节点：到达该节点的字母、第一个子节点、下一个兄弟节点、第一个挂载的词组
+    private char[] nodeLetter;
+    private int[] nodeFirstChild;
+    private int[] nodeNextSibling;
+    private int[] nodeFirstPosting;
+    private int nodeCount;
+    // 挂载：词组ID、同一节点的下一个挂载
+    private int[] postingPhrase;
+    private int[] postingNext;
+    private int postingCount;
+    private int freePosting = NONE;
+    // 词组ID → 它的键的结束节点，删除和更新时使用
+    private final Map<Integer, int[]> phraseNodes = new HashMap<>();
+
+    public PinyinTrie() {
+        allocate(256, 64);
+        nodeCount = 1;
+        initNode(ROOT, '\0');
+    }
+
+    /**
+     * 词组内容对应的搜索键：每种读法组合的全拼和首字母
+     *
+     * 汉字取拼音表中的读音，英文字母和数字原样（转为小写）作为一个音节，其他字符忽略。
+     */
+    public static Set<String> keysOf(String content, PinyinTable table) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (content == null) {
+            return keys;
+        }
+        // 每个字的候选音节
+        String[][] syllables = new String[content.length()][];
+        int count = 0;
+        int i = 0;
+        while (i < content.length()) {
+            int codePoint = content.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (codePoint < 128) {
+                if (Character.isLetterOrDigit(codePoint)) {
+                    syllables[count++] = new String[]{String.valueOf((char) Character.toLowerCase(codePoint))};
+                }
+                continue;
+            }
+            int readings = Math.min(table.readingCount(codePoint), MAX_READINGS);
+            if (readings == 0) {
+                continue;
+            }
+            String[] candidates = new String[readings];
+            for (int n = 0; n < readings; n++) {
+                candidates[n] = table.reading(codePoint, n);
+            }
+            syllables[count++] = candidates;
+        }
+        if (count == 0) {
+            return keys;
+        }
+        // 逐个枚举读法组合，从第一个字开始进位，使前面的字优先覆盖所有读音
+        int[] choice = new int[count];
+        StringBuilder full = new StringBuilder();
+        StringBuilder initials = new StringBuilder();
+        for (int variant = 0; variant < MAX_VARIANTS; variant++) {
+            full.setLength(0);
+            initials.setLength(0);
+            for (int c = 0; c < count; c++) {
+                String syllable = syllables[c][choice[c]];
+                full.append(syllable);
+                initials.append(syllable.charAt(0));
+            }
+            keys.add(full.length() > MAX_KEY_LENGTH ? full.substring(0, MAX_KEY_LENGTH) : full.toString());
+            keys.add(initials.length() > MAX_KEY_LENGTH ? initials.substring(0, MAX_KEY_LENGTH) : initials.toString());
+            int c = 0;
+            while (c < count && ++choice[c] == syllables[c].length) {
+                choice[c] = 0;
+                c++;
+            }
+            if (c == count) {
+                break;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 添加或替换一个词组的搜索键
+     */
+    public void put(int phraseId, Set<String> keys) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(phraseId);
+            if (keys.isEmpty()) {
+                return;
+            }
+            int[] nodes = new int[keys.size()];
+            int count = 0;
+            for (String key : keys) {
+                int node = ROOT;
+                for (int i = 0; i < key.length(); i++) {
+                    char letter = key.charAt(i);
+                    int child = findChild(node, letter);
+                    node = child != NONE ? child : addChild(node, letter);
+                }
+                if (!hasPosting(node, phraseId)) {
+                    addPosting(node, phraseId);
+                    nodes[count++] = node;
+                }
+            }
+            phraseNodes.put(phraseId, Arrays.copyOf(nodes, count));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除一个词组的全部搜索键；空出的节点保留，之后插入相同前缀时复用
+     */
+    public void remove(int phraseId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(phraseId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查找搜索键以输入开头的词组，完全匹配和较短的键在前，每个词组只返回一次
+     *
+     * @param prefix 小写字母
+     * @param out    写入词组ID，长度即最多返回的数量
+     * @return 写入的数量
+     */
+    public int search(CharSequence prefix, int[] out) {
+        lock.readLock().lock();
+        try {
+            int node = ROOT;
+            for (int i = 0; i < prefix.length() && node != NONE; i++) {
+                node = findChild(node, prefix.charAt(i));
+            }
+            if (node == NONE || node == ROOT) {
+                return 0;
+            }
+            int found = 0;
+            // 按层遍历子树：队列中依次是同一层的节点
+            int[] queue = new int[64];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = node;
+            while (head < tail && found < out.length) {
+                int current = queue[head++];
+                for (int p = nodeFirstPosting[current]; p != NONE && found < out.length; p = postingNext[p]) {
+                    found = addUnique(out, found, postingPhrase[p]);
+                }
+                for (int child = nodeFirstChild[current]; child != NONE; child = nodeNextSibling[child]) {
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, queue.length * 2);
+                    }
+                    queue[tail++] = child;
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已索引的词组数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return phraseNodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写入紧凑的二进制格式：节点数组和挂载数组
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(FILE_VERSION);
+            out.writeInt(nodeCount);
+            for (int i = 0; i < nodeCount; i++) {
+                out.writeChar(nodeLetter[i]);
+                out.writeInt(nodeFirstChild[i]);
+                out.writeInt(nodeNextSibling[i]);
+                out.writeInt(nodeFirstPosting[i]);
+            }
+            out.writeInt(postingCount);
+            out.writeInt(freePosting);
+            for (int i = 0; i < postingCount; i++) {
+                out.writeInt(postingPhrase[i]);
+                out.writeInt(postingNext[i]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 读取 {@link #writeTo} 写入的前缀树，并重建 词组 → 结束节点 的映射
+     */
+    public static PinyinTrie readFrom(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FILE_VERSION) {
+            throw new IOException("不支持的拼音索引版本: " + version);
+        }
+        PinyinTrie trie = new PinyinTrie();
+        int nodes = in.readInt();
+        if (nodes < 1) {
+            throw new IOException("拼音索引文件已损坏");
+        }
+        trie.allocate(nodes, 0);
+        for (int i = 0; i < nodes; i++) {
+            trie.nodeLetter[i] = in.readChar();
+            trie.nodeFirstChild[i] = checkIndex(in.readInt(), nodes);
+            trie.nodeNextSibling[i] = checkIndex(in.readInt(), nodes);
+            trie.nodeFirstPosting[i] = in.readInt();
+        }
+        trie.nodeCount = nodes;
+        int postings = in.readInt();
+        trie.freePosting = checkIndex(in.readInt(), postings);
+        trie.ensurePostingCapacity(postings);
+        for (int i = 0; i < postings; i++) {
+            trie.postingPhrase[i] = in.readInt();
+            trie.postingNext[i] = checkIndex(in.readInt(), postings);
+        }
+        trie.postingCount = postings;
+        Map<Integer, int[]> phraseNodes = trie.phraseNodes;
+        for (int node = 0; node < nodes; node++) {
+            for (int p = checkIndex(trie.nodeFirstPosting[node], postings); p != NONE; p = trie.postingNext[p]) {
+                int[] current = phraseNodes.get(trie.postingPhrase[p]);
+                int[] updated = current == null ? new int[1] : Arrays.copyOf(current, current.length + 1);
+                updated[updated.length - 1] = node;
+                phraseNodes.put(trie.postingPhrase[p], updated);
+            }
+        }
+        return trie;
+    }
+
+    private static int checkIndex(int index, int size) throws IOException {
+        if (index < NONE || index >= size) {
+            throw new IOException("拼音索引文件已损坏");
+        }
+        return index;
+    }
+
+    private static int addUnique(int[] out, int size, int phraseId) {
+        for (int i = 0; i < size; i++) {
+            if (out[i] == phraseId) {
+                return size;
+            }
+        }
+        out[size] = phraseId;
+        return size + 1;
+    }
+
+    private void removeLocked(int phraseId) {
+        int[] nodes = phraseNodes.remove(phraseId);
+        if (nodes == null) {
+            return;
+        }
+        for (int node : nodes) {
+            int previous = NONE;
+            for (int p = nodeFirstPosting[node]; p != NONE; previous = p, p = postingNext[p]) {
+                if (postingPhrase[p] != phraseId) {
+                    continue;
+                }
+                if (previous == NONE) {
+                    nodeFirstPosting[node] = postingNext[p];
+                } else {
+                    postingNext[previous] = postingNext[p];
+                }
+                postingNext[p] = freePosting;
+                freePosting = p;
+                break;
+            }
+        }
+    }
+
+    private boolean hasPosting(int node, int phraseId) {
+        for (int p = nodeFirstPosting[node]; p != NONE; p = postingNext[p]) {
+            if (postingPhrase[p] == phraseId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addPosting(int node, int phraseId) {
+        int p;
+        if (freePosting != NONE) {
+            p = freePosting;
+            freePosting = postingNext[p];
+        } else {
+            ensurePostingCapacity(postingCount + 1);
+            p = postingCount++;
+        }
+        postingPhrase[p] = phraseId;
+        postingNext[p] = nodeFirstPosting[node];
+        nodeFirstPosting[node] = p;
+    }
+
+    private int findChild(int node, char letter) {
+        for (int child = nodeFirstChild[node]; child != NONE; child = nodeNextSibling[child]) {
+            if (nodeLetter[child] == letter) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    private int addChild(int parent, char letter) {
+        if (nodeCount == nodeLetter.length) {
+            growNodes(nodeCount * 2);
+        }
+        int node = nodeCount++;
+        initNode(node, letter);
+        nodeNextSibling[node] = nodeFirstChild[parent];
+        nodeFirstChild[parent] = node;
+        return node;
+    }
+
+    private void initNode(int node, char letter) {
+        nodeLetter[node] = letter;
+        nodeFirstChild[node] = NONE;
+        nodeNextSibling[node] = NONE;
+        nodeFirstPosting[node] = NONE;
+    }
+
+    private void allocate(int nodes, int postings) {
+        nodeLetter = new char[nodes];
+        nodeFirstChild = new int[nodes];
+        nodeNextSibling = new int[nodes];
+        nodeFirstPosting = new int[nodes];
+        postingPhrase = new int[postings];
+        postingNext = new int[postings];
+    }
+
+    private void growNodes(int capacity) {
+        nodeLetter = Arrays.copyOf(nodeLetter, capacity);
+        nodeFirstChild = Arrays.copyOf(nodeFirstChild, capacity);
+        nodeNextSibling = Arrays.copyOf(nodeNextSibling, capacity);
+        nodeFirstPosting = Arrays.copyOf(nodeFirstPosting, capacity);
+    }
+
+    private void ensurePostingCapacity(int required) {
+        if (required <= postingPhrase.length) {
+            return;
+        }
+        int capacity = Math.max(required, Math.max(64, postingPhrase.length * 2));
+        postingPhrase = Arrays.copyOf(postingPhrase, capacity);
+        postingNext = Arrays.copyOf(postingNext, capacity);
+    }
+}
@@ -0,0 +1,54 @@
+package com.xtalk.assistant;
+
+/**
+ * 读音词典中的一条：朗读时把 text 换成 replacement（同音字、别的写法或拼音提示）
+ *
+ * engine 为语音引擎的包名，{@link #ALL_ENGINES} 表示用于所有引擎；
+ * 同一段文字同时有两种词条时，当前引擎专用的优先。
+ */
+public final class Pronunciation {
+
+    // 用于所有引擎
+    public static final String ALL_ENGINES = "";
+    // 尚未保存的词条
+    public static final long NO_ID = 0;
+
+    private final long id;
+    private final String engine;
+    private final String text;
+    private final String replacement;
+
+    public Pronunciation(long id, String engine, String text, String replacement) {
+        this.id = id;
+        this.engine = engine != null ? engine : ALL_ENGINES;
+        this.text = text;
+        this.replacement = replacement;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getReplacement() {
+        return replacement;
+    }
+
+    public boolean isForAllEngines() {
+        return engine.isEmpty();
+    }
+
+    /**
+     * 保存后得到ID的副本
+     */
+    public Pronunciation withId(long newId) {
+        return new Pronunciation(newId, engine, text, replacement);
+    }
+}
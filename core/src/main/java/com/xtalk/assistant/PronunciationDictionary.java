@@ -0,0 +1,228 @@
+package com.xtalk.assistant;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 读音词典：朗读前把句子中的词语换成指定的写法，纠正多音字（行长、重新、长大）等的误读
+ *
+ * 用 Aho-Corasick 自动机一遍扫描找出全部命中的词条，代价与句子长度和命中次数成正比，
+ * 与词条的多少无关。前缀树的转移存放在一个 long → int 哈希表中（键为 节点 &lt;&lt; 16 | 字符），
+ * 每个节点另有失败链接和输出链接（沿失败链接最近的词条结尾）。
+ * 词条重叠时取最左边的，同一位置取最长的。
+ *
+ * 实例不可修改，可以在多个线程中共用。构建的代价与词条总长成正比（几千条为毫秒级），
+ * 词条变化时在后台由 {@link #forEntries(Iterable)} 重新构建后整体替换。
+ */
+public final class PronunciationDictionary {
+
+    public static final PronunciationDictionary EMPTY = new PronunciationDictionary(new String[0], new String[0]);
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private final String[] keys;
+    private final String[] replacements;
+    // (节点 << 16 | 字符) → 子节点
+    private final LongIntHashMap transitions;
+    private final int[] failure;
+    // 节点 → 以该节点结尾、沿失败链接最近的词条结尾节点，没有时为 NONE
+    private final int[] output;
+    // 节点 → 词条序号，不是词条结尾时为 NONE
+    private final int[] entryOf;
+
+    /**
+     * 由一个引擎适用的词条构建词典：同一段文字同时有两种词条时，引擎专用的优先于用于所有引擎的
+     */
+    public static PronunciationDictionary forEntries(Iterable<Pronunciation> entries) {
+        Map<String, Pronunciation> merged = new HashMap<>();
+        for (Pronunciation entry : entries) {
+            Pronunciation existing = merged.get(entry.getText());
+            if (existing == null || existing.isForAllEngines()) {
+                merged.put(entry.getText(), entry);
+            }
+        }
+        Map<String, String> replacements = new HashMap<>(merged.size());
+        for (Pronunciation entry : merged.values()) {
+            replacements.put(entry.getText(), entry.getReplacement());
+        }
+        return of(replacements);
+    }
+
+    /**
+     * 由 文字 → 替换文字 构建词典，忽略空的文字；替换文字可以为空，即朗读时略去
+     */
+    public static PronunciationDictionary of(Map<String, String> entries) {
+        int count = 0;
+        for (String key : entries.keySet()) {
+            if (key != null && !key.isEmpty()) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return EMPTY;
+        }
+        String[] keys = new String[count];
+        String[] replacements = new String[count];
+        int index = 0;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            if (entry.getKey() != null && !entry.getKey().isEmpty()) {
+                keys[index] = entry.getKey();
+                replacements[index] = entry.getValue() != null ? entry.getValue() : "";
+                index++;
+            }
+        }
+        return new PronunciationDictionary(keys, replacements);
+    }
+
+    private PronunciationDictionary(String[] keys, String[] replacements) {
+        this.keys = keys;
+        this.replacements = replacements;
+        int capacity = 1;
+        for (String key : keys) {
+            capacity += key.length();
+        }
+        transitions = new LongIntHashMap(capacity);
+        int[] parent = new int[capacity];
+        int[] depth = new int[capacity];
+        char[] label = new char[capacity];
+        int[] entries = new int[capacity];
+        entries[ROOT] = NONE;
+        int nodes = 1;
+        int maxDepth = 0;
+
+        // 前缀树
+        for (int k = 0; k < keys.length; k++) {
+            String key = keys[k];
+            int node = ROOT;
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(i);
+                int child = transitions.get(transitionKey(node, c));
+                if (child == LongIntHashMap.NO_VALUE) {
+                    child = nodes++;
+                    transitions.put(transitionKey(node, c), child);
+                    parent[child] = node;
+                    depth[child] = depth[node] + 1;
+                    label[child] = c;
+                    entries[child] = NONE;
+                    maxDepth = Math.max(maxDepth, depth[child]);
+                }
+                node = child;
+            }
+            entries[node] = k;
+        }
+
+        // 按深度排序节点（计数排序），代替广度优先遍历
+        int[] start = new int[maxDepth + 2];
+        for (int node = 0; node < nodes; node++) {
+            start[depth[node] + 1]++;
+        }
+        for (int d = 1; d < start.length; d++) {
+            start[d] += start[d - 1];
+        }
+        int[] order = new int[nodes];
+        for (int node = 0; node < nodes; node++) {
+            order[start[depth[node]]++] = node;
+        }
+
+        // 失败链接和输出链接，浅的节点先算好
+        failure = new int[nodes];
+        output = new int[nodes];
+        output[ROOT] = NONE;
+        for (int n = 1; n < nodes; n++) {
+            int node = order[n];
+            int fallback = ROOT;
+            if (parent[node] != ROOT) {
+                char c = label[node];
+                int f = failure[parent[node]];
+                int next;
+                while ((next = transitions.get(transitionKey(f, c))) == LongIntHashMap.NO_VALUE && f != ROOT) {
+                    f = failure[f];
+                }
+                fallback = next == LongIntHashMap.NO_VALUE ? ROOT : next;
+            }
+            failure[node] = fallback;
+            output[node] = entries[node] != NONE ? node : output[fallback];
+        }
+        entryOf = new int[nodes];
+        System.arraycopy(entries, 0, entryOf, 0, nodes);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    /**
+     * 扫描一遍文本，返回每个位置开始的最长词条（序号 + 1，0 表示没有）；没有任何命中时返回null
+     *
+     * 命中之间可能重叠，由调用方从左到右取用并跳过已经替换的部分。
+     */
+    int[] scan(CharSequence text) {
+        if (keys.length == 0) {
+            return null;
+        }
+        int[] longest = null;
+        int node = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = transitions.get(transitionKey(node, c))) == LongIntHashMap.NO_VALUE && node != ROOT) {
+                node = failure[node];
+            }
+            node = next == LongIntHashMap.NO_VALUE ? ROOT : next;
+            for (int match = output[node]; match != NONE; match = output[failure[match]]) {
+                int entry = entryOf[match];
+                int begin = i + 1 - keys[entry].length();
+                if (longest == null) {
+                    longest = new int[text.length()];
+                }
+                int current = longest[begin];
+                if (current == 0 || keys[current - 1].length() < keys[entry].length()) {
+                    longest[begin] = entry + 1;
+                }
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * 词条的文字长度，entry 为 {@link #scan} 结果减 1
+     */
+    int keyLength(int entry) {
+        return keys[entry].length();
+    }
+
+    String replacement(int entry) {
+        return replacements[entry];
+    }
+
+    /**
+     * 只做读音替换，不经过其他整理规则，用于单个词语的朗读；没有命中时返回原字符串
+     */
+    public String apply(String text) {
+        int[] matches = scan(text);
+        if (matches == null) {
+            return text;
+        }
+        StringBuilder out = new StringBuilder(text.length() + 8);
+        int i = 0;
+        while (i < text.length()) {
+            if (matches[i] != 0) {
+                int entry = matches[i] - 1;
+                out.append(replacements[entry]);
+                i += keys[entry].length();
+            } else {
+                out.append(text.charAt(i++));
+            }
+        }
+        return out.toString();
+    }
+
+    private static long transitionKey(int node, char c) {
+        return ((long) node << 16) | c;
+    }
+}
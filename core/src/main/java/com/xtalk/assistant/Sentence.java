@@ -0,0 +1,205 @@
+package com.xtalk.assistant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 正在组成的句子：有序的词语列表
+ *
+ * 末尾追加和撤销为 O(1)，任意位置插入、删除和移动按位置移动元素。
+ * 显示文本（词语间以空格分隔）和朗读文本（词语直接相连）在追加和撤销时增量维护，
+ * 其他修改后在下次读取时重新生成。
+ */
+public final class Sentence {
+
+    private static final String DISPLAY_SEPARATOR = " ";
+
+    private final ArrayList<SentenceToken> tokens = new ArrayList<>();
+    // 下一个词语的ID，句内递增
+    private long nextTokenId = 1;
+
+    // 显示文本和朗读文本，以及每个词语在其中的起始位置
+    private final StringBuilder display = new StringBuilder();
+    private final StringBuilder speech = new StringBuilder();
+    private int[] displayStarts = new int[16];
+    private int[] speechStarts = new int[16];
+    // 插入、删除或移动后文本需要重新生成
+    private boolean viewsDirty = false;
+    // 最近一次生成的字符串，修改后置空
+    private String displayText;
+    private String speechText;
+
+    /**
+     * 在末尾追加词语
+     */
+    public SentenceToken append(int phraseId, String text) {
+        SentenceToken token = new SentenceToken(nextTokenId++, phraseId, text);
+        if (!viewsDirty) {
+            appendToViews(tokens.size(), token);
+        }
+        tokens.add(token);
+        invalidateStrings();
+        return token;
+    }
+
+    /**
+     * 撤销最后一个词语，句子为空时返回 null
+     */
+    public SentenceToken removeLast() {
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        int last = tokens.size() - 1;
+        SentenceToken removed = tokens.remove(last);
+        if (!viewsDirty) {
+            display.setLength(displayStarts[last]);
+            speech.setLength(speechStarts[last]);
+        }
+        invalidateStrings();
+        return removed;
+    }
+
+    /**
+     * 在指定位置插入词语
+     */
+    public SentenceToken insert(int index, int phraseId, String text) {
+        if (index == tokens.size()) {
+            return append(phraseId, text);
+        }
+        SentenceToken token = new SentenceToken(nextTokenId++, phraseId, text);
+        tokens.add(index, token);
+        markDirty();
+        return token;
+    }
+
+    /**
+     * 删除指定位置的词语
+     */
+    public SentenceToken remove(int index) {
+        if (index == tokens.size() - 1) {
+            return removeLast();
+        }
+        SentenceToken removed = tokens.remove(index);
+        markDirty();
+        return removed;
+    }
+
+    /**
+     * 把词语从一个位置移动到另一个位置
+     */
+    public void move(int from, int to) {
+        if (from == to) {
+            return;
+        }
+        SentenceToken token = tokens.remove(from);
+        tokens.add(to, token);
+        markDirty();
+    }
+
+    /**
+     * 清空句子
+     */
+    public void clear() {
+        tokens.clear();
+        display.setLength(0);
+        speech.setLength(0);
+        viewsDirty = false;
+        invalidateStrings();
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    public boolean isEmpty() {
+        return tokens.isEmpty();
+    }
+
+    public SentenceToken get(int index) {
+        return tokens.get(index);
+    }
+
+    /**
+     * 词语ID所在的位置，不存在时返回-1
+     */
+    public int indexOf(long tokenId) {
+        for (int i = tokens.size() - 1; i >= 0; i--) {
+            if (tokens.get(i).getId() == tokenId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 只读的词语列表
+     */
+    public List<SentenceToken> tokens() {
+        return Collections.unmodifiableList(tokens);
+    }
+
+    /**
+     * 显示文本，词语间以空格分隔
+     */
+    public String displayText() {
+        if (displayText == null) {
+            rebuildViewsIfDirty();
+            displayText = display.toString();
+        }
+        return displayText;
+    }
+
+    /**
+     * 朗读文本，词语直接相连
+     */
+    public String speechText() {
+        if (speechText == null) {
+            rebuildViewsIfDirty();
+            speechText = speech.toString();
+        }
+        return speechText;
+    }
+
+    @Override
+    public String toString() {
+        return displayText();
+    }
+
+    private void appendToViews(int index, SentenceToken token) {
+        if (index == displayStarts.length) {
+            displayStarts = Arrays.copyOf(displayStarts, index * 2);
+            speechStarts = Arrays.copyOf(speechStarts, index * 2);
+        }
+        displayStarts[index] = display.length();
+        speechStarts[index] = speech.length();
+        if (index > 0) {
+            display.append(DISPLAY_SEPARATOR);
+        }
+        display.append(token.getText());
+        speech.append(token.getText());
+    }
+
+    private void rebuildViewsIfDirty() {
+        if (!viewsDirty) {
+            return;
+        }
+        display.setLength(0);
+        speech.setLength(0);
+        for (int i = 0; i < tokens.size(); i++) {
+            appendToViews(i, tokens.get(i));
+        }
+        viewsDirty = false;
+    }
+
+    private void markDirty() {
+        viewsDirty = true;
+        invalidateStrings();
+    }
+
+    private void invalidateStrings() {
+        displayText = null;
+        speechText = null;
+    }
+}
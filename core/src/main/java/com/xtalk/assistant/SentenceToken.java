@@ -0,0 +1,39 @@
+package com.xtalk.assistant;
+
+/**
+ * 句子中的一个词语
+ *
+ * 每个词语有句内唯一的ID，用于界面的稳定条目ID；来自词组时记录词组ID。
+ */
+public final class SentenceToken {
+
+    // 不是来自词组的词语（如手动输入）
+    public static final int NO_PHRASE = -1;
+
+    private final long id;
+    private final int phraseId;
+    private final String text;
+
+    SentenceToken(long id, int phraseId, String text) {
+        this.id = id;
+        this.phraseId = phraseId;
+        this.text = text;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getPhraseId() {
+        return phraseId;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,346 @@
+package com.xtalk.assistant;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 整句补全的前缀树，边为词组ID
+ *
+ * 每个说过的句子对应树中的一个结束节点，记录使用次数、最后使用时间和分数；
+ * 分数由调用方按使用时间折算后累加（见 {@link UsageTracker}），兼顾频率和新近程度。
+ * 节点以 父节点 / 第一个子节点 / 下一个兄弟节点 的下标保存在基本类型数组中，
+ * 序列化时直接写出这些数组，启动时原样读回，不需要逐句重新插入。
+ *
+ * 句子数量超过 {@link #MAX_SENTENCES} 时只保留分数最高的一部分重建。
+ * 读写由读写锁保护：查询在主线程持读锁，插入在后台线程持写锁。
+ */
+public final class SentenceTrie {
+
+    // 保存的句子上限，超过时压缩到 COMPACT_TO
+    static final int MAX_SENTENCES = 5000;
+    private static final int COMPACT_TO = 4000;
+    // 最长的句子，更长的句子不记录
+    static final int MAX_LENGTH = 16;
+    private static final int FILE_VERSION = 1;
+    private static final int NONE = -1;
+    private static final int ROOT = 0;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // 以下字段由 lock 保护
+    // 节点：到达该节点的词组ID、父节点、第一个子节点、下一个兄弟节点、结束于此的句子（NONE 表示没有）
+    private int[] nodePhrase;
+    private int[] nodeParent;
+    private int[] nodeFirstChild;
+    private int[] nodeNextSibling;
+    private int[] nodeSentence;
+    private int[] nodeDepth;
+    private int nodeCount;
+    // 句子：结束节点、使用次数、最后使用时间、分数
+    private int[] sentenceNode;
+    private int[] sentenceUses;
+    private long[] sentenceLastUsed;
+    private double[] sentenceScore;
+    private int sentenceCount;
+
+    public SentenceTrie() {
+        allocate(64, 16);
+        nodeCount = 1;
+        initNode(ROOT, 0, NONE, 0);
+    }
+
+    /**
+     * 记录一次说出的句子
+     *
+     * @param weight 本次使用折算后的分数
+     * @param time   使用时间
+     */
+    public void insert(int[] phraseIds, int length, double weight, long time) {
+        if (length == 0 || length > MAX_LENGTH) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int node = ROOT;
+            for (int i = 0; i < length; i++) {
+                int child = findChild(node, phraseIds[i]);
+                node = child != NONE ? child : addChild(node, phraseIds[i]);
+            }
+            int sentence = nodeSentence[node];
+            if (sentence == NONE) {
+                sentence = addSentence(node);
+            }
+            sentenceUses[sentence]++;
+            sentenceScore[sentence] += weight;
+            sentenceLastUsed[sentence] = Math.max(sentenceLastUsed[sentence], time);
+            if (sentenceCount > MAX_SENTENCES) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查找以给定词组序列开头、且比它更长的句子，按分数从高到低返回
+     *
+     * @param out 写入匹配的句子，每个句子为词组ID数组；长度即最多返回的数量
+     * @return 写入的数量
+     */
+    public int complete(int[] prefix, int prefixLength, int[][] out) {
+        lock.readLock().lock();
+        try {
+            int node = ROOT;
+            for (int i = 0; i < prefixLength && node != NONE; i++) {
+                node = findChild(node, prefix[i]);
+            }
+            if (node == NONE) {
+                return 0;
+            }
+            int limit = out.length;
+            int[] best = new int[limit];
+            int found = 0;
+            // 子树的先序遍历：先下到第一个子节点，没有时转到兄弟节点或回溯
+            int current = nodeFirstChild[node];
+            while (current != NONE) {
+                int sentence = nodeSentence[current];
+                if (sentence != NONE) {
+                    found = insertByScore(best, found, sentence);
+                }
+                if (nodeFirstChild[current] != NONE) {
+                    current = nodeFirstChild[current];
+                    continue;
+                }
+                while (current != node && nodeNextSibling[current] == NONE) {
+                    current = nodeParent[current];
+                }
+                current = current == node ? NONE : nodeNextSibling[current];
+            }
+            for (int i = 0; i < found; i++) {
+                out[i] = sequenceOf(sentenceNode[best[i]]);
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 保存的句子数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return sentenceCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写入紧凑的二进制格式：节点数组和句子数组
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(FILE_VERSION);
+            out.writeInt(nodeCount);
+            for (int i = 0; i < nodeCount; i++) {
+                out.writeInt(nodePhrase[i]);
+                out.writeInt(nodeParent[i]);
+                out.writeInt(nodeFirstChild[i]);
+                out.writeInt(nodeNextSibling[i]);
+                out.writeInt(nodeSentence[i]);
+                out.writeByte(nodeDepth[i]);
+            }
+            out.writeInt(sentenceCount);
+            for (int i = 0; i < sentenceCount; i++) {
+                out.writeInt(sentenceNode[i]);
+                out.writeInt(sentenceUses[i]);
+                out.writeLong(sentenceLastUsed[i]);
+                out.writeDouble(sentenceScore[i]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 读取 {@link #writeTo} 写入的前缀树
+     */
+    public static SentenceTrie readFrom(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FILE_VERSION) {
+            throw new IOException("不支持的前缀树版本: " + version);
+        }
+        SentenceTrie trie = new SentenceTrie();
+        int nodes = in.readInt();
+        if (nodes < 1) {
+            throw new IOException("前缀树文件已损坏");
+        }
+        trie.allocate(nodes, 16);
+        for (int i = 0; i < nodes; i++) {
+            trie.nodePhrase[i] = in.readInt();
+            trie.nodeParent[i] = in.readInt();
+            trie.nodeFirstChild[i] = in.readInt();
+            trie.nodeNextSibling[i] = in.readInt();
+            trie.nodeSentence[i] = in.readInt();
+            trie.nodeDepth[i] = in.readUnsignedByte();
+        }
+        trie.nodeCount = nodes;
+        int sentences = in.readInt();
+        trie.ensureSentenceCapacity(sentences);
+        for (int i = 0; i < sentences; i++) {
+            int node = in.readInt();
+            if (node <= ROOT || node >= nodes) {
+                throw new IOException("前缀树文件已损坏");
+            }
+            trie.sentenceNode[i] = node;
+            trie.sentenceUses[i] = in.readInt();
+            trie.sentenceLastUsed[i] = in.readLong();
+            trie.sentenceScore[i] = in.readDouble();
+        }
+        trie.sentenceCount = sentences;
+        return trie;
+    }
+
+    /**
+     * 按分数插入到已排序的结果中，返回新的结果数量
+     */
+    private int insertByScore(int[] best, int size, int sentence) {
+        double score = sentenceScore[sentence];
+        if (size == best.length && score <= sentenceScore[best[size - 1]]) {
+            return size;
+        }
+        int index = size < best.length ? size : best.length - 1;
+        while (index > 0 && sentenceScore[best[index - 1]] < score) {
+            best[index] = best[index - 1];
+            index--;
+        }
+        best[index] = sentence;
+        return Math.min(size + 1, best.length);
+    }
+
+    private int[] sequenceOf(int node) {
+        int[] ids = new int[nodeDepth[node]];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = nodePhrase[node];
+            node = nodeParent[node];
+        }
+        return ids;
+    }
+
+    private int findChild(int node, int phraseId) {
+        for (int child = nodeFirstChild[node]; child != NONE; child = nodeNextSibling[child]) {
+            if (nodePhrase[child] == phraseId) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    private int addChild(int parent, int phraseId) {
+        if (nodeCount == nodePhrase.length) {
+            growNodes(nodeCount * 2);
+        }
+        int node = nodeCount++;
+        initNode(node, phraseId, parent, nodeDepth[parent] + 1);
+        nodeNextSibling[node] = nodeFirstChild[parent];
+        nodeFirstChild[parent] = node;
+        return node;
+    }
+
+    private void initNode(int node, int phraseId, int parent, int depth) {
+        nodePhrase[node] = phraseId;
+        nodeParent[node] = parent;
+        nodeFirstChild[node] = NONE;
+        nodeNextSibling[node] = NONE;
+        nodeSentence[node] = NONE;
+        nodeDepth[node] = depth;
+    }
+
+    private int addSentence(int node) {
+        ensureSentenceCapacity(sentenceCount + 1);
+        int sentence = sentenceCount++;
+        sentenceNode[sentence] = node;
+        sentenceUses[sentence] = 0;
+        sentenceLastUsed[sentence] = 0;
+        sentenceScore[sentence] = 0;
+        nodeSentence[node] = sentence;
+        return sentence;
+    }
+
+    /**
+     * 只保留分数最高的句子，重建整棵树
+     */
+    private void compact() {
+        Integer[] order = new Integer[sentenceCount];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(sentenceScore[b], sentenceScore[a]));
+        int kept = Math.min(COMPACT_TO, order.length);
+        int[][] sequences = new int[kept][];
+        int[] uses = new int[kept];
+        long[] lastUsed = new long[kept];
+        double[] scores = new double[kept];
+        for (int i = 0; i < kept; i++) {
+            int sentence = order[i];
+            sequences[i] = sequenceOf(sentenceNode[sentence]);
+            uses[i] = sentenceUses[sentence];
+            lastUsed[i] = sentenceLastUsed[sentence];
+            scores[i] = sentenceScore[sentence];
+        }
+        allocate(64, kept);
+        nodeCount = 1;
+        initNode(ROOT, 0, NONE, 0);
+        sentenceCount = 0;
+        for (int i = 0; i < kept; i++) {
+            int node = ROOT;
+            for (int id : sequences[i]) {
+                int child = findChild(node, id);
+                node = child != NONE ? child : addChild(node, id);
+            }
+            int sentence = addSentence(node);
+            sentenceUses[sentence] = uses[i];
+            sentenceLastUsed[sentence] = lastUsed[i];
+            sentenceScore[sentence] = scores[i];
+        }
+    }
+
+    private void allocate(int nodes, int sentences) {
+        nodePhrase = new int[nodes];
+        nodeParent = new int[nodes];
+        nodeFirstChild = new int[nodes];
+        nodeNextSibling = new int[nodes];
+        nodeSentence = new int[nodes];
+        nodeDepth = new int[nodes];
+        sentenceNode = new int[sentences];
+        sentenceUses = new int[sentences];
+        sentenceLastUsed = new long[sentences];
+        sentenceScore = new double[sentences];
+    }
+
+    private void growNodes(int capacity) {
+        nodePhrase = Arrays.copyOf(nodePhrase, capacity);
+        nodeParent = Arrays.copyOf(nodeParent, capacity);
+        nodeFirstChild = Arrays.copyOf(nodeFirstChild, capacity);
+        nodeNextSibling = Arrays.copyOf(nodeNextSibling, capacity);
+        nodeSentence = Arrays.copyOf(nodeSentence, capacity);
+        nodeDepth = Arrays.copyOf(nodeDepth, capacity);
+    }
+
+    private void ensureSentenceCapacity(int required) {
+        if (required <= sentenceNode.length) {
+            return;
+        }
+        int capacity = Math.max(required, sentenceNode.length * 2);
+        sentenceNode = Arrays.copyOf(sentenceNode, capacity);
+        sentenceUses = Arrays.copyOf(sentenceUses, capacity);
+        sentenceLastUsed = Arrays.copyOf(sentenceLastUsed, capacity);
+        sentenceScore = Arrays.copyOf(sentenceScore, capacity);
+    }
+}
@@ -0,0 +1,171 @@
+package com.xtalk.assistant;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 朗读前的句子整理：按顺序排列的一组预先构建好的规则，对整句只扫描一遍
+ *
+ * 从左到右扫描，在每个位置依次尝试各条规则，第一条适用的规则消耗输入并写出结果；
+ * 都不适用时原样输出一个字符。因此排在前面的规则优先，例如读音替换应排在标点之前。
+ * 扫描结束后各条规则按顺序整理句末。
+ *
+ * 构建时为每个字符记下可能适用的规则（位掩码），扫描时不会触发任何规则的连续字符整段复制，
+ * 大部分汉字不经过任何规则。
+ *
+ * 不同语音使用不同的规则组合，见 {@link #forLanguage(String)}。读音词典（见 {@link #withDictionary}）
+ * 在所有规则之前：命中的词条直接输出替换文字，替换文字不再经过其他规则（拼音提示中的数字保持原样）。
+ */
+public final class SpeechPipeline {
+
+    // 规则数上限，由触发表的位宽决定
+    static final int MAX_RULES = 8;
+
+    private final SpeechRule[] rules;
+    // 字符 → 可能适用的规则的位掩码
+    private final byte[] triggers;
+    private final PronunciationDictionary dictionary;
+
+    private SpeechPipeline(List<SpeechRule> rules) {
+        if (rules.size() > MAX_RULES) {
+            throw new IllegalArgumentException("规则过多：" + rules.size());
+        }
+        this.rules = rules.toArray(new SpeechRule[0]);
+        this.triggers = new byte[Character.MAX_VALUE + 1];
+        this.dictionary = PronunciationDictionary.EMPTY;
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            int mask = 0;
+            for (int r = 0; r < this.rules.length; r++) {
+                if (this.rules[r].triggeredBy((char) c)) {
+                    mask |= 1 << r;
+                }
+            }
+            triggers[c] = (byte) mask;
+        }
+    }
+
+    private SpeechPipeline(SpeechPipeline base, PronunciationDictionary dictionary) {
+        this.rules = base.rules;
+        this.triggers = base.triggers;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * 语音语言对应的默认流程；language 为 ISO 639 语言代码，未知时传null，按中文处理
+     */
+    public static SpeechPipeline forLanguage(String language) {
+        if (isChinese(language)) {
+            return chineseRules()
+                    .add(SpeechRules.terminalPunctuation('。', "。！？…"))
+                    .build();
+        }
+        // 其他语言保留半角标点，句末补英文句号
+        return new Builder()
+                .add(SpeechRules.joinWhitespace())
+                .add(SpeechRules.terminalPunctuation('.', ".!?。！？…"))
+                .build();
+    }
+
+    /**
+     * 边输入边朗读使用的流程：规则与 {@link #forLanguage(String)} 相同，但不补句末标点，
+     * 合并朗读的几个词语只是句子的一部分
+     */
+    public static SpeechPipeline forStreaming(String language) {
+        if (isChinese(language)) {
+            return chineseRules().build();
+        }
+        return new Builder()
+                .add(SpeechRules.joinWhitespace())
+                .build();
+    }
+
+    private static boolean isChinese(String language) {
+        return language == null || language.isEmpty() || "zh".equals(language) || "zho".equals(language);
+    }
+
+    private static Builder chineseRules() {
+        return new Builder()
+                .add(SpeechRules.joinWhitespace())
+                .add(SpeechRules.chineseNumerals())
+                .add(SpeechRules.fullWidthPunctuation());
+    }
+
+    /**
+     * 规则相同、使用指定读音词典的流程，与原流程共用触发表，可以在词典变化时频繁调用
+     */
+    public SpeechPipeline withDictionary(PronunciationDictionary newDictionary) {
+        return new SpeechPipeline(this, newDictionary != null ? newDictionary : PronunciationDictionary.EMPTY);
+    }
+
+    public PronunciationDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * 整理句子的朗读文本（词语直接相连）
+     */
+    public String normalize(Sentence sentence) {
+        return normalize(sentence.speechText());
+    }
+
+    /**
+     * 整理一段文本
+     */
+    public String normalize(CharSequence text) {
+        int length = text.length();
+        StringBuilder out = new StringBuilder(length + 1);
+        // 读音词典命中的位置，没有命中时为null
+        int[] matches = dictionary.scan(text);
+        int i = 0;
+        while (i < length) {
+            int runStart = i;
+            while (i < length && triggers[text.charAt(i)] == 0 && (matches == null || matches[i] == 0)) {
+                i++;
+            }
+            if (i > runStart) {
+                out.append(text, runStart, i);
+                if (i == length) {
+                    break;
+                }
+            }
+            if (matches != null && matches[i] != 0) {
+                int entry = matches[i] - 1;
+                out.append(dictionary.replacement(entry));
+                i += dictionary.keyLength(entry);
+                continue;
+            }
+            int mask = triggers[text.charAt(i)] & 0xFF;
+            int used = 0;
+            for (int r = 0; mask != 0 && used == 0; r++, mask >>>= 1) {
+                if ((mask & 1) != 0) {
+                    used = rules[r].rewrite(text, i, out);
+                }
+            }
+            if (used > 0) {
+                i += used;
+            } else {
+                out.append(text.charAt(i++));
+            }
+        }
+        for (SpeechRule rule : rules) {
+            rule.finish(out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * 按顺序组合规则
+     */
+    public static final class Builder {
+        private final List<SpeechRule> rules = new ArrayList<>();
+
+        public Builder add(SpeechRule rule) {
+            rules.add(rule);
+            return this;
+        }
+
+        public SpeechPipeline build() {
+            return new SpeechPipeline(rules);
+        }
+    }
+}
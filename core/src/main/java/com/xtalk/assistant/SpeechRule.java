@@ -0,0 +1,30 @@
+package com.xtalk.assistant;
+
+/**
+ * 朗读文本整理流程中的一条规则，见 {@link SpeechPipeline}
+ *
+ * 规则不保存状态，可以在多个线程中共用；需要的表在构造时准备好，处理时不分配内存。
+ * 只有 {@link #triggeredBy(char)} 为true的字符才会调用 {@link #rewrite}。
+ */
+public interface SpeechRule {
+
+    /**
+     * 规则是否可能在以 c 开头的位置适用；只在构建流程时调用，用于跳过不相关的字符
+     */
+    boolean triggeredBy(char c);
+
+    /**
+     * 尝试在 start 位置改写输入
+     *
+     * @param text 整句的朗读文本
+     * @param out  已经输出的内容，规则可以查看末尾的字符决定如何改写
+     * @return 消耗的输入字符数；规则不适用时返回0，且不能修改 out
+     */
+    int rewrite(CharSequence text, int start, StringBuilder out);
+
+    /**
+     * 全部输入处理完后调用，可以修改句末
+     */
+    default void finish(StringBuilder out) {
+    }
+}
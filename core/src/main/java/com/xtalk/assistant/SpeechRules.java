@@ -0,0 +1,157 @@
+package com.xtalk.assistant;
+
+/**
+ * 朗读文本整理的基本规则
+ */
+public final class SpeechRules {
+
+    private static final SpeechRule JOIN_WHITESPACE = new JoinWhitespace();
+    private static final SpeechRule FULL_WIDTH_PUNCTUATION = new FullWidthPunctuation();
+
+    private SpeechRules() {
+    }
+
+    /**
+     * 去掉空白，使词组之间没有停顿；只有两侧都是拉丁字母或数字时保留一个空格，避免英文单词连在一起
+     */
+    public static SpeechRule joinWhitespace() {
+        return JOIN_WHITESPACE;
+    }
+
+    /**
+     * 数字按中文读法改写，见 {@link ChineseNumerals}；应排在标点规则之前，数字中的小数点和冒号由它处理
+     */
+    public static SpeechRule chineseNumerals() {
+        return ChineseNumerals.INSTANCE;
+    }
+
+    /**
+     * 半角标点改为中文全角标点（数字中的小数点和时间的冒号除外），连续的同一个标点只保留一个，
+     * 句首的标点去掉
+     */
+    public static SpeechRule fullWidthPunctuation() {
+        return FULL_WIDTH_PUNCTUATION;
+    }
+
+    /**
+     * 句末以停顿类标点（逗号、顿号等）结尾时改为 terminal，没有结束标点时补上 terminal
+     *
+     * @param endings 视为句子已经结束的标点
+     */
+    public static SpeechRule terminalPunctuation(char terminal, String endings) {
+        return new TerminalPunctuation(terminal, endings);
+    }
+
+    static boolean isLatinOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static final class JoinWhitespace implements SpeechRule {
+        @Override
+        public boolean triggeredBy(char c) {
+            return Character.isWhitespace(c);
+        }
+
+        @Override
+        public int rewrite(CharSequence text, int start, StringBuilder out) {
+            if (!Character.isWhitespace(text.charAt(start))) {
+                return 0;
+            }
+            int end = start + 1;
+            while (end < text.length() && Character.isWhitespace(text.charAt(end))) {
+                end++;
+            }
+            int outLength = out.length();
+            if (outLength > 0 && end < text.length()
+                    && isLatinOrDigit(out.charAt(outLength - 1)) && isLatinOrDigit(text.charAt(end))) {
+                out.append(' ');
+            }
+            return end - start;
+        }
+    }
+
+    private static final class FullWidthPunctuation implements SpeechRule {
+        // 半角标点 → 全角标点，0 表示不处理
+        private static final char[] FULL_WIDTH = new char[128];
+        // 需要去重的全角标点
+        private static final String COLLAPSIBLE = "，、。；：！？";
+
+        static {
+            FULL_WIDTH[','] = '，';
+            FULL_WIDTH['.'] = '。';
+            FULL_WIDTH[';'] = '；';
+            FULL_WIDTH[':'] = '：';
+            FULL_WIDTH['!'] = '！';
+            FULL_WIDTH['?'] = '？';
+        }
+
+        @Override
+        public boolean triggeredBy(char c) {
+            return c < 128 ? FULL_WIDTH[c] != 0 : COLLAPSIBLE.indexOf(c) >= 0;
+        }
+
+        @Override
+        public int rewrite(CharSequence text, int start, StringBuilder out) {
+            char c = text.charAt(start);
+            char mapped = c < 128 ? FULL_WIDTH[c] : (COLLAPSIBLE.indexOf(c) >= 0 ? c : 0);
+            if (mapped == 0) {
+                return 0;
+            }
+            int outLength = out.length();
+            char previous = outLength > 0 ? out.charAt(outLength - 1) : 0;
+            // 3.5、10:30 中的点和冒号保持原样
+            if ((c == '.' || c == ':') && isDigit(previous)
+                    && start + 1 < text.length() && isDigit(text.charAt(start + 1))) {
+                return 0;
+            }
+            if (outLength > 0 && previous != mapped) {
+                out.append(mapped);
+            }
+            return 1;
+        }
+    }
+
+    private static final class TerminalPunctuation implements SpeechRule {
+        // 句末出现时改为结束标点的停顿类标点
+        private static final String PAUSES = "，、；：,;:";
+
+        private final char terminal;
+        private final String endings;
+
+        TerminalPunctuation(char terminal, String endings) {
+            this.terminal = terminal;
+            this.endings = endings;
+        }
+
+        @Override
+        public boolean triggeredBy(char c) {
+            return false;
+        }
+
+        @Override
+        public int rewrite(CharSequence text, int start, StringBuilder out) {
+            return 0;
+        }
+
+        @Override
+        public void finish(StringBuilder out) {
+            int last = out.length() - 1;
+            while (last >= 0 && out.charAt(last) == ' ') {
+                out.setLength(last--);
+            }
+            if (last < 0) {
+                return;
+            }
+            char c = out.charAt(last);
+            if (PAUSES.indexOf(c) >= 0) {
+                out.setCharAt(last, terminal);
+            } else if (endings.indexOf(c) < 0) {
+                out.append(terminal);
+            }
+        }
+    }
+}
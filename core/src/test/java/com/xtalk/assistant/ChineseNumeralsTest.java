@@ -0,0 +1,99 @@
+package com.xtalk.assistant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * 数值读法的往返核对：读成中文后再解析回数值，保证零、两、十几的省略在整个范围内都能还原
+ *
+ * 具体句子的读法见 speech_golden.tsv。
+ */
+public class ChineseNumeralsTest {
+
+    private static final int EXHAUSTIVE_LIMIT = 1000000;
+    private static final long SAMPLED_LIMIT = 1000000000000L;
+    private static final int SAMPLE_COUNT = 200000;
+
+    private final SpeechPipeline pipeline = SpeechPipeline.forLanguage("zh");
+
+    @Test
+    public void roundTripsEveryValueBelowOneMillion() {
+        for (long value = 0; value < EXHAUSTIVE_LIMIT; value++) {
+            checkValue(value);
+        }
+    }
+
+    @Test
+    public void roundTripsSampledValuesBelowOneTrillion() {
+        Random random = new Random(13);
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            checkValue((long) (random.nextDouble() * SAMPLED_LIMIT));
+        }
+        checkValue(SAMPLED_LIMIT - 1);
+    }
+
+    @Test
+    public void parsesReadings() {
+        assertEquals(10, parseReading("十"));
+        assertEquals(205, parseReading("两百零五"));
+        assertEquals(100020000L, parseReading("一亿零二万"));
+        assertEquals(-1, parseReading("三点五"));
+    }
+
+    /**
+     * 后面跟量词时数字一定按数值读，读出后去掉“个。”再解析
+     */
+    private void checkValue(long value) {
+        String spoken = pipeline.normalize(value + "个");
+        assertTrue("读法不符：" + value + " 得到 [" + spoken + "]", spoken.endsWith("个。"));
+        String reading = spoken.substring(0, spoken.length() - 2);
+        assertEquals("读法不能还原：" + value + " 读作 [" + reading + "]", value, parseReading(reading));
+    }
+
+    /**
+     * 中文数值读法解析为整数，接受“两”和开头省略“一”的“十”；不是数值读法时返回-1
+     */
+    static long parseReading(String reading) {
+        long total = 0;
+        long section = 0;
+        long number = 0;
+        boolean digitSeen = false;
+        for (int i = 0; i < reading.length(); i++) {
+            char c = reading.charAt(i);
+            int digit = c == '两' ? 2 : ChineseNumerals.DIGITS.indexOf(c);
+            if (digit >= 0) {
+                number = digit;
+                digitSeen = true;
+                continue;
+            }
+            switch (c) {
+                case '十':
+                    section += (digitSeen ? number : 1) * 10;
+                    break;
+                case '百':
+                    section += number * 100;
+                    break;
+                case '千':
+                    section += number * 1000;
+                    break;
+                case '万':
+                    total += (section + number) * 10000;
+                    section = 0;
+                    break;
+                case '亿':
+                    total = (total + section + number) * 100000000L;
+                    section = 0;
+                    break;
+                default:
+                    return -1;
+            }
+            number = 0;
+            digitSeen = true;
+        }
+        return total + section + number;
+    }
+}
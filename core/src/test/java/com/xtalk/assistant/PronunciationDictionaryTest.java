@@ -0,0 +1,157 @@
+package com.xtalk.assistant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 读音词典：自动机的替换结果与逐位置查找最长词条的结果一致，以及重叠、后缀、空替换等边界情况
+ */
+public class PronunciationDictionaryTest {
+
+    private static final int MAX_KEY_LENGTH = 4;
+    private static final int RANDOM_KEYS = 300;
+    private static final int RANDOM_SENTENCES = 2000;
+    // 字符很少，随机的词条和句子之间有大量重叠、前缀和后缀
+    private static final String ALPHABET = "重新行长大人银3";
+
+    @Test
+    public void matchesNaiveLongestMatchOnRandomText() {
+        Random random = new Random(17);
+        Map<String, String> map = new HashMap<>();
+        while (map.size() < RANDOM_KEYS) {
+            String key = randomText(random, 1 + random.nextInt(MAX_KEY_LENGTH));
+            map.put(key, "<" + map.size() + ">");
+        }
+        PronunciationDictionary dictionary = PronunciationDictionary.of(map);
+        SpeechPipeline dictionaryOnly = new SpeechPipeline.Builder().build().withDictionary(dictionary);
+        for (int n = 0; n < RANDOM_SENTENCES; n++) {
+            String text = randomText(random, random.nextInt(40));
+            String expected = naiveReplace(text, map);
+            assertEquals("[" + text + "]", expected, dictionary.apply(text));
+            assertEquals("[" + text + "]", expected, dictionaryOnly.normalize(text));
+        }
+    }
+
+    @Test
+    public void overlappingKeysTakeTheLeftmost() {
+        PronunciationDictionary dictionary = dictionary("长大", "涨大", "大人", "达人");
+        assertEquals("涨大人", dictionary.apply("长大人"));
+        assertEquals("很达人", dictionary.apply("很大人"));
+    }
+
+    @Test
+    public void longerKeyWinsAtTheSamePosition() {
+        PronunciationDictionary dictionary = dictionary("重", "虫", "重新", "崇新");
+        assertEquals("崇新来", dictionary.apply("重新来"));
+        assertEquals("很虫", dictionary.apply("很重"));
+    }
+
+    @Test
+    public void keyThatIsASuffixOfAnother() {
+        PronunciationDictionary dictionary = dictionary("银行长", "[银行长]", "行长", "[行长]");
+        assertEquals("[银行长]", dictionary.apply("银行长"));
+        assertEquals("副[行长]", dictionary.apply("副行长"));
+        assertEquals("银[银行长]", dictionary.apply("银银行长"));
+    }
+
+    @Test
+    public void keysFoundOnlyThroughFailureLinks() {
+        // “银行” 不是词条，扫描“银行长大”时要沿失败链接找到“行长”和“长大”
+        PronunciationDictionary dictionary = dictionary("银行家", "YHJ", "行长", "HZ", "长大", "ZD");
+        assertEquals("银HZ大", dictionary.apply("银行长大"));
+        assertEquals("YHJ", dictionary.apply("银行家"));
+    }
+
+    @Test
+    public void emptyReplacementDropsTheText() {
+        PronunciationDictionary dictionary = dictionary("嗯", "");
+        assertEquals("好的", dictionary.apply("嗯好的"));
+        assertEquals("好的。", SpeechPipeline.forLanguage("zh").withDictionary(dictionary).normalize("嗯 好的"));
+    }
+
+    @Test
+    public void unchangedTextIsReturnedAsIs() {
+        PronunciationDictionary dictionary = dictionary("行长", "航掌");
+        String text = "我想喝水";
+        assertSame(text, dictionary.apply(text));
+        assertSame(text, PronunciationDictionary.EMPTY.apply(text));
+    }
+
+    @Test
+    public void engineEntryOverridesAllEngineEntry() {
+        Pronunciation shared = new Pronunciation(1, Pronunciation.ALL_ENGINES, "行长", "航长");
+        Pronunciation engine = new Pronunciation(2, "com.example.tts", "行长", "杭掌");
+        Pronunciation other = new Pronunciation(3, Pronunciation.ALL_ENGINES, "重新", "虫新");
+        assertEquals("杭掌虫新",
+                PronunciationDictionary.forEntries(Arrays.asList(shared, engine, other)).apply("行长重新"));
+        // 与顺序无关
+        assertEquals("杭掌虫新",
+                PronunciationDictionary.forEntries(Arrays.asList(engine, other, shared)).apply("行长重新"));
+        assertEquals("航长", PronunciationDictionary.forEntries(Collections.singletonList(shared)).apply("行长"));
+        assertTrue(PronunciationDictionary.forEntries(Collections.<Pronunciation>emptyList()).isEmpty());
+    }
+
+    @Test
+    public void matchesNextToDigits() {
+        SpeechPipeline pipeline = SpeechPipeline.forLanguage("zh")
+                .withDictionary(dictionary("号楼", "号搂", "5G", "五鸡", "二维码", "2维码"));
+        // 数字在词条前面：数字照常读，词条照常替换
+        assertEquals("三号搂。", pipeline.normalize("3号楼"));
+        // 数字在词条里面：整个词条替换，数字不再按数字读
+        assertEquals("用五鸡上网。", pipeline.normalize("用5G上网"));
+        // 替换文字中的数字不会再按数字读
+        assertEquals("扫2维码。", pipeline.normalize("扫二维码"));
+        // 数字在词条后面
+        assertEquals("号搂十二层。", pipeline.normalize("号楼12层"));
+    }
+
+    private static PronunciationDictionary dictionary(String... pairs) {
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            map.put(pairs[i], pairs[i + 1]);
+        }
+        return PronunciationDictionary.of(map);
+    }
+
+    /**
+     * 从左到右，每个位置查找最长的词条
+     */
+    private static String naiveReplace(String text, Map<String, String> map) {
+        StringBuilder out = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            String replacement = null;
+            int length = Math.min(MAX_KEY_LENGTH, text.length() - i);
+            for (; length > 0; length--) {
+                replacement = map.get(text.substring(i, i + length));
+                if (replacement != null) {
+                    break;
+                }
+            }
+            if (replacement != null) {
+                out.append(replacement);
+                i += length;
+            } else {
+                out.append(text.charAt(i++));
+            }
+        }
+        return out.toString();
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package com.xtalk.assistant;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 朗读文本整理的期望输出，每行一个用例：语言、输入、期望输出，以 Tab 分隔（见 speech_golden.tsv）
+ */
+@RunWith(Parameterized.class)
+public class SpeechPipelineGoldenTest {
+
+    private final String language;
+    private final String input;
+    private final String expected;
+
+    public SpeechPipelineGoldenTest(String language, String input, String expected) {
+        this.language = language;
+        this.input = input;
+        this.expected = expected;
+    }
+
+    @Parameterized.Parameters(name = "{0}: [{1}]")
+    public static List<Object[]> cases() throws IOException {
+        List<Object[]> cases = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                SpeechPipelineGoldenTest.class.getResourceAsStream("/speech_golden.tsv"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                cases.add(new Object[]{fields[0], fields[1], fields[2]});
+            }
+        }
+        return cases;
+    }
+
+    @Test
+    public void normalize() {
+        assertEquals(expected, SpeechPipeline.forLanguage(language).normalize(input));
+    }
+}
@@ -0,0 +1,34 @@
+package com.xtalk.assistant;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+/**
+ * 边输入边朗读的流程：规则与默认流程相同，但不补句末标点
+ */
+public class SpeechPipelineTest {
+
+    @Test
+    public void streamingAppliesRulesWithoutTerminal() {
+        assertEquals("我要三个，", SpeechPipeline.forStreaming("zh").normalize("我要 3个,"));
+    }
+
+    @Test
+    public void streamingKeepsExistingTerminal() {
+        assertEquals("好了。", SpeechPipeline.forStreaming("zh").normalize("好了."));
+    }
+
+    @Test
+    public void streamingOtherLanguageOnlyJoinsWhitespace() {
+        assertEquals("I want water", SpeechPipeline.forStreaming("en").normalize("I  want\twater"));
+    }
+
+    @Test
+    public void streamingUsesDictionary() {
+        PronunciationDictionary dictionary = PronunciationDictionary.of(Collections.singletonMap("重新", "虫新"));
+        assertEquals("虫新来", SpeechPipeline.forStreaming("zh").withDictionary(dictionary).normalize("重新来"));
+    }
+}
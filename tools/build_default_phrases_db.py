@@ -0,0 +1,82 @@
+#!/usr/bin/env python3
+"""
+生成预置词组数据库 app/src/main/assets/databases/default_phrases.db
+
+用法：python3 tools/build_default_phrases_db.py
+
+修改 tools/default_phrases.tsv 后重新运行本脚本，并同步递增
+DatabaseHelper.DEFAULT_PHRASES_VERSION 与下面的 DEFAULT_PHRASES_VERSION，
+已安装的用户会在下次打开数据库时合并新增的默认词组。
+表结构变化时需同步修改 SCHEMA_VERSION 与建表语句，使其与 DatabaseHelper 保持一致。
+"""
+import os
+import sqlite3
+
+# 与 DatabaseHelper.DATABASE_VERSION 保持一致
+SCHEMA_VERSION = 9
+# 与 DatabaseHelper.DEFAULT_PHRASES_VERSION 保持一致
+DEFAULT_PHRASES_VERSION = 1
+
+ROOT = os.path.dirname(os.path.dirname(os.path.abspath(__file__)))
+SOURCE = os.path.join(ROOT, "tools", "default_phrases.tsv")
+TARGET = os.path.join(ROOT, "app", "src", "main", "assets", "databases", "default_phrases.db")
+
+
+def search_text(content):
+    """与 PhraseSearchText.of() 一致：去掉空白，逐字用空格分隔"""
+    return " ".join(c for c in content if not c.isspace())
+
+
+def read_phrases():
+    phrases = []
+    with open(SOURCE, encoding="utf-8") as f:
+        for line in f:
+            line = line.rstrip("\n")
+            if not line or line.startswith("#"):
+                continue
+            category, content = line.split("\t")
+            phrases.append((category, content, search_text(content)))
+    return phrases
+
+
+def main():
+    os.makedirs(os.path.dirname(TARGET), exist_ok=True)
+    if os.path.exists(TARGET):
+        os.remove(TARGET)
+    db = sqlite3.connect(TARGET)
+    db.execute("PRAGMA journal_mode=DELETE")
+    db.execute("CREATE TABLE phrase(id INTEGER PRIMARY KEY AUTOINCREMENT,category TEXT,content TEXT,"
+               "search_text TEXT)")
+    db.execute("CREATE INDEX IF NOT EXISTS idx_phrase_category_content ON phrase(category, content)")
+    db.execute("CREATE INDEX IF NOT EXISTS idx_phrase_content ON phrase(content)")
+    db.execute('CREATE VIRTUAL TABLE IF NOT EXISTS phrase_fts USING fts4(content="phrase", search_text)')
+    delete_old = " BEGIN DELETE FROM phrase_fts WHERE docid = old.id; END"
+    insert_new = " BEGIN INSERT INTO phrase_fts(docid, search_text) VALUES (new.id, new.search_text); END"
+    db.execute("CREATE TRIGGER IF NOT EXISTS phrase_fts_bu BEFORE UPDATE ON phrase" + delete_old)
+    db.execute("CREATE TRIGGER IF NOT EXISTS phrase_fts_bd BEFORE DELETE ON phrase" + delete_old)
+    db.execute("CREATE TRIGGER IF NOT EXISTS phrase_fts_au AFTER UPDATE ON phrase" + insert_new)
+    db.execute("CREATE TRIGGER IF NOT EXISTS phrase_fts_ai AFTER INSERT ON phrase" + insert_new)
+    db.execute("CREATE TABLE IF NOT EXISTS app_meta(key TEXT PRIMARY KEY,value TEXT)")
+    db.execute("CREATE TABLE IF NOT EXISTS phrase_usage(phrase_id INTEGER PRIMARY KEY,"
+               "tap_count INTEGER NOT NULL DEFAULT 0,spoken_count INTEGER NOT NULL DEFAULT 0,"
+               "score REAL NOT NULL DEFAULT 0,last_used INTEGER NOT NULL DEFAULT 0)")
+    db.execute("CREATE TABLE IF NOT EXISTS sentence_history(id INTEGER PRIMARY KEY AUTOINCREMENT,"
+               "hash INTEGER NOT NULL,text TEXT NOT NULL,tokens TEXT NOT NULL,phrase_ids TEXT NOT NULL,"
+               "use_count INTEGER NOT NULL DEFAULT 1,last_used INTEGER NOT NULL)")
+    db.execute("CREATE INDEX IF NOT EXISTS idx_history_hash ON sentence_history(hash)")
+    db.execute("CREATE INDEX IF NOT EXISTS idx_history_last_used ON sentence_history(last_used, id)")
+    db.execute("CREATE TABLE IF NOT EXISTS pronunciation(id INTEGER PRIMARY KEY AUTOINCREMENT,"
+               "engine TEXT NOT NULL DEFAULT '',text TEXT NOT NULL,replacement TEXT NOT NULL)")
+    db.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_pronunciation_engine_text ON pronunciation(engine, text)")
+    db.executemany("INSERT INTO phrase(category, content, search_text) VALUES (?, ?, ?)", read_phrases())
+    db.execute("INSERT INTO app_meta(key, value) VALUES ('default_phrases_version', ?)",
+               (str(DEFAULT_PHRASES_VERSION),))
+    db.execute("PRAGMA user_version = %d" % SCHEMA_VERSION)
+    db.commit()
+    db.execute("VACUUM")
+    db.close()
+    print("written", TARGET)
+
+
+if __name__ == "__main__":
+    main()
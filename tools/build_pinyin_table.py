@@ -0,0 +1,87 @@
+#!/usr/bin/env python3
+"""
+生成汉字拼音表 app/src/main/assets/pinyin/pinyin_table.bin
+
+用法：python3 tools/build_pinyin_table.py path/to/pinyin4j-2.5.1.jar
+
+数据来自 pinyin4j 的 pinyindb/unicode_to_hanyu_pinyin.txt（每行形如 "4E50 (le4,yue4)"）。
+去掉声调，ü 写作 v（与拼音输入法的键位一致），同一个字的重复读音只保留一个。
+
+文件格式（大端，与 PinyinTable.readFrom() 保持一致）：
+    int    MAGIC
+    int    FORMAT_VERSION
+    short  音节数 S，随后 S 个 writeUTF 格式的音节
+    int    第一个码点 FIRST，int 码点个数 N
+    N+1 个 char（无符号 short）：每个码点读音在读音数组中的起始位置（最后一个为总数）
+    总数个 short：音节序号
+"""
+import struct
+import sys
+import zipfile
+
+MAGIC = 0x50594E31  # "PYN1"
+FORMAT_VERSION = 1
+ENTRY = "pinyindb/unicode_to_hanyu_pinyin.txt"
+TARGET = "app/src/main/assets/pinyin/pinyin_table.bin"
+
+
+def normalize(reading):
+    """去掉声调数字，u: 写作 v；无读音的条目返回None"""
+    syllable = reading.strip().rstrip("012345").replace("u:", "v")
+    if not syllable or syllable == "none" or not syllable.isalpha():
+        return None
+    return syllable
+
+
+def read_table(jar_path):
+    table = {}
+    with zipfile.ZipFile(jar_path) as jar:
+        for line in jar.read(ENTRY).decode("utf-8").splitlines():
+            line = line.strip()
+            if not line:
+                continue
+            code, readings = line.split(" ", 1)
+            syllables = []
+            for reading in readings.strip("()").split(","):
+                syllable = normalize(reading)
+                if syllable and syllable not in syllables:
+                    syllables.append(syllable)
+            if syllables:
+                table[int(code, 16)] = syllables
+    return table
+
+
+def write_utf(out, text):
+    data = text.encode("utf-8")
+    out.append(struct.pack(">H", len(data)) + data)
+
+
+def main():
+    if len(sys.argv) != 2:
+        sys.exit(__doc__)
+    table = read_table(sys.argv[1])
+    syllables = sorted({s for readings in table.values() for s in readings})
+    index = {s: i for i, s in enumerate(syllables)}
+    first, last = min(table), max(table)
+
+    out = [struct.pack(">ii", MAGIC, FORMAT_VERSION), struct.pack(">h", len(syllables))]
+    for syllable in syllables:
+        write_utf(out, syllable)
+    out.append(struct.pack(">ii", first, last - first + 1))
+    offsets, data = [], []
+    for code in range(first, last + 1):
+        offsets.append(len(data))
+        data.extend(index[s] for s in table.get(code, ()))
+    offsets.append(len(data))
+    if len(data) > 0xFFFF:
+        sys.exit("读音总数超出 char 偏移的范围")
+    out.append(struct.pack(">%dH" % len(offsets), *offsets))
+    out.append(struct.pack(">%dh" % len(data), *data))
+
+    with open(TARGET, "wb") as f:
+        f.write(b"".join(out))
+    print("written", TARGET, "characters", len(table), "syllables", len(syllables))
+
+
+if __name__ == "__main__":
+    main()
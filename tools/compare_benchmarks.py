@@ -0,0 +1,70 @@
+#!/usr/bin/env python3
+"""
+比较两次 JMH 基准测试的结果，列出变慢超过阈值的项目
+
+用法：python3 tools/compare_benchmarks.py benchmark/results/1.0.json benchmark/results/1.1.json [阈值]
+
+阈值默认 0.15（15%）。只有变化超过阈值、且超出两次结果误差之和的项目才算退化，
+避免把测量噪声当成退化。有退化时以状态 1 退出，可以放在发布前的检查中。
+"""
+import json
+import sys
+
+DEFAULT_THRESHOLD = 0.15
+
+
+def load(path):
+    """(基准名, 参数) -> (分数, 误差, 单位, 模式)"""
+    with open(path, encoding="utf-8") as f:
+        results = json.load(f)
+    table = {}
+    for result in results:
+        params = ",".join(f"{k}={v}" for k, v in sorted((result.get("params") or {}).items()))
+        metric = result["primaryMetric"]
+        error = metric.get("scoreError")
+        if not isinstance(error, (int, float)) or error != error:  # NaN
+            error = 0.0
+        key = (result["benchmark"].rsplit(".", 2)[-2] + "." + result["benchmark"].rsplit(".", 1)[-1], params)
+        table[key] = (metric["score"], error, metric["scoreUnit"], result["mode"])
+    return table
+
+
+def main():
+    if len(sys.argv) not in (3, 4):
+        print(__doc__.strip())
+        sys.exit(2)
+    old = load(sys.argv[1])
+    new = load(sys.argv[2])
+    threshold = float(sys.argv[3]) if len(sys.argv) == 4 else DEFAULT_THRESHOLD
+
+    regressions = 0
+    for key in sorted(old.keys() | new.keys()):
+        name = key[0] + (f" [{key[1]}]" if key[1] else "")
+        if key not in new:
+            print(f"  已删除  {name}")
+            continue
+        if key not in old:
+            print(f"  新增    {name}: {new[key][0]:.3f} {new[key][2]}")
+            continue
+        old_score, old_error, unit, mode = old[key]
+        new_score, new_error, _, _ = new[key]
+        # 吞吐量越大越好，其余模式（耗时）越小越好
+        change = (new_score - old_score) / old_score
+        slower = -change if mode == "thrpt" else change
+        significant = abs(new_score - old_score) > old_error + new_error
+        if slower > threshold and significant:
+            mark = "退化"
+            regressions += 1
+        elif -slower > threshold and significant:
+            mark = "改善"
+        else:
+            mark = ""
+        print(f"{mark:4}  {name}: {old_score:.3f} -> {new_score:.3f} {unit} ({change:+.1%})")
+
+    if regressions:
+        print(f"\n{regressions} 项退化超过 {threshold:.0%}")
+        sys.exit(1)
+
+
+if __name__ == "__main__":
+    main()